@@ -32,4 +32,10 @@ public class ApexLanguageProcessor
         return multifileAnalysis;
     }
 
+    @Override
+    public void close() throws Exception {
+        InternalApiBridge.closeApexMultiFileAnalysis(multifileAnalysis);
+        super.close();
+    }
+
 }
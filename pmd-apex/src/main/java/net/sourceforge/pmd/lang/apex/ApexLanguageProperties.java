@@ -22,9 +22,18 @@ public class ApexLanguageProperties extends LanguagePropertyBundle {
                        .toOptional("")
                        .build();
 
+    public static final PropertyDescriptor<Optional<String>> MULTIFILE_CACHE =
+        PropertyFactory.stringProperty("multifileCache")
+                       .desc("A file in which the issues found by ApexLink are persisted between runs. "
+                                 + "If the project in the root directory did not change, loading it is skipped.")
+                       .defaultValue("")
+                       .toOptional("")
+                       .build();
+
     public ApexLanguageProperties() {
         super(ApexLanguageModule.getInstance());
         definePropertyDescriptor(MULTIFILE_DIRECTORY);
+        definePropertyDescriptor(MULTIFILE_CACHE);
     }
 
 
@@ -4,6 +4,7 @@
 
 package net.sourceforge.pmd.lang.apex.multifile;
 
+import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -11,11 +12,20 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.SortedMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
 import net.sourceforge.pmd.lang.apex.ApexLanguageProcessor;
 import net.sourceforge.pmd.lang.apex.ApexLanguageProperties;
 
@@ -31,6 +41,10 @@ import io.github.apexdevtools.api.Issue;
  * issues after packages are loaded and throw away the 'Org'. That would be a better model if all you wanted was the
  * issues but more complex rules will need the ability to traverse the internal graph of the 'Org'.
  *
+ * <p>The 'Org' is loaded on a background thread as soon as this object is created, so that parsing
+ * and rules that don't need multifile data are not delayed. Only callers of {@link #getFileIssues(String)}
+ * and {@link #isFailed()} wait for loading to complete.
+ *
  * <p>Note: This is used by {@link net.sourceforge.pmd.lang.apex.rule.design.UnusedMethodRule}.
  *
  * @author Kevin Jones
@@ -40,9 +54,10 @@ public final class ApexMultifileAnalysis {
     // test only
     static final Logger LOG = LoggerFactory.getLogger(ApexMultifileAnalysis.class);
 
-    // Create a new org for each analysis
-    // Null if failed.
-    private final @Nullable Org org;
+    // Create a new org for each analysis. It is loaded on a background thread,
+    // or replaced by a snapshot of its issues if the project did not change.
+    // Completes with null if failed.
+    private final Future<@Nullable OrgIssues> org;
 
     static {
         // Setup logging
@@ -54,33 +69,99 @@ public final class ApexMultifileAnalysis {
 
     ApexMultifileAnalysis(ApexLanguageProperties properties) {
         Optional<String> rootDir = properties.getProperty(ApexLanguageProperties.MULTIFILE_DIRECTORY);
+        Optional<String> snapshotFile = properties.getProperty(ApexLanguageProperties.MULTIFILE_CACHE);
         LOG.debug("MultiFile Analysis created for {}", rootDir);
 
-        Org org = null;
+        if (rootDir.isPresent() && !rootDir.get().isEmpty()) {
+            // Load the package into the org in the background, this can take some time!
+            // Parsing and rules that don't need the org proceed in the meantime.
+            Path snapshotPath = snapshotFile.filter(it -> !it.isEmpty()).map(Paths::get).orElse(null);
+            FutureTask<OrgIssues> loadTask = new FutureTask<>(() -> loadOrgTimed(rootDir.get(), snapshotPath));
+            Thread loader = new Thread(loadTask, "PMD-ApexLink-Org-Loader");
+            loader.setDaemon(true);
+            loader.start();
+            this.org = loadTask;
+        } else {
+            this.org = CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static @Nullable OrgIssues loadOrgTimed(String rootDir, @Nullable Path snapshotFile) {
+        TimeTracker.initThread();
+        try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.LANGUAGE_SPECIFIC_PROCESSING, "ApexLink Org loading")) {
+            return loadOrgIssues(rootDir, snapshotFile);
+        } finally {
+            TimeTracker.finishThread();
+        }
+    }
+
+    private static @Nullable OrgIssues loadOrgIssues(String rootDir, @Nullable Path snapshotFile) {
+        Path projectPath = Paths.get(rootDir);
+        Path sfdxProjectJson = projectPath.resolve("sfdx-project.json");
+
+        // Limit analysis to SFDX Projects
+        // MDAPI analysis is currently supported but is expected to be deprecated soon
+        if (!Files.isDirectory(projectPath) || !Files.isRegularFile(sfdxProjectJson)) {
+            LOG.info("Missing project file at {}", sfdxProjectJson);
+            return null;
+        }
+
+        if (snapshotFile == null) {
+            Org org = loadOrg(rootDir, sfdxProjectJson);
+            return org == null ? null : org.issues()::issuesForFile;
+        }
+
+        SortedMap<String, Long> fingerprint;
+        try {
+            fingerprint = ApexOrgSnapshot.fingerprintProject(projectPath, snapshotFile);
+        } catch (IOException e) {
+            LOG.warn("Could not fingerprint project {}, not using the ApexLink snapshot ({})", projectPath, e.getMessage());
+            Org org = loadOrg(rootDir, sfdxProjectJson);
+            return org == null ? null : org.issues()::issuesForFile;
+        }
+
+        ApexOrgSnapshot snapshot = null;
         try {
-            // Load the package into the org, this can take some time!
-            if (rootDir.isPresent() && !rootDir.get().isEmpty()) {
-                Path projectPath = Paths.get(rootDir.get());
-                Path sfdxProjectJson = projectPath.resolve("sfdx-project.json");
-
-                // Limit analysis to SFDX Projects
-                // MDAPI analysis is currently supported but is expected to be deprecated soon
-                if (Files.isDirectory(projectPath) && Files.isRegularFile(sfdxProjectJson)) {
-                    org = Org.newOrg(rootDir.get());
-
-                    // FIXME: Syntax & Semantic errors found during Org loading are not currently being reported. These
-                    // should be routed to the new SemanticErrorReporter but that is not available for use just yet.
-                    // Specifically we should check sfdx-project.json was ok as errors will disable further analysis
-                    Issue[] projectErrors =
-                            Arrays.stream(org.issues().issuesForFile(sfdxProjectJson.toString()))
-                                    .filter(Issue::isError).toArray(Issue[]::new);
-                    Arrays.stream(projectErrors).forEach(issue -> LOG.info(issue.toString()));
-                    if (projectErrors.length != 0) {
-                        org = null;
-                    }
-                } else {
-                    LOG.info("Missing project file at {}", sfdxProjectJson);
-                }
+            snapshot = ApexOrgSnapshot.load(snapshotFile);
+        } catch (IOException e) {
+            LOG.warn("ApexLink snapshot {} is malformed, will not be used for current analysis ({})", snapshotFile, e.getMessage());
+        }
+
+        if (snapshot != null) {
+            if (snapshot.matches(fingerprint)) {
+                LOG.debug("Project {} is unchanged, using ApexLink snapshot {}", projectPath, snapshotFile);
+                return snapshot::issuesForFile;
+            }
+            // Issues like unused methods depend on other files, so the whole org needs to be reloaded.
+            LOG.debug("{} files changed since ApexLink snapshot {} was taken, reloading org",
+                      snapshot.countChangedFiles(fingerprint), snapshotFile);
+        }
+
+        Org org = loadOrg(rootDir, sfdxProjectJson);
+        if (org == null) {
+            return null;
+        }
+        try {
+            ApexOrgSnapshot.fromOrg(org, fingerprint).save(snapshotFile);
+        } catch (IOException e) {
+            LOG.warn("Could not persist ApexLink snapshot to {} ({})", snapshotFile, e.getMessage());
+        }
+        return org.issues()::issuesForFile;
+    }
+
+    private static @Nullable Org loadOrg(String rootDir, Path sfdxProjectJson) {
+        try {
+            Org org = Org.newOrg(rootDir);
+
+            // FIXME: Syntax & Semantic errors found during Org loading are not currently being reported. These
+            // should be routed to the new SemanticErrorReporter but that is not available for use just yet.
+            // Specifically we should check sfdx-project.json was ok as errors will disable further analysis
+            Issue[] projectErrors =
+                    Arrays.stream(org.issues().issuesForFile(sfdxProjectJson.toString()))
+                            .filter(Issue::isError).toArray(Issue[]::new);
+            Arrays.stream(projectErrors).forEach(issue -> LOG.info(issue.toString()));
+            if (projectErrors.length == 0) {
+                return org;
             }
         } catch (Exception | ExceptionInInitializerError | NoClassDefFoundError e) {
             // Note: Org.newOrg() will try to find the base Apex Types through the current classloader
@@ -95,7 +176,22 @@ public final class ApexMultifileAnalysis {
             LOG.error("Exception while initializing Apexlink ({})", e.getMessage(), e);
             LOG.error("PMD will not attempt to initialize Apexlink further, this can cause rules like UnusedMethod to be dysfunctional");
         }
-        this.org = org;
+        return null;
+    }
+
+    /**
+     * Waits for the org to be loaded. Returns null if loading failed
+     * or was cancelled.
+     */
+    private @Nullable OrgIssues awaitOrg() {
+        try {
+            return org.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (CancellationException | ExecutionException e) {
+            return null;
+        }
     }
 
     /**
@@ -103,15 +199,38 @@ public final class ApexMultifileAnalysis {
      * This object is then useless. The failed instance is returned
      * from {@link ApexLanguageProcessor#getMultiFileState()} if
      * loading the org failed, maybe because of malformed configuration.
+     * This blocks until the org has finished loading.
      */
     public boolean isFailed() {
-        return org == null;
+        return awaitOrg() == null;
     }
 
+    /**
+     * Returns the issues found by ApexLink for the given file. This
+     * blocks until the org has finished loading.
+     */
     public List<Issue> getFileIssues(String filename) {
         // Extract issues for a specific metadata file from the org
-        return org == null ? Collections.emptyList()
-                           : Collections.unmodifiableList(Arrays.asList(org.issues().issuesForFile(filename)));
+        OrgIssues loaded = awaitOrg();
+        return loaded == null ? Collections.emptyList()
+                              : Collections.unmodifiableList(Arrays.asList(loaded.issuesForFile(filename)));
+    }
+
+    /**
+     * Stops loading the org if it is still in progress. This is
+     * called when the language processor is closed.
+     */
+    void close() {
+        org.cancel(true);
+    }
+
+    /**
+     * Source of the issues of an org, either a loaded {@link Org}, or
+     * an {@link ApexOrgSnapshot}.
+     */
+    @FunctionalInterface
+    private interface OrgIssues {
+        Issue[] issuesForFile(String filename);
     }
 
     /*
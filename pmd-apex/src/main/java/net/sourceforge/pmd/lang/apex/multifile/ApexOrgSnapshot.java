@@ -0,0 +1,363 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.multifile;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.zip.Adler32;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.PMDVersion;
+
+import com.nawforce.apexlink.api.Org;
+import io.github.apexdevtools.api.Issue;
+import io.github.apexdevtools.api.IssueLocation;
+import io.github.apexdevtools.api.Rule;
+
+/**
+ * The issues found by ApexLink in a Salesforce project, keyed by the
+ * fingerprint of the project they were computed from. Snapshots are
+ * persisted on disk so that subsequent runs on an unchanged project
+ * don't need to load the {@link Org} at all.
+ *
+ * <p>The fingerprint is the set of checksums of every file in the project
+ * directory (including {@code sfdx-project.json}), excluding hidden
+ * directories like {@code .sfdx} or {@code .git}, and {@code node_modules}.
+ */
+final class ApexOrgSnapshot {
+
+    private static final Issue[] NO_ISSUES = new Issue[0];
+
+    /** Absolute file path to checksum. */
+    private final SortedMap<String, Long> fingerprint;
+    private final Map<String, Issue[]> issuesByFile;
+
+    private ApexOrgSnapshot(SortedMap<String, Long> fingerprint, Map<String, Issue[]> issuesByFile) {
+        this.fingerprint = fingerprint;
+        this.issuesByFile = issuesByFile;
+    }
+
+    Issue[] issuesForFile(String filename) {
+        // keys are normalized by fingerprintProject
+        return issuesByFile.getOrDefault(normalize(filename), NO_ISSUES);
+    }
+
+    private static String normalize(String filename) {
+        try {
+            return Paths.get(filename).toAbsolutePath().normalize().toString();
+        } catch (InvalidPathException e) {
+            return filename;
+        }
+    }
+
+    /**
+     * Returns true if this snapshot was computed from a project with
+     * the given fingerprint.
+     */
+    boolean matches(SortedMap<String, Long> currentFingerprint) {
+        return fingerprint.equals(currentFingerprint);
+    }
+
+    /**
+     * Returns the number of files that were added, removed, or changed
+     * between this snapshot and the given fingerprint.
+     */
+    int countChangedFiles(SortedMap<String, Long> currentFingerprint) {
+        int changed = 0;
+        for (Map.Entry<String, Long> entry : currentFingerprint.entrySet()) {
+            if (!Objects.equals(fingerprint.get(entry.getKey()), entry.getValue())) {
+                changed++;
+            }
+        }
+        for (String file : fingerprint.keySet()) {
+            if (!currentFingerprint.containsKey(file)) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Collects the issues of a freshly loaded org for every file of
+     * the fingerprint.
+     */
+    static ApexOrgSnapshot fromOrg(Org org, SortedMap<String, Long> fingerprint) {
+        Map<String, Issue[]> issues = new HashMap<>();
+        for (String file : fingerprint.keySet()) {
+            Issue[] fileIssues = org.issues().issuesForFile(file);
+            if (fileIssues.length > 0) {
+                issues.put(file, fileIssues);
+            }
+        }
+        return new ApexOrgSnapshot(fingerprint, issues);
+    }
+
+    /**
+     * Computes the checksum of every file of the project, keyed by
+     * absolute path.
+     *
+     * @param projectDir Root directory of the project
+     * @param exclude    A file to exclude, eg the snapshot file itself, may be null
+     */
+    static SortedMap<String, Long> fingerprintProject(Path projectDir, @Nullable Path exclude) throws IOException {
+        SortedMap<String, Long> checksums = new TreeMap<>();
+        Path excludedFile = exclude == null ? null : exclude.toAbsolutePath().normalize();
+        Files.walkFileTree(projectDir.toAbsolutePath().normalize(), new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+                Path name = dir.getFileName();
+                if (name != null && (name.toString().startsWith(".") || "node_modules".equals(name.toString()))) {
+                    return FileVisitResult.SKIP_SUBTREE;
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (attrs.isRegularFile() && !file.equals(excludedFile)) {
+                    checksums.put(file.toString(), checksum(file));
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return checksums;
+    }
+
+    private static long checksum(Path file) throws IOException {
+        Adler32 adler32 = new Adler32();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                adler32.update(buffer, 0, read);
+            }
+        }
+        return adler32.getValue();
+    }
+
+    /**
+     * Loads a snapshot from the given file. Returns null if the file
+     * does not exist, or was written by another version of PMD.
+     */
+    static @Nullable ApexOrgSnapshot load(Path snapshotFile) throws IOException {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotFile)))) {
+            if (!PMDVersion.VERSION.equals(in.readUTF())) {
+                return null;
+            }
+
+            int numFiles = in.readInt();
+            SortedMap<String, Long> fingerprint = new TreeMap<>();
+            for (int i = 0; i < numFiles; i++) {
+                fingerprint.put(in.readUTF(), in.readLong());
+            }
+
+            int numFilesWithIssues = in.readInt();
+            Map<String, Issue[]> issuesByFile = new HashMap<>();
+            for (int i = 0; i < numFilesWithIssues; i++) {
+                String file = in.readUTF();
+                Issue[] issues = new Issue[in.readInt()];
+                for (int j = 0; j < issues.length; j++) {
+                    issues[j] = CachedIssue.read(in, file);
+                }
+                issuesByFile.put(file, issues);
+            }
+            return new ApexOrgSnapshot(fingerprint, issuesByFile);
+        }
+    }
+
+    /**
+     * Writes this snapshot to the given file. The snapshot is written
+     * to a temporary file first, then moved in place, so that concurrent
+     * runs never read a partially written snapshot.
+     */
+    void save(Path snapshotFile) throws IOException {
+        Path parent = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tempFile = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            write(tempFile);
+            try {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    private void write(Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeUTF(PMDVersion.VERSION);
+
+            out.writeInt(fingerprint.size());
+            for (Map.Entry<String, Long> entry : fingerprint.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+
+            out.writeInt(issuesByFile.size());
+            for (Map.Entry<String, Issue[]> entry : issuesByFile.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().length);
+                for (Issue issue : entry.getValue()) {
+                    CachedIssue.write(out, issue);
+                }
+            }
+        }
+    }
+
+    /**
+     * An issue read back from a snapshot.
+     */
+    private static final class CachedIssue extends Issue {
+
+        private final String provider;
+        private final String filePath;
+        private final IssueLocation location;
+        private final Rule rule;
+        private final boolean isError;
+        private final String message;
+
+        private CachedIssue(String provider, String filePath, IssueLocation location, Rule rule, boolean isError, String message) {
+            this.provider = provider;
+            this.filePath = filePath;
+            this.location = location;
+            this.rule = rule;
+            this.isError = isError;
+            this.message = message;
+        }
+
+        static void write(DataOutputStream out, Issue issue) throws IOException {
+            out.writeUTF(issue.provider());
+            out.writeUTF(issue.rule().name());
+            out.writeInt(issue.rule().priority());
+            out.writeBoolean(issue.isError());
+            out.writeUTF(issue.message());
+            IssueLocation location = issue.fileLocation();
+            out.writeInt(location.startLineNumber());
+            out.writeInt(location.startCharOffset());
+            out.writeInt(location.endLineNumber());
+            out.writeInt(location.endCharOffset());
+        }
+
+        static Issue read(DataInputStream in, String filePath) throws IOException {
+            String provider = in.readUTF();
+            Rule rule = new CachedRule(in.readUTF(), in.readInt());
+            boolean isError = in.readBoolean();
+            String message = in.readUTF();
+            IssueLocation location = new CachedIssueLocation(in.readInt(), in.readInt(), in.readInt(), in.readInt());
+            return new CachedIssue(provider, filePath, location, rule, isError, message);
+        }
+
+        @Override
+        public String provider() {
+            return provider;
+        }
+
+        @Override
+        public String filePath() {
+            return filePath;
+        }
+
+        @Override
+        public IssueLocation fileLocation() {
+            return location;
+        }
+
+        @Override
+        public Rule rule() {
+            return rule;
+        }
+
+        @Override
+        public Boolean isError() {
+            return isError;
+        }
+
+        @Override
+        public String message() {
+            return message;
+        }
+    }
+
+    private static final class CachedIssueLocation extends IssueLocation {
+
+        private final int startLine;
+        private final int startOffset;
+        private final int endLine;
+        private final int endOffset;
+
+        CachedIssueLocation(int startLine, int startOffset, int endLine, int endOffset) {
+            this.startLine = startLine;
+            this.startOffset = startOffset;
+            this.endLine = endLine;
+            this.endOffset = endOffset;
+        }
+
+        @Override
+        public int startLineNumber() {
+            return startLine;
+        }
+
+        @Override
+        public int startCharOffset() {
+            return startOffset;
+        }
+
+        @Override
+        public int endLineNumber() {
+            return endLine;
+        }
+
+        @Override
+        public int endCharOffset() {
+            return endOffset;
+        }
+    }
+
+    private static final class CachedRule implements Rule {
+
+        private final String name;
+        private final Integer priority;
+
+        CachedRule(String name, int priority) {
+            this.name = name;
+            this.priority = priority;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public Integer priority() {
+            return priority;
+        }
+    }
+}
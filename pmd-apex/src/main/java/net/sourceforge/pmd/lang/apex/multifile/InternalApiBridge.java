@@ -25,4 +25,8 @@ public final class InternalApiBridge {
     public static ApexMultifileAnalysis createApexMultiFileAnalysis(ApexLanguageProperties properties) {
         return new ApexMultifileAnalysis(properties);
     }
+
+    public static void closeApexMultiFileAnalysis(ApexMultifileAnalysis analysis) {
+        analysis.close();
+    }
 }
@@ -0,0 +1,86 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.apex.multifile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SortedMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.nawforce.apexlink.api.Org;
+import io.github.apexdevtools.api.Issue;
+
+class ApexOrgSnapshotTest {
+
+    private static final String CLASS_FILE = "force-app/MetadataDeployController.cls";
+
+    @TempDir
+    private Path tempFolder;
+
+    @Test
+    void testIssuesAreFoundForUnnormalizedRoot() throws Exception {
+        copyResource("correctSfdxFile.json", "sfdx-project.json");
+        copyResource("MetadataDeployController.cls", CLASS_FILE);
+        Files.createDirectories(tempFolder.resolve("sub"));
+        Path root = tempFolder.resolve("sub").resolve("..");
+        Path snapshotFile = root.resolve("cache").resolve("apexlink.snapshot");
+
+        SortedMap<String, Long> fingerprint = ApexOrgSnapshot.fingerprintProject(root, snapshotFile);
+        Org org = Org.newOrg(tempFolder.toAbsolutePath().normalize().toString());
+        Issue[] orgIssues = org.issues().issuesForFile(tempFolder.resolve(CLASS_FILE).toAbsolutePath().normalize().toString());
+        assertNotEquals(0, orgIssues.length);
+        ApexOrgSnapshot.fromOrg(org, fingerprint).save(snapshotFile);
+
+        ApexOrgSnapshot snapshot = ApexOrgSnapshot.load(snapshotFile);
+        assertNotNull(snapshot);
+        assertTrue(snapshot.matches(ApexOrgSnapshot.fingerprintProject(root, snapshotFile)));
+        // the analyzed files are identified by the path they were found under
+        Issue[] snapshotIssues = snapshot.issuesForFile(root.resolve(CLASS_FILE).toString());
+        assertArrayEquals(messages(orgIssues), messages(snapshotIssues));
+    }
+
+    @Test
+    void testSaveLeavesNoTemporaryFile() throws Exception {
+        copyResource("correctSfdxFile.json", "sfdx-project.json");
+        Path snapshotFile = tempFolder.resolve("apexlink.snapshot");
+
+        SortedMap<String, Long> fingerprint = ApexOrgSnapshot.fingerprintProject(tempFolder, snapshotFile);
+        Org org = Org.newOrg(tempFolder.toAbsolutePath().toString());
+        ApexOrgSnapshot.fromOrg(org, fingerprint).save(snapshotFile);
+        // overwriting an existing snapshot
+        ApexOrgSnapshot.fromOrg(org, fingerprint).save(snapshotFile);
+
+        try (Stream<Path> files = Files.list(tempFolder)) {
+            assertEquals(Arrays.asList("apexlink.snapshot", "sfdx-project.json"),
+                         files.map(it -> it.getFileName().toString()).sorted().collect(Collectors.toList()));
+        }
+        assertNotNull(ApexOrgSnapshot.load(snapshotFile));
+    }
+
+    private static String[] messages(Issue[] issues) {
+        return Arrays.stream(issues).map(Issue::message).sorted().toArray(String[]::new);
+    }
+
+    private void copyResource(String resourcePath, String relativePathInTempDir) throws IOException {
+        Path file = tempFolder.resolve(relativePathInTempDir);
+        Files.createDirectories(file.getParent());
+        try (InputStream in = getClass().getResourceAsStream(resourcePath)) {
+            Files.copy(in, file);
+        }
+    }
+}
@@ -5,10 +5,13 @@
 package net.sourceforge.pmd.lang.apex.rule.design;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
 import java.util.Optional;
 
 import org.junit.jupiter.api.Test;
@@ -43,12 +46,34 @@ class UnusedMethodTest {
         assertViolation(report.getViolations().get(0), "Foo.cls", 10); // line 10 is method unusedMethod()
     }
 
+    @Test
+    void findUnusedMethodsWithOrgSnapshot() throws Exception {
+        Path testProjectDir = Paths.get("src/test/resources/net/sourceforge/pmd/lang/apex/rule/design/UnusedMethod/project1");
+        Path snapshot = tempDir.resolve("snapshot/apexlink.bin");
+
+        Report report = runRule(testProjectDir, Optional.of(snapshot.toString()));
+        assertEquals(1, report.getViolations().size());
+        assertViolation(report.getViolations().get(0), "Foo.cls", 10);
+        assertTrue(Files.isRegularFile(snapshot));
+        FileTime snapshotTime = Files.getLastModifiedTime(snapshot);
+
+        // the project is unchanged, the issues are read from the snapshot
+        report = runRule(testProjectDir, Optional.of(snapshot.toString()));
+        assertEquals(1, report.getViolations().size());
+        assertViolation(report.getViolations().get(0), "Foo.cls", 10);
+        assertEquals(snapshotTime, Files.getLastModifiedTime(snapshot));
+    }
+
     private void assertViolation(RuleViolation violation, String fileName, int lineNumber) {
         assertEquals(fileName, violation.getFileId().getFileName());
         assertEquals(lineNumber, violation.getBeginLine());
     }
 
     private Report runRule(Path testProjectDir) throws IOException {
+        return runRule(testProjectDir, Optional.empty());
+    }
+
+    private Report runRule(Path testProjectDir, Optional<String> snapshotFile) throws IOException {
         Option<PathLike> pathLikeOption = Option.apply(new com.nawforce.runtime.platform.Path(tempDir));
         Option<Option<PathLike>> cachDirOption = Option.apply(pathLikeOption);
         Environment.setCacheDirOverride(cachDirOption);
@@ -62,6 +87,7 @@ class UnusedMethodTest {
         configuration.prependAuxClasspath(".");
 
         configuration.getLanguageProperties(apexLanguage).setProperty(ApexLanguageProperties.MULTIFILE_DIRECTORY, Optional.of(testProjectDir.toString()));
+        configuration.getLanguageProperties(apexLanguage).setProperty(ApexLanguageProperties.MULTIFILE_CACHE, snapshotFile);
 
         RuleSet parsedRset = new RuleSetLoader().warnDeprecated(false).loadFromResource("category/apex/design.xml");
         Rule rule = parsedRset.getRuleByName("UnusedMethod");
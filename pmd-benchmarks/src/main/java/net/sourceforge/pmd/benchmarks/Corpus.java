@@ -0,0 +1,140 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+/**
+ * The source files the benchmarks run on, grouped by language id.
+ *
+ * <p>By default this is the pinned corpus bundled with this module
+ * (see {@code corpus/index.txt}), which doesn't change from one PMD version
+ * to the next, so that results are comparable. Another corpus can be
+ * used by setting the system property {@value #CORPUS_PROPERTY} to a
+ * directory that contains one subdirectory per language id, eg
+ * {@code java/}, {@code apex/}. All files in those subdirectories are
+ * part of the corpus.
+ */
+final class Corpus {
+
+    static final String CORPUS_PROPERTY = "pmd.benchmarks.corpus";
+
+    private static final String BUNDLED_CORPUS = "net/sourceforge/pmd/benchmarks/corpus/";
+
+    /** Language id to (file name to contents). */
+    private final Map<String, Map<String, String>> filesByLanguage;
+
+    private Corpus(Map<String, Map<String, String>> filesByLanguage) {
+        this.filesByLanguage = filesByLanguage;
+    }
+
+    /** Returns the ids of the languages that have at least one file. */
+    Set<String> getLanguageIds() {
+        return Collections.unmodifiableSet(filesByLanguage.keySet());
+    }
+
+    /**
+     * Returns a new document for each file of the given language,
+     * in a stable order.
+     */
+    List<TextDocument> getDocuments(LanguageVersion version) {
+        String languageId = version.getLanguage().getId();
+        List<TextDocument> documents = new ArrayList<>();
+        filesByLanguage.getOrDefault(languageId, Collections.emptyMap()).forEach(
+            (name, text) -> documents.add(TextDocument.readOnlyString(text, FileId.fromPathLikeString(languageId + "/" + name), version))
+        );
+        return documents;
+    }
+
+    /**
+     * Loads the corpus selected by the system property {@value #CORPUS_PROPERTY},
+     * or the bundled corpus if it is not set.
+     */
+    static Corpus load() {
+        String dir = System.getProperty(CORPUS_PROPERTY);
+        try {
+            return dir == null ? loadBundled() : loadDirectory(Paths.get(dir));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load benchmark corpus", e);
+        }
+    }
+
+    private static Corpus loadBundled() throws IOException {
+        Map<String, Map<String, String>> files = new TreeMap<>();
+        try (BufferedReader index = new BufferedReader(new InputStreamReader(openResource("index.txt"), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = index.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                int slash = line.indexOf('/');
+                try (InputStream in = openResource(line)) {
+                    files.computeIfAbsent(line.substring(0, slash), k -> new TreeMap<>())
+                         .put(line.substring(slash + 1), readFully(in));
+                }
+            }
+        }
+        return new Corpus(files);
+    }
+
+    private static InputStream openResource(String path) throws IOException {
+        InputStream in = Corpus.class.getClassLoader().getResourceAsStream(BUNDLED_CORPUS + path);
+        if (in == null) {
+            throw new IOException("Missing corpus resource " + BUNDLED_CORPUS + path);
+        }
+        return in;
+    }
+
+    private static String readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Corpus loadDirectory(Path root) throws IOException {
+        Map<String, Map<String, String>> files = new TreeMap<>();
+        try (Stream<Path> languageDirs = Files.list(root)) {
+            for (Path languageDir : languageDirs.filter(Files::isDirectory).collect(Collectors.toList())) {
+                Map<String, String> languageFiles = new TreeMap<>();
+                try (Stream<Path> sources = Files.walk(languageDir)) {
+                    for (Path source : sources.filter(Files::isRegularFile).collect(Collectors.toList())) {
+                        String name = languageDir.relativize(source).toString().replace('\\', '/');
+                        languageFiles.put(name, new String(Files.readAllBytes(source), StandardCharsets.UTF_8));
+                    }
+                }
+                if (!languageFiles.isEmpty()) {
+                    files.put(languageDir.getFileName().toString(), languageFiles);
+                }
+            }
+        }
+        return new Corpus(files);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.RootNode;
+
+/**
+ * Measures the traversals that rules like CloseResource do in each
+ * method of the Java corpus: a descendant stream looking for a node
+ * type that may be rare, eg synchronized statements, or frequent, eg
+ * method calls. The first iteration also computes the subtree summaries
+ * that later ones use to skip subtrees.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DescendantStreamBenchmark {
+
+    private static final String JAVA_AST_PACKAGE = "net.sourceforge.pmd.lang.java.ast.";
+
+    /** Simple name of the node class to look for. */
+    @Param({"ASTSynchronizedStatement", "ASTTryStatement", "ASTMethodCall"})
+    public String target;
+
+    private LanguageFixture fixture;
+    private List<Node> methods;
+    private Class<? extends Node> targetClass;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ClassNotFoundException {
+        fixture = LanguageFixture.forLanguage("java");
+        Class<? extends Node> methodClass = Class.forName(JAVA_AST_PACKAGE + "ASTMethodDeclaration").asSubclass(Node.class);
+        targetClass = Class.forName(JAVA_AST_PACKAGE + target).asSubclass(Node.class);
+        methods = new ArrayList<>();
+        for (RootNode root : fixture.parseAll()) {
+            methods.addAll(root.descendants(methodClass).crossFindBoundaries().toList());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public int countDescendants() {
+        int count = 0;
+        for (Node method : methods) {
+            count += method.descendants(targetClass).count();
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int firstDescendant() {
+        int count = 0;
+        for (Node method : methods) {
+            if (method.descendants(targetClass).first() != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.lang.TokenManager;
+import net.sourceforge.pmd.lang.ast.impl.javacc.CharStream;
+import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccToken;
+import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccTokenDocument;
+import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccTokenDocument.TokenDocumentBehavior;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.java.ast.InternalApiBridge;
+import net.sourceforge.pmd.lang.java.ast.JavaTokenKinds;
+
+/**
+ * Measures the memory used by the JavaCC tokens of the Java corpus,
+ * depending on whether token images are sliced from the document when
+ * requested ({@code sliced}, the default), or stored in each token when
+ * it is created ({@code stored}). Run it with the GC profiler, eg
+ * {@code java -jar pmd-benchmarks.jar JavaccToken -prof gc}, and compare
+ * the {@code gc.alloc.rate.norm} of both variants, which is the number
+ * of bytes allocated per operation.
+ *
+ * <p>All the tokens created by {@link #tokenize(Blackhole) tokenize}
+ * are retained by the tree of the file during its whole analysis, so
+ * its allocations are also the memory retained by the tokens. Sliced
+ * images are allocated again whenever they are requested, which
+ * {@link #tokenizeAndReadImages(Blackhole) tokenizeAndReadImages}
+ * accounts for by requesting the image of every token once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JavaccTokenBenchmark {
+
+    @Param({"sliced", "stored"})
+    public String images;
+
+    private LanguageFixture fixture;
+    private List<TextDocument> documents;
+    private TokenDocumentBehavior behavior;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = LanguageFixture.forLanguage("java");
+        documents = fixture.getDocuments();
+        behavior = "stored".equals(images) ? new StoredImageBehavior() : InternalApiBridge.javaTokenDoc();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void tokenize(Blackhole bh) {
+        for (TextDocument document : documents) {
+            TokenManager<JavaccToken> tokens = JavaTokenKinds.newTokenManager(CharStream.create(document, behavior));
+            for (JavaccToken token = tokens.getNextToken(); token.kind != JavaTokenKinds.EOF; token = tokens.getNextToken()) {
+                bh.consume(token);
+            }
+        }
+    }
+
+    @Benchmark
+    public void tokenizeAndReadImages(Blackhole bh) {
+        for (TextDocument document : documents) {
+            TokenManager<JavaccToken> tokens = JavaTokenKinds.newTokenManager(CharStream.create(document, behavior));
+            for (JavaccToken token = tokens.getNextToken(); token.kind != JavaTokenKinds.EOF; token = tokens.getNextToken()) {
+                bh.consume(token.getImageCs());
+            }
+        }
+    }
+
+    /**
+     * Stores the image of every token when it is created, as tokens did
+     * before images were sliced from the document.
+     */
+    private static final class StoredImageBehavior extends TokenDocumentBehavior {
+
+        private final TokenDocumentBehavior java = InternalApiBridge.javaTokenDoc();
+
+        StoredImageBehavior() {
+            super(JavaTokenKinds.TOKEN_NAMES);
+        }
+
+        @Override
+        public TextDocument translate(TextDocument text) {
+            return java.translate(text);
+        }
+
+        @Override
+        public JavaccToken createToken(JavaccTokenDocument self, int kind, CharStream cs, @Nullable String image) {
+            if (image == null) {
+                return new JavaccToken(kind, cs.getTokenImageCs(), cs.getStartOffset(), cs.getEndOffset(), self);
+            }
+            return java.createToken(self, kind, cs, image);
+        }
+    }
+}
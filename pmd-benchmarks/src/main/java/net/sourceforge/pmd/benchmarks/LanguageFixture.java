@@ -0,0 +1,160 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageProcessor;
+import net.sourceforge.pmd.lang.LanguageProcessorRegistry;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.ast.Parser.ParserTask;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.ast.SemanticErrorReporter;
+import net.sourceforge.pmd.lang.document.TextDocument;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.RuleSetLoader;
+import net.sourceforge.pmd.util.log.PmdReporter;
+
+/**
+ * The language processors and corpus documents for a single language.
+ * This replicates what {@link net.sourceforge.pmd.PmdAnalysis} does for
+ * each file, without the file collection, caching and reporting parts.
+ */
+final class LanguageFixture implements AutoCloseable {
+
+    private final Language language;
+    private final LanguageProcessorRegistry processors;
+    private final LanguageProcessor processor;
+    private final List<TextDocument> documents;
+
+    private LanguageFixture(Language language, Corpus corpus) {
+        this.language = language;
+        this.processors = LanguageProcessorRegistry.create(LanguageRegistry.PMD.getDependenciesOf(language),
+                                                           Collections.emptyMap(),
+                                                           PmdReporter.quiet());
+        this.processor = processors.getProcessor(language);
+        this.documents = corpus.getDocuments(processor.getLanguageVersion());
+        if (documents.isEmpty()) {
+            throw new IllegalStateException("The benchmark corpus has no file for language " + language.getId());
+        }
+    }
+
+    static LanguageFixture forLanguage(String languageId) {
+        return new LanguageFixture(getLanguage(languageId), Corpus.load());
+    }
+
+    static Language getLanguage(String languageId) {
+        Language language = LanguageRegistry.PMD.getLanguageById(languageId);
+        if (language == null) {
+            throw new IllegalArgumentException("Unknown language '" + languageId + "', available languages are "
+                                                   + LanguageRegistry.PMD.commaSeparatedList(Language::getId));
+        }
+        return language;
+    }
+
+    LanguageVersion getLanguageVersion() {
+        return processor.getLanguageVersion();
+    }
+
+    List<TextDocument> getDocuments() {
+        return documents;
+    }
+
+    RootNode parse(TextDocument document) {
+        ParserTask task = new ParserTask(document, SemanticErrorReporter.noop(), processors);
+        return processor.services().getParser().parse(task);
+    }
+
+    List<RootNode> parseAll() {
+        List<RootNode> roots = new ArrayList<>(documents.size());
+        for (TextDocument document : documents) {
+            roots.add(parse(document));
+        }
+        return roots;
+    }
+
+    /**
+     * Loads the rule with the given name from a category ruleset,
+     * and initializes it like PMD does before the analysis.
+     */
+    Rule loadRule(String categoryRuleset, String ruleName) {
+        Rule rule = new RuleSetLoader().loadFromResource(categoryRuleset).getRuleByName(ruleName);
+        if (rule == null) {
+            throw new IllegalArgumentException("No rule named " + ruleName + " in " + categoryRuleset);
+        }
+        rule.initialize(processors.getProcessor(rule.getLanguage()));
+        return rule;
+    }
+
+    /**
+     * Loads and initializes all the rules of the category rulesets of
+     * this language.
+     */
+    List<Rule> loadAllRules() {
+        List<Rule> rules = new ArrayList<>();
+        RuleSetLoader loader = new RuleSetLoader();
+        for (String categoryRuleset : getCategoryRulesets(language)) {
+            for (Rule rule : loader.loadFromResource(categoryRuleset).getRules()) {
+                rule.initialize(processors.getProcessor(rule.getLanguage()));
+                rules.add(rule);
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * Returns the rule references of all rules in the category rulesets
+     * of the language, in the format expected by {@link RuleBenchmark}.
+     */
+    static List<String> getRuleReferences(Language language) {
+        List<String> references = new ArrayList<>();
+        RuleSetLoader loader = new RuleSetLoader();
+        for (String categoryRuleset : getCategoryRulesets(language)) {
+            RuleSet ruleSet = loader.loadFromResource(categoryRuleset);
+            for (Rule rule : ruleSet.getRules()) {
+                references.add(categoryRuleset + "/" + rule.getName());
+            }
+        }
+        return references;
+    }
+
+    /**
+     * Returns the category rulesets of the language, eg {@code category/java/bestpractices.xml},
+     * as listed in its {@code categories.properties}.
+     */
+    static List<String> getCategoryRulesets(Language language) {
+        String path = "category/" + language.getId() + "/categories.properties";
+        Properties props = new Properties();
+        try (InputStream in = LanguageFixture.class.getClassLoader().getResourceAsStream(path)) {
+            if (in == null) {
+                return Collections.emptyList();
+            }
+            props.load(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<String> rulesets = new ArrayList<>();
+        for (String ruleset : props.getProperty("rulesets.filenames", "").split(",")) {
+            if (!ruleset.trim().isEmpty()) {
+                rulesets.add(ruleset.trim());
+            }
+        }
+        return rulesets;
+    }
+
+    @Override
+    public void close() {
+        processors.close();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+/**
+ * Measures the time it takes to parse the whole corpus of a language,
+ * including the additional processing passes done by the parser,
+ * eg symbol table and type resolution for Java.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({"apex", "ecmascript", "html", "java", "jsp", "kotlin", "modelica", "plsql",
+            "pom", "scala", "swift", "velocity", "visualforce", "xml"})
+    public String language;
+
+    private LanguageFixture fixture;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = LanguageFixture.forLanguage(language);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void parse(Blackhole bh) {
+        for (TextDocument document : fixture.getDocuments()) {
+            bh.consume(fixture.parse(document));
+        }
+    }
+}
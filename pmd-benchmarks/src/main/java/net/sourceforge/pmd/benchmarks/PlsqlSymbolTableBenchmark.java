@@ -0,0 +1,89 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextDocument;
+
+/**
+ * Parses a generated PL/SQL package body with many declarations, to
+ * measure the cost of building the symbol table and resolving names
+ * in large scopes. The corpus files are too small for that cost to
+ * show up in the {@link ParserBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlsqlSymbolTableBenchmark {
+
+    /** Number of package-level variables, and of procedures. */
+    @Param({"100", "1000"})
+    public int declarations;
+
+    private LanguageFixture fixture;
+    private TextDocument document;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = LanguageFixture.forLanguage("plsql");
+        document = TextDocument.readOnlyString(generatePackage(declarations),
+                                               FileId.fromPathLikeString("plsql/generated_pkg.pkb"),
+                                               fixture.getLanguageVersion());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public RootNode parse() {
+        return fixture.parse(document);
+    }
+
+    /**
+     * Each procedure declares locals, and reads package variables
+     * and locals with mixed case, so that every lookup walks up to
+     * the package scope or matches in a scope with many names.
+     */
+    static String generatePackage(int size) {
+        StringBuilder sb = new StringBuilder("CREATE OR REPLACE PACKAGE BODY generated_pkg AS\n");
+        for (int i = 0; i < size; i++) {
+            sb.append("  g_var").append(i).append(" t_tab;\n");
+        }
+        for (int i = 0; i < size; i++) {
+            sb.append("  PROCEDURE proc").append(i).append("(p_arg IN NUMBER) IS\n");
+            for (int j = 0; j < 10; j++) {
+                sb.append("    l_var").append(j).append(" t_tab;\n");
+            }
+            sb.append("  BEGIN\n");
+            for (int j = 0; j < 10; j++) {
+                sb.append("    x := L_VAR").append(j).append("(p_arg).a + G_Var").append((i + j) % size).append("(p_arg).b;\n");
+            }
+            sb.append("  END proc").append(i).append(";\n");
+        }
+        return sb.append("END generated_pkg;\n").toString();
+    }
+}
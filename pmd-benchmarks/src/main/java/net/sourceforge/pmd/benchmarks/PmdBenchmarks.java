@@ -0,0 +1,81 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import net.sourceforge.pmd.PMDVersion;
+
+/**
+ * Entry point of the benchmark jar. This accepts the same options as
+ * the standard JMH launcher ({@code -h} lists them), with the following
+ * defaults:
+ * <ul>
+ * <li>Results are written as JSON to {@code pmd-benchmarks-<PMD version>.json},
+ * so that results of different PMD versions can be compared with any
+ * JMH result viewer. Use {@code -rf} and {@code -rff} to change that.
+ * <li>{@link RuleBenchmark} is run for every rule of the category rulesets
+ * of the benchmarked languages, instead of the sample rules it declares.
+ * Use {@code -p language=java,apex} to restrict the languages, and
+ * {@code -p rule=...} to select specific rules.
+ * </ul>
+ *
+ * <p>For example, {@code java -jar pmd-benchmarks.jar Parser -p language=java}
+ * only runs the parser benchmark on the Java corpus.
+ */
+public final class PmdBenchmarks {
+
+    private PmdBenchmarks() {
+        // utility class
+    }
+
+    public static void main(String[] args) throws IOException, RunnerException, CommandLineOptionException {
+        CommandLineOptions cmdOptions = new CommandLineOptions(args);
+        if (cmdOptions.shouldHelp() || cmdOptions.shouldList() || cmdOptions.shouldListWithParams()
+            || cmdOptions.shouldListProfilers() || cmdOptions.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        ChainedOptionsBuilder options = new OptionsBuilder().parent(cmdOptions);
+        if (!cmdOptions.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!cmdOptions.getResult().hasValue()) {
+            ResultFormatType format = cmdOptions.getResultFormat().orElse(ResultFormatType.JSON);
+            options.result("pmd-benchmarks-" + PMDVersion.VERSION + "." + format.toString().toLowerCase());
+        }
+        if (!cmdOptions.getParameter("rule").hasValue()) {
+            options.param("rule", allRules(selectedLanguages(cmdOptions)).toArray(new String[0]));
+        }
+        new Runner(options.build()).run();
+    }
+
+    private static Collection<String> selectedLanguages(CommandLineOptions cmdOptions) {
+        if (cmdOptions.getParameter("language").hasValue()) {
+            return cmdOptions.getParameter("language").get();
+        }
+        return Corpus.load().getLanguageIds();
+    }
+
+    private static List<String> allRules(Collection<String> languageIds) {
+        List<String> rules = new ArrayList<>();
+        for (String languageId : languageIds) {
+            rules.addAll(LanguageFixture.getRuleReferences(LanguageFixture.getLanguage(languageId)));
+        }
+        return rules;
+    }
+}
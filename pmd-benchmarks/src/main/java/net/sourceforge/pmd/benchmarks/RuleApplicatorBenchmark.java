@@ -0,0 +1,69 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.rule.internal.RuleApplicator;
+
+/**
+ * Measures the time it takes to index the ASTs of the corpus of a
+ * language with {@link RuleApplicator#index(RootNode)}, for an applicator
+ * built from all the rules of the category rulesets of the language.
+ * Indexing is done once per file before any rule is applied.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RuleApplicatorBenchmark {
+
+    @Param({"apex", "ecmascript", "html", "java", "jsp", "kotlin", "modelica", "plsql",
+            "pom", "scala", "swift", "velocity", "visualforce", "xml"})
+    public String language;
+
+    private LanguageFixture fixture;
+    private List<RootNode> roots;
+    private RuleApplicator applicator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        fixture = LanguageFixture.forLanguage(language);
+        roots = fixture.parseAll();
+        applicator = RuleApplicator.build(fixture.loadAllRules());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void index(Blackhole bh) {
+        for (RootNode root : roots) {
+            applicator.index(root);
+        }
+        bh.consume(applicator);
+    }
+}
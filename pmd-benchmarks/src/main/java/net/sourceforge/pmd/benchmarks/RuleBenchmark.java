@@ -0,0 +1,107 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.internal.RuleApplicator;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * Measures the time it takes to apply a single rule to the corpus of
+ * its language. The ASTs are parsed and indexed during the setup, so
+ * this only measures {@link RuleApplicator#apply(java.util.Collection, FileAnalysisListener)}.
+ *
+ * <p>The rule is given as the path of its category ruleset followed by
+ * its name, eg {@code category/java/bestpractices.xml/UnusedPrivateField}.
+ * {@link PmdBenchmarks} runs this benchmark for every rule of the category
+ * rulesets, the default parameter values are only a sample.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+
+    @Param({"category/apex/bestpractices.xml/UnusedLocalVariable",
+            "category/ecmascript/codestyle.xml/UnnecessaryBlock",
+            "category/java/bestpractices.xml/UnusedPrivateField",
+            "category/java/design.xml/CognitiveComplexity",
+            "category/java/errorprone.xml/CloseResource",
+            "category/plsql/design.xml/NPathComplexity",
+            "category/xml/errorprone.xml/MistypedCDATASection"})
+    public String rule;
+
+    private LanguageFixture fixture;
+    private List<Rule> rules;
+    private List<RuleApplicator> applicators;
+    private final ViolationCounter listener = new ViolationCounter();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int lastSlash = rule.lastIndexOf('/');
+        String categoryRuleset = rule.substring(0, lastSlash);
+        String ruleName = rule.substring(lastSlash + 1);
+        // category/<language id>/<category>.xml
+        String languageId = categoryRuleset.split("/")[1];
+
+        fixture = LanguageFixture.forLanguage(languageId);
+        rules = Collections.singletonList(fixture.loadRule(categoryRuleset, ruleName));
+
+        // one applicator per file, so that the indexes can be computed beforehand
+        applicators = new ArrayList<>();
+        for (RootNode root : fixture.parseAll()) {
+            RuleApplicator applicator = RuleApplicator.build(rules);
+            applicator.index(root);
+            applicators.add(applicator);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public void apply(Blackhole bh) {
+        for (RuleApplicator applicator : applicators) {
+            applicator.apply(rules, listener);
+        }
+        bh.consume(listener.numViolations);
+    }
+
+    private static final class ViolationCounter implements FileAnalysisListener {
+
+        private int numViolations;
+
+        @Override
+        public void onRuleViolation(RuleViolation violation) {
+            numViolations++;
+        }
+    }
+}
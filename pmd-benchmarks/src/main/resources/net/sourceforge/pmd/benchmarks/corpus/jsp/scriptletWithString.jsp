@@ -0,0 +1,12 @@
+<%--
+BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+--%>
+
+<%
+String nodeContent = "<% %>";
+%>
+<%
+<![cdata[
+String nodeContent = "<% %>";
+]]>
+%>
@@ -0,0 +1,29 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package com.github.shyiko.ktlint.internal
+
+var x = 0
+
+fun increment1() { x += 1 }
+fun increment2() { x += 1 }
+fun increment3() { x += 1 }
+fun increment4() { x += 1 }
+fun increment5() { x += 1 }
+fun increment6() { x += 1 }
+fun increment7() { x += 1 }
+fun increment8() { x += 1 }
+fun increment9() { x += 1 }
+fun increment10() { x += 1 }
+fun increment11() { x += 1 }
+fun increment12() { x += 1 }
+fun increment13() { x += 1 }
+fun increment14() { x += 1 }
+fun increment15() { x += 1 }
+fun increment16() { x += 1 }
+fun increment17() { x += 1 }
+fun increment18() { x += 1 }
+fun increment19() { x += 1 }
+fun increment20() { x += 1 }
+
@@ -0,0 +1,195 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli.commands.internal;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.ConnectException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.cli.PmdCli;
+import net.sourceforge.pmd.cli.internal.CliExitCode;
+
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+@Command(name = "daemon",
+    description = "Manages a background PMD process, in which 'pmd check --daemon' runs analyses "
+        + "without paying for the JVM startup, and with rulesets and the auxclasspath already loaded.",
+    subcommands = { DaemonCommand.Start.class, DaemonCommand.Stop.class,
+        DaemonCommand.Status.class, DaemonCommand.Run.class })
+public class DaemonCommand extends AbstractPmdSubcommand {
+
+    private static final Logger LOG = LoggerFactory.getLogger(DaemonCommand.class);
+
+    @Override
+    protected CliExitCode execute() {
+        spec.commandLine().usage(spec.commandLine().getErr());
+        return CliExitCode.USAGE_ERROR;
+    }
+
+    private abstract static class AbstractDaemonSubcommand extends AbstractPmdSubcommand {
+
+        @Option(names = "--state-file", hidden = true,
+                description = "File in which the daemon writes the port it listens on.")
+        private Path stateFile;
+
+        Path getStateFile() {
+            return stateFile != null ? stateFile : PmdDaemon.defaultStateFile();
+        }
+
+        /**
+         * Sends a command to the running daemon. Returns null if no daemon is running.
+         */
+        @Nullable Integer sendToDaemon(String command) throws IOException {
+            PmdDaemonClient client = PmdDaemonClient.fromStateFile(getStateFile());
+            if (client == null) {
+                return null;
+            }
+            try {
+                return client.send(command, Collections.emptyList(), System.out, System.err);
+            } catch (ConnectException e) {
+                // stale state file, the daemon was killed
+                return null;
+            }
+        }
+    }
+
+    @Command(name = "start", showDefaultValues = true,
+        description = "Starts the PMD daemon in the background, unless it is already running.")
+    static class Start extends AbstractDaemonSubcommand {
+
+        private static final int STARTUP_TIMEOUT_SECONDS = 30;
+
+        @Option(names = "--port", defaultValue = "0",
+                description = "Port of the loopback interface on which the daemon listens. 0 picks a free port.")
+        private int port;
+
+        @Option(names = "--idle-timeout", defaultValue = "180",
+                description = "Number of minutes without request after which the daemon stops. 0 disables the timeout.")
+        private int idleTimeout;
+
+        @Override
+        protected CliExitCode execute() {
+            try {
+                if (sendToDaemon(PmdDaemon.STATUS) != null) {
+                    return CliExitCode.OK;
+                }
+
+                Path stateFile = getStateFile().toAbsolutePath();
+                Files.deleteIfExists(stateFile);
+                Files.createDirectories(stateFile.getParent());
+                Path logFile = stateFile.resolveSibling(stateFile.getFileName().toString().replaceAll("\\.properties$", "") + ".log");
+
+                new ProcessBuilder(daemonCommandLine(stateFile))
+                    .redirectErrorStream(true)
+                    .redirectOutput(logFile.toFile())
+                    .start();
+
+                long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(STARTUP_TIMEOUT_SECONDS);
+                while (System.nanoTime() < deadline) {
+                    if (sendToDaemon(PmdDaemon.STATUS) != null) {
+                        return CliExitCode.OK;
+                    }
+                    Thread.sleep(100);
+                }
+                LOG.error("The PMD daemon did not start within {} seconds, see {}", STARTUP_TIMEOUT_SECONDS, logFile);
+                return CliExitCode.ERROR;
+            } catch (IOException e) {
+                LOG.error("Could not start the PMD daemon", e);
+                return CliExitCode.ERROR;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return CliExitCode.ERROR;
+            }
+        }
+
+        private List<String> daemonCommandLine(Path stateFile) {
+            // start a JVM like this one
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(PmdCli.class.getName());
+            command.add("daemon");
+            command.add("run");
+            command.add("--state-file=" + stateFile);
+            command.add("--port=" + port);
+            command.add("--idle-timeout=" + idleTimeout);
+            return command;
+        }
+    }
+
+    @Command(name = "stop", description = "Stops the PMD daemon.")
+    static class Stop extends AbstractDaemonSubcommand {
+
+        @Override
+        protected CliExitCode execute() {
+            try {
+                if (sendToDaemon(PmdDaemon.STOP) == null) {
+                    spec.commandLine().getOut().println("The PMD daemon is not running");
+                }
+                return CliExitCode.OK;
+            } catch (IOException e) {
+                LOG.error("Could not stop the PMD daemon", e);
+                return CliExitCode.ERROR;
+            }
+        }
+    }
+
+    @Command(name = "status", description = "Shows whether the PMD daemon is running.")
+    static class Status extends AbstractDaemonSubcommand {
+
+        @Override
+        protected CliExitCode execute() {
+            try {
+                if (sendToDaemon(PmdDaemon.STATUS) == null) {
+                    spec.commandLine().getOut().println("The PMD daemon is not running");
+                    return CliExitCode.ERROR;
+                }
+                return CliExitCode.OK;
+            } catch (IOException e) {
+                LOG.error("Could not reach the PMD daemon", e);
+                return CliExitCode.ERROR;
+            }
+        }
+    }
+
+    /**
+     * Runs the daemon in the current process. This is what {@link Start}
+     * launches in the background.
+     */
+    @Command(name = "run", hidden = true, description = "Runs the PMD daemon in the foreground.")
+    static class Run extends AbstractDaemonSubcommand {
+
+        @Option(names = "--port", defaultValue = "0")
+        private int port;
+
+        @Option(names = "--idle-timeout", defaultValue = "180")
+        private int idleTimeout;
+
+        @Override
+        protected CliExitCode execute() {
+            try (PmdDaemon daemon = new PmdDaemon(getStateFile(), port)) {
+                daemon.serve(idleTimeout);
+                return CliExitCode.OK;
+            } catch (IOException e) {
+                LOG.error("Error in the PMD daemon", e);
+                return CliExitCode.ERROR;
+            }
+        }
+    }
+}
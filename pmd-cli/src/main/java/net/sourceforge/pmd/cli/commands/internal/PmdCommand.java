@@ -4,32 +4,45 @@
 
 package net.sourceforge.pmd.cli.commands.internal;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.PmdAnalysisSession;
+import net.sourceforge.pmd.benchmark.SamplingProfiler;
 import net.sourceforge.pmd.benchmark.TextTimingReportRenderer;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimingReport;
 import net.sourceforge.pmd.benchmark.TimingReportRenderer;
+import net.sourceforge.pmd.benchmark.TimingTelemetry;
 import net.sourceforge.pmd.cli.commands.typesupport.internal.PmdLanguageTypeSupport;
 import net.sourceforge.pmd.cli.commands.typesupport.internal.PmdLanguageVersionTypeSupport;
 import net.sourceforge.pmd.cli.commands.typesupport.internal.RulePriorityTypeSupport;
 import net.sourceforge.pmd.cli.internal.CliExitCode;
 import net.sourceforge.pmd.cli.internal.ProgressBarListener;
 import net.sourceforge.pmd.internal.LogMessages;
+import net.sourceforge.pmd.internal.util.FileUtil;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.rule.RulePriority;
@@ -49,6 +62,7 @@ import picocli.CommandLine.ParameterException;
     description = "The PMD standard source code analyzer")
 public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration> {
     private static final Logger LOG = LoggerFactory.getLogger(PmdCommand.class);
+    private static final Duration SAMPLING_INTERVAL = Duration.ofMillis(10);
 
     static {
         final Properties emptyProps = new Properties();
@@ -84,8 +98,22 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
 
     private int threads;
 
+    private int fileTimeout;
+
+    private int ruleTimeout;
+
+    private int memoryBudget;
+
+    private int parallelRulesThreshold;
+
     private boolean benchmark;
 
+    private boolean benchmarkSampling;
+
+    private SamplingProfiler samplingProfiler;
+
+    private Path telemetryFile;
+
     private boolean showSuppressed;
 
     private String suppressMarker;
@@ -108,6 +136,13 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
 
     private boolean showProgressBar;
 
+    private boolean useDaemon;
+
+    // set when this command is run by a PmdDaemon
+    private @Nullable Path daemonWorkingDirectory;
+    private Map<String, String> daemonEnvironment = Collections.emptyMap();
+    private @Nullable PmdAnalysisSession daemonSession;
+
     @Option(names = { "--rulesets", "-R" },
                description = "Path to a ruleset xml file. "
                              + "The path may reference a resource on the classpath of the application, be a local file system path, or a URL. "
@@ -138,6 +173,20 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         this.benchmark = benchmark;
     }
 
+    @Option(names = "--benchmark-sampling",
+            description = "Low-overhead benchmark mode - periodically sample what each thread is doing, and output "
+                    + "estimated times per rule and phase upon completion; default to System.err. Ignored with --benchmark or --telemetry-file.")
+    public void setBenchmarkSampling(final boolean benchmarkSampling) {
+        this.benchmarkSampling = benchmarkSampling;
+    }
+
+    @Option(names = "--telemetry-file",
+            description = "Write performance telemetry to the given file while the analysis runs, in the JSON Lines format: "
+                    + "time spent per file and per rule, CPU time, allocated memory, slowest files per rule.")
+    public void setTelemetryFile(final Path telemetryFile) {
+        this.telemetryFile = telemetryFile;
+    }
+
     @Option(names = "--show-suppressed", description = "Report should show suppressed rule violations.")
     public void setShowSuppressed(final boolean showSuppressed) {
         this.showSuppressed = showSuppressed;
@@ -235,12 +284,107 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         this.threads = threads;
     }
 
+    @Option(names = "--file-timeout", defaultValue = "0",
+            description = "Number of seconds after which the analysis of a single file is cancelled and reported as an error. "
+                    + "The other files are analysed normally. 0 disables the timeout.")
+    public void setFileTimeout(final int fileTimeout) {
+        if (fileTimeout < 0) {
+            throw new ParameterException(spec.commandLine(), "File timeout should be a positive number or zero, found " + fileTimeout + " instead.");
+        }
+        this.fileTimeout = fileTimeout;
+    }
+
+    @Option(names = "--rule-timeout", defaultValue = "0",
+            description = "Number of seconds after which the application of a single rule on a single file is cancelled "
+                    + "and reported as an error. The other rules are applied normally. 0 disables the timeout.")
+    public void setRuleTimeout(final int ruleTimeout) {
+        if (ruleTimeout < 0) {
+            throw new ParameterException(spec.commandLine(), "Rule timeout should be a positive number or zero, found " + ruleTimeout + " instead.");
+        }
+        this.ruleTimeout = ruleTimeout;
+    }
+
+    @Option(names = "--memory-budget", defaultValue = "0",
+            description = "Approximate number of megabytes that the files analysed at the same time may use. "
+                    + "New files are started only when they fit in the budget, which avoids running out of memory "
+                    + "when several large files are analysed at once. 0 disables the budget.")
+    public void setMemoryBudget(final int memoryBudget) {
+        if (memoryBudget < 0) {
+            throw new ParameterException(spec.commandLine(), "Memory budget should be a positive number or zero, found " + memoryBudget + " instead.");
+        }
+        this.memoryBudget = memoryBudget;
+    }
+
+    @Option(names = "--parallel-rules-threshold", defaultValue = "0",
+            description = "Minimum size in characters of the files whose rules are applied by several threads, "
+                    + "so that a few large files don't keep the analysis running while other threads are idle. "
+                    + "Only some languages support it. 0 disables it.")
+    public void setParallelRulesThreshold(final int parallelRulesThreshold) {
+        if (parallelRulesThreshold < 0) {
+            throw new ParameterException(spec.commandLine(), "Parallel rules threshold should be a positive number or zero, found " + parallelRulesThreshold + " instead.");
+        }
+        this.parallelRulesThreshold = parallelRulesThreshold;
+    }
+
     @Option(names = "--no-progress", negatable = true, defaultValue = "true",
             description = "Enables / disables progress bar indicator of live analysis progress.")
     public void setShowProgressBar(final boolean showProgressBar) {
         this.showProgressBar = showProgressBar;
     }
 
+    @Option(names = "--daemon",
+            description = "Run the analysis in the PMD daemon started with 'pmd daemon start', which keeps "
+                    + "rulesets, the auxclasspath and other caches loaded between runs. "
+                    + "If no daemon is running, the analysis runs in this process.")
+    public void setUseDaemon(final boolean useDaemon) {
+        this.useDaemon = useDaemon;
+    }
+
+    /**
+     * Make this command run inside a {@link PmdDaemon}: relative paths,
+     * including those listed in file lists, are resolved against the working
+     * directory of the client, language properties default to the environment
+     * variables of the client, and the analysis reuses the given session.
+     */
+    void setDaemonContext(Path workingDirectory, Map<String, String> environment, PmdAnalysisSession session) {
+        this.daemonWorkingDirectory = workingDirectory;
+        this.daemonEnvironment = environment;
+        this.daemonSession = session;
+    }
+
+    @Override
+    protected CliExitCode execute() {
+        if (useDaemon && daemonSession == null) {
+            CliExitCode exitCode = executeInDaemon();
+            if (exitCode != null) {
+                return exitCode;
+            }
+        }
+        return super.execute();
+    }
+
+    /**
+     * Forwards the command line to the daemon. Returns null if no daemon
+     * is reachable, in which case the analysis should run in this process.
+     */
+    private @Nullable CliExitCode executeInDaemon() {
+        try {
+            PmdDaemonClient client = PmdDaemonClient.fromStateFile(PmdDaemon.defaultStateFile());
+            if (client == null) {
+                LOG.warn("No PMD daemon is running, the analysis runs in this process. Start one with 'pmd daemon start'.");
+                return null;
+            }
+            List<String> args = spec.root().commandLine().getParseResult().originalArgs();
+            return CliExitCode.fromInt(client.send(PmdDaemon.CHECK, args, System.out, System.err));
+        } catch (ConnectException e) {
+            LOG.warn("The PMD daemon is not reachable, the analysis runs in this process. Restart it with 'pmd daemon start'.");
+            return null;
+        } catch (IOException e) {
+            LOG.error("Error while running the analysis in the PMD daemon", e);
+            return CliExitCode.ERROR;
+        }
+    }
+
     /**
      * Converts these parameters into a configuration.
      *
@@ -251,27 +395,46 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
     @Override
     protected PMDConfiguration toConfiguration() {
         final PMDConfiguration configuration = new PMDConfiguration();
+        final List<Path> givenInputPaths = new ArrayList<>();
         if (inputPaths != null) {
-            configuration.setInputPathList(new ArrayList<>(inputPaths));
+            givenInputPaths.addAll(inputPaths);
+        }
+        final List<Path> fileListEntries = readFileList(fileListPath);
+        if (fileListEntries != null) {
+            givenInputPaths.addAll(fileListEntries);
+        } else {
+            configuration.setInputFilePath(resolve(fileListPath));
+        }
+        configuration.setInputPathList(givenInputPaths.stream().map(this::resolve).collect(Collectors.toList()));
+        final List<Path> ignoreListEntries = readFileList(ignoreListPath);
+        if (ignoreListEntries != null) {
+            configuration.setExcludes(ignoreListEntries.stream().map(this::resolve).collect(Collectors.toList()));
+        } else {
+            configuration.setIgnoreFilePath(resolve(ignoreListPath));
         }
-        configuration.setInputFilePath(fileListPath);
-        configuration.setIgnoreFilePath(ignoreListPath);
         configuration.setInputUri(uri);
         configuration.setReportFormat(format);
         configuration.setSourceEncoding(encoding.getEncoding());
         configuration.setMinimumPriority(minimumPriority);
-        configuration.setReportFile(reportFile);
+        configuration.setReportFile(resolve(reportFile));
         configuration.setReportProperties(properties);
         if (relativizeRootPaths != null) {
-            configuration.addRelativizeRoots(relativizeRootPaths);
+            configuration.addRelativizeRoots(relativizeRootPaths.stream().map(this::resolve).collect(Collectors.toList()));
+        } else if (daemonWorkingDirectory != null && givenInputPaths.stream().anyMatch(p -> !p.isAbsolute())) {
+            // input paths have been made absolute, render them as if they were relative to the client directory
+            configuration.addRelativizeRoot(daemonWorkingDirectory);
         }
-        configuration.setRuleSets(rulesets);
+        configuration.setRuleSets(rulesets.stream().map(this::resolveRuleset).collect(Collectors.toList()));
         configuration.setShowSuppressedViolations(showSuppressed);
         configuration.setSuppressMarker(suppressMarker);
         configuration.setThreads(threads);
+        configuration.setFileTimeout(Duration.ofSeconds(fileTimeout));
+        configuration.setRuleTimeout(Duration.ofSeconds(ruleTimeout));
+        configuration.setInFlightMemoryBudget(memoryBudget * 1024L * 1024L);
+        configuration.setParallelRulesThreshold(parallelRulesThreshold);
         configuration.setFailOnViolation(failOnViolation);
         configuration.setFailOnError(failOnError);
-        configuration.setAnalysisCacheLocation(cacheLocation != null ? cacheLocation.toString() : null);
+        configuration.setAnalysisCacheLocation(cacheLocation != null ? resolve(cacheLocation).toString() : null);
         configuration.setIgnoreIncrementalAnalysis(noCache);
 
         if (languageVersion != null) {
@@ -289,18 +452,68 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
         configuration.setReporter(new SimpleMessageReporter(LoggerFactory.getLogger(PmdCommand.class)));
 
         try {
-            configuration.prependAuxClasspath(auxClasspath);
+            configuration.prependAuxClasspath(resolveClasspath(auxClasspath));
         } catch (IllegalArgumentException e) {
             throw new ParameterException(spec.commandLine(), "Invalid auxiliary classpath: " + e.getMessage(), e);
         }
         return configuration;
     }
 
+    private Path resolve(@Nullable Path path) {
+        if (daemonWorkingDirectory == null || path == null) {
+            return path;
+        }
+        return daemonWorkingDirectory.resolve(path);
+    }
+
+    /**
+     * Reads the entries of a file list when running in a daemon, as they
+     * are relative to the working directory of the client. Returns null
+     * otherwise, or if the file list can't be read, in which case the file
+     * list is read, and the error reported, when files are collected.
+     */
+    private @Nullable List<Path> readFileList(@Nullable Path fileList) {
+        if (daemonWorkingDirectory == null || fileList == null) {
+            return null;
+        }
+        try {
+            return FileUtil.readFilelistEntries(resolve(fileList));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private String resolveRuleset(String ruleset) {
+        if (daemonWorkingDirectory == null) {
+            return ruleset;
+        }
+        // rulesets may also be resources or URLs, only resolve existing files
+        try {
+            Path file = daemonWorkingDirectory.resolve(ruleset);
+            return Files.exists(file) ? file.toString() : ruleset;
+        } catch (InvalidPathException e) {
+            return ruleset;
+        }
+    }
+
+    private String resolveClasspath(String classpath) {
+        if (daemonWorkingDirectory == null || classpath == null || classpath.startsWith("file:")) {
+            return classpath;
+        }
+        List<String> entries = new ArrayList<>();
+        for (String entry : classpath.split(File.pathSeparator)) {
+            entries.add(entry.isEmpty() ? entry : daemonWorkingDirectory.resolve(entry).toString());
+        }
+        return String.join(File.pathSeparator, entries);
+    }
+
     @Override
     @NonNull
     protected CliExitCode doExecute(PMDConfiguration configuration) {
-        if (benchmark) {
+        if (benchmark || telemetryFile != null) {
             TimeTracker.startGlobalTracking();
+        } else if (benchmarkSampling) {
+            samplingProfiler = SamplingProfiler.start(SAMPLING_INTERVAL);
         }
 
         final PmdReporter pmdReporter = configuration.getReporter();
@@ -309,7 +522,8 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
             PmdAnalysis pmd = null;
             try {
                 try {
-                    pmd = PmdAnalysis.create(configuration);
+                    pmd = daemonSession != null ? daemonSession.newAnalysis(configuration, daemonEnvironment)
+                                                : PmdAnalysis.create(configuration);
                 } catch (final Exception e) {
                     pmdReporter.errorEx("Could not initialize analysis", e);
                     return CliExitCode.ERROR;
@@ -318,7 +532,20 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
                 LOG.debug("Runtime classpath:\n{}", System.getProperty("java.class.path"));
                 LOG.debug("Aux classpath: {}", configuration.getClassLoader());
 
-                if (showProgressBar) {
+                if (samplingProfiler != null) {
+                    pmd.addListener(samplingProfiler);
+                }
+
+                if (telemetryFile != null) {
+                    try {
+                        pmd.addListener(new TimingTelemetry(Files.newBufferedWriter(resolve(telemetryFile), StandardCharsets.UTF_8)));
+                    } catch (final IOException e) {
+                        pmdReporter.errorEx("Cannot write telemetry file " + telemetryFile, e);
+                        return CliExitCode.ERROR;
+                    }
+                }
+
+                if (showProgressBar && daemonSession == null) {
                     if (reportFile == null) {
                         pmdReporter.warn("Progressbar rendering conflicts with reporting to STDOUT. "
                                 + "No progressbar will be shown. Try running with argument '-r <file>' to output the report to a file instead.");
@@ -375,6 +602,18 @@ public class PmdCommand extends AbstractAnalysisPmdSubcommand<PMDConfiguration>
             } catch (final IOException e) {
                 pmdReporter.errorEx("Error producing benchmark report", e);
             }
+        } else if (telemetryFile != null) {
+            TimeTracker.stopGlobalTracking();
+        } else if (samplingProfiler != null) {
+            samplingProfiler.close();
+            try {
+                // No try-with-resources, do not want to close STDERR
+                @SuppressWarnings("PMD.CloseResource")
+                final Writer writer = new OutputStreamWriter(System.err);
+                samplingProfiler.render(writer);
+            } catch (final IOException e) {
+                pmdReporter.errorEx("Error producing benchmark report", e);
+            }
         }
     }
 
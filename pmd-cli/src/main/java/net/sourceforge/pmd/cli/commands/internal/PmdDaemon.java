@@ -0,0 +1,366 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli.commands.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.PmdAnalysisSession;
+import net.sourceforge.pmd.cli.internal.CliExitCode;
+import net.sourceforge.pmd.internal.Slf4jSimpleConfiguration;
+
+import picocli.CommandLine;
+
+/**
+ * A long-running PMD process that runs {@code pmd check} on behalf of
+ * {@link PmdDaemonClient}s. Analyses of the same project directory share
+ * a {@link PmdAnalysisSession}, so that language processors, the auxclasspath
+ * and rulesets are reused between runs, and the JIT stays warm.
+ *
+ * <p>The daemon listens on a port of the loopback interface. The port,
+ * and a random token that clients must send with each request, are written
+ * to a state file that only the current user can read. Requests are served
+ * one at a time. A client that doesn't send its whole request within
+ * {@value #REQUEST_TIMEOUT_SECONDS} seconds is disconnected.
+ *
+ * <p>Protocol: a request is the token, a command ({@link #CHECK}, {@link #STATUS}
+ * or {@link #STOP}), the working directory of the client, the environment
+ * variables of the client that PMD reads, and the arguments of the command,
+ * all written with {@link DataOutputStream}. The response is a
+ * sequence of frames, each starting with a frame type: {@link #FRAME_OUT}
+ * and {@link #FRAME_ERR} frames contain output for the standard streams of
+ * the client, and the {@link #FRAME_EXIT} frame ends the response with an
+ * exit code.
+ */
+final class PmdDaemon implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PmdDaemon.class);
+
+    static final String CHECK = "check";
+    static final String STATUS = "status";
+    static final String STOP = "stop";
+
+    static final byte FRAME_OUT = 1;
+    static final byte FRAME_ERR = 2;
+    static final byte FRAME_EXIT = 3;
+
+    static final String PORT_PROPERTY = "port";
+    static final String TOKEN_PROPERTY = "token";
+    static final String PID_PROPERTY = "pid";
+
+    /** Maximum number of projects for which a session is kept. */
+    private static final int MAX_SESSIONS = 4;
+
+    /** Time a client has to send its request. */
+    static final int REQUEST_TIMEOUT_SECONDS = 30;
+
+    private static final String DEFAULT_LOG_LEVEL_PROPERTY = "org.slf4j.simpleLogger.defaultLogLevel";
+
+    private final ServerSocket serverSocket;
+    private final Path stateFile;
+    private final String token;
+    private final Map<Path, PmdAnalysisSession> sessions = new LinkedHashMap<>(MAX_SESSIONS, 0.75f, true);
+    private volatile boolean stopped;
+    private volatile int requestTimeoutMillis = (int) TimeUnit.SECONDS.toMillis(REQUEST_TIMEOUT_SECONDS);
+
+    PmdDaemon(Path stateFile, int port) throws IOException {
+        this.stateFile = stateFile;
+        this.token = newToken();
+        this.serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+        writeStateFile();
+    }
+
+    /**
+     * Returns the default location of the state file. The PMD version is
+     * part of the name, so that clients only use a daemon of the same version.
+     */
+    static Path defaultStateFile() {
+        return Paths.get(System.getProperty("user.home"), ".pmd", "daemon-" + PMDVersion.VERSION + ".properties");
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[32];
+        new SecureRandom().nextBytes(bytes);
+        StringBuilder sb = new StringBuilder();
+        for (byte b : bytes) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    private void writeStateFile() throws IOException {
+        Properties props = new Properties();
+        props.setProperty(PORT_PROPERTY, String.valueOf(serverSocket.getLocalPort()));
+        props.setProperty(TOKEN_PROPERTY, token);
+        props.setProperty(PID_PROPERTY, ManagementFactory.getRuntimeMXBean().getName());
+
+        Files.createDirectories(stateFile.toAbsolutePath().getParent());
+        Path tmp = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+        Files.deleteIfExists(tmp);
+        Files.createFile(tmp);
+        try {
+            // the token gives access to the daemon, so hide it from other users
+            Files.setPosixFilePermissions(tmp, PosixFilePermissions.fromString("rw-------"));
+        } catch (UnsupportedOperationException ignored) {
+            // not a posix file system
+        }
+        try (Writer writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+            props.store(writer, "PMD daemon");
+        }
+        Files.move(tmp, stateFile, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Serves requests until a stop request is received, or until no
+     * request has been received for the given idle time.
+     *
+     * @param idleTimeoutMinutes Idle time after which the daemon stops, zero to never stop
+     */
+    void serve(int idleTimeoutMinutes) throws IOException {
+        serverSocket.setSoTimeout((int) TimeUnit.MINUTES.toMillis(idleTimeoutMinutes));
+        LOG.info("PMD daemon listening on port {}", serverSocket.getLocalPort());
+        while (!stopped) {
+            Socket accepted;
+            try {
+                accepted = serverSocket.accept();
+            } catch (SocketTimeoutException e) {
+                LOG.info("PMD daemon stopping after {} idle minutes", idleTimeoutMinutes);
+                stopped = true;
+                continue;
+            } catch (IOException e) {
+                if (!stopped) {
+                    LOG.warn("Error while accepting request", e);
+                }
+                continue;
+            }
+            try (Socket socket = accepted) {
+                socket.setSoTimeout(requestTimeoutMillis);
+                handle(socket);
+            } catch (SocketTimeoutException e) {
+                LOG.warn("Closing a connection that sent no complete request within {} ms", requestTimeoutMillis);
+            } catch (IOException e) {
+                if (!stopped) {
+                    LOG.warn("Error while serving request", e);
+                }
+            }
+        }
+    }
+
+    private void handle(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+
+        String clientToken = in.readUTF();
+        if (!MessageDigest.isEqual(token.getBytes(StandardCharsets.UTF_8), clientToken.getBytes(StandardCharsets.UTF_8))) {
+            throw new AccessDeniedException("Invalid token");
+        }
+        String command = in.readUTF();
+        Path workingDirectory = Paths.get(in.readUTF());
+        int numVariables = in.readInt();
+        Map<String, String> environment = new HashMap<>();
+        for (int i = 0; i < numVariables; i++) {
+            environment.put(in.readUTF(), in.readUTF());
+        }
+        int numArgs = in.readInt();
+        List<String> args = new ArrayList<>(numArgs);
+        for (int i = 0; i < numArgs; i++) {
+            args.add(in.readUTF());
+        }
+        // the request is complete, the analysis may take longer
+        socket.setSoTimeout(0);
+
+        int exitCode;
+        switch (command) {
+        case CHECK:
+            exitCode = runCheck(workingDirectory, environment, args, out);
+            break;
+        case STATUS:
+            writeFrame(out, FRAME_OUT, ("PMD daemon " + PMDVersion.VERSION + " listening on port " + serverSocket.getLocalPort()
+                + ", " + sessions.size() + " project(s) loaded: " + sessions.keySet() + System.lineSeparator())
+                                           .getBytes(StandardCharsets.UTF_8));
+            exitCode = CliExitCode.OK.getExitCode();
+            break;
+        case STOP:
+            stopped = true;
+            exitCode = CliExitCode.OK.getExitCode();
+            break;
+        default:
+            writeFrame(out, FRAME_ERR, ("Unknown daemon command " + command + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            exitCode = CliExitCode.USAGE_ERROR.getExitCode();
+        }
+        out.writeByte(FRAME_EXIT);
+        out.writeInt(exitCode);
+        out.flush();
+    }
+
+    private int runCheck(Path workingDirectory, Map<String, String> environment, List<String> args, DataOutputStream out) throws IOException {
+        if (args.isEmpty() || !CHECK.equals(args.get(0))) {
+            writeFrame(out, FRAME_ERR, ("The daemon only runs 'pmd check'" + System.lineSeparator()).getBytes(StandardCharsets.UTF_8));
+            return CliExitCode.USAGE_ERROR.getExitCode();
+        }
+
+        PrintStream formerOut = System.out;
+        PrintStream formerErr = System.err;
+        // The standard streams are global, but requests are served one at a time.
+        // This captures the report, the log messages, and everything else that
+        // would be printed by a standalone run.
+        PrintStream clientOut = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, FRAME_OUT)), false, "UTF-8");
+        PrintStream clientErr = new PrintStream(new BufferedOutputStream(new FrameOutputStream(out, FRAME_ERR)), true, "UTF-8");
+        // --debug changes the log level globally
+        String formerLogLevel = System.getProperty(DEFAULT_LOG_LEVEL_PROPERTY);
+        try {
+            System.setOut(clientOut);
+            System.setErr(clientErr);
+
+            CommandLine cli = new CommandLine(new PmdRootCommand()).setCaseInsensitiveEnumValuesAllowed(true);
+            PmdCommand check = cli.getSubcommands().get(CHECK).getCommand();
+            check.setDaemonContext(workingDirectory, environment, getSession(workingDirectory));
+            return cli.execute(args.toArray(new String[0]));
+        } finally {
+            System.setOut(formerOut);
+            System.setErr(formerErr);
+            clientOut.flush();
+            clientErr.flush();
+            restoreLogLevel(formerLogLevel);
+        }
+    }
+
+    private static void restoreLogLevel(@Nullable String formerLogLevel) {
+        if (formerLogLevel == null) {
+            System.clearProperty(DEFAULT_LOG_LEVEL_PROPERTY);
+        } else {
+            System.setProperty(DEFAULT_LOG_LEVEL_PROPERTY, formerLogLevel);
+        }
+        // reload the configuration of the existing loggers
+        Slf4jSimpleConfiguration.reconfigureDefaultLogLevel(null);
+    }
+
+    private PmdAnalysisSession getSession(Path project) {
+        PmdAnalysisSession session = sessions.get(project);
+        if (session == null) {
+            session = PmdAnalysisSession.create();
+            sessions.put(project, session);
+            if (sessions.size() > MAX_SESSIONS) {
+                Iterator<PmdAnalysisSession> eldest = sessions.values().iterator();
+                eldest.next().close();
+                eldest.remove();
+            }
+        }
+        return session;
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, byte[] bytes) throws IOException {
+        writeFrame(out, type, bytes, 0, bytes.length);
+    }
+
+    static void writeFrame(DataOutputStream out, byte type, byte[] bytes, int off, int len) throws IOException {
+        synchronized (out) {
+            out.writeByte(type);
+            out.writeInt(len);
+            out.write(bytes, off, len);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        stopped = true;
+        for (PmdAnalysisSession session : sessions.values()) {
+            session.close();
+        }
+        sessions.clear();
+        try {
+            serverSocket.close();
+        } finally {
+            deleteStateFileIfOwned();
+        }
+    }
+
+    private void deleteStateFileIfOwned() throws IOException {
+        // another daemon may have been started in the meantime
+        @Nullable Properties props = PmdDaemonClient.readStateFile(stateFile);
+        if (props != null && token.equals(props.getProperty(TOKEN_PROPERTY))) {
+            Files.deleteIfExists(stateFile);
+        }
+    }
+
+    /** Changes the time a client has to send its request, for tests. */
+    void setRequestTimeoutMillis(int requestTimeoutMillis) {
+        this.requestTimeoutMillis = requestTimeoutMillis;
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Forwards writes as frames of the given type. Writes from several
+     * threads are not interleaved within a frame.
+     */
+    private static final class FrameOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+        private final byte type;
+
+        FrameOutputStream(DataOutputStream out, byte type) {
+            this.out = out;
+            this.type = type;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[] {(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            writeFrame(out, type, b, off, len);
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (out) {
+                out.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush(); // the socket is closed by the daemon
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli.commands.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Sends requests to a running {@link PmdDaemon}.
+ */
+final class PmdDaemonClient {
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 2000;
+
+    private final int port;
+    private final String token;
+
+    private PmdDaemonClient(int port, String token) {
+        this.port = port;
+        this.token = token;
+    }
+
+    /**
+     * Returns a client for the daemon described by the given state file,
+     * or null if there is no state file.
+     */
+    static @Nullable PmdDaemonClient fromStateFile(Path stateFile) throws IOException {
+        Properties props = readStateFile(stateFile);
+        if (props == null) {
+            return null;
+        }
+        try {
+            return new PmdDaemonClient(Integer.parseInt(props.getProperty(PmdDaemon.PORT_PROPERTY)),
+                                       props.getProperty(PmdDaemon.TOKEN_PROPERTY));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid daemon state file " + stateFile, e);
+        }
+    }
+
+    static @Nullable Properties readStateFile(Path stateFile) throws IOException {
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+            props.load(reader);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return props;
+    }
+
+    /**
+     * Returns the environment variables that PMD reads, which are those
+     * that set language properties.
+     */
+    static Map<String, String> pmdVariables(Map<String, String> environment) {
+        Map<String, String> variables = new TreeMap<>();
+        environment.forEach((name, value) -> {
+            if (name.startsWith("PMD_")) {
+                variables.put(name, value);
+            }
+        });
+        return variables;
+    }
+
+    /**
+     * Sends a request to the daemon, and copies the output it sends back
+     * to the given streams.
+     *
+     * @return The exit code
+     *
+     * @throws IOException If the daemon cannot be reached, for instance
+     *                     because it is not running anymore
+     */
+    int send(String command, List<String> args, PrintStream out, PrintStream err) throws IOException {
+        return send(command, Paths.get("").toAbsolutePath(), System.getenv(), args, out, err);
+    }
+
+    /**
+     * Sends a request to the daemon, as if it was sent from the given
+     * working directory, with the given environment variables.
+     *
+     * @see #send(String, List, PrintStream, PrintStream)
+     */
+    int send(String command, Path workingDirectory, Map<String, String> environment,
+             List<String> args, PrintStream out, PrintStream err) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), CONNECT_TIMEOUT_MILLIS);
+            DataOutputStream request = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            request.writeUTF(token);
+            request.writeUTF(command);
+            request.writeUTF(workingDirectory.toString());
+            Map<String, String> variables = pmdVariables(environment);
+            request.writeInt(variables.size());
+            for (Map.Entry<String, String> variable : variables.entrySet()) {
+                request.writeUTF(variable.getKey());
+                request.writeUTF(variable.getValue());
+            }
+            request.writeInt(args.size());
+            for (String arg : args) {
+                request.writeUTF(arg);
+            }
+            request.flush();
+
+            DataInputStream response = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            byte[] buffer = new byte[8192];
+            while (true) {
+                byte type = response.readByte();
+                if (type == PmdDaemon.FRAME_EXIT) {
+                    out.flush();
+                    err.flush();
+                    return response.readInt();
+                }
+                PrintStream target = type == PmdDaemon.FRAME_OUT ? out : err;
+                int len = response.readInt();
+                while (len > 0) {
+                    int read = response.read(buffer, 0, Math.min(len, buffer.length));
+                    if (read < 0) {
+                        throw new IOException("Daemon closed the connection");
+                    }
+                    target.write(buffer, 0, read);
+                    len -= read;
+                }
+            }
+        }
+    }
+}
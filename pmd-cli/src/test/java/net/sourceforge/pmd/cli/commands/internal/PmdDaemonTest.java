@@ -0,0 +1,179 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cli.commands.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+
+import net.sourceforge.pmd.cli.internal.CliExitCode;
+import net.sourceforge.pmd.internal.Slf4jSimpleConfiguration;
+
+class PmdDaemonTest {
+
+    private static final String RULESET_WITH_VIOLATION = "net/sourceforge/pmd/cli/RuleSetWithViolations.xml";
+
+    @TempDir
+    private Path tempDir;
+    private Path stateFile;
+    private PmdDaemon daemon;
+    private ExecutorService executor;
+    private Future<?> serving;
+
+    @BeforeEach
+    void startDaemon() throws IOException {
+        System.setProperty("picocli.ansi", "false");
+        stateFile = tempDir.resolve("daemon.properties");
+        daemon = new PmdDaemon(stateFile, 0);
+        executor = Executors.newSingleThreadExecutor();
+        serving = executor.submit(() -> {
+            daemon.serve(0);
+            return null;
+        });
+    }
+
+    @AfterEach
+    void stopDaemon() throws Exception {
+        daemon.close();
+        executor.shutdownNow();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+        System.clearProperty("picocli.ansi");
+    }
+
+    @Test
+    void testCheckIsRunInDaemon() throws Exception {
+        String srcDir = "src/test/resources/net/sourceforge/pmd/cli/src".replace('/', File.separatorChar);
+        List<String> args = Arrays.asList("check", "-d", srcDir, "-R", RULESET_WITH_VIOLATION, "--no-progress");
+
+        for (int i = 0; i < 2; i++) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ByteArrayOutputStream err = new ByteArrayOutputStream();
+            int exitCode = client().send(PmdDaemon.CHECK, args, new PrintStream(out), new PrintStream(err));
+
+            assertEquals(CliExitCode.VIOLATIONS_FOUND.getExitCode(), exitCode, err::toString);
+            // paths are rendered as they were given
+            assertThat(out.toString(), containsString(srcDir + File.separator + "anotherfile.dummy"));
+            assertThat(out.toString(), containsString("Violation from ReportAllRootNodes"));
+        }
+    }
+
+    @Test
+    void testFileListIsResolvedAgainstClientDirectory() throws Exception {
+        Path clientDir = Files.createDirectories(tempDir.resolve("client"));
+        Files.createDirectories(clientDir.resolve("src"));
+        Files.write(clientDir.resolve("src/a.dummy"), Collections.singletonList("content"));
+        Files.write(clientDir.resolve("files.txt"), Collections.singletonList("src" + File.separator + "a.dummy"));
+        List<String> args = Arrays.asList("check", "--file-list", "files.txt", "-R", RULESET_WITH_VIOLATION, "--no-progress");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exitCode = client().send(PmdDaemon.CHECK, clientDir, Collections.emptyMap(), args, new PrintStream(out), new PrintStream(err));
+
+        assertEquals(CliExitCode.VIOLATIONS_FOUND.getExitCode(), exitCode, err::toString);
+        assertThat(out.toString(), containsString("a.dummy"));
+    }
+
+    @Test
+    void testLogLevelIsRestoredAfterDebugRun() throws Exception {
+        Level formerLevel = Slf4jSimpleConfiguration.getDefaultLogLevel();
+        String srcDir = "src/test/resources/net/sourceforge/pmd/cli/src".replace('/', File.separatorChar);
+        List<String> args = Arrays.asList("check", "-d", srcDir, "-R", RULESET_WITH_VIOLATION, "--no-progress", "--debug");
+
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exitCode = client().send(PmdDaemon.CHECK, args, new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        assertEquals(CliExitCode.VIOLATIONS_FOUND.getExitCode(), exitCode, err::toString);
+        assertThat(err.toString(), containsString("Log level is at TRACE"));
+        assertEquals(formerLevel, Slf4jSimpleConfiguration.getDefaultLogLevel());
+    }
+
+    @Test
+    void testStalledClientIsDisconnected() throws Exception {
+        daemon.setRequestTimeoutMillis(200);
+        try (Socket stalled = new Socket(InetAddress.getLoopbackAddress(), daemon.getPort())) {
+            stalled.setSoTimeout((int) TimeUnit.SECONDS.toMillis(10));
+            // the daemon closes the connection instead of waiting for the request
+            assertEquals(-1, stalled.getInputStream().read());
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, client().send(PmdDaemon.STATUS, Collections.emptyList(), new PrintStream(out), System.err));
+        assertThat(out.toString(), containsString("listening on port " + daemon.getPort()));
+    }
+
+    @Test
+    void testOnlyCheckIsAccepted() throws Exception {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        int exitCode = client().send(PmdDaemon.CHECK, Arrays.asList("cpd", "--help"), new PrintStream(new ByteArrayOutputStream()), new PrintStream(err));
+
+        assertEquals(CliExitCode.USAGE_ERROR.getExitCode(), exitCode);
+        assertThat(err.toString(), containsString("only runs 'pmd check'"));
+    }
+
+    @Test
+    void testStatusAndStop() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(0, client().send(PmdDaemon.STATUS, Collections.emptyList(), new PrintStream(out), System.err));
+        assertThat(out.toString(), containsString("listening on port " + daemon.getPort()));
+
+        assertEquals(0, client().send(PmdDaemon.STOP, Collections.emptyList(), System.out, System.err));
+        serving.get(10, TimeUnit.SECONDS);
+        daemon.close();
+        assertFalse(Files.exists(stateFile));
+        assertNull(PmdDaemonClient.fromStateFile(stateFile));
+    }
+
+    @Test
+    void testRequestWithInvalidTokenIsRejected() throws Exception {
+        Path otherStateFile = tempDir.resolve("other.properties");
+        Properties props = PmdDaemonClient.readStateFile(stateFile);
+        assertNotNull(props);
+        props.setProperty(PmdDaemon.TOKEN_PROPERTY, "not the token");
+        try (Writer writer = Files.newBufferedWriter(otherStateFile)) {
+            props.store(writer, null);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        PmdDaemonClient client = PmdDaemonClient.fromStateFile(otherStateFile);
+        assertNotNull(client);
+        assertThrows(IOException.class, () -> client.send(PmdDaemon.STATUS, Collections.emptyList(), new PrintStream(out), System.err));
+        assertThat(out.toString(), not(containsString("listening")));
+    }
+
+    private PmdDaemonClient client() throws IOException {
+        PmdDaemonClient client = PmdDaemonClient.fromStateFile(stateFile);
+        assertNotNull(client);
+        return client;
+    }
+}
@@ -9,6 +9,7 @@ import java.io.IOException;
 import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -86,6 +87,12 @@ import net.sourceforge.pmd.util.log.internal.SimpleMessageReporter;
  * <ul>
  * <li>Use {@link #setThreads(int)} to control the parallelism of the analysis. Defaults
  * one thread per available processor. {@link #getThreads()}</li>
+ * <li>Use {@link #setFileTimeout(Duration)} and {@link #setRuleTimeout(Duration)} to bound
+ * the time spent on a single file. By default there is no limit.</li>
+ * <li>Use {@link #setInFlightMemoryBudget(long)} to bound the memory used by the files
+ * analysed at the same time. By default there is no limit.</li>
+ * <li>Use {@link #setParallelRulesThreshold(int)} to apply the rules on large files
+ * with several threads. By default each file is processed by a single thread.</li>
  * </ul>
  */
 public class PMDConfiguration extends AbstractConfiguration {
@@ -99,6 +106,10 @@ public class PMDConfiguration extends AbstractConfiguration {
     private String suppressMarker = DEFAULT_SUPPRESS_MARKER;
     private int threads = Runtime.getRuntime().availableProcessors();
     private ClassLoader classLoader = getClass().getClassLoader();
+    private Duration fileTimeout = Duration.ZERO;
+    private Duration ruleTimeout = Duration.ZERO;
+    private long inFlightMemoryBudget;
+    private int parallelRulesThreshold;
 
     // Rule and source file options
     private List<String> ruleSets = new ArrayList<>();
@@ -160,6 +171,123 @@ public class PMDConfiguration extends AbstractConfiguration {
         this.threads = threads;
     }
 
+    /**
+     * Get the time budget for the analysis of a single file, including
+     * parsing. Zero means there is no limit.
+     *
+     * @return The time budget per file
+     */
+    public @NonNull Duration getFileTimeout() {
+        return fileTimeout;
+    }
+
+    /**
+     * Set the time budget for the analysis of a single file, including
+     * parsing. When a file exceeds it, its analysis is cancelled and a
+     * processing error is reported, the other files are analysed normally.
+     * Violations found in the file before the cancellation are reported.
+     * Zero means there is no limit.
+     *
+     * @param fileTimeout The time budget per file
+     *
+     * @throws IllegalArgumentException If the duration is negative
+     */
+    public void setFileTimeout(@NonNull Duration fileTimeout) {
+        AssertionUtil.requireParamNotNull("fileTimeout", fileTimeout);
+        if (fileTimeout.isNegative()) {
+            throw new IllegalArgumentException("Negative file timeout: " + fileTimeout);
+        }
+        this.fileTimeout = fileTimeout;
+    }
+
+    /**
+     * Get the time budget for the application of a single rule on a
+     * single file. Zero means there is no limit.
+     *
+     * @return The time budget per rule and file
+     */
+    public @NonNull Duration getRuleTimeout() {
+        return ruleTimeout;
+    }
+
+    /**
+     * Set the time budget for the application of a single rule on a
+     * single file. When a rule exceeds it, it is stopped, a processing
+     * error naming the rule is reported, and the analysis continues with
+     * the next rule. Zero means there is no limit.
+     *
+     * @param ruleTimeout The time budget per rule and file
+     *
+     * @throws IllegalArgumentException If the duration is negative
+     */
+    public void setRuleTimeout(@NonNull Duration ruleTimeout) {
+        AssertionUtil.requireParamNotNull("ruleTimeout", ruleTimeout);
+        if (ruleTimeout.isNegative()) {
+            throw new IllegalArgumentException("Negative rule timeout: " + ruleTimeout);
+        }
+        this.ruleTimeout = ruleTimeout;
+    }
+
+    /**
+     * Get the approximate number of bytes that the files analysed at
+     * the same time may use. Zero means there is no limit.
+     *
+     * @return The memory budget in bytes
+     */
+    public long getInFlightMemoryBudget() {
+        return inFlightMemoryBudget;
+    }
+
+    /**
+     * Set the approximate number of bytes that the files analysed at the
+     * same time may use. The memory needed by a file is estimated from its
+     * length. When the budget is exhausted, analysis threads wait for other
+     * files to be finished before starting new ones. A file that needs more
+     * than the whole budget is analysed alone. Zero means there is no limit.
+     *
+     * @param inFlightMemoryBudget The memory budget in bytes
+     *
+     * @throws IllegalArgumentException If the budget is negative
+     */
+    public void setInFlightMemoryBudget(long inFlightMemoryBudget) {
+        if (inFlightMemoryBudget < 0) {
+            throw new IllegalArgumentException("Negative memory budget: " + inFlightMemoryBudget);
+        }
+        this.inFlightMemoryBudget = inFlightMemoryBudget;
+    }
+
+    /**
+     * Get the minimum length, in chars, of the files whose rules are
+     * applied by several threads. Zero means every file is processed
+     * by a single thread.
+     *
+     * @return The threshold
+     */
+    public int getParallelRulesThreshold() {
+        return parallelRulesThreshold;
+    }
+
+    /**
+     * Set the minimum length, in chars, of the files whose rules are
+     * applied by several threads. Once such a file is parsed, its rules
+     * are distributed over the analysis threads that are idle, each rule
+     * still being applied by a single thread. This avoids that a single
+     * large file is the last one being analysed while the other threads
+     * are idle. This has no effect if the analysis uses a single thread,
+     * or if the language of the file does not support it. Zero means every
+     * file is processed by a single thread.
+     *
+     * @param parallelRulesThreshold The threshold
+     *
+     * @throws IllegalArgumentException If the threshold is negative
+     */
+    public void setParallelRulesThreshold(int parallelRulesThreshold) {
+        if (parallelRulesThreshold < 0) {
+            throw new IllegalArgumentException("Negative threshold: " + parallelRulesThreshold);
+        }
+        this.parallelRulesThreshold = parallelRulesThreshold;
+    }
+
     /**
      * Get the ClassLoader being used by PMD when processing Rules.
      *
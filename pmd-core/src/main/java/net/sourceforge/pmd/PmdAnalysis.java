@@ -6,7 +6,9 @@ package net.sourceforge.pmd;
 
 import static net.sourceforge.pmd.lang.document.InternalApiBridge.newCollector;
 import static net.sourceforge.pmd.lang.rule.InternalApiBridge.loadRuleSetsWithoutException;
+import static net.sourceforge.pmd.lang.rule.InternalApiBridge.newPersistentRuleSetCache;
 import static net.sourceforge.pmd.lang.rule.InternalApiBridge.ruleSetApplies;
+import static net.sourceforge.pmd.lang.rule.InternalApiBridge.withRuleSetCache;
 import static net.sourceforge.pmd.util.CollectionUtil.listOf;
 
 import java.nio.file.Path;
@@ -20,6 +22,7 @@ import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
@@ -27,7 +30,9 @@ import org.slf4j.event.Level;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.internal.AnalysisCache;
 import net.sourceforge.pmd.cache.internal.AnalysisCacheListener;
+import net.sourceforge.pmd.cache.internal.FileAnalysisCache;
 import net.sourceforge.pmd.cache.internal.NoopAnalysisCache;
 import net.sourceforge.pmd.internal.LogMessages;
 import net.sourceforge.pmd.internal.util.ClasspathClassLoader;
@@ -48,6 +53,7 @@ import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.Rule;
 import net.sourceforge.pmd.lang.rule.RuleSet;
 import net.sourceforge.pmd.lang.rule.RuleSetLoader;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetCache;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
 import net.sourceforge.pmd.renderers.Renderer;
 import net.sourceforge.pmd.reporting.ConfigurableFileNameRenderer;
@@ -135,6 +141,13 @@ import net.sourceforge.pmd.util.log.PmdReporter;
  * you can set it in {@link PMDConfiguration#setReporter(PmdReporter)}.
  * By default, it forwards messages to SLF4J.
  *
+ * <h2>Running several analyses</h2>
+ *
+ * <p>Each instance starts the language processors from scratch, which for
+ * Java means loading the auxclasspath again. Tools that run PMD repeatedly
+ * in the same JVM can create instances with {@link PmdAnalysisSession#newAnalysis(PMDConfiguration)}
+ * instead, to reuse language processors and rulesets between analyses.
+ *
  */
 public final class PmdAnalysis implements AutoCloseable {
 
@@ -146,6 +159,7 @@ public final class PmdAnalysis implements AutoCloseable {
     private final List<RuleSet> ruleSets = new ArrayList<>();
     private final PMDConfiguration configuration;
     private final PmdReporter reporter;
+    private final @Nullable PmdAnalysisSession session;
 
     private final Map<Language, LanguagePropertyBundle> langProperties = new HashMap<>();
     private boolean closed;
@@ -157,8 +171,9 @@ public final class PmdAnalysis implements AutoCloseable {
      * the file collector ({@link #files()}), but more can be added
      * programmatically using the file collector.
      */
-    private PmdAnalysis(PMDConfiguration config) {
+    private PmdAnalysis(PMDConfiguration config, @Nullable PmdAnalysisSession session) {
         this.configuration = config;
+        this.session = session;
         this.reporter = config.getReporter();
         this.collector = newCollector(
             config.getLanguageVersionDiscoverer(),
@@ -181,7 +196,11 @@ public final class PmdAnalysis implements AutoCloseable {
      * </ul>
      */
     public static PmdAnalysis create(PMDConfiguration config) {
-        PmdAnalysis pmd = new PmdAnalysis(config);
+        return create(config, null);
+    }
+
+    static PmdAnalysis create(PMDConfiguration config, @Nullable PmdAnalysisSession session) {
+        PmdAnalysis pmd = new PmdAnalysis(config, session);
 
         // note: do not filter files by language
         // they could be ignored later. The problem is if you call
@@ -195,9 +214,8 @@ public final class PmdAnalysis implements AutoCloseable {
         }
 
         if (!config.getRuleSetPaths().isEmpty()) {
-            final RuleSetLoader ruleSetLoader = pmd.newRuleSetLoader();
-            final List<RuleSet> ruleSets = loadRuleSetsWithoutException(ruleSetLoader, config.getRuleSetPaths());
-            pmd.addRuleSets(ruleSets);
+            final RuleSetLoader ruleSetLoader = withRuleSetCache(pmd.newRuleSetLoader(), getRuleSetCache(config, session));
+            pmd.addRuleSets(loadRuleSetsWithoutException(ruleSetLoader, config.getRuleSetPaths()));
         }
 
         for (Language language : config.getLanguageRegistry()) {
@@ -225,6 +243,21 @@ public final class PmdAnalysis implements AutoCloseable {
         return pmd;
     }
 
+    /**
+     * Returns the ruleset cache of the session, otherwise a cache saved
+     * next to the analysis cache, if incremental analysis is enabled.
+     */
+    private static @Nullable RuleSetCache getRuleSetCache(PMDConfiguration config, @Nullable PmdAnalysisSession session) {
+        if (session != null) {
+            return session.getRuleSetCache();
+        }
+        AnalysisCache analysisCache = config.getAnalysisCache();
+        if (analysisCache instanceof FileAnalysisCache) {
+            return newPersistentRuleSetCache(((FileAnalysisCache) analysisCache).getRuleSetCacheFile());
+        }
+        return null;
+    }
+
     // test only
     List<RuleSet> rulesets() {
         return ruleSets;
@@ -416,39 +449,21 @@ public final class PmdAnalysis implements AutoCloseable {
 
             encourageToUseIncrementalAnalysis(configuration);
 
-            try (LanguageProcessorRegistry lpRegistry = LanguageProcessorRegistry.create(
-                // only start the applicable languages (and dependencies)
-                new LanguageRegistry(getApplicableLanguages(true)),
-                langProperties,
-                reporter
-            )) {
-                // Note the analysis task is shared: all processors see
-                // the same file list, which may contain files for other
-                // languages.
-                AnalysisTask analysisTask = InternalApiBridge.createAnalysisTask(
-                    rulesets,
-                    textFiles,
-                    listener,
-                    configuration.getThreads(),
-                    configuration.getAnalysisCache(),
-                    reporter,
-                    lpRegistry
-                );
-
-                List<AutoCloseable> analyses = new ArrayList<>();
-                try {
-                    for (Language lang : lpRegistry.getLanguages()) {
-                        analyses.add(lpRegistry.getProcessor(lang).launchAnalysis(analysisTask));
-                    }
-                } finally {
-                    Exception e = IOUtil.closeAll(analyses);
-                    if (e != null) {
-                        reporter.errorEx("Error while joining analysis", e);
-                    }
+            // only start the applicable languages (and dependencies)
+            Set<Language> languages = getApplicableLanguages(true);
+            if (session != null) {
+                // the processors are owned by the session, don't close them
+                launchAnalyses(rulesets, textFiles, listener, session.getProcessors(languages, langProperties, reporter));
+            } else {
+                try (LanguageProcessorRegistry lpRegistry = LanguageProcessorRegistry.create(
+                    new LanguageRegistry(languages),
+                    langProperties,
+                    reporter
+                )) {
+                    launchAnalyses(rulesets, textFiles, listener, lpRegistry);
+                } catch (LanguageTerminationException e) {
+                    reporter.errorEx("Error while closing language processors", e);
                 }
-
-            } catch (LanguageTerminationException e) {
-                reporter.errorEx("Error while closing language processors", e);
             }
         } finally {
             try {
@@ -461,6 +476,36 @@ public final class PmdAnalysis implements AutoCloseable {
         }
     }
 
+    private void launchAnalyses(RuleSets rulesets, List<TextFile> textFiles, GlobalAnalysisListener listener, LanguageProcessorRegistry lpRegistry) {
+        // Note the analysis task is shared: all processors see
+        // the same file list, which may contain files for other
+        // languages.
+        AnalysisTask analysisTask = InternalApiBridge.createAnalysisTask(
+            rulesets,
+            textFiles,
+            listener,
+            configuration.getThreads(),
+            configuration.getAnalysisCache(),
+            reporter,
+            lpRegistry,
+            configuration.getFileTimeout(),
+            configuration.getRuleTimeout(),
+            configuration.getInFlightMemoryBudget(),
+            configuration.getParallelRulesThreshold()
+        );
+
+        List<AutoCloseable> analyses = new ArrayList<>();
+        try {
+            for (Language lang : lpRegistry.getLanguages()) {
+                analyses.add(lpRegistry.getProcessor(lang).launchAnalysis(analysisTask));
+            }
+        } finally {
+            Exception e = IOUtil.closeAll(analyses);
+            if (e != null) {
+                reporter.errorEx("Error while joining analysis", e);
+            }
+        }
+    }
 
     private GlobalAnalysisListener createComposedRendererListener(List<Renderer> renderers) throws Exception {
         if (renderers.isEmpty()) {
@@ -562,8 +607,9 @@ public final class PmdAnalysis implements AutoCloseable {
          * Make sure it's our own classloader before attempting to close it....
          * Maven + Jacoco provide us with a cloaseable classloader that if closed
          * will throw a ClassNotFoundException.
+         * If this analysis is part of a session, the session owns the classloader.
          */
-        if (configuration.getClassLoader() instanceof ClasspathClassLoader) {
+        if (session == null && configuration.getClassLoader() instanceof ClasspathClassLoader) {
             IOUtil.tryCloseClassLoader(configuration.getClassLoader());
         }
     }
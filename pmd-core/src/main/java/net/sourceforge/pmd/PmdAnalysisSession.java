@@ -0,0 +1,366 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.cache.internal.ClasspathEntryFingerprint;
+import net.sourceforge.pmd.cache.internal.ClasspathFingerprinter;
+import net.sourceforge.pmd.internal.util.ClasspathClassLoader;
+import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.lang.InternalApiBridge;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageProcessorRegistry;
+import net.sourceforge.pmd.lang.LanguageProcessorRegistry.LanguageTerminationException;
+import net.sourceforge.pmd.lang.LanguagePropertyBundle;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetCache;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetSources;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+import net.sourceforge.pmd.util.internal.ResourceLoader;
+import net.sourceforge.pmd.util.log.PmdReporter;
+
+/**
+ * Keeps the expensive parts of a PMD analysis alive between several
+ * analyses, for tools that run PMD many times in the same JVM, like
+ * build servers or IDE integrations. Analyses created with {@link #newAnalysis(PMDConfiguration)}
+ * share:
+ * <ul>
+ * <li>The language processors, and everything they cache. For Java,
+ * this includes the type system and the classes it has loaded from
+ * the auxclasspath. Processors are recreated when the set of languages
+ * to analyse, or the value of any language property, changes. This
+ * includes the environment variables that set language properties.
+ * <li>The auxclasspath class loader. It is replaced when the entries
+ * of the auxclasspath change, or when the contents of the jar files
+ * and class files on the auxclasspath change.
+ * <li>The rulesets given in {@link PMDConfiguration#getRuleSetPaths()}.
+ * A ruleset is loaded again when the contents of the ruleset file, or
+ * of any ruleset file it references, changed, or when the minimum priority
+ * changes. Rulesets that are added
+ * with {@link PmdAnalysis#addRuleSet(RuleSet)} are not cached.
+ * </ul>
+ *
+ * <p>Example:
+ * <pre>{@code
+ *   try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+ *     while (shouldRunAgain()) {
+ *       PMDConfiguration config = createConfiguration();
+ *       try (PmdAnalysis pmd = session.newAnalysis(config)) {
+ *         pmd.performAnalysis();
+ *       }
+ *     }
+ *   }
+ * }</pre>
+ *
+ * <p>Only one analysis of a session may run at a time. The class loader
+ * of the configuration is owned by the session from the moment it is
+ * passed to {@link #newAnalysis(PMDConfiguration)}, it is closed when it
+ * is replaced or when the session is closed.
+ *
+ * @since 7.5.0
+ */
+@Experimental
+public final class PmdAnalysisSession implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(PmdAnalysisSession.class);
+    private static final ClasspathFingerprinter FINGERPRINTER = new ClasspathFingerprinter();
+
+    private final SessionRuleSetCache ruleSetCache = new SessionRuleSetCache();
+
+    private @Nullable ClassLoader classLoader;
+    private List<URL> classpathEntries = Collections.emptyList();
+    private Map<String, ClasspathEntryFingerprint> classpathFingerprints = Collections.emptyMap();
+
+    private @Nullable LanguageProcessorRegistry processors;
+    private Map<Language, Map<String, Object>> processorsKey = Collections.emptyMap();
+    private Map<String, String> processorsEnvironment = Collections.emptyMap();
+
+    /** Environment variables of the current analysis. */
+    private Map<String, String> environment = Collections.emptyMap();
+
+    private boolean closed;
+
+    private PmdAnalysisSession() {
+        // use create()
+    }
+
+    /**
+     * Create a new empty session.
+     */
+    public static PmdAnalysisSession create() {
+        return new PmdAnalysisSession();
+    }
+
+    /**
+     * Create a new analysis that reuses the state of this session. This
+     * is otherwise the same as {@link PmdAnalysis#create(PMDConfiguration)}.
+     * The previous analysis of this session must have been closed.
+     *
+     * @throws IllegalStateException If this session is closed
+     */
+    public PmdAnalysis newAnalysis(PMDConfiguration config) {
+        return newAnalysis(config, System.getenv());
+    }
+
+    /**
+     * Create a new analysis that reuses the state of this session, and
+     * reads the default values of language properties from the given
+     * environment variables instead of those of the current process.
+     * This is useful when the analysis runs on behalf of another process.
+     *
+     * @param config      Configuration of the analysis
+     * @param environment Environment variables, see {@link System#getenv()}
+     *
+     * @throws IllegalStateException If this session is closed
+     * @see #newAnalysis(PMDConfiguration)
+     */
+    public PmdAnalysis newAnalysis(PMDConfiguration config, Map<String, String> environment) {
+        if (closed) {
+            throw new IllegalStateException("Session is closed");
+        }
+        this.environment = pmdVariables(environment);
+        config.setClassLoader(shareClassLoader(config.getClassLoader()));
+        return PmdAnalysis.create(config, this);
+    }
+
+    /** Returns the environment variables that may set language properties. */
+    private static Map<String, String> pmdVariables(Map<String, String> environment) {
+        Map<String, String> variables = new HashMap<>();
+        environment.forEach((name, value) -> {
+            if (name.startsWith("PMD_")) {
+                variables.put(name, value);
+            }
+        });
+        return variables;
+    }
+
+    /**
+     * Returns the class loader to use instead of the given one. This
+     * is the previous class loader if it has the same classpath, otherwise
+     * the given one, which then replaces the previous one.
+     */
+    private ClassLoader shareClassLoader(ClassLoader newLoader) {
+        if (newLoader == classLoader) { // NOPMD CompareObjectsWithEquals
+            return newLoader;
+        }
+        List<URL> newEntries = getClasspathEntries(newLoader);
+        // only the entries that were modified since the previous analysis are read
+        Map<String, ClasspathEntryFingerprint> newFingerprints =
+            FINGERPRINTER.fingerprintEntries(classpathFingerprints, newEntries.toArray(new URL[0]));
+
+        if (classLoader != null
+            && getRootLoader(classLoader) == getRootLoader(newLoader) // NOPMD CompareObjectsWithEquals
+            && urlsAreEqual(newEntries, classpathEntries)
+            && ClasspathFingerprinter.haveSameFingerprints(newFingerprints, classpathFingerprints)) {
+            closeIfOwned(newLoader);
+            return classLoader;
+        }
+
+        if (classLoader != null) {
+            LOG.debug("Auxclasspath changed, discarding language processors");
+            closeProcessors();
+            closeIfOwned(classLoader);
+        }
+        classLoader = newLoader;
+        classpathEntries = newEntries;
+        classpathFingerprints = newFingerprints;
+        return newLoader;
+    }
+
+    private static List<URL> getClasspathEntries(ClassLoader loader) {
+        List<URL> entries = new ArrayList<>();
+        while (loader instanceof ClasspathClassLoader) {
+            Collections.addAll(entries, ((ClasspathClassLoader) loader).getURLs());
+            loader = loader.getParent();
+        }
+        return entries;
+    }
+
+    private static ClassLoader getRootLoader(ClassLoader loader) {
+        while (loader instanceof ClasspathClassLoader) {
+            loader = loader.getParent();
+        }
+        return loader;
+    }
+
+    private static boolean urlsAreEqual(List<URL> a, List<URL> b) {
+        // URL#equals may perform DNS lookups, compare the string forms instead
+        if (a.size() != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.size(); i++) {
+            if (!a.get(i).toExternalForm().equals(b.get(i).toExternalForm())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the cache of the rulesets loaded by the analyses of this
+     * session.
+     */
+    RuleSetCache getRuleSetCache() {
+        return ruleSetCache;
+    }
+
+    /**
+     * Returns the language processors to use for an analysis. They are
+     * reused if the languages, their properties, and the environment
+     * variables that may set them are the same as in the previous analysis.
+     * The returned registry is owned by the session and must not be closed.
+     */
+    LanguageProcessorRegistry getProcessors(Set<Language> languages,
+                                            Map<Language, LanguagePropertyBundle> languageProperties,
+                                            PmdReporter reporter) {
+        Map<Language, Map<String, Object>> key = new HashMap<>();
+        for (Language language : languages) {
+            LanguagePropertyBundle properties = languageProperties.get(language);
+            key.put(language, properties == null ? Collections.emptyMap() : propertyValues(properties));
+        }
+
+        if (processors == null || !key.equals(processorsKey) || !environment.equals(processorsEnvironment)) {
+            closeProcessors();
+            processors = InternalApiBridge.createProcessorRegistry(new LanguageRegistry(languages), languageProperties,
+                                                                   reporter, environment);
+            processorsKey = key;
+            processorsEnvironment = environment;
+        } else {
+            LOG.debug("Reusing language processors for {}", languages);
+        }
+        return processors;
+    }
+
+    private static Map<String, Object> propertyValues(LanguagePropertyBundle properties) {
+        Map<String, Object> values = new HashMap<>();
+        for (Map.Entry<PropertyDescriptor<?>, Object> entry : properties.getPropertiesByPropertyDescriptor().entrySet()) {
+            values.put(entry.getKey().name(), entry.getValue());
+        }
+        return values;
+    }
+
+    private void closeProcessors() {
+        if (processors != null) {
+            try {
+                processors.close();
+            } catch (LanguageTerminationException e) {
+                LOG.warn("Error while closing language processors", e);
+            }
+            processors = null;
+            processorsKey = Collections.emptyMap();
+            processorsEnvironment = Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Close the language processors and the class loader of this session.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeProcessors();
+        ruleSetCache.clear();
+        closeIfOwned(classLoader);
+        classLoader = null;
+    }
+
+    private static void closeIfOwned(@Nullable ClassLoader loader) {
+        // Like PmdAnalysis#close, only close class loaders that PMD created
+        if (loader instanceof ClasspathClassLoader) {
+            IOUtil.tryCloseClassLoader(loader);
+        }
+    }
+
+    /**
+     * Keeps the rulesets loaded by the analyses of the session, with the
+     * files they were loaded from. A ruleset is loaded again when any
+     * of these files changes.
+     */
+    private static final class SessionRuleSetCache implements RuleSetCache {
+
+        private final Map<RuleSetKey, CachedRuleSet> ruleSets = new HashMap<>();
+
+        @Override
+        public @Nullable RuleSet get(String path, RulePriority minimumPriority, LanguageRegistry languages, ResourceLoader resourceLoader) {
+            CachedRuleSet cached = ruleSets.get(new RuleSetKey(path, minimumPriority, languages));
+            if (cached == null || !cached.sources.isUpToDate(resourceLoader)) {
+                return null;
+            }
+            // rulesets are mutable, and rules keep state during an analysis
+            return new RuleSet(cached.ruleSet);
+        }
+
+        @Override
+        public void put(String path, RulePriority minimumPriority, LanguageRegistry languages, RuleSet ruleSet, RuleSetSources sources) {
+            ruleSets.keySet().removeIf(k -> k.path.equals(path));
+            ruleSets.put(new RuleSetKey(path, minimumPriority, languages), new CachedRuleSet(new RuleSet(ruleSet), sources));
+        }
+
+        void clear() {
+            ruleSets.clear();
+        }
+    }
+
+    private static final class CachedRuleSet {
+
+        private final RuleSet ruleSet;
+        private final RuleSetSources sources;
+
+        CachedRuleSet(RuleSet ruleSet, RuleSetSources sources) {
+            this.ruleSet = ruleSet;
+            this.sources = sources;
+        }
+    }
+
+    private static final class RuleSetKey {
+
+        private final String path;
+        private final RulePriority minimumPriority;
+        private final LanguageRegistry languages;
+
+        RuleSetKey(String path, RulePriority minimumPriority, LanguageRegistry languages) {
+            this.path = path;
+            this.minimumPriority = minimumPriority;
+            this.languages = languages;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            RuleSetKey that = (RuleSetKey) o;
+            return path.equals(that.path)
+                && minimumPriority == that.minimumPriority
+                && languages.getLanguages().equals(that.languages.getLanguages());
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(path, minimumPriority);
+        }
+    }
+}
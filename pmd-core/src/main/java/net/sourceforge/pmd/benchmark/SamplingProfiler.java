@@ -0,0 +1,298 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.text.MessageFormat;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.StringUtils;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+/**
+ * A low-overhead alternative to {@link TimeTracker#startGlobalTracking() global time tracking}.
+ * Instead of measuring each operation, each thread publishes the operation
+ * it is currently in, and a background thread periodically samples
+ * what every thread is doing. The number of samples in which a rule or
+ * phase was seen gives a statistical estimate of the time spent in it.
+ * The overhead on analysis threads is an allocation and a volatile write
+ * per operation, so that this can be left on in production.
+ *
+ * <p>Only one profiler may run at a time. Add it to the analysis with
+ * {@link net.sourceforge.pmd.PmdAnalysis#addListener(GlobalAnalysisListener)}
+ * so that samples are also attributed to files. Closing the profiler
+ * stops sampling, after which the estimates can be rendered with {@link #render(Writer)}.
+ * Sampling is disabled while global time tracking is on.
+ */
+public final class SamplingProfiler implements GlobalAnalysisListener {
+
+    private static final int LABEL_COLUMN_WIDTH = 70;
+    private static final int SAMPLES_COLUMN_WIDTH = 10;
+    private static final int TIME_COLUMN_WIDTH = 16;
+    private static final int SHARE_COLUMN_WIDTH = 9;
+    private static final String[] COLUMN_TITLES = {"Label", "Samples", "Est. time (s)", "Share"};
+    private static final int[] COLUMN_WIDTHS = {LABEL_COLUMN_WIDTH, SAMPLES_COLUMN_WIDTH, TIME_COLUMN_WIDTH, SHARE_COLUMN_WIDTH};
+    private static final int NUM_SLOWEST_FILES = 10;
+
+    private static volatile @Nullable SamplingProfiler active;
+
+    private static final Set<ActivitySlot> SLOTS = ConcurrentHashMap.newKeySet();
+    private static final ThreadLocal<ActivitySlot> CURRENT_SLOT = ThreadLocal.withInitial(() -> {
+        ActivitySlot slot = new ActivitySlot(Thread.currentThread());
+        SLOTS.add(slot);
+        return slot;
+    });
+
+    private final long intervalNanos;
+    private final ScheduledExecutorService sampler;
+    private final long startNanos = System.nanoTime();
+    private long durationNanos;
+
+    // only accessed by the sampler thread until it is stopped
+    private final Map<String, Long> samplesByActivity = new HashMap<>();
+    private final Map<String, Long> samplesByFile = new HashMap<>();
+    private long numSamples;
+
+    private SamplingProfiler(Duration interval) {
+        this.intervalNanos = interval.toNanos();
+        this.sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "PmdSamplingProfiler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sampler.scheduleAtFixedRate(this::sample, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Starts sampling all threads at the given interval.
+     *
+     * @throws IllegalStateException If another profiler is running
+     * @throws IllegalArgumentException If the interval is not positive
+     */
+    public static synchronized SamplingProfiler start(Duration interval) {
+        if (interval.isNegative() || interval.isZero()) {
+            throw new IllegalArgumentException("Sampling interval must be positive, got " + interval);
+        }
+        if (active != null) {
+            throw new IllegalStateException("A sampling profiler is already running");
+        }
+        SamplingProfiler profiler = new SamplingProfiler(interval);
+        active = profiler;
+        return profiler;
+    }
+
+    /**
+     * Whether a profiler is running. {@link TimeTracker} only publishes
+     * the current activity in this case.
+     */
+    static boolean isActive() {
+        return active != null;
+    }
+
+    /**
+     * Marks the start of an operation on the current thread. Closing the
+     * returned operation restores the previous activity.
+     */
+    static TimedOperation enter(TimedOperationCategory category, @Nullable String label) {
+        ActivitySlot slot = CURRENT_SLOT.get();
+        Activity activity = new Activity(slot, category, label, slot.current);
+        slot.current = activity;
+        return activity;
+    }
+
+    private void sample() {
+        numSamples++;
+        for (ActivitySlot slot : SLOTS) {
+            if (!slot.thread.isAlive()) {
+                SLOTS.remove(slot);
+                continue;
+            }
+            Activity activity = slot.current;
+            String file = slot.file;
+            if (file != null) {
+                samplesByFile.merge(file, 1L, Long::sum);
+            }
+            if (activity != null) {
+                samplesByActivity.merge(activity.displayName(), 1L, Long::sum);
+            } else if (file != null) {
+                samplesByActivity.merge(TimedOperationCategory.UNACCOUNTED.displayName(), 1L, Long::sum);
+            }
+            // otherwise the thread is idle, or not an analysis thread
+        }
+    }
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        ActivitySlot slot = CURRENT_SLOT.get();
+        slot.file = file.getFileId().getOriginalPath();
+        return new FileAnalysisListener() {
+            @Override
+            public void onRuleViolation(RuleViolation violation) {
+                // not interested
+            }
+
+            @Override
+            public void close() {
+                slot.file = null;
+            }
+        };
+    }
+
+    /**
+     * Stops sampling. This does nothing if the profiler was already stopped.
+     */
+    @Override
+    public void close() {
+        synchronized (SamplingProfiler.class) {
+            if (active != this) { // NOPMD CompareObjectsWithEquals
+                return;
+            }
+            active = null;
+        }
+        durationNanos = System.nanoTime() - startNanos;
+        sampler.shutdown();
+        try {
+            sampler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of samples in which a thread was in the given
+     * operation, as displayed by {@link #render(Writer)}, eg {@code "Rule: UnusedPrivateField"}.
+     * This can only be called after the profiler is closed.
+     */
+    public long getSamples(String activity) {
+        checkStopped();
+        return samplesByActivity.getOrDefault(activity, 0L);
+    }
+
+    /**
+     * Renders the estimated time per rule and phase, and the files in
+     * which most samples were taken. This can only be called after the
+     * profiler is closed.
+     */
+    public void render(Writer writer0) throws IOException {
+        checkStopped();
+        PrintWriter writer = new PrintWriter(writer0);
+
+        long totalSamples = 0;
+        for (long samples : samplesByActivity.values()) {
+            totalSamples += samples;
+        }
+
+        renderHeader("Sampled time per operation", writer);
+        for (Entry<String, Long> entry : sortedBySamples(samplesByActivity)) {
+            renderRow(entry.getKey(), entry.getValue(), totalSamples, writer);
+        }
+
+        writer.println();
+        renderHeader("Files with most samples", writer);
+        List<Entry<String, Long>> files = sortedBySamples(samplesByFile);
+        for (Entry<String, Long> entry : files.subList(0, Math.min(NUM_SLOWEST_FILES, files.size()))) {
+            renderRow(StringUtils.abbreviateMiddle(entry.getKey(), "...", LABEL_COLUMN_WIDTH - 1), entry.getValue(), totalSamples, writer);
+        }
+
+        writer.println();
+        writer.println(MessageFormat.format("{0} samples taken every {1} ms over {2,number,0.000} s. "
+                                                + "Times are estimated as the number of samples times the interval.",
+                                            numSamples, TimeUnit.NANOSECONDS.toMillis(intervalNanos), durationNanos / 1e9));
+        writer.flush();
+    }
+
+    private void checkStopped() {
+        if (active == this) { // NOPMD CompareObjectsWithEquals
+            throw new IllegalStateException("The profiler is still running");
+        }
+    }
+
+    private static List<Entry<String, Long>> sortedBySamples(Map<String, Long> samples) {
+        List<Entry<String, Long>> entries = new ArrayList<>(samples.entrySet());
+        entries.sort(Entry.<String, Long>comparingByValue().reversed().thenComparing(Entry.comparingByKey()));
+        return entries;
+    }
+
+    private void renderRow(String label, long samples, long totalSamples, PrintWriter writer) {
+        writer.write(StringUtils.rightPad(label, LABEL_COLUMN_WIDTH));
+        writer.write(StringUtils.leftPad(String.valueOf(samples), SAMPLES_COLUMN_WIDTH));
+        String time = MessageFormat.format("{0,number,0.000}", samples * intervalNanos / 1e9);
+        writer.write(StringUtils.leftPad(time, TIME_COLUMN_WIDTH));
+        String share = MessageFormat.format("{0,number,0.0}%", totalSamples == 0 ? 0 : 100.0 * samples / totalSamples);
+        writer.write(StringUtils.leftPad(share, SHARE_COLUMN_WIDTH));
+        writer.println();
+    }
+
+    private static void renderHeader(String displayName, PrintWriter writer) {
+        TextReportUtil.renderHeader(displayName, COLUMN_TITLES, COLUMN_WIDTHS, writer);
+    }
+
+    /**
+     * What a thread is doing. Written by that thread, read by the sampler.
+     */
+    private static final class ActivitySlot {
+
+        private final Thread thread;
+        private volatile @Nullable Activity current;
+        private volatile @Nullable String file;
+
+        ActivitySlot(Thread thread) {
+            this.thread = thread;
+        }
+    }
+
+    /**
+     * An operation in progress. Activities are immutable, so that the
+     * sampler always sees a consistent one.
+     */
+    private static final class Activity implements TimedOperation {
+
+        private final ActivitySlot slot;
+        private final TimedOperationCategory category;
+        private final @Nullable String label;
+        private final @Nullable Activity parent;
+
+        Activity(ActivitySlot slot, TimedOperationCategory category, @Nullable String label, @Nullable Activity parent) {
+            this.slot = slot;
+            this.category = category;
+            this.label = label;
+            this.parent = parent;
+        }
+
+        String displayName() {
+            return label == null ? category.displayName() : category.displayName() + ": " + label;
+        }
+
+        @Override
+        public void close() {
+            // operations may be closed twice
+            if (slot.current == this) { // NOPMD CompareObjectsWithEquals
+                slot.current = parent;
+            }
+        }
+
+        @Override
+        public void close(int extraDataCounter) {
+            close();
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.PrintWriter;
+
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Layout shared by the text reports of this package, which render
+ * tables with a label column followed by right-aligned value columns.
+ */
+final class TextReportUtil {
+
+    private TextReportUtil() {
+        // utility class
+    }
+
+    /**
+     * Renders the header of a table: a ruler that spans all the columns,
+     * with the name of the table in the middle, then the column titles.
+     * The first column is left-aligned, the others are right-aligned.
+     *
+     * @param displayName Name of the table
+     * @param titles      Column titles
+     * @param widths      Column widths, in the order of the titles
+     * @param writer      Writer of the report
+     */
+    static void renderHeader(String displayName, String[] titles, int[] widths, PrintWriter writer) {
+        int columns = 0;
+        for (int width : widths) {
+            columns += width;
+        }
+
+        final StringBuilder sb = new StringBuilder(columns)
+                .append(displayName);
+
+        // Make sure we have an even-length string
+        if (displayName.length() % 2 == 1) {
+            sb.append(' ');
+        }
+
+        // Surround with <<< and >>>
+        sb.insert(0, "<<< ").append(" >>>");
+
+        // Create the ruler
+        while (sb.length() < columns) {
+            sb.insert(0, '-').append('-');
+        }
+
+        writer.write(sb.toString());
+        writer.println();
+
+        // Write table titles
+        for (int i = 0; i < titles.length; i++) {
+            writer.write(i == 0 ? StringUtils.rightPad(titles[i], widths[i])
+                                : StringUtils.leftPad(titles[i], widths[i]));
+        }
+        writer.println();
+        writer.println();
+    }
+}
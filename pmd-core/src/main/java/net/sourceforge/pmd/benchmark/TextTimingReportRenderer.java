@@ -33,8 +33,9 @@ public class TextTimingReportRenderer implements TimingReportRenderer {
     private static final int CALL_COLUMN_WIDTH = 9;
     private static final int COUNTER_COLUMN_WIDTH = 12;
 
-    private static final int COLUMNS = LABEL_COLUMN_WIDTH + TIME_COLUMN_WIDTH
-            + SELF_TIME_COLUMN_WIDTH + CALL_COLUMN_WIDTH + COUNTER_COLUMN_WIDTH;
+    private static final String[] COLUMN_TITLES = {"Label", "Time (secs)", "Self Time (secs)", "# Calls", "Counter"};
+    private static final int[] COLUMN_WIDTHS = {LABEL_COLUMN_WIDTH, TIME_COLUMN_WIDTH, SELF_TIME_COLUMN_WIDTH,
+                                                CALL_COLUMN_WIDTH, COUNTER_COLUMN_WIDTH};
 
     @Override
     public void render(final TimingReport report, final Writer writer0) throws IOException {
@@ -106,34 +107,8 @@ public class TextTimingReportRenderer implements TimingReportRenderer {
         writer.println();
     }
 
-    private void renderHeader(final String displayName, final PrintWriter writer) throws IOException {
-        final StringBuilder sb = new StringBuilder(COLUMNS)
-                .append(displayName);
-
-        // Make sure we have an even-length string
-        if (displayName.length() % 2 == 1) {
-            sb.append(' ');
-        }
-
-        // Surround with <<< and >>>
-        sb.insert(0, "<<< ").append(" >>>");
-
-        // Create the ruler
-        while (sb.length() < COLUMNS) {
-            sb.insert(0, '-').append('-');
-        }
-
-        writer.write(sb.toString());
-        writer.println();
-
-        // Write table titles
-        writer.write(StringUtils.rightPad("Label", LABEL_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("Time (secs)", TIME_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("Self Time (secs)", SELF_TIME_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("# Calls", CALL_COLUMN_WIDTH));
-        writer.write(StringUtils.leftPad("Counter", COUNTER_COLUMN_WIDTH));
-        writer.println();
-        writer.println();
+    private void renderHeader(final String displayName, final PrintWriter writer) {
+        TextReportUtil.renderHeader(displayName, COLUMN_TITLES, COLUMN_WIDTHS, writer);
     }
 
 }
@@ -123,7 +123,7 @@ public final class TimeTracker {
      */
     public static TimedOperation startOperation(final TimedOperationCategory category, final String label) {
         if (!trackTime) {
-            return NOOP_TIMED_OPERATION;
+            return SamplingProfiler.isActive() ? SamplingProfiler.enter(category, label) : NOOP_TIMED_OPERATION;
         }
 
         TIMER_ENTRIES.get().add(new TimerEntry(category, label));
@@ -153,8 +153,18 @@ public final class TimeTracker {
 
         // Update counters and let next element on the stack ignore the time we spent
         final long delta = result.accumulate(timerEntry, extraDataCounter);
+        long cpuDelta = 0;
+        if (timerEntry.cpuStart >= 0) {
+            cpuDelta = TimingTelemetry.currentThreadCpuTime() - timerEntry.cpuStart;
+            // telemetry gets the self times, both of which exclude nested operations
+            TimingTelemetry.operationFinished(timerEntry.operation,
+                                              delta - timerEntry.inNestedOperationsNanos,
+                                              cpuDelta - timerEntry.inNestedOperationsCpuNanos);
+        }
         if (!queue.isEmpty()) {
-            queue.peek().inNestedOperationsNanos += delta;
+            TimerEntry parent = queue.peek();
+            parent.inNestedOperationsNanos += delta;
+            parent.inNestedOperationsCpuNanos += cpuDelta;
         }
     }
 
@@ -176,11 +186,15 @@ public final class TimeTracker {
     private static class TimerEntry {
         /* package */ final TimedOperationKey operation;
         /* package */ final long start;
+        /* package */ final long cpuStart;
         /* package */ long inNestedOperationsNanos = 0;
+        /* package */ long inNestedOperationsCpuNanos = 0;
 
         /* package */ TimerEntry(final TimedOperationCategory category, final String label) {
             this.operation = new TimedOperationKey(category, label);
             this.start = System.nanoTime();
+            // CPU time is only measured for telemetry, as it is more expensive
+            this.cpuStart = TimingTelemetry.isActive() ? TimingTelemetry.currentThreadCpuTime() : -1;
         }
 
         @Override
@@ -0,0 +1,421 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.benchmark.TimeTracker.TimedOperationKey;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes machine-readable performance telemetry while the analysis
+ * runs. This is more detailed than the {@link TimingReport}: timings
+ * are recorded per file, and include CPU time and allocated memory
+ * when the JVM supports measuring them.
+ *
+ * <p>The output is in the JSON Lines format, one JSON object per line.
+ * Each object has an {@code event} property:
+ * <ul>
+ * <li>{@code fileStart}: a file starts being analysed. A file that
+ * is started but never finished is where an analysis got stuck.
+ * <li>{@code file}: a file has been analysed. This contains the wall
+ * clock and CPU time spent on the file, the bytes allocated, the
+ * parse time, the time of each language-specific pass, and the
+ * slowest rules on this file.
+ * <li>{@code summary}: written once at the end. For each rule, the
+ * total wall clock and CPU time, a histogram of the time spent per
+ * file, and the slowest files. For each thread, the number of files
+ * analysed, the CPU time and the bytes allocated.
+ * </ul>
+ * Times are in nanoseconds. The times of rules, parsing and passes are
+ * self times, they exclude the time of the operations nested in them.
+ * Each line is flushed when it is written.
+ *
+ * <p>This listener only receives timings if {@linkplain TimeTracker#startGlobalTracking() global tracking}
+ * is enabled. It must be added to the analysis with {@link net.sourceforge.pmd.PmdAnalysis#addListener(GlobalAnalysisListener)}.
+ * Closing it writes the summary and closes the writer.
+ */
+public final class TimingTelemetry implements GlobalAnalysisListener {
+
+    /** Number of slowest files kept for each rule. */
+    private static final int NUM_SLOWEST_FILES = 10;
+    /** Number of slowest rules written for each file. */
+    private static final int NUM_SLOWEST_RULES = 5;
+    /** Upper bounds of the histogram buckets, in milliseconds. The last bucket is unbounded. */
+    private static final long[] HISTOGRAM_BOUNDS_MILLIS = {1, 10, 100, 1000, 10_000};
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported();
+
+    private static final AtomicInteger NUM_ACTIVE = new AtomicInteger();
+    private static final ThreadLocal<FileTelemetry> CURRENT_FILE = new ThreadLocal<>();
+
+    private final Writer writer;
+    private final long startMillis = System.currentTimeMillis();
+    private final AtomicInteger numFiles = new AtomicInteger();
+    private final ConcurrentMap<String, RuleStats> ruleStats = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ThreadStats> threadStats = new ConcurrentHashMap<>();
+    private boolean closed;
+
+    /**
+     * Create a new telemetry listener, that writes to the given writer.
+     *
+     * @throws UncheckedIOException If writing fails
+     */
+    public TimingTelemetry(Writer writer) {
+        this.writer = writer;
+        NUM_ACTIVE.incrementAndGet();
+        writeEvent("start", json -> json.name("timeMillis").value(startMillis)
+                                         .name("cpuTimeSupported").value(CPU_TIME_SUPPORTED)
+                                         .name("allocationSupported").value(AllocationCounter.SUPPORTED));
+    }
+
+    /**
+     * Whether any telemetry listener is active. When not, {@link TimeTracker}
+     * doesn't measure CPU time.
+     */
+    static boolean isActive() {
+        return NUM_ACTIVE.get() > 0;
+    }
+
+    static long currentThreadCpuTime() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : 0;
+    }
+
+    /**
+     * Called by {@link TimeTracker} when an operation finishes on the current thread.
+     * The times are self times, ie they exclude the time spent in nested operations.
+     */
+    static void operationFinished(TimedOperationKey operation, long wallNanos, long cpuNanos) {
+        FileTelemetry file = CURRENT_FILE.get();
+        if (file != null) {
+            file.record(operation, wallNanos, cpuNanos);
+        }
+    }
+
+    @Override
+    public FileAnalysisListener startFileAnalysis(TextFile file) {
+        String fileName = file.getFileId().getOriginalPath();
+        String threadName = Thread.currentThread().getName();
+        writeEvent("fileStart", json -> json.name("file").value(fileName)
+                                             .name("thread").value(threadName)
+                                             .name("timeMillis").value(System.currentTimeMillis()));
+        FileTelemetry telemetry = new FileTelemetry(fileName, threadName);
+        CURRENT_FILE.set(telemetry);
+        return telemetry;
+    }
+
+    private void fileFinished(FileTelemetry file) {
+        numFiles.incrementAndGet();
+        for (Map.Entry<String, long[]> rule : file.rules.entrySet()) {
+            ruleStats.computeIfAbsent(rule.getKey(), k -> new RuleStats())
+                     .add(file.fileName, rule.getValue()[0], rule.getValue()[1]);
+        }
+        ThreadStats thread = threadStats.computeIfAbsent(file.threadName, k -> new ThreadStats());
+        thread.files.increment();
+        thread.cpuNanos.add(file.cpuNanos);
+        thread.allocatedBytes.add(file.allocatedBytes);
+
+        writeEvent("file", json -> {
+            json.name("file").value(file.fileName)
+                .name("thread").value(file.threadName)
+                .name("wallNanos").value(file.wallNanos)
+                .name("cpuNanos").value(file.cpuNanos)
+                .name("allocatedBytes").value(file.allocatedBytes)
+                .name("parseNanos").value(file.parseNanos)
+                .name("indexNanos").value(file.indexNanos);
+
+            json.name("passNanos").beginObject();
+            for (Map.Entry<String, Long> pass : file.passes.entrySet()) {
+                json.name(pass.getKey()).value(pass.getValue());
+            }
+            json.endObject();
+
+            long totalRuleNanos = 0;
+            for (long[] times : file.rules.values()) {
+                totalRuleNanos += times[0];
+            }
+            json.name("ruleNanos").value(totalRuleNanos);
+
+            json.name("slowestRules").beginArray();
+            List<Map.Entry<String, long[]>> rules = new ArrayList<>(file.rules.entrySet());
+            rules.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed());
+            for (Map.Entry<String, long[]> rule : rules.subList(0, Math.min(NUM_SLOWEST_RULES, rules.size()))) {
+                json.beginObject()
+                    .name("rule").value(rule.getKey())
+                    .name("wallNanos").value(rule.getValue()[0])
+                    .name("cpuNanos").value(rule.getValue()[1])
+                    .endObject();
+            }
+            json.endArray();
+        });
+    }
+
+    @Override
+    public void close() throws Exception {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        NUM_ACTIVE.decrementAndGet();
+        try {
+            writeEvent("summary", this::writeSummary);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private void writeSummary(JsonWriter json) throws IOException {
+        json.name("wallClockMillis").value(System.currentTimeMillis() - startMillis)
+            .name("files").value(numFiles.get());
+
+        json.name("histogramBoundsMillis").beginArray();
+        for (long bound : HISTOGRAM_BOUNDS_MILLIS) {
+            json.value(bound);
+        }
+        json.endArray();
+
+        json.name("rules").beginArray();
+        for (Map.Entry<String, RuleStats> entry : new TreeMap<>(ruleStats).entrySet()) {
+            RuleStats stats = entry.getValue();
+            json.beginObject()
+                .name("rule").value(entry.getKey())
+                .name("files").value(stats.files.sum())
+                .name("wallNanos").value(stats.wallNanos.sum())
+                .name("cpuNanos").value(stats.cpuNanos.sum());
+
+            json.name("histogram").beginArray();
+            for (int i = 0; i < stats.histogram.length(); i++) {
+                json.value(stats.histogram.get(i));
+            }
+            json.endArray();
+
+            json.name("slowestFiles").beginArray();
+            for (FileTime file : stats.slowestFiles()) {
+                json.beginObject()
+                    .name("file").value(file.fileName)
+                    .name("wallNanos").value(file.wallNanos)
+                    .endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("threads").beginArray();
+        for (Map.Entry<String, ThreadStats> entry : new TreeMap<>(threadStats).entrySet()) {
+            ThreadStats stats = entry.getValue();
+            json.beginObject()
+                .name("thread").value(entry.getKey())
+                .name("files").value(stats.files.sum())
+                .name("cpuNanos").value(stats.cpuNanos.sum())
+                .name("allocatedBytes").value(stats.allocatedBytes.sum())
+                .endObject();
+        }
+        json.endArray();
+    }
+
+    private void writeEvent(String event, JsonContent content) {
+        try {
+            StringWriter line = new StringWriter();
+            try (JsonWriter json = new JsonWriter(line)) {
+                json.beginObject().name("event").value(event);
+                content.write(json);
+                json.endObject();
+            }
+            synchronized (writer) {
+                writer.write(line.toString());
+                writer.write('\n');
+                writer.flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @FunctionalInterface
+    private interface JsonContent {
+        void write(JsonWriter json) throws IOException;
+    }
+
+    /**
+     * Timings of a file being analysed. Operations are recorded on
+     * the thread that analyses the file.
+     */
+    private final class FileTelemetry implements FileAnalysisListener {
+
+        private final String fileName;
+        private final String threadName;
+        private final long startNanos = System.nanoTime();
+        private final long startCpuNanos = currentThreadCpuTime();
+        private final long startAllocatedBytes = AllocationCounter.currentThreadAllocatedBytes();
+
+        private final Map<String, long[]> rules = new HashMap<>();
+        private final Map<String, Long> passes = new TreeMap<>();
+        private long parseNanos;
+        private long indexNanos;
+
+        private long wallNanos;
+        private long cpuNanos;
+        private long allocatedBytes;
+
+        FileTelemetry(String fileName, String threadName) {
+            this.fileName = fileName;
+            this.threadName = threadName;
+        }
+
+        void record(TimedOperationKey operation, long wall, long cpu) {
+            switch (operation.category) {
+            case RULE:
+                long[] times = rules.computeIfAbsent(operation.label, k -> new long[2]);
+                times[0] += wall;
+                times[1] += cpu;
+                break;
+            case PARSER:
+                parseNanos += wall;
+                break;
+            case LANGUAGE_SPECIFIC_PROCESSING:
+                passes.merge(operation.label, wall, Long::sum);
+                break;
+            case RULE_AST_INDEXATION:
+                indexNanos += wall;
+                break;
+            default:
+                break;
+            }
+        }
+
+        @Override
+        public void onRuleViolation(RuleViolation violation) {
+            // not interested
+        }
+
+        @Override
+        public void close() {
+            // the file listener is closed on the thread that analysed the file
+            wallNanos = System.nanoTime() - startNanos;
+            cpuNanos = currentThreadCpuTime() - startCpuNanos;
+            allocatedBytes = AllocationCounter.currentThreadAllocatedBytes() - startAllocatedBytes;
+            if (CURRENT_FILE.get() == this) { // NOPMD CompareObjectsWithEquals
+                CURRENT_FILE.remove();
+            }
+            fileFinished(this);
+        }
+    }
+
+    private static final class RuleStats {
+
+        private final LongAdder files = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BOUNDS_MILLIS.length + 1);
+        // min-heap, the fastest of the slowest files is evicted first
+        private final PriorityQueue<FileTime> slowestFiles = new PriorityQueue<>(Comparator.comparingLong(f -> f.wallNanos));
+
+        void add(String fileName, long wall, long cpu) {
+            files.increment();
+            wallNanos.add(wall);
+            cpuNanos.add(cpu);
+            histogram.incrementAndGet(bucket(wall));
+            synchronized (slowestFiles) {
+                slowestFiles.add(new FileTime(fileName, wall));
+                if (slowestFiles.size() > NUM_SLOWEST_FILES) {
+                    slowestFiles.poll();
+                }
+            }
+        }
+
+        List<FileTime> slowestFiles() {
+            List<FileTime> result;
+            synchronized (slowestFiles) {
+                result = new ArrayList<>(slowestFiles);
+            }
+            result.sort(Comparator.comparingLong((FileTime f) -> f.wallNanos).reversed());
+            return result;
+        }
+
+        private static int bucket(long nanos) {
+            long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+            int i = 0;
+            while (i < HISTOGRAM_BOUNDS_MILLIS.length && millis >= HISTOGRAM_BOUNDS_MILLIS[i]) {
+                i++;
+            }
+            return i;
+        }
+    }
+
+    private static final class FileTime {
+
+        private final String fileName;
+        private final long wallNanos;
+
+        FileTime(String fileName, long wallNanos) {
+            this.fileName = fileName;
+            this.wallNanos = wallNanos;
+        }
+    }
+
+    private static final class ThreadStats {
+
+        private final LongAdder files = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+    }
+
+    /**
+     * Reads the number of bytes allocated by the current thread, if
+     * the JVM supports it (HotSpot and OpenJ9 do).
+     */
+    private static final class AllocationCounter {
+
+        private static final com.sun.management.@Nullable ThreadMXBean SUN_THREAD_MX_BEAN = sunThreadMxBean();
+        static final boolean SUPPORTED = SUN_THREAD_MX_BEAN != null;
+
+        private static com.sun.management.@Nullable ThreadMXBean sunThreadMxBean() {
+            try {
+                if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) THREAD_MX_BEAN).isThreadAllocatedMemorySupported()) {
+                    return (com.sun.management.ThreadMXBean) THREAD_MX_BEAN;
+                }
+            } catch (LinkageError ignored) {
+                // the com.sun.management API is not available
+            }
+            return null;
+        }
+
+        static long currentThreadAllocatedBytes() {
+            return SUN_THREAD_MX_BEAN != null
+                   ? SUN_THREAD_MX_BEAN.getThreadAllocatedBytes(Thread.currentThread().getId())
+                   : 0;
+        }
+    }
+}
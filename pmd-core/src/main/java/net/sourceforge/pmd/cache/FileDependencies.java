@@ -0,0 +1,105 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.LanguageVersionHandler;
+import net.sourceforge.pmd.lang.ast.RootNode;
+
+/**
+ * The names of the types declared by a file, and of the types the file
+ * depends on. The analysis cache uses them to analyse a file again when
+ * one of its dependencies changed, either because the file of the analysis
+ * that declares it changed, or because the classpath entry that contains
+ * it changed. Languages provide them with {@link LanguageVersionHandler#getFileDependencies(RootNode)}.
+ *
+ * <p>Type names are qualified names in which nested types are separated
+ * from their enclosing type with a period, eg {@code java.util.Map.Entry}.
+ * Binary names, eg {@code java.util.Map$Entry}, are normalized to this form.
+ * The names of types that could not be resolved should be referenced
+ * too, as they may be provided by a later version of the classpath.
+ *
+ * @since 7.5.0
+ */
+@Experimental
+public final class FileDependencies {
+
+    // arrays, as the dependencies of every file of the analysis are kept in memory
+    private final String[] declaredTypes;
+    private final String[] referencedTypes;
+
+    private FileDependencies(String[] declaredTypes, String[] referencedTypes) {
+        this.declaredTypes = declaredTypes;
+        this.referencedTypes = referencedTypes;
+    }
+
+    /**
+     * Create the dependencies of a file.
+     *
+     * @param declaredTypes   Names of the types declared in the file
+     * @param referencedTypes Names of the types declared elsewhere that the file depends on
+     */
+    public static FileDependencies create(Collection<String> declaredTypes, Collection<String> referencedTypes) {
+        return new FileDependencies(normalize(declaredTypes), normalize(referencedTypes));
+    }
+
+    private static String[] normalize(Collection<String> typeNames) {
+        Set<String> normalized = new LinkedHashSet<>(typeNames.size());
+        for (String name : typeNames) {
+            normalized.add(normalizeTypeName(name));
+        }
+        return normalized.toArray(new String[0]);
+    }
+
+    /**
+     * Returns the name in the form used by this class, replacing the
+     * {@code $} separators of binary names with periods.
+     */
+    public static String normalizeTypeName(String typeName) {
+        return typeName.replace('$', '.');
+    }
+
+    /** Returns the names of the types declared in the file, without duplicates. */
+    public List<String> getDeclaredTypes() {
+        return Collections.unmodifiableList(Arrays.asList(declaredTypes));
+    }
+
+    /** Returns the names of the types declared elsewhere that the file depends on, without duplicates. */
+    public List<String> getReferencedTypes() {
+        return Collections.unmodifiableList(Arrays.asList(referencedTypes));
+    }
+
+    /** Returns true if the file depends on one of the given types. */
+    public boolean dependsOnAny(Set<String> typeNames) {
+        for (String name : referencedTypes) {
+            if (typeNames.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Returns true if the file declares one of the given types. */
+    public boolean declaresAny(Set<String> typeNames) {
+        for (String name : declaredTypes) {
+            if (typeNames.contains(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public String toString() {
+        return "FileDependencies{declared=" + getDeclaredTypes() + ", referenced=" + getReferencedTypes() + '}';
+    }
+}
@@ -18,10 +18,16 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,6 +35,7 @@ import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.internal.util.IOUtil;
 import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.document.TextDocument;
@@ -50,8 +57,12 @@ abstract class AbstractAnalysisCache implements AnalysisCache {
     protected final ConcurrentMap<FileId, AnalysisResult> updatedResultsCache = new ConcurrentHashMap<>();
     protected final CachedRuleMapper ruleMapper = new CachedRuleMapper();
     protected long rulesetChecksum;
-    protected long auxClassPathChecksum;
-    protected long executionClassPathChecksum;
+    /** Files that had a result in the cache when it was validated. */
+    private Set<FileId> previousFiles = Collections.emptySet();
+    /** Fingerprints of the auxclasspath entries, in classpath order. */
+    protected Map<String, ClasspathEntryFingerprint> auxClassPathFingerprints = Collections.emptyMap();
+    /** Fingerprints of the entries of the classpath PMD runs with, in classpath order. */
+    protected Map<String, ClasspathEntryFingerprint> executionClassPathFingerprints = Collections.emptyMap();
 
     /**
      * Creates a new empty cache
@@ -106,6 +117,15 @@ abstract class AbstractAnalysisCache implements AnalysisCache {
         updatedResultsCache.remove(sourceFile.getFileId());
     }
 
+    @Override
+    public void recordDependencies(final TextDocument sourceFile, final FileDependencies dependencies) {
+        final AnalysisResult result = updatedResultsCache.get(sourceFile.getFileId());
+        // null if the analysis failed
+        if (result != null) {
+            result.setDependencies(dependencies);
+        }
+    }
+
 
     /**
      * Returns true if the cache exists. If so, normal cache validity checks
@@ -118,29 +138,28 @@ abstract class AbstractAnalysisCache implements AnalysisCache {
     public void checkValidity(RuleSets ruleSets, ClassLoader auxclassPathClassLoader, Collection<? extends TextFile> files) {
         try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.ANALYSIS_CACHE, "validity check")) {
             boolean cacheIsValid = cacheExists();
+            previousFiles = new HashSet<>(fileResultsCache.keySet());
 
             if (cacheIsValid && ruleSets.getChecksum() != rulesetChecksum) {
                 LOG.debug("Analysis cache invalidated, rulesets changed.");
                 cacheIsValid = false;
             }
 
-            final long currentAuxClassPathChecksum;
+            final URL[] auxClassPath;
             if (auxclassPathClassLoader instanceof URLClassLoader) {
                 // we don't want to close our aux classpath loader - we still need it...
                 @SuppressWarnings("PMD.CloseResource") final URLClassLoader urlClassLoader = (URLClassLoader) auxclassPathClassLoader;
-                currentAuxClassPathChecksum = FINGERPRINTER.fingerprint(urlClassLoader.getURLs());
-
-                if (cacheIsValid && currentAuxClassPathChecksum != auxClassPathChecksum) {
-                    // TODO some rules don't need that (in fact, some languages)
-                    LOG.debug("Analysis cache invalidated, auxclasspath changed.");
-                    cacheIsValid = false;
-                }
+                auxClassPath = urlClassLoader.getURLs();
             } else {
-                currentAuxClassPathChecksum = 0;
+                auxClassPath = new URL[0];
             }
+            // the previous fingerprints are reused for the entries whose metadata didn't change
+            final Map<String, ClasspathEntryFingerprint> currentAuxClassPathFingerprints =
+                FINGERPRINTER.fingerprintEntries(auxClassPathFingerprints, auxClassPath);
 
-            final long currentExecutionClassPathChecksum = FINGERPRINTER.fingerprint(getClassPathEntries());
-            if (cacheIsValid && currentExecutionClassPathChecksum != executionClassPathChecksum) {
+            final Map<String, ClasspathEntryFingerprint> currentExecutionClassPathFingerprints =
+                FINGERPRINTER.fingerprintEntries(executionClassPathFingerprints, getClassPathEntries());
+            if (cacheIsValid && !ClasspathFingerprinter.haveSameFingerprints(currentExecutionClassPathFingerprints, executionClassPathFingerprints)) {
                 LOG.debug("Analysis cache invalidated, execution classpath changed.");
                 cacheIsValid = false;
             }
@@ -148,16 +167,166 @@ abstract class AbstractAnalysisCache implements AnalysisCache {
             if (!cacheIsValid) {
                 // Clear the cache
                 fileResultsCache.clear();
+            } else {
+                invalidateDependents(auxClassPath, currentAuxClassPathFingerprints, files);
             }
 
             // Update the local checksums
             rulesetChecksum = ruleSets.getChecksum();
-            auxClassPathChecksum = currentAuxClassPathChecksum;
-            executionClassPathChecksum = currentExecutionClassPathChecksum;
+            auxClassPathFingerprints = currentAuxClassPathFingerprints;
+            executionClassPathFingerprints = currentExecutionClassPathFingerprints;
             ruleMapper.initialize(ruleSets);
         }
     }
 
+    /**
+     * Removes the results of the files that depend on a type that may
+     * have changed since the cache was written, so that they are analysed
+     * again. Types may have changed in the auxclasspath entries whose
+     * fingerprint changed, or in the files that changed or were removed
+     * from the analysis. Files whose dependencies are unknown are only
+     * analysed again if the auxclasspath changed.
+     *
+     * <p>The types declared by files that are new to the analysis are
+     * only known once these files are analysed, so the files depending
+     * on them still report their cached violations in this run. They are
+     * left out of the persisted cache by {@link #removeDependentsOfNewFiles()},
+     * so that the next run analyses them again.
+     */
+    private void invalidateDependents(URL[] auxClassPath, Map<String, ClasspathEntryFingerprint> currentAuxClassPathFingerprints,
+                                      Collection<? extends TextFile> files) {
+        final Set<String> changedClasspathTypes = getChangedClasspathTypes(auxClassPath, currentAuxClassPathFingerprints);
+        if (changedClasspathTypes == null) {
+            // TODO some rules don't need that (in fact, some languages)
+            LOG.debug("Analysis cache invalidated, auxclasspath changed.");
+            fileResultsCache.clear();
+            return;
+        }
+
+        final Set<String> changedTypes = new HashSet<>(changedClasspathTypes);
+        addChangedSourceTypes(files, changedTypes);
+        if (changedTypes.isEmpty()) {
+            return;
+        }
+
+        final boolean classpathChanged = !changedClasspathTypes.isEmpty();
+        final int sizeBefore = fileResultsCache.size();
+        fileResultsCache.values().removeIf(result -> {
+            final FileDependencies dependencies = result.getDependencies();
+            return dependencies == null ? classpathChanged : dependencies.dependsOnAny(changedTypes);
+        });
+        LOG.debug("Analysis cache invalidated for {} files whose dependencies changed.",
+                  sizeBefore - fileResultsCache.size());
+    }
+
+    /**
+     * Returns the names of the classes of the auxclasspath entries that were
+     * added or changed, or null if the changes can't be narrowed down to
+     * some classes, because entries were removed or reordered, or because
+     * the classes of a changed entry cannot be listed.
+     */
+    private @Nullable Set<String> getChangedClasspathTypes(URL[] auxClassPath,
+                                                           Map<String, ClasspathEntryFingerprint> currentAuxClassPathFingerprints) {
+        final List<String> keptEntries = new ArrayList<>(currentAuxClassPathFingerprints.keySet());
+        keptEntries.retainAll(auxClassPathFingerprints.keySet());
+        if (!keptEntries.equals(new ArrayList<>(auxClassPathFingerprints.keySet()))) {
+            // entries were removed, or reordered, which may change which class is loaded
+            return null;
+        }
+
+        final Set<String> changedTypes = new HashSet<>();
+        for (final URL url : auxClassPath) {
+            final String entry = url.toString();
+            final ClasspathEntryFingerprint currentFingerprint = currentAuxClassPathFingerprints.get(entry);
+            final ClasspathEntryFingerprint previousFingerprint = auxClassPathFingerprints.get(entry);
+            if (currentFingerprint == null
+                || previousFingerprint != null && currentFingerprint.getFingerprint() == previousFingerprint.getFingerprint()) {
+                continue;
+            }
+            final Set<String> classNames = FINGERPRINTER.getClassNames(url);
+            if (classNames == null) {
+                return null;
+            }
+            LOG.debug("Auxclasspath entry {} changed.", entry);
+            changedTypes.addAll(classNames);
+        }
+        return changedTypes;
+    }
+
+    /**
+     * Adds the types declared by the cached files that changed or were
+     * removed from the analysis, if some other file depends on them.
+     */
+    private void addChangedSourceTypes(Collection<? extends TextFile> files, Set<String> changedTypes) {
+        final Set<String> referencedTypes = new HashSet<>();
+        for (final AnalysisResult result : fileResultsCache.values()) {
+            if (result.getDependencies() != null) {
+                referencedTypes.addAll(result.getDependencies().getReferencedTypes());
+            }
+        }
+        if (referencedTypes.isEmpty()) {
+            return;
+        }
+
+        final Map<FileId, TextFile> filesById = new HashMap<>();
+        for (final TextFile file : files) {
+            filesById.put(file.getFileId(), file);
+        }
+
+        // the files are read in parallel, as they will be read again by the analysis
+        changedTypes.addAll(
+            fileResultsCache.entrySet().parallelStream()
+                            .filter(entry -> {
+                                final FileDependencies dependencies = entry.getValue().getDependencies();
+                                return dependencies != null && dependencies.declaresAny(referencedTypes);
+                            })
+                            .filter(entry -> {
+                                final TextFile file = filesById.get(entry.getKey());
+                                return file == null || !hasChecksum(file, entry.getValue().getFileChecksum());
+                            })
+                            .flatMap(entry -> entry.getValue().getDependencies().getDeclaredTypes().stream())
+                            .collect(Collectors.toSet()));
+    }
+
+    /**
+     * Removes the updated results of the files that were up to date,
+     * but depend on a type declared by a file that had no result in the
+     * cache, so that they are analysed again by the next run. Until then,
+     * their cached violations may have been computed while the type could
+     * not be resolved. This must be called once the analysis is finished,
+     * before persisting the updated results.
+     */
+    protected void removeDependentsOfNewFiles() {
+        final Set<String> newTypes = new HashSet<>();
+        for (final Map.Entry<FileId, AnalysisResult> entry : updatedResultsCache.entrySet()) {
+            final FileDependencies dependencies = entry.getValue().getDependencies();
+            if (dependencies != null && !previousFiles.contains(entry.getKey())) {
+                newTypes.addAll(dependencies.getDeclaredTypes());
+            }
+        }
+        if (newTypes.isEmpty()) {
+            return;
+        }
+
+        final int sizeBefore = updatedResultsCache.size();
+        updatedResultsCache.entrySet().removeIf(entry -> {
+            final FileDependencies dependencies = entry.getValue().getDependencies();
+            return entry.getValue() == fileResultsCache.get(entry.getKey())
+                && dependencies != null && dependencies.dependsOnAny(newTypes);
+        });
+        LOG.debug("Analysis cache invalidated for {} files that depend on the types of new files.",
+                  sizeBefore - updatedResultsCache.size());
+    }
+
+    private static boolean hasChecksum(TextFile file, long checksum) {
+        try {
+            return file.readContents().getCheckSum() == checksum;
+        } catch (final IOException e) {
+            // the analysis of the file will report the problem
+            return false;
+        }
+    }
+
     private static boolean isClassPathWildcard(String entry) {
         return entry.endsWith("/*") || entry.endsWith("\\*");
     }
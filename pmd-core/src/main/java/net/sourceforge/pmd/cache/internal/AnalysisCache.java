@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.List;
 
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.lang.document.TextDocument;
 import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
@@ -51,6 +52,16 @@ public interface AnalysisCache {
      */
     void analysisFailed(TextDocument sourceFile);
 
+    /**
+     * Records the dependencies of the given file, which has just been analysed.
+     * They are used in later analyses to analyse the file again when one of
+     * its dependencies changed.
+     *
+     * @param sourceFile   The file that was analysed
+     * @param dependencies The dependencies of the file
+     */
+    void recordDependencies(TextDocument sourceFile, FileDependencies dependencies);
+
     /**
      * Checks if the cache is valid for the configured rulesets and class loader.
      * If the provided rulesets and classpath don't match those of the cache, the
@@ -7,22 +7,33 @@ package net.sourceforge.pmd.cache.internal;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.reporting.RuleViolation;
 
 /**
  * The result of a single file analysis.
- * Includes a checksum of the file and the complete list of violations detected.
+ * Includes a checksum of the file and the complete list of violations detected,
+ * and the dependencies of the file if its language tracks them.
  */
 public class AnalysisResult {
 
     private final long fileChecksum;
     private final List<RuleViolation> violations;
+    private volatile @Nullable FileDependencies dependencies;
 
     public AnalysisResult(final long fileChecksum, final List<RuleViolation> violations) {
         this.fileChecksum = fileChecksum;
         this.violations = violations;
     }
 
+    public AnalysisResult(final long fileChecksum, final List<RuleViolation> violations,
+                          final @Nullable FileDependencies dependencies) {
+        this(fileChecksum, violations);
+        this.dependencies = dependencies;
+    }
+
     public AnalysisResult(final long fileChecksum) {
         this(fileChecksum, new ArrayList<>());
     }
@@ -35,6 +46,17 @@ public class AnalysisResult {
         return violations;
     }
 
+    /**
+     * Returns the dependencies of the file, or null if they are unknown.
+     */
+    public @Nullable FileDependencies getDependencies() {
+        return dependencies;
+    }
+
+    public void setDependencies(final FileDependencies dependencies) {
+        this.dependencies = dependencies;
+    }
+
     public void addViolations(final List<RuleViolation> violations) {
         this.violations.addAll(violations);
     }
@@ -0,0 +1,57 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache.internal;
+
+/**
+ * The fingerprint of a classpath entry, along with the size and last
+ * modification time of the entry when the fingerprint was computed.
+ * The fingerprint is only computed again when this metadata changes,
+ * as computing it requires reading the whole entry.
+ */
+public final class ClasspathEntryFingerprint {
+
+    /** Metadata of entries that are not files. Their fingerprint is always computed. */
+    static final long UNKNOWN = -1;
+
+    private final long size;
+    private final long lastModified;
+    private final long fingerprint;
+
+    ClasspathEntryFingerprint(long size, long lastModified, long fingerprint) {
+        this.size = size;
+        this.lastModified = lastModified;
+        this.fingerprint = fingerprint;
+    }
+
+    /** Size of the entry in bytes, or {@value #UNKNOWN}. */
+    public long getSize() {
+        return size;
+    }
+
+    /** Last modification time of the entry in milliseconds since the epoch, or {@value #UNKNOWN}. */
+    public long getLastModified() {
+        return lastModified;
+    }
+
+    /** Fingerprint of the contents of the entry. */
+    public long getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * Returns true if the fingerprint of an entry with the given metadata
+     * can be assumed to be the same as this one.
+     */
+    boolean hasSameMetadata(long size, long lastModified) {
+        return size != UNKNOWN && lastModified != UNKNOWN
+            && this.size == size && this.lastModified == lastModified;
+    }
+
+    @Override
+    public String toString() {
+        return "ClasspathEntryFingerprint{size=" + size + ", lastModified=" + lastModified
+            + ", fingerprint=" + fingerprint + '}';
+    }
+}
@@ -6,8 +6,11 @@ package net.sourceforge.pmd.cache.internal;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Set;
 import java.util.zip.Checksum;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 /**
  * A strategy to fingerprint a given classpath entry.
  */
@@ -29,4 +32,17 @@ public interface ClasspathEntryFingerprinter {
      * @throws IOException
      */
     void fingerprint(URL entry, Checksum checksum) throws IOException;
+
+    /**
+     * Returns the names of the classes the entry contains, in the form
+     * used by {@link net.sourceforge.pmd.cache.FileDependencies}. Returns
+     * null if they cannot be determined, in which case a change to the
+     * entry may affect any class.
+     *
+     * @param entry The entry whose classes to list
+     * @throws IOException If the entry cannot be read
+     */
+    default @Nullable Set<String> getClassNames(URL entry) throws IOException {
+        return null;
+    }
 }
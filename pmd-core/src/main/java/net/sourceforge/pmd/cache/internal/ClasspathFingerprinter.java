@@ -4,13 +4,26 @@
 
 package net.sourceforge.pmd.cache.internal;
 
+import java.io.File;
 import java.io.IOException;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 import java.util.zip.Adler32;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -29,14 +42,7 @@ public class ClasspathFingerprinter {
 
         try {
             for (final URL url : classpathEntry) {
-                final String extension = getExtension(url);
-
-                for (ClasspathEntryFingerprinter f : FINGERPRINTERS) {
-                    if (f.appliesTo(extension)) {
-                        f.fingerprint(url, adler32);
-                        break;
-                    }
-                }
+                getFingerprinter(url).fingerprint(url, adler32);
             }
         } catch (final IOException e) {
             // Can this even happen?
@@ -47,6 +53,133 @@ public class ClasspathFingerprinter {
         return adler32.getValue();
     }
 
+    /**
+     * Fingerprints each classpath entry separately. Entries that don't
+     * exist, and entries that no fingerprinter supports, are left out,
+     * as they don't affect the analysis. An entry whose size and last
+     * modification time are the same as in the previous fingerprints is
+     * not read again, its previous fingerprint is reused.
+     *
+     * @param previousFingerprints The fingerprints computed previously, keyed by URL
+     * @param classpathEntries     The entries to fingerprint
+     * @return The fingerprint of each entry keyed by its URL, in classpath order
+     */
+    public Map<String, ClasspathEntryFingerprint> fingerprintEntries(final Map<String, ClasspathEntryFingerprint> previousFingerprints,
+                                                                     final URL... classpathEntries) {
+        final List<URL> entries = new ArrayList<>();
+        for (final URL url : classpathEntries) {
+            if (!(getFingerprinter(url) instanceof NoopFingerprinter) && exists(url)) {
+                entries.add(url);
+            }
+        }
+
+        // reading the changed entries is most of the cost, large jars are read concurrently
+        final List<ClasspathEntryFingerprint> fingerprints =
+            entries.parallelStream()
+                   .map(url -> fingerprintEntry(url, previousFingerprints.get(url.toString())))
+                   .collect(Collectors.toList());
+
+        final Map<String, ClasspathEntryFingerprint> result = new LinkedHashMap<>();
+        for (int i = 0; i < entries.size(); i++) {
+            result.put(entries.get(i).toString(), fingerprints.get(i));
+        }
+        return result;
+    }
+
+    private ClasspathEntryFingerprint fingerprintEntry(final URL url, final @Nullable ClasspathEntryFingerprint previous) {
+        long size = ClasspathEntryFingerprint.UNKNOWN;
+        long lastModified = ClasspathEntryFingerprint.UNKNOWN;
+        final Path path = toPath(url);
+        if (path != null) {
+            try {
+                final BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                size = attributes.size();
+                lastModified = attributes.lastModifiedTime().toMillis();
+            } catch (final IOException ignored) {
+                // the entry is read unconditionally
+            }
+        }
+
+        if (previous != null && previous.hasSameMetadata(size, lastModified)) {
+            return previous;
+        }
+
+        final Adler32 adler32 = new Adler32();
+        try {
+            getFingerprinter(url).fingerprint(url, adler32);
+        } catch (final IOException e) {
+            LOG.error("Incremental analysis can't fingerprint classpath entry {}", url, e);
+            throw new RuntimeException(e);
+        }
+        LOG.trace("Fingerprinted classpath entry {}", url);
+        return new ClasspathEntryFingerprint(size, lastModified, adler32.getValue());
+    }
+
+    /**
+     * Returns true if both fingerprint tables have the same entries in the
+     * same order, with the same fingerprints.
+     */
+    public static boolean haveSameFingerprints(final Map<String, ClasspathEntryFingerprint> fingerprints,
+                                               final Map<String, ClasspathEntryFingerprint> otherFingerprints) {
+        if (!new ArrayList<>(fingerprints.keySet()).equals(new ArrayList<>(otherFingerprints.keySet()))) {
+            return false;
+        }
+        for (final Map.Entry<String, ClasspathEntryFingerprint> entry : fingerprints.entrySet()) {
+            if (entry.getValue().getFingerprint() != otherFingerprints.get(entry.getKey()).getFingerprint()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the names of the classes contained in the classpath entry,
+     * or null if they cannot be determined.
+     *
+     * @see ClasspathEntryFingerprinter#getClassNames(URL)
+     */
+    public @Nullable Set<String> getClassNames(final URL classpathEntry) {
+        try {
+            return getFingerprinter(classpathEntry).getClassNames(classpathEntry);
+        } catch (final IOException e) {
+            LOG.debug("Incremental analysis can't list the classes of {}", classpathEntry, e);
+            return null;
+        }
+    }
+
+    private ClasspathEntryFingerprinter getFingerprinter(final URL url) {
+        final String extension = getExtension(url);
+
+        for (ClasspathEntryFingerprinter f : FINGERPRINTERS) {
+            if (f.appliesTo(extension)) {
+                return f;
+            }
+        }
+        throw new AssertionError("The last fingerprinter applies to all entries");
+    }
+
+    private static @Nullable Path toPath(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Paths.get(url.toURI());
+        } catch (final URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+            return null;
+        }
+    }
+
+    private static boolean exists(final URL url) {
+        if (!"file".equals(url.getProtocol())) {
+            return true;
+        }
+        try {
+            return new File(url.toURI()).exists();
+        } catch (final URISyntaxException | IllegalArgumentException e) {
+            return true;
+        }
+    }
+
     private String getExtension(final URL url) {
         final String file = url.getFile();
         final int lastDot = file.lastIndexOf('.');
@@ -12,16 +12,21 @@ import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
@@ -43,6 +48,14 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
         this.cacheFile = cache;
     }
 
+    /**
+     * Returns the file in which the loaded rulesets are cached. It is
+     * next to the analysis cache file.
+     */
+    public Path getRuleSetCacheFile() {
+        return cacheFile.toPath().resolveSibling(cacheFile.getName() + ".rulesets");
+    }
+
     @Override
     public void checkValidity(RuleSets ruleSets, ClassLoader auxclassPathClassLoader, Collection<? extends TextFile> files) {
         // load cached data before checking for validity
@@ -73,8 +86,9 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
 
                         // Get checksums
                         rulesetChecksum = inputStream.readLong();
-                        auxClassPathChecksum = inputStream.readLong();
-                        executionClassPathChecksum = inputStream.readLong();
+                        auxClassPathFingerprints = loadFingerprints(inputStream);
+                        executionClassPathFingerprints = loadFingerprints(inputStream);
+                        final String[] typeNames = loadTypeNames(inputStream);
 
                         // Cached results
                         while (inputStream.available() > 0) {
@@ -86,6 +100,7 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                                 fileId = FileId.fromURI(filePathId);
                             }
                             final long checksum = inputStream.readLong();
+                            final FileDependencies dependencies = loadDependencies(inputStream, typeNames);
 
                             final int countViolations = inputStream.readInt();
                             final List<RuleViolation> violations = new ArrayList<>(countViolations);
@@ -93,7 +108,7 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                                 violations.add(CachedRuleViolation.loadFromStream(inputStream, fileId, ruleMapper));
                             }
 
-                            fileResultsCache.put(fileId, new AnalysisResult(checksum, violations));
+                            fileResultsCache.put(fileId, new AnalysisResult(checksum, violations, dependencies));
                         }
 
                         LOG.debug("Analysis cache loaded from {}", cacheFile);
@@ -119,6 +134,8 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                 return;
             }
 
+            removeDependentsOfNewFiles();
+
             boolean cacheFileShouldBeCreated = !cacheFile.exists();
 
             // Create directories missing along the way
@@ -136,14 +153,16 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
                 outputStream.writeUTF(pmdVersion);
 
                 outputStream.writeLong(rulesetChecksum);
-                outputStream.writeLong(auxClassPathChecksum);
-                outputStream.writeLong(executionClassPathChecksum);
+                storeFingerprints(outputStream, auxClassPathFingerprints);
+                storeFingerprints(outputStream, executionClassPathFingerprints);
+                final Map<String, Integer> typeNameIds = storeTypeNames(outputStream, updatedResultsCache.values());
 
                 for (final Map.Entry<FileId, AnalysisResult> resultEntry : updatedResultsCache.entrySet()) {
                     final List<RuleViolation> violations = resultEntry.getValue().getViolations();
 
                     outputStream.writeUTF(resultEntry.getKey().getUriString()); // the path id
                     outputStream.writeLong(resultEntry.getValue().getFileChecksum());
+                    storeDependencies(outputStream, resultEntry.getValue().getDependencies(), typeNameIds);
 
                     outputStream.writeInt(violations.size());
                     for (final RuleViolation rv : violations) {
@@ -161,6 +180,100 @@ public class FileAnalysisCache extends AbstractAnalysisCache {
         }
     }
 
+    private static Map<String, ClasspathEntryFingerprint> loadFingerprints(final DataInputStream inputStream) throws IOException {
+        final int count = inputStream.readInt();
+        final Map<String, ClasspathEntryFingerprint> fingerprints = new LinkedHashMap<>();
+        for (int i = 0; i < count; i++) {
+            final String entry = inputStream.readUTF();
+            final long size = inputStream.readLong();
+            final long lastModified = inputStream.readLong();
+            fingerprints.put(entry, new ClasspathEntryFingerprint(size, lastModified, inputStream.readLong()));
+        }
+        return fingerprints;
+    }
+
+    private static void storeFingerprints(final DataOutputStream outputStream,
+                                          final Map<String, ClasspathEntryFingerprint> fingerprints) throws IOException {
+        outputStream.writeInt(fingerprints.size());
+        for (final Map.Entry<String, ClasspathEntryFingerprint> entry : fingerprints.entrySet()) {
+            outputStream.writeUTF(entry.getKey());
+            outputStream.writeLong(entry.getValue().getSize());
+            outputStream.writeLong(entry.getValue().getLastModified());
+            outputStream.writeLong(entry.getValue().getFingerprint());
+        }
+    }
+
+    /*
+     * The same type names occur in the dependencies of many files,
+     * so they are stored once, and the dependencies refer to their index.
+     */
+
+    private static String[] loadTypeNames(final DataInputStream inputStream) throws IOException {
+        final String[] typeNames = new String[inputStream.readInt()];
+        for (int i = 0; i < typeNames.length; i++) {
+            typeNames[i] = inputStream.readUTF();
+        }
+        return typeNames;
+    }
+
+    private static Map<String, Integer> storeTypeNames(final DataOutputStream outputStream,
+                                                       final Collection<AnalysisResult> results) throws IOException {
+        final Map<String, Integer> typeNameIds = new LinkedHashMap<>();
+        for (final AnalysisResult result : results) {
+            final FileDependencies dependencies = result.getDependencies();
+            if (dependencies != null) {
+                for (final String name : dependencies.getDeclaredTypes()) {
+                    typeNameIds.putIfAbsent(name, typeNameIds.size());
+                }
+                for (final String name : dependencies.getReferencedTypes()) {
+                    typeNameIds.putIfAbsent(name, typeNameIds.size());
+                }
+            }
+        }
+
+        outputStream.writeInt(typeNameIds.size());
+        for (final String name : typeNameIds.keySet()) {
+            outputStream.writeUTF(name);
+        }
+        return typeNameIds;
+    }
+
+    private static @Nullable FileDependencies loadDependencies(final DataInputStream inputStream,
+                                                               final String[] typeNames) throws IOException {
+        if (!inputStream.readBoolean()) {
+            return null;
+        }
+        final List<String> declaredTypes = loadNames(inputStream, typeNames);
+        final List<String> referencedTypes = loadNames(inputStream, typeNames);
+        return FileDependencies.create(declaredTypes, referencedTypes);
+    }
+
+    private static List<String> loadNames(final DataInputStream inputStream, final String[] typeNames) throws IOException {
+        final int count = inputStream.readInt();
+        final List<String> names = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            names.add(typeNames[inputStream.readInt()]);
+        }
+        return names;
+    }
+
+    private static void storeDependencies(final DataOutputStream outputStream, final @Nullable FileDependencies dependencies,
+                                          final Map<String, Integer> typeNameIds) throws IOException {
+        outputStream.writeBoolean(dependencies != null);
+        if (dependencies != null) {
+            storeNames(outputStream, dependencies.getDeclaredTypes(), typeNameIds);
+            storeNames(outputStream, dependencies.getReferencedTypes(), typeNameIds);
+        }
+    }
+
+    private static void storeNames(final DataOutputStream outputStream, final List<String> names,
+                                   final Map<String, Integer> typeNameIds) throws IOException {
+        outputStream.writeInt(names.size());
+        for (final String name : names) {
+            outputStream.writeInt(typeNameIds.get(name));
+        }
+    }
+
     @Override
     protected boolean cacheExists() {
         return cacheFile.exists() && cacheFile.isFile() && cacheFile.length() > 0;
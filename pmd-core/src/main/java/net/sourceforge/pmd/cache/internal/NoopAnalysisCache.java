@@ -8,6 +8,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.lang.document.TextDocument;
 import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
@@ -34,6 +35,11 @@ public class NoopAnalysisCache implements AnalysisCache {
         // noop
     }
 
+    @Override
+    public void recordDependencies(TextDocument sourceFile, FileDependencies dependencies) {
+        // noop
+    }
+
     @Override
     public void checkValidity(RuleSets ruleSets, ClassLoader auxclassPathClassLoader, Collection<? extends TextFile> files) {
         // noop
@@ -6,6 +6,8 @@ package net.sourceforge.pmd.cache.internal;
 
 import java.io.IOException;
 import java.net.URL;
+import java.util.Collections;
+import java.util.Set;
 import java.util.zip.Checksum;
 
 import org.slf4j.Logger;
@@ -27,4 +29,10 @@ public class NoopFingerprinter implements ClasspathEntryFingerprinter {
         // noop
         LOG.debug("Ignoring classpath entry {}", entry);
     }
+
+    @Override
+    public Set<String> getClassNames(URL entry) {
+        // the entry is ignored, so are its classes
+        return Collections.emptySet();
+    }
 }
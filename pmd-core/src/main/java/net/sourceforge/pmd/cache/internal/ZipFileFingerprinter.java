@@ -22,9 +22,12 @@ import java.util.zip.Checksum;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sourceforge.pmd.cache.FileDependencies;
+
 /**
  * Specialized fingerprinter for Zip files.
  */
@@ -35,6 +38,9 @@ public class ZipFileFingerprinter implements ClasspathEntryFingerprinter {
     private static final Set<String> SUPPORTED_EXTENSIONS;
     private static final Set<String> SUPPORTED_ENTRY_EXTENSIONS;
 
+    private static final String VERSIONED_ENTRY_PREFIX = "META-INF/versions/";
+    private static final String CLASS_FILE_SUFFIX = ".class";
+
     private static final Comparator<ZipEntry> FILE_NAME_COMPARATOR = new Comparator<ZipEntry>() {
 
         @Override
@@ -88,6 +94,31 @@ public class ZipFileFingerprinter implements ClasspathEntryFingerprinter {
         }
     }
 
+    @Override
+    public @Nullable Set<String> getClassNames(URL entry) throws IOException {
+        try (ZipFile zip = new ZipFile(new File(entry.toURI()))) {
+            final Set<String> classNames = new HashSet<>();
+            for (final ZipEntry zipEntry : getMeaningfulEntries(zip)) {
+                classNames.add(getClassName(zipEntry));
+            }
+            return classNames;
+        } catch (final FileNotFoundException | NoSuchFileException ignored) {
+            return Collections.emptySet();
+        } catch (final URISyntaxException e) {
+            return null;
+        }
+    }
+
+    private String getClassName(final ZipEntry entry) {
+        String name = entry.getName();
+        // multi-release jars keep versioned classes in META-INF/versions/<version>/
+        if (name.startsWith(VERSIONED_ENTRY_PREFIX)) {
+            name = name.substring(name.indexOf('/', VERSIONED_ENTRY_PREFIX.length()) + 1);
+        }
+        name = name.substring(0, name.length() - CLASS_FILE_SUFFIX.length());
+        return FileDependencies.normalizeTypeName(name.replace('/', '.'));
+    }
+
     /**
      * Retrieve a filtered list of entries discarding those that do not matter for classpath computation
      * @param zip The zip file whose entries to retrieve
@@ -7,5 +7,7 @@
  *
  * <p>The only public API entry point is
  * {@link net.sourceforge.pmd.PMDConfiguration#setAnalysisCacheLocation(java.lang.String)}.
+ * Languages may additionally describe the dependencies of a file with
+ * {@link net.sourceforge.pmd.cache.FileDependencies}.
  */
 package net.sourceforge.pmd.cache;
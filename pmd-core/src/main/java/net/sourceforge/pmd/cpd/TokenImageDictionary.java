@@ -0,0 +1,147 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import java.util.Arrays;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Assigns consecutive int IDs to token images, and maps them back.
+ * Both directions are constant time. The characters of all images are
+ * stored one after the other in a single char array, the image with
+ * ID {@code i} spanning from {@code offsets[i]} to {@code offsets[i + 1]}.
+ * Images are looked up by content with an open-addressing hash table
+ * of IDs, using linear probing.
+ *
+ * <p>ID 0 is reserved for the EOF token, so the first image has ID 1.
+ */
+final class TokenImageDictionary {
+
+    private static final int EMPTY = 0;
+
+    private char[] arena = new char[1024];
+    private int arenaSize;
+
+    /** Start offset of each image in the arena, plus the end of the last one. */
+    private int[] offsets = new int[256];
+    /** Hash code of each image, so that it is not recomputed when rehashing. */
+    private int[] hashes = new int[256];
+    /** The next ID to assign. */
+    private int nextId = 1;
+
+    /** Slots contain an ID, or {@link #EMPTY}. The length is a power of two. */
+    private int[] table = new int[512];
+
+    /**
+     * Returns the ID of the given image, assigning it a new ID if this
+     * is the first time it is seen.
+     */
+    int getOrAdd(String image) {
+        int hash = image.hashCode();
+        int mask = table.length - 1;
+        int slot = spread(hash) & mask;
+        int id;
+        while ((id = table[slot]) != EMPTY) {
+            if (hashes[id] == hash && contentEquals(id, image)) {
+                return id;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        id = add(image, hash);
+        table[slot] = id;
+        if (2 * nextId > table.length) {
+            rehash(table.length * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the image with the given ID, or null if there is none.
+     */
+    @Nullable String getImage(int id) {
+        if (id <= 0 || id >= nextId) {
+            return null;
+        }
+        return new String(arena, offsets[id], offsets[id + 1] - offsets[id]);
+    }
+
+    /** Returns the ID that will be assigned to the next new image. */
+    int nextId() {
+        return nextId;
+    }
+
+    /**
+     * Forgets all images whose ID is greater or equal to the given one,
+     * as returned previously by {@link #nextId()}.
+     */
+    void truncate(int newNextId) {
+        // Removing entries in the reverse order of their insertion leaves
+        // the table as if they had never been inserted, even with linear
+        // probing. Rehashing also inserts entries in the order of their ID.
+        int mask = table.length - 1;
+        for (int id = nextId - 1; id >= newNextId; id--) {
+            int slot = spread(hashes[id]) & mask;
+            while (table[slot] != id) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = EMPTY;
+        }
+        if (newNextId < nextId) {
+            nextId = newNextId;
+            arenaSize = offsets[nextId];
+        }
+    }
+
+    private int add(String image, int hash) {
+        int id = nextId++;
+        if (nextId + 1 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            hashes = Arrays.copyOf(hashes, hashes.length * 2);
+        }
+        int length = image.length();
+        if (arenaSize + length > arena.length) {
+            arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + length));
+        }
+        image.getChars(0, length, arena, arenaSize);
+        offsets[id] = arenaSize;
+        arenaSize += length;
+        offsets[nextId] = arenaSize;
+        hashes[id] = hash;
+        return id;
+    }
+
+    private boolean contentEquals(int id, String image) {
+        int start = offsets[id];
+        int length = offsets[id + 1] - start;
+        if (length != image.length()) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (arena[start + i] != image.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash(int newCapacity) {
+        int[] newTable = new int[newCapacity];
+        int mask = newCapacity - 1;
+        for (int id = 1; id < nextId; id++) {
+            int slot = spread(hashes[id]) & mask;
+            while (newTable[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            newTable[slot] = id;
+        }
+        table = newTable;
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+}
@@ -5,10 +5,7 @@
 package net.sourceforge.pmd.cpd;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.Map.Entry;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
@@ -25,9 +22,8 @@ public class Tokens {
 
     // This stores all the token entries recorded during the run.
     private final List<TokenEntry> tokens = new ArrayList<>();
-    private final Map<String, Integer> images = new HashMap<>();
     // the first ID is 1, 0 is the ID of the EOF token.
-    private int curImageId = 1;
+    private final TokenImageDictionary images = new TokenImageDictionary();
 
     /**
      * Create a new instance.
@@ -52,11 +48,11 @@ public class Tokens {
     }
 
     private int getImageId(String newImage) {
-        return images.computeIfAbsent(newImage, k -> curImageId++);
+        return images.getOrAdd(newImage);
     }
 
     String imageFromId(int i) {
-        return images.entrySet().stream().filter(it -> it.getValue() == i).findFirst().map(Entry::getKey).orElse(null);
+        return images.getImage(i);
     }
 
     private TokenEntry peekLastToken() {
@@ -146,16 +142,15 @@ public class Tokens {
     static final class State {
 
         private final int tokenCount;
-        private final int curImageId;
+        private final int nextImageId;
 
         State(Tokens tokens) {
             this.tokenCount = tokens.tokens.size();
-            this.curImageId = tokens.curImageId;
+            this.nextImageId = tokens.images.nextId();
         }
 
         public void restore(Tokens tokens) {
-            tokens.images.entrySet().removeIf(e -> e.getValue() >= curImageId);
-            tokens.curImageId = this.curImageId;
+            tokens.images.truncate(nextImageId);
 
             final List<TokenEntry> entries = tokens.getTokens();
             entries.subList(tokenCount, entries.size()).clear();
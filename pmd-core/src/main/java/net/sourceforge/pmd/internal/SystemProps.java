@@ -7,6 +7,7 @@ package net.sourceforge.pmd.internal;
 public final class SystemProps {
 
     public static final String PMD_ERROR_RECOVERY = "pmd.error_recovery";
+    public static final String PMD_XPATH_COMPILE = "pmd.xpath.compile";
 
     private SystemProps() {
     }
@@ -25,4 +26,14 @@ public final class SystemProps {
     public static boolean isErrorRecoveryMode() {
         return System.getProperty(PMD_ERROR_RECOVERY) != null;
     }
+
+    /**
+     * Whether XPath rule chain expressions may be compiled, for languages
+     * that {@linkplain net.sourceforge.pmd.lang.rule.xpath.impl.XPathHandler#supportsCompiledExpressions() support it}.
+     * Setting the System Property {@code pmd.xpath.compile} to {@code false}
+     * makes Saxon evaluate all XPath rules.
+     */
+    public static boolean isXPathCompilationEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty(PMD_XPATH_COMPILE));
+    }
 }
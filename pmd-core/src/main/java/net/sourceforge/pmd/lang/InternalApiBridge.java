@@ -4,11 +4,14 @@
 
 package net.sourceforge.pmd.lang;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.cache.internal.AnalysisCache;
 import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.impl.InFlightMemoryBudget;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
 import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
 import net.sourceforge.pmd.util.log.PmdReporter;
@@ -34,8 +37,25 @@ public final class InternalApiBridge {
                                                                     int threadCount,
                                                                     AnalysisCache analysisCache,
                                                                     PmdReporter messageReporter,
-                                                                    LanguageProcessorRegistry lpRegistry) {
-        return new LanguageProcessor.AnalysisTask(rulesets, files, listener, threadCount, analysisCache, messageReporter, lpRegistry);
+                                                                    LanguageProcessorRegistry lpRegistry,
+                                                                    Duration fileTimeout,
+                                                                    Duration ruleTimeout,
+                                                                    long inFlightMemoryBudget,
+                                                                    int parallelRulesThreshold) {
+        return new LanguageProcessor.AnalysisTask(rulesets, files, listener, threadCount, analysisCache, messageReporter, lpRegistry,
+                                                  fileTimeout, ruleTimeout, new InFlightMemoryBudget(inFlightMemoryBudget),
+                                                  parallelRulesThreshold);
+    }
+
+    public static LanguageProcessorRegistry createProcessorRegistry(LanguageRegistry registry,
+                                                                    Map<Language, LanguagePropertyBundle> languageProperties,
+                                                                    PmdReporter messageReporter,
+                                                                    Map<String, String> environment) {
+        return LanguageProcessorRegistry.create(registry, languageProperties, messageReporter, environment);
+    }
+
+    public static InFlightMemoryBudget getMemoryBudget(LanguageProcessor.AnalysisTask task) {
+        return task.getMemoryBudget();
     }
 
     public static LanguageProcessor.AnalysisTask taskWithFiles(LanguageProcessor.AnalysisTask originalTask, List<TextFile> newFiles) {
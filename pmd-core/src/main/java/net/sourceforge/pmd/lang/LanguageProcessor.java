@@ -4,6 +4,7 @@
 
 package net.sourceforge.pmd.lang;
 
+import java.time.Duration;
 import java.util.Collections;
 import java.util.List;
 
@@ -11,6 +12,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import net.sourceforge.pmd.cache.internal.AnalysisCache;
 import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.impl.InFlightMemoryBudget;
 import net.sourceforge.pmd.lang.rule.internal.RuleSets;
 import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
 import net.sourceforge.pmd.util.log.PmdReporter;
@@ -66,6 +68,10 @@ public interface LanguageProcessor extends AutoCloseable {
         private final AnalysisCache analysisCache;
         private final PmdReporter messageReporter;
         private final LanguageProcessorRegistry lpRegistry;
+        private final Duration fileTimeout;
+        private final Duration ruleTimeout;
+        private final InFlightMemoryBudget memoryBudget;
+        private final int parallelRulesThreshold;
 
 
         /**
@@ -80,7 +86,11 @@ public interface LanguageProcessor extends AutoCloseable {
                             int threadCount,
                             AnalysisCache analysisCache,
                             PmdReporter messageReporter,
-                            LanguageProcessorRegistry lpRegistry) {
+                            LanguageProcessorRegistry lpRegistry,
+                            Duration fileTimeout,
+                            Duration ruleTimeout,
+                            InFlightMemoryBudget memoryBudget,
+                            int parallelRulesThreshold) {
             this.rulesets = rulesets;
             this.files = files;
             this.listener = listener;
@@ -88,6 +98,10 @@ public interface LanguageProcessor extends AutoCloseable {
             this.analysisCache = analysisCache;
             this.messageReporter = messageReporter;
             this.lpRegistry = lpRegistry;
+            this.fileTimeout = fileTimeout;
+            this.ruleTimeout = ruleTimeout;
+            this.memoryBudget = memoryBudget;
+            this.parallelRulesThreshold = parallelRulesThreshold;
         }
 
         public RuleSets getRulesets() {
@@ -118,6 +132,41 @@ public interface LanguageProcessor extends AutoCloseable {
             return lpRegistry;
         }
 
+        /**
+         * Returns the time budget for the analysis of a single file.
+         * Zero means unlimited.
+         */
+        public Duration getFileTimeout() {
+            return fileTimeout;
+        }
+
+        /**
+         * Returns the time budget for the application of a single rule
+         * on a single file. Zero means unlimited.
+         */
+        public Duration getRuleTimeout() {
+            return ruleTimeout;
+        }
+
+        /**
+         * Returns the budget that bounds the memory used by the files
+         * that are analysed at the same time.
+         *
+         * @apiNote Internal API
+         */
+        InFlightMemoryBudget getMemoryBudget() {
+            return memoryBudget;
+        }
+
+        /**
+         * Returns the minimum length of the files whose rules are applied
+         * by several threads. Zero means every file is processed by a
+         * single thread.
+         */
+        public int getParallelRulesThreshold() {
+            return parallelRulesThreshold;
+        }
+
         /**
          * Produce a new analysis task with just different files.
          *
@@ -131,7 +180,11 @@ public interface LanguageProcessor extends AutoCloseable {
                 threadCount,
                 analysisCache,
                 messageReporter,
-                lpRegistry
+                lpRegistry,
+                fileTimeout,
+                ruleTimeout,
+                memoryBudget,
+                parallelRulesThreshold
             );
         }
     }
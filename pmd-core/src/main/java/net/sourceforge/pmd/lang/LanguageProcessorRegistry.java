@@ -120,7 +120,8 @@ public final class LanguageProcessorRegistry implements AutoCloseable {
         return create(registry, languageProperties, messageReporter, System.getenv());
     }
 
-    // overload for testing to allow mocking the system env vars.
+    // overload for testing to allow mocking the system env vars,
+    // and for analyses run on behalf of another process
     static LanguageProcessorRegistry create(LanguageRegistry registry,
                                             Map<Language, LanguagePropertyBundle> languageProperties,
                                             PmdReporter messageReporter,
@@ -7,7 +7,10 @@ package net.sourceforge.pmd.lang;
 import java.util.Collections;
 import java.util.List;
 
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.lang.ast.Parser;
+import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
 import net.sourceforge.pmd.lang.rule.xpath.impl.XPathHandler;
 import net.sourceforge.pmd.reporting.ViolationDecorator;
@@ -75,4 +78,50 @@ public interface LanguageVersionHandler {
         return DefaultDesignerBindings.getInstance();
     }
 
+
+    /**
+     * Prepares the tree for rules to be applied on it by several threads
+     * at once, each rule being applied by a single thread. This is called
+     * once the tree has been parsed, if the analysis is configured to apply
+     * the rules of large files in parallel. Data that the nodes compute
+     * lazily must be computed here, or computed in a thread-safe way.
+     * Returns false if rules cannot be applied concurrently on this tree,
+     * in which case they are applied by a single thread.
+     *
+     * <p>The default implementation returns false.
+     *
+     * @param root Root of the tree
+     *
+     * @return Whether rules can be applied concurrently on the tree
+     *
+     * @since 7.5.0
+     */
+    @Experimental
+    default boolean prepareForConcurrentRules(RootNode root) {
+        return false;
+    }
+
+
+    /**
+     * Returns the types declared by the file and the types it depends on,
+     * or null if this language does not track them. This is called once
+     * the rules have been applied on the tree, so that it may include the
+     * types that were resolved by the rules. The analysis cache uses them
+     * to analyse the file again when one of its dependencies changed.
+     * A file for which this returns null is analysed again only if it
+     * changed itself, or if the auxclasspath changed.
+     *
+     * <p>The default implementation returns null.
+     *
+     * @param root Root of the tree
+     *
+     * @return The dependencies of the file, or null
+     *
+     * @since 7.5.0
+     */
+    @Experimental
+    default FileDependencies getFileDependencies(RootNode root) {
+        return null;
+    }
+
 }
@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd.lang.ast;
 
+import net.sourceforge.pmd.lang.impl.AnalysisWatchdog;
+
 /**
  * Base implementation of {@link AstVisitor}, that performs a top-down
  * (preorder) visit and may accumulate a result.
@@ -26,6 +28,8 @@ public abstract class AstVisitorBase<P, R> implements AstVisitor<P, R> {
      */
     // kept separate from super.visit for clarity
     protected R visitChildren(Node node, P data) {
+        // lets the analysis be cancelled if this takes too long
+        AnalysisWatchdog.checkpoint();
         // this explicit loop is faster than iterating on a children node stream.
         for (int i = 0, numChildren = node.getNumChildren(); i < numChildren; i++) {
             node.getChild(i).acceptVisitor(this, data);
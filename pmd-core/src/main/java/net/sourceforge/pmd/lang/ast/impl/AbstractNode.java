@@ -7,9 +7,11 @@ package net.sourceforge.pmd.lang.ast.impl;
 import org.apache.commons.lang3.ArrayUtils;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.NodeStream;
 import net.sourceforge.pmd.lang.ast.internal.StreamImpl;
+import net.sourceforge.pmd.lang.ast.internal.SubtreeSummary;
 import net.sourceforge.pmd.util.DataMap;
 import net.sourceforge.pmd.util.DataMap.DataKey;
 
@@ -28,17 +30,20 @@ import net.sourceforge.pmd.util.DataMap.DataKey;
  */
 public abstract class AbstractNode<B extends AbstractNode<B, N>,
     // node the Node as first bound here is to make casts from Node to N noops at runtime.
-    N extends Node & GenericNode<N>> implements GenericNode<N> {
+    N extends Node & GenericNode<N>> implements GenericNode<N>, SubtreeSummary.Summarized {
 
     private static final Node[] EMPTY_ARRAY = new Node[0];
 
     // lazy initialized, many nodes don't need it
-    private @Nullable DataMap<DataKey<?, ?>> userData;
+    private volatile @Nullable DataMap<DataKey<?, ?>> userData;
 
     // never null, never contains null elements
     private Node[] children = EMPTY_ARRAY;
     private B parent;
     private int childIndex;
+    // lazily computed, the first word is zero when the subtree changed
+    private volatile long subtreeSummaryFirst;
+    private long subtreeSummarySecond;
 
     protected AbstractNode() {
         // only for subclassing
@@ -110,6 +115,7 @@ public abstract class AbstractNode<B extends AbstractNode<B, N>,
         children[index] = child;
         child.setChildIndex(index);
         child.setParent(asSelf(this));
+        invalidateSubtreeSummary();
     }
 
     /**
@@ -139,6 +145,7 @@ public abstract class AbstractNode<B extends AbstractNode<B, N>,
             asSelf(newChildren[i]).setChildIndex(i);
         }
         this.children = newChildren;
+        invalidateSubtreeSummary();
     }
 
 
@@ -160,6 +167,7 @@ public abstract class AbstractNode<B extends AbstractNode<B, N>,
             for (int i = childIndex; i < getNumChildren(); i++) {
                 asSelf(getChild(i)).setChildIndex(i);
             }
+            invalidateSubtreeSummary();
         }
     }
 
@@ -173,12 +181,47 @@ public abstract class AbstractNode<B extends AbstractNode<B, N>,
         childIndex = index;
     }
 
+    /**
+     * Returns a word of the summary of the node classes in this subtree,
+     * which descendant streams use to skip subtrees.
+     *
+     * @apiNote Internal API
+     */
+    @Override
+    @InternalApi
+    public final long getSubtreeSummary(int word) {
+        long first = subtreeSummaryFirst;
+        if (first == 0) {
+            // the volatile write of the first word publishes the second
+            subtreeSummarySecond = SubtreeSummary.summarize(this, 1);
+            first = SubtreeSummary.summarize(this, 0);
+            subtreeSummaryFirst = first;
+        }
+        return word == 0 ? first : subtreeSummarySecond;
+    }
+
+    private void invalidateSubtreeSummary() {
+        // if a node has a summary, so do all its descendants,
+        // so we can stop at the first ancestor without one
+        for (AbstractNode<?, ?> node = this; node != null && node.subtreeSummaryFirst != 0; node = node.parent) {
+            node.subtreeSummaryFirst = 0;
+        }
+    }
+
     @Override
     public DataMap<DataKey<?, ?>> getUserMap() {
-        if (userData == null) {
-            userData = DataMap.newDataMap();
+        DataMap<DataKey<?, ?>> map = userData;
+        if (map == null) {
+            // rules may be applied on the tree by several threads
+            synchronized (this) {
+                map = userData;
+                if (map == null) {
+                    map = DataMap.newDataMap();
+                    userData = map;
+                }
+            }
         }
-        return userData;
+        return map;
     }
 
 
@@ -141,11 +141,18 @@ public abstract class BaseAntlrInnerNode<N extends AntlrNode<N>> extends BaseAnt
         @Override
         public <T extends ParseTree> T addAnyChild(T t) {
             assert t instanceof AntlrToPmdParseTreeAdapter;
-            BaseAntlrNode<?, ?> pmdNode = ((AntlrToPmdParseTreeAdapter<?>) t).getPmdNode();
-            pmdNode.setIndexInParent(getChildCount());
+            BaseAntlrNode<?, ?> pmdChild = ((AntlrToPmdParseTreeAdapter<?>) t).getPmdNode();
+            pmdChild.setIndexInParent(getChildCount());
+            pmdNode.invalidateSubtreeSummary();
             return super.addAnyChild(t);
         }
 
+        @Override
+        public void removeLastChild() {
+            pmdNode.invalidateSubtreeSummary();
+            super.removeLastChild();
+        }
+
         @Override
         public void setParent(RuleContext parent) {
             assert parent instanceof PmdAsAntlrInnerNode;
@@ -10,8 +10,10 @@ import org.antlr.v4.runtime.tree.ErrorNode;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
+import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.impl.GenericNode;
 import net.sourceforge.pmd.lang.ast.impl.antlr4.BaseAntlrNode.AntlrToPmdParseTreeAdapter;
+import net.sourceforge.pmd.lang.ast.internal.SubtreeSummary;
 import net.sourceforge.pmd.lang.document.TextRegion;
 import net.sourceforge.pmd.util.DataMap;
 import net.sourceforge.pmd.util.DataMap.DataKey;
@@ -34,9 +36,9 @@ import net.sourceforge.pmd.util.DataMap.DataKey;
  * @param <A> Type of the underlying antlr node
  * @param <N> Public interface (eg SwiftNode)
  */
-public abstract class BaseAntlrNode<A extends AntlrToPmdParseTreeAdapter<N>, N extends AntlrNode<N>> implements AntlrNode<N> {
+public abstract class BaseAntlrNode<A extends AntlrToPmdParseTreeAdapter<N>, N extends AntlrNode<N>> implements AntlrNode<N>, SubtreeSummary.Summarized {
 
-    private DataMap<DataKey<?, ?>> userMap;
+    private volatile DataMap<DataKey<?, ?>> userMap;
 
     /**
      * The only node for which this is not overwritten is the root node, for
@@ -44,6 +46,10 @@ public abstract class BaseAntlrNode<A extends AntlrToPmdParseTreeAdapter<N>, N e
      */
     private int indexInParent = -1;
 
+    // lazily computed, the first word is zero when the subtree changed
+    private volatile long subtreeSummaryFirst;
+    private long subtreeSummarySecond;
+
     protected BaseAntlrNode() {
         // protected
     }
@@ -100,12 +106,50 @@ public abstract class BaseAntlrNode<A extends AntlrToPmdParseTreeAdapter<N>, N e
         return indexInParent;
     }
 
+    /**
+     * Returns a word of the summary of the node classes in this subtree,
+     * which descendant streams use to skip subtrees.
+     *
+     * @apiNote Internal API
+     */
+    @Override
+    @InternalApi
+    public final long getSubtreeSummary(int word) {
+        long first = subtreeSummaryFirst;
+        if (first == 0) {
+            // the volatile write of the first word publishes the second
+            subtreeSummarySecond = SubtreeSummary.summarize(this, 1);
+            first = SubtreeSummary.summarize(this, 0);
+            subtreeSummaryFirst = first;
+        }
+        return word == 0 ? first : subtreeSummarySecond;
+    }
+
+    void invalidateSubtreeSummary() {
+        // if a node has a summary, so do all its descendants,
+        // so we can stop at the first ancestor without one
+        BaseAntlrNode<?, ?> node = this;
+        while (node != null && node.subtreeSummaryFirst != 0) {
+            node.subtreeSummaryFirst = 0;
+            AntlrToPmdParseTreeAdapter<?> parent = node.asAntlrNode().getParent();
+            node = parent == null ? null : parent.getPmdNode();
+        }
+    }
+
     @Override
     public DataMap<DataKey<?, ?>> getUserMap() {
-        if (userMap == null) {
-            userMap = DataMap.newDataMap();
+        DataMap<DataKey<?, ?>> map = userMap;
+        if (map == null) {
+            // rules may be applied on the tree by several threads
+            synchronized (this) {
+                map = userMap;
+                if (map == null) {
+                    map = DataMap.newDataMap();
+                    userMap = map;
+                }
+            }
         }
-        return userMap;
+        return map;
     }
 
     protected abstract A asAntlrNode();
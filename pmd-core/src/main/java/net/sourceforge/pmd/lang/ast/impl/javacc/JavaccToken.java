@@ -4,6 +4,8 @@
 
 package net.sourceforge.pmd.lang.ast.impl.javacc;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import net.sourceforge.pmd.lang.ast.GenericToken;
 import net.sourceforge.pmd.lang.document.Chars;
 import net.sourceforge.pmd.lang.document.FileLocation;
@@ -24,6 +26,10 @@ import net.sourceforge.pmd.lang.document.TextRegion;
  * <li>It's a bit lighter. Token instances are one of the most numerous
  * class in a typical PMD run and this may reduce GC pressure.
  * </ul>
+ *
+ * <p>Most tokens don't store their image: it is sliced from the text
+ * of the document when requested. Only tokens whose image is a shared
+ * constant, or differs from the text of the document, store it.
  */
 public class JavaccToken implements GenericToken<JavaccToken> {
 
@@ -47,7 +53,8 @@ public class JavaccToken implements GenericToken<JavaccToken> {
     public final int kind;
 
     private final JavaccTokenDocument document;
-    private final CharSequence image;
+    /** Null if the image is the text of the token in the (translated) document. */
+    private final @Nullable CharSequence image;
     private final int startOffset;
     private final int endOffset;
 
@@ -77,9 +84,9 @@ public class JavaccToken implements GenericToken<JavaccToken> {
 
 
     // common constructor, with a CharSequence parameter
-    JavaccToken(int kind, CharSequence image, int startInclusive, int endExclusive, JavaccTokenDocument document) {
+    JavaccToken(int kind, @Nullable CharSequence image, int startInclusive, int endExclusive, JavaccTokenDocument document) {
         assert document != null : "Null document";
-        assert image instanceof String || image instanceof Chars : "Null image";
+        assert image == null || image instanceof String || image instanceof Chars : "Invalid image";
         assert TextRegion.isValidRegion(startInclusive, endExclusive, document.getTextDocument());
 
         this.kind = kind;
@@ -109,6 +116,21 @@ public class JavaccToken implements GenericToken<JavaccToken> {
         this(kind, (CharSequence) image, startInclusive, endExclusive, document);
     }
 
+    /**
+     * Builds a new token whose image is the text of the document between
+     * the given offsets. The image is not stored, but sliced from the
+     * document when requested. Tokens are created like this by
+     * {@link JavaccTokenDocument.TokenDocumentBehavior#createToken(JavaccTokenDocument, int, CharStream, String)}.
+     *
+     * @param kind           Kind of token
+     * @param startInclusive Start offset of the token in the translated document
+     * @param endExclusive   End offset of the token in the translated document
+     * @param document       Document owning the token
+     */
+    JavaccToken(int kind, int startInclusive, int endExclusive, JavaccTokenDocument document) {
+        this(kind, (CharSequence) null, startInclusive, endExclusive, document);
+    }
+
     /**
      * Returns the document owning this token.
      */
@@ -138,13 +160,16 @@ public class JavaccToken implements GenericToken<JavaccToken> {
 
     @Override
     public Chars getImageCs() {
+        if (image == null) {
+            return document.getTextDocument().getText().slice(startOffset, endOffset - startOffset);
+        }
         // wrap it: it's zero cost (images are either Chars or String) and Chars has a nice API
         return Chars.wrap(image);
     }
 
     @Override
     public String getImage() {
-        return image.toString();
+        return image == null ? getImageCs().toString() : image.toString();
     }
 
     /**
@@ -194,6 +219,9 @@ public class JavaccToken implements GenericToken<JavaccToken> {
      * @return A new token
      */
     public JavaccToken replaceImage(CharStream charStream) {
+        if (charStream.getStartOffset() == this.startOffset) {
+            return new JavaccToken(this.kind, this.startOffset, charStream.getEndOffset(), this.document);
+        }
         return new JavaccToken(
             this.kind,
             charStream.getTokenImageCs(),
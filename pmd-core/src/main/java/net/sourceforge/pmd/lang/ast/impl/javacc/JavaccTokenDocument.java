@@ -121,13 +121,11 @@ public final class JavaccTokenDocument extends TokenDocument<JavaccToken> {
          * @return A new token
          */
         public JavaccToken createToken(JavaccTokenDocument self, int kind, CharStream cs, @Nullable String image) {
-            return new JavaccToken(
-                kind,
-                image == null ? cs.getTokenImageCs() : image,
-                cs.getStartOffset(),
-                cs.getEndOffset(),
-                self
-            );
+            if (image == null) {
+                // the image will be sliced from the document when needed
+                return new JavaccToken(kind, cs.getStartOffset(), cs.getEndOffset(), self);
+            }
+            return new JavaccToken(kind, image, cs.getStartOffset(), cs.getEndOffset(), self);
         }
     }
 
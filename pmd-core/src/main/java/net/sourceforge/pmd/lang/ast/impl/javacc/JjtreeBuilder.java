@@ -7,6 +7,8 @@ package net.sourceforge.pmd.lang.ast.impl.javacc;
 import java.util.ArrayList;
 import java.util.List;
 
+import net.sourceforge.pmd.lang.impl.AnalysisWatchdog;
+
 /**
  * Shared implementation of the tree builder generated by JJTree.
  *
@@ -115,6 +117,7 @@ public final class JjtreeBuilder<N extends AbstractJjtreeNode<N, ?>> {
 
 
     public void openNodeScope(N n, JavaccToken firstToken) {
+        AnalysisWatchdog.checkpoint();
         marks.add(mk);
         mk = sp;
 
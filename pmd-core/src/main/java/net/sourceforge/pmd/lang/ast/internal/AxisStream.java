@@ -242,7 +242,7 @@ abstract class AxisStream<T extends Node> extends IteratorBasedNStream<T> {
 
         @Override
         protected Iterator<Node> baseIterator() {
-            return walker.descendantIterator(node);
+            return walker.descendantIterator(node, filter);
         }
 
         @Override
@@ -294,7 +294,7 @@ abstract class AxisStream<T extends Node> extends IteratorBasedNStream<T> {
 
         @Override
         public Iterator<Node> baseIterator() {
-            return walker.descendantOrSelfIterator(node);
+            return walker.descendantOrSelfIterator(node, filter);
         }
 
         @Override
@@ -42,6 +42,15 @@ interface Filtermap<I, O> extends Function<@NonNull I, @Nullable O>, Predicate<@
         return apply(i) != null;
     }
 
+    /**
+     * Returns a type of which all the values accepted by this filter
+     * are instances, or null if that is unknown. Descendant streams use
+     * this to skip the subtrees that contain no node of this type.
+     */
+    default @Nullable Class<?> getAcceptedType() {
+        return null;
+    }
+
     /** Filter an iterator. */
     default Iterator<O> filterMap(Iterator<? extends I> iter) {
         return IteratorUtil.mapNotNull(iter, this);
@@ -50,12 +59,22 @@ interface Filtermap<I, O> extends Function<@NonNull I, @Nullable O>, Predicate<@
     /** Compose a new Filtermap, coalescing null values. */
     default <R> Filtermap<I, R> thenApply(Function<@NonNull ? super O, @Nullable ? extends R> then) {
         Objects.requireNonNull(then);
-        return i -> {
-            if (i == null) {
-                return null;
+        Filtermap<I, O> first = this;
+        return new Filtermap<I, R>() {
+            @Override
+            public @Nullable R apply(@Nullable I i) {
+                if (i == null) {
+                    return null;
+                }
+                O o = first.apply(i);
+                return o == null ? null : then.apply(o);
+            }
+
+            @Override
+            public @Nullable Class<?> getAcceptedType() {
+                // the second function sees the output of the first, which may be another node
+                return first.getAcceptedType();
             }
-            O o = this.apply(i);
-            return o == null ? null : then.apply(o);
         };
     }
 
@@ -114,6 +133,11 @@ interface Filtermap<I, O> extends Function<@NonNull I, @Nullable O>, Predicate<@
                 return oClass.isInstance(i) ? (O) i : null;
             }
 
+            @Override
+            public Class<?> getAcceptedType() {
+                return oClass;
+            }
+
             @Override
             public String toString() {
                 return "IsInstance[" + oClass + "]";
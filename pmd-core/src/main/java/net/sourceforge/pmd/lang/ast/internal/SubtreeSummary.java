@@ -0,0 +1,191 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast.internal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * Summaries of the node classes that occur in a subtree, used by descendant
+ * streams to skip subtrees that cannot contain a node of the type they're
+ * looking for.
+ *
+ * <p>A summary is a set of 127 bits, stored in two words. Each node
+ * class is assigned one of these bits the first time a node of that class
+ * is summarized. Classes are numbered per package, so that the nodes of
+ * a language, which are declared in the same package, don't share bits
+ * unless the language has more than 127 node classes, and are not
+ * affected by the other languages. The summary of a node is the union of the bit of its class,
+ * and of the summaries of its children. As several classes may share a
+ * bit, a summary can only prove that a subtree does not contain some type
+ * of node. Summaries also cover the nodes beyond find boundaries, so they
+ * are valid whatever the {@link TreeWalker} config.
+ *
+ * <p>The last bit of the first word is set in every summary, so that a
+ * computed summary is never zero. Nodes that do not implement {@link Summarized}
+ * are assumed to contain any type of node.
+ */
+public final class SubtreeSummary {
+
+    /** Number of bits available to node classes. */
+    static final int NUM_BITS = 2 * Long.SIZE - 1;
+    /** Bit set in the first word of every computed summary. */
+    private static final long COMPUTED = Long.MIN_VALUE;
+    /** Word of a subtree that may contain any type of node. */
+    private static final long ALL_BITS = -1L;
+
+    private static final List<KindBit> KINDS = new CopyOnWriteArrayList<>();
+    private static final Map<String, Integer> NUM_KINDS_PER_PACKAGE = new HashMap<>();
+    private static final ClassValue<KindBit> KIND_BITS = new ClassValue<KindBit>() {
+        @Override
+        protected KindBit computeValue(Class<?> type) {
+            synchronized (KINDS) {
+                int index = NUM_KINDS_PER_PACKAGE.merge(packageOf(type), 1, Integer::sum) - 1;
+                KindBit kind = new KindBit(type, index % NUM_BITS);
+                KINDS.add(kind);
+                return kind;
+            }
+        }
+    };
+    private static final Map<Class<?>, Mask> MASKS = new ConcurrentHashMap<>();
+
+    private SubtreeSummary() {
+        // utility class
+    }
+
+    private static String packageOf(Class<?> type) {
+        String name = type.getName();
+        int lastDot = name.lastIndexOf('.');
+        return lastDot < 0 ? "" : name.substring(0, lastDot);
+    }
+
+    /**
+     * Computes a word of the summary of the given node from the summaries
+     * of its children. Implementations of {@link Summarized} call this
+     * for both words, and cache the result until their children change.
+     *
+     * @param word 0 for the first word, 1 for the second
+     */
+    public static long summarize(Node node, int word) {
+        KindBit kind = kindOf(node.getClass());
+        long summary = word == 0 ? COMPUTED : 0;
+        if (kind.word == word) {
+            summary |= kind.bit;
+        }
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            summary |= summaryOf(node.getChild(i), word);
+        }
+        return summary;
+    }
+
+    static KindBit kindOf(Class<?> type) {
+        return KIND_BITS.get(type);
+    }
+
+    static long summaryOf(Node node, int word) {
+        return node instanceof Summarized ? ((Summarized) node).getSubtreeSummary(word) : ALL_BITS;
+    }
+
+    /**
+     * Returns whether the subtree of the node may contain a node whose
+     * class has a bit in the given mask.
+     */
+    static boolean mayContain(Node node, Mask mask) {
+        // don't compute summaries if there's nothing to skip
+        return mask == Mask.ALL
+            || (summaryOf(node, 0) & mask.first) != 0
+            || (summaryOf(node, 1) & mask.second) != 0;
+    }
+
+    /**
+     * Returns the mask of the bits of the node classes that are subtypes
+     * of the given type. A subtree of the given root whose summary has
+     * none of these bits contains no instance of the type. Returns {@link Mask#ALL}
+     * if the type is null, or if the root is not summarized.
+     */
+    static Mask maskOf(Node root, @Nullable Class<?> type) {
+        // summarizing the root assigns a bit to all the classes of its subtree,
+        // the mask would otherwise miss those not seen yet
+        if (type == null || type == Node.class
+            || summaryOf(root, 0) == ALL_BITS && summaryOf(root, 1) == ALL_BITS) {
+            return Mask.ALL;
+        }
+        // masks are recomputed when new classes have been summarized,
+        // which only happens while the first files of a language are processed
+        int numKinds = KINDS.size();
+        Mask cached = MASKS.get(type);
+        if (cached != null && cached.numKinds == numKinds) {
+            return cached;
+        }
+        long first = 0;
+        long second = 0;
+        for (int i = 0; i < numKinds; i++) {
+            KindBit kind = KINDS.get(i);
+            if (type.isAssignableFrom(kind.type)) {
+                if (kind.word == 0) {
+                    first |= kind.bit;
+                } else {
+                    second |= kind.bit;
+                }
+            }
+        }
+        Mask mask = new Mask(numKinds, first, second);
+        MASKS.put(type, mask);
+        return mask;
+    }
+
+    /**
+     * A node that caches its {@linkplain #summarize(Node, int) summary}.
+     */
+    public interface Summarized {
+
+        /**
+         * Returns a word of the summary of the subtree rooted at this node.
+         * This must be recomputed if the descendants of this node change.
+         *
+         * @param word 0 for the first word, 1 for the second
+         */
+        long getSubtreeSummary(int word);
+    }
+
+    /** The bit of a node class. */
+    static final class KindBit {
+
+        final Class<?> type;
+        final int word;
+        final long bit;
+
+        KindBit(Class<?> type, int index) {
+            this.type = type;
+            // the last bit of the first word is COMPUTED
+            this.word = index < Long.SIZE - 1 ? 0 : 1;
+            this.bit = 1L << (index - word * (Long.SIZE - 1));
+        }
+    }
+
+    /** The bits of the node classes that are subtypes of some type. */
+    static final class Mask {
+
+        /** Mask of a search that cannot skip any subtree. */
+        static final Mask ALL = new Mask(-1, ALL_BITS, ALL_BITS);
+
+        final int numKinds;
+        final long first;
+        final long second;
+
+        Mask(int numKinds, long first, long second) {
+            this.numKinds = numKinds;
+            this.first = first;
+            this.second = second;
+        }
+    }
+}
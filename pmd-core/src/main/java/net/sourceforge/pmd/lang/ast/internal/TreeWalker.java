@@ -15,6 +15,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.NodeStream.DescendantNodeStream;
+import net.sourceforge.pmd.lang.ast.internal.SubtreeSummary.Mask;
 
 /**
  * Object performing tree traversals. Configuration options can be
@@ -59,29 +60,46 @@ final class TreeWalker {
     <T> void findDescendantsMatching(final Node node,
                                      final Filtermap<? super Node, ? extends T> filtermap,
                                      final List<T> results) {
+        findDescendantsMatching(node, filtermap, SubtreeSummary.maskOf(node, filtermap.getAcceptedType()), results);
+    }
+
+    private <T> void findDescendantsMatching(final Node node,
+                                             final Filtermap<? super Node, ? extends T> filtermap,
+                                             final Mask mask,
+                                             final List<T> results) {
 
         for (int i = 0; i < node.getNumChildren(); i++) {
             final Node child = node.getChild(i);
+            if (!SubtreeSummary.mayContain(child, mask)) {
+                continue;
+            }
             final T mapped = filtermap.apply(child);
             if (mapped != null) {
                 results.add(mapped);
             }
 
             if (isCrossFindBoundaries() || !child.isFindBoundary()) {
-                this.findDescendantsMatching(child, filtermap, results);
+                this.findDescendantsMatching(child, filtermap, mask, results);
             }
         }
     }
 
     <T extends Node> T getFirstDescendantOfType(final Node node, final Filtermap<? super Node, ? extends T> filtermap) {
+        return getFirstDescendantOfType(node, filtermap, SubtreeSummary.maskOf(node, filtermap.getAcceptedType()));
+    }
+
+    private <T extends Node> T getFirstDescendantOfType(final Node node, final Filtermap<? super Node, ? extends T> filtermap, final Mask mask) {
         final int n = node.getNumChildren();
         for (int i = 0; i < n; i++) {
             Node child = node.getChild(i);
+            if (!SubtreeSummary.mayContain(child, mask)) {
+                continue;
+            }
             final T t = filtermap.apply(child);
             if (t != null) {
                 return t;
             } else if (isCrossFindBoundaries() || !child.isFindBoundary()) {
-                final T n2 = this.getFirstDescendantOfType(child, filtermap);
+                final T n2 = this.getFirstDescendantOfType(child, filtermap, mask);
                 if (n2 != null) {
                     return n2;
                 }
@@ -97,12 +115,22 @@ final class TreeWalker {
     }
 
 
-    Iterator<Node> descendantOrSelfIterator(Node top) {
-        return new DescendantOrSelfIterator(top, this);
+    /**
+     * Iterates over the node and its descendants. Subtrees that contain
+     * no value accepted by the filter may be skipped, but the filter is
+     * not applied.
+     */
+    Iterator<Node> descendantOrSelfIterator(Node top, Filtermap<? super Node, ?> filtermap) {
+        return new DescendantOrSelfIterator(top, this, SubtreeSummary.maskOf(top, filtermap.getAcceptedType()));
     }
 
-    Iterator<Node> descendantIterator(Node top) {
-        DescendantOrSelfIterator iter = new DescendantOrSelfIterator(top, this);
+    /**
+     * Iterates over the descendants of the node. Subtrees that contain
+     * no value accepted by the filter may be skipped, but the filter is
+     * not applied.
+     */
+    Iterator<Node> descendantIterator(Node top, Filtermap<? super Node, ?> filtermap) {
+        Iterator<Node> iter = descendantOrSelfIterator(top, filtermap);
         iter.next(); // skip self
         return iter;
     }
@@ -112,11 +140,13 @@ final class TreeWalker {
 
         private final Deque<Node> queue = new ArrayDeque<>();
         private final TreeWalker config;
+        private final Mask mask;
         private boolean isFirst;
 
         /** Always {@link #hasNext()} after exiting the constructor. */
-        DescendantOrSelfIterator(Node top, TreeWalker walker) {
+        DescendantOrSelfIterator(Node top, TreeWalker walker, Mask mask) {
             this.config = walker;
+            this.mask = mask;
             this.isFirst = true;
             queue.addFirst(top);
         }
@@ -140,7 +170,10 @@ final class TreeWalker {
             // on the first node, we must cross find boundaries anyway
             if (config.isCrossFindBoundaries() || !n.isFindBoundary() || isFirst) {
                 for (int i = n.getNumChildren() - 1; i >= 0; i--) {
-                    queue.addFirst(n.getChild(i));
+                    Node child = n.getChild(i);
+                    if (SubtreeSummary.mayContain(child, mask)) {
+                        queue.addFirst(child);
+                    }
                 }
             }
         }
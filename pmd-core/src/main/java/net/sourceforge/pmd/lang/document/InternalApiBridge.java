@@ -30,4 +30,17 @@ public final class InternalApiBridge {
     public static FileCollector newCollector(FileCollector collector, PmdReporter reporter) {
         return collector.newCollector(reporter);
     }
+
+    /**
+     * Returns the length of the contents of the file, estimated without
+     * reading them, or -1 if it is not known.
+     */
+    public static long estimateLength(TextFile textFile) {
+        if (textFile instanceof NioTextFile) {
+            return ((NioTextFile) textFile).estimateLength();
+        } else if (textFile instanceof StringTextFile) {
+            return ((StringTextFile) textFile).estimateLength();
+        }
+        return -1;
+    }
 }
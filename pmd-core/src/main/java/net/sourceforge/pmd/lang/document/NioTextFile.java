@@ -89,6 +89,17 @@ class NioTextFile extends BaseCloseable implements TextFile {
         return TextFileContent.fromInputStream(Files.newInputStream(path), charset);
     }
 
+    /**
+     * Returns the size of the file in bytes, which is close to its length
+     * in chars for most source files, or -1 if it cannot be read.
+     */
+    long estimateLength() {
+        try {
+            return Files.size(path);
+        } catch (IOException e) {
+            return -1;
+        }
+    }
 
     @Override
     protected void doClose() throws IOException {
@@ -44,6 +44,10 @@ class StringTextFile implements TextFile {
         return content;
     }
 
+    long estimateLength() {
+        return content.getNormalizedText().length();
+    }
+
     @Override
     public void close() {
         // nothing to do
@@ -15,9 +15,11 @@ import net.sourceforge.pmd.lang.document.TextFile;
 abstract class AbstractPMDProcessor implements AutoCloseable {
 
     protected final AnalysisTask task;
+    protected final AnalysisWatchdog watchdog;
 
     AbstractPMDProcessor(AnalysisTask task) {
         this.task = task;
+        this.watchdog = new AnalysisWatchdog(task.getFileTimeout(), task.getRuleTimeout());
     }
 
     /**
@@ -0,0 +1,37 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.impl;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.ast.FileAnalysisException;
+
+/**
+ * Thrown when the analysis of a file, or the application of a single
+ * rule on a file, exceeded its time budget. See {@link AnalysisWatchdog}.
+ */
+public final class AnalysisTimeoutException extends FileAnalysisException {
+
+    private final @Nullable String ruleName;
+
+    AnalysisTimeoutException(String message, @Nullable String ruleName) {
+        super(message);
+        this.ruleName = ruleName;
+    }
+
+    /**
+     * Returns the name of the rule whose budget was exceeded, or null
+     * if the budget of the whole file was exceeded. In the latter case
+     * the rest of the file is skipped.
+     */
+    public @Nullable String getRuleName() {
+        return ruleName;
+    }
+
+    @Override
+    protected String errorKind() {
+        return "Timeout";
+    }
+}
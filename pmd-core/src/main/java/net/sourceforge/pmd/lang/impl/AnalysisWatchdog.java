@@ -0,0 +1,272 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.impl;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.lang.document.FileId;
+
+/**
+ * Enforces the per-file and per-rule time budgets of an analysis.
+ * A daemon thread periodically checks the budgets of the files being
+ * processed, and flags those that are exceeded. The worker thread notices
+ * the flag the next time it reaches a {@linkplain #checkpoint() checkpoint},
+ * which then throws an {@link AnalysisTimeoutException}. That exception
+ * is reported as a processing error, and the analysis goes on with the
+ * next rule or the next file.
+ *
+ * <p>Cancellation is cooperative. Checkpoints are reached between the
+ * nodes a rule is applied on, when visiting children in an AST visitor,
+ * when the parser builds nodes, and in language-specific places where
+ * a lot of time may be spent, like type inference. Code that never reaches
+ * a checkpoint is not interrupted.
+ *
+ * <p>This is internal API, language implementations should only
+ * call {@link #checkpoint()}.
+ */
+public final class AnalysisWatchdog implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AnalysisWatchdog.class);
+
+    private static final long MIN_POLL_PERIOD_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+    private static final long MAX_POLL_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private static final ThreadLocal<Budget> CURRENT = new ThreadLocal<>();
+
+    /**
+     * Number of budgets that are exceeded and still running, for all
+     * analyses. Checkpoints look up the budget of the current thread only
+     * if this is non-zero, so that they're cheap when no budget is exceeded.
+     */
+    private static final AtomicInteger NUM_EXCEEDED = new AtomicInteger();
+
+    private final long fileBudgetNanos;
+    private final long ruleBudgetNanos;
+    private final Set<Budget> running = ConcurrentHashMap.newKeySet();
+    private final @Nullable ScheduledExecutorService timer;
+
+    /**
+     * Create a new watchdog. A budget that is null or zero is unlimited.
+     * If both budgets are unlimited no thread is started.
+     */
+    AnalysisWatchdog(@Nullable Duration fileBudget, @Nullable Duration ruleBudget) {
+        this.fileBudgetNanos = toNanos(fileBudget);
+        this.ruleBudgetNanos = toNanos(ruleBudget);
+
+        if (fileBudgetNanos == 0 && ruleBudgetNanos == 0) {
+            timer = null;
+        } else {
+            timer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "PmdWatchdog");
+                thread.setDaemon(true);
+                return thread;
+            });
+            long period = pollPeriodNanos();
+            timer.scheduleAtFixedRate(this::checkBudgets, period, period, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private static long toNanos(@Nullable Duration budget) {
+        return budget == null || budget.isNegative() ? 0 : budget.toNanos();
+    }
+
+    private long pollPeriodNanos() {
+        long smallestBudget = fileBudgetNanos == 0 ? ruleBudgetNanos
+                                                   : ruleBudgetNanos == 0 ? fileBudgetNanos
+                                                                          : Math.min(fileBudgetNanos, ruleBudgetNanos);
+        return Math.max(MIN_POLL_PERIOD_NANOS, Math.min(MAX_POLL_PERIOD_NANOS, smallestBudget / 10));
+    }
+
+    /**
+     * Starts the budget of the given file on the current thread. The
+     * budget ends when the returned object is closed.
+     */
+    Budget startFile(FileId fileId) {
+        Budget budget = new Budget(fileId, fileBudgetNanos == 0 ? 0 : System.nanoTime() + fileBudgetNanos);
+        if (timer != null) {
+            running.add(budget);
+            CURRENT.set(budget);
+        }
+        return budget;
+    }
+
+    private void checkBudgets() {
+        long now = System.nanoTime();
+        for (Budget budget : running) {
+            budget.checkDeadlines(now);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+    }
+
+    /**
+     * Throws an {@link AnalysisTimeoutException} if the current thread
+     * exceeded its time budget. Code that may run for a long time on a
+     * single file should call this regularly. This is cheap as long as
+     * no budget is exceeded.
+     *
+     * <p>Code that catches exceptions broadly and carries on may call
+     * this in the catch block, so as not to swallow a timeout.
+     *
+     * @throws AnalysisTimeoutException If the budget of the current file, or of the current rule, is exceeded
+     */
+    public static void checkpoint() {
+        if (NUM_EXCEEDED.get() != 0) {
+            Budget budget = CURRENT.get();
+            if (budget != null) {
+                budget.check();
+            }
+        }
+    }
+
+    /**
+     * Starts the budget of a rule application on the current file.
+     * Does nothing if the current thread is not processing a file.
+     */
+    public static void startRule(String ruleName) {
+        Budget budget = CURRENT.get();
+        if (budget != null) {
+            budget.startRule(ruleName);
+        }
+    }
+
+    /**
+     * Ends the budget of the current rule application, see {@link #startRule(String)}.
+     */
+    public static void endRule() {
+        Budget budget = CURRENT.get();
+        if (budget != null) {
+            budget.endRule();
+        }
+    }
+
+    /**
+     * Wraps a task that is run on another thread on behalf of the current
+     * one, so that it is subject to the budget of the file the current
+     * thread is processing. The task has its own rule budget. Returns the
+     * task unchanged if the current thread is not processing a file.
+     */
+    public static Runnable propagateBudget(Runnable task) {
+        Budget budget = CURRENT.get();
+        if (budget == null) {
+            return task;
+        }
+        return () -> {
+            try (Budget ignored = budget.fork()) {
+                task.run();
+            }
+        };
+    }
+
+    private static String formatBudget(long nanos) {
+        return Duration.ofNanos(nanos).toMillis() + " ms";
+    }
+
+    /**
+     * Time budget of a file being processed. The deadlines are written
+     * by the worker thread, and checked by the watchdog thread.
+     */
+    final class Budget implements AutoCloseable {
+
+        private final FileId fileId;
+        private final long fileDeadline;
+
+        private @Nullable String ruleName;
+        private long ruleDeadline;
+
+        private @Nullable String timeoutMessage;
+        private boolean fileTimedOut;
+        private boolean closed;
+
+        Budget(FileId fileId, long fileDeadline) {
+            this.fileId = fileId;
+            this.fileDeadline = fileDeadline;
+        }
+
+        /**
+         * Starts a budget with the same file deadline on the current thread.
+         */
+        Budget fork() {
+            Budget fork = new Budget(fileId, fileDeadline);
+            running.add(fork);
+            CURRENT.set(fork);
+            return fork;
+        }
+
+        synchronized void startRule(String name) {
+            this.ruleName = name;
+            this.ruleDeadline = ruleBudgetNanos == 0 ? 0 : System.nanoTime() + ruleBudgetNanos;
+        }
+
+        synchronized void endRule() {
+            if (timeoutMessage != null && !fileTimedOut) {
+                // the next rule starts with a fresh budget
+                timeoutMessage = null;
+                NUM_EXCEEDED.decrementAndGet();
+            }
+            this.ruleName = null;
+            this.ruleDeadline = 0;
+        }
+
+        synchronized void checkDeadlines(long now) {
+            if (fileTimedOut || closed) {
+                return;
+            }
+            if (fileDeadline != 0 && now - fileDeadline > 0) {
+                String message = "Analysis exceeded the time budget of " + formatBudget(fileBudgetNanos) + " per file";
+                if (ruleName != null) {
+                    message += ", while applying rule " + ruleName;
+                }
+                timeout(message + ". The rest of the file is skipped.");
+                fileTimedOut = true;
+            } else if (timeoutMessage == null && ruleDeadline != 0 && now - ruleDeadline > 0) {
+                timeout("Rule " + ruleName + " exceeded the time budget of " + formatBudget(ruleBudgetNanos) + " per file");
+            }
+        }
+
+        private void timeout(String message) {
+            LOG.debug("Cancelling analysis of {}: {}", fileId.getOriginalPath(), message);
+            if (timeoutMessage == null) {
+                NUM_EXCEEDED.incrementAndGet();
+            }
+            timeoutMessage = message;
+        }
+
+        synchronized void check() {
+            if (timeoutMessage != null) {
+                AnalysisTimeoutException e = new AnalysisTimeoutException(timeoutMessage, fileTimedOut ? null : ruleName);
+                e.setFileId(fileId);
+                throw e;
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            closed = true;
+            if (timeoutMessage != null) {
+                timeoutMessage = null;
+                NUM_EXCEEDED.decrementAndGet();
+            }
+            if (running.remove(this)) {
+                CURRENT.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.impl;
+
+import java.util.concurrent.Semaphore;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.document.InternalApiBridge;
+import net.sourceforge.pmd.lang.document.TextFile;
+
+/**
+ * Bounds the estimated memory used by the files that are analysed at
+ * the same time. A file is admitted only when its estimate fits in the
+ * remaining budget, otherwise the analysis thread waits until other
+ * files release theirs. A file whose estimate is larger than the whole
+ * budget is admitted alone.
+ *
+ * <p>The estimate is proportional to the size of the file, since the
+ * AST, tokens, and data computed by the rules, which are most of the
+ * memory used by the analysis of a file, grow with it.
+ *
+ * <p>This is internal API. The budget is shared by the processors of
+ * all languages of an analysis.
+ */
+public final class InFlightMemoryBudget {
+
+    /**
+     * Estimated number of bytes used during analysis per char of the file.
+     * This is a rough average over the languages, the AST of a file being
+     * typically several times larger than its text.
+     */
+    static final int BYTES_PER_CHAR = 64;
+
+    private static final int BYTES_PER_PERMIT = 1024;
+
+    private static final Permit NO_PERMIT = () -> { };
+
+    private final int totalPermits;
+    /** Null if there is no limit. */
+    private final @Nullable Semaphore permits;
+
+    /**
+     * Create a new budget.
+     *
+     * @param budgetInBytes Size of the budget. Zero means there is no limit.
+     */
+    public InFlightMemoryBudget(long budgetInBytes) {
+        if (budgetInBytes <= 0) {
+            this.totalPermits = 0;
+            this.permits = null;
+        } else {
+            this.totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetInBytes / BYTES_PER_PERMIT));
+            // fair, so that large files are not starved by smaller ones
+            this.permits = new Semaphore(totalPermits, true);
+        }
+    }
+
+    /**
+     * Waits until the file fits in the budget, and returns a permit
+     * which must be closed when the artifacts of its analysis can be
+     * collected. The file is admitted before it is read, so that its
+     * text is also accounted for. Files whose size cannot be known
+     * without reading them, like those read from a {@link java.io.Reader},
+     * take the smallest part of the budget.
+     *
+     * @throws InterruptedException If the thread is interrupted while waiting
+     */
+    Permit admit(TextFile file) throws InterruptedException {
+        return admit(estimate(file));
+    }
+
+    Permit admit(long estimateInBytes) throws InterruptedException {
+        if (permits == null) {
+            return NO_PERMIT;
+        }
+        int numPermits = (int) Math.min(totalPermits, Math.max(1, estimateInBytes / BYTES_PER_PERMIT));
+        permits.acquire(numPermits);
+        return new Permit() {
+            private boolean released;
+
+            @Override
+            public void close() {
+                if (!released) {
+                    released = true;
+                    permits.release(numPermits);
+                }
+            }
+        };
+    }
+
+    /** Number of bytes available in the budget, or -1 if there is no limit. */
+    long available() {
+        return permits == null ? -1 : (long) permits.availablePermits() * BYTES_PER_PERMIT;
+    }
+
+    static long estimate(TextFile file) {
+        return Math.max(0, InternalApiBridge.estimateLength(file)) * BYTES_PER_CHAR;
+    }
+
+    /** A part of the budget that is released when closed. */
+    interface Permit extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
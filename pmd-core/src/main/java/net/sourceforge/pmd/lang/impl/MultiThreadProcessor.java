@@ -7,6 +7,7 @@ package net.sourceforge.pmd.lang.impl;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
@@ -48,11 +49,18 @@ final class MultiThreadProcessor extends AbstractPMDProcessor {
         });
 
         for (final TextFile textFile : task.getFiles()) {
-            futureList.add(executor.submit(new PmdRunnable(textFile, task) {
+            futureList.add(executor.submit(new PmdRunnable(textFile, task, watchdog) {
                 @Override
                 protected RuleSets getRulesets() {
                     return ruleSetCopy.get();
                 }
+
+                @Override
+                protected Executor getHelperExecutor() {
+                    // helpers are queued after the files that are not started yet,
+                    // so they mostly run once there are no more files to start
+                    return executor;
+                }
             }));
         }
     }
@@ -81,6 +89,7 @@ final class MultiThreadProcessor extends AbstractPMDProcessor {
             Thread.currentThread().interrupt();
         } finally {
             executor.shutdownNow();
+            watchdog.close();
         }
     }
 }
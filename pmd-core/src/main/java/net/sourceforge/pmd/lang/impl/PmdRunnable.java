@@ -6,14 +6,19 @@ package net.sourceforge.pmd.lang.impl;
 
 import static net.sourceforge.pmd.util.CollectionUtil.listOf;
 
+import java.util.concurrent.Executor;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
 import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.cache.internal.AnalysisCache;
 import net.sourceforge.pmd.internal.SystemProps;
+import net.sourceforge.pmd.lang.InternalApiBridge;
 import net.sourceforge.pmd.lang.LanguageProcessor;
 import net.sourceforge.pmd.lang.LanguageProcessor.AnalysisTask;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
@@ -38,10 +43,14 @@ abstract class PmdRunnable implements Runnable {
     private static final Logger LOG = LoggerFactory.getLogger(PmdRunnable.class);
     private final TextFile textFile;
     private final AnalysisTask task;
+    private final AnalysisWatchdog watchdog;
+    private final InFlightMemoryBudget memoryBudget;
 
-    PmdRunnable(TextFile textFile, AnalysisTask task) {
+    PmdRunnable(TextFile textFile, AnalysisTask task, AnalysisWatchdog watchdog) {
         this.textFile = textFile;
         this.task = task;
+        this.watchdog = watchdog;
+        this.memoryBudget = InternalApiBridge.getMemoryBudget(task);
     }
 
     /**
@@ -51,6 +60,14 @@ abstract class PmdRunnable implements Runnable {
      */
     protected abstract RuleSets getRulesets();
 
+    /**
+     * Returns the executor in which other threads may help apply the
+     * rules of a large file, or null if only the current thread is used.
+     */
+    protected @Nullable Executor getHelperExecutor() {
+        return null;
+    }
+
     @Override
     public void run() throws FileAnalysisException {
         TimeTracker.initThread();
@@ -63,7 +80,10 @@ abstract class PmdRunnable implements Runnable {
             // Coarse check to see if any RuleSet applies to file, will need to do a finer RuleSet specific check later
             if (ruleSets.applies(textFile)) {
                 AnalysisCache analysisCache = task.getAnalysisCache();
-                try (TextDocument textDocument = TextDocument.create(textFile);
+                // the file is admitted before it is read, the permit is released
+                // when the AST and the other artifacts of the analysis are unreachable
+                try (InFlightMemoryBudget.Permit ignoredPermit = admit();
+                     TextDocument textDocument = TextDocument.create(textFile);
                      FileAnalysisListener cacheListener = analysisCache.startFileAnalysis(textDocument)) {
 
                     @SuppressWarnings("PMD.CloseResource")
@@ -76,7 +96,7 @@ abstract class PmdRunnable implements Runnable {
                         reportCachedRuleViolations(listener, textDocument);
                     } else {
                         LOG.trace("Processing file (lang: {}): {}", textFile.getLanguageVersion(), textFile.getFileId().getAbsolutePath());
-                        try {
+                        try (AnalysisWatchdog.Budget ignoredBudget = watchdog.startFile(textFile.getFileId())) {
                             processSource(completeListener, textDocument, ruleSets);
                         } catch (Exception | StackOverflowError | AssertionError e) {
                             if (e instanceof Error && !SystemProps.isErrorRecoveryMode()) { // NOPMD:
@@ -101,6 +121,15 @@ abstract class PmdRunnable implements Runnable {
         TimeTracker.finishThread();
     }
 
+    private InFlightMemoryBudget.Permit admit() {
+        try {
+            return memoryBudget.admit(textFile);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw FileAnalysisException.wrap(textFile.getFileId(), "Interrupted while waiting for the memory budget", e);
+        }
+    }
+
     private void reportCachedRuleViolations(final FileAnalysisListener ctx, TextDocument file) {
         for (final RuleViolation rv : task.getAnalysisCache().getCachedViolations(file)) {
             ctx.onRuleViolation(rv);
@@ -130,14 +159,43 @@ abstract class PmdRunnable implements Runnable {
         Parser parser = handler.getParser();
 
         RootNode rootNode = parse(parser, parserTask);
+        try {
+            // don't start applying rules if the budget was exhausted while parsing
+            AnalysisWatchdog.checkpoint();
+
+            SemanticException semanticError = reporter.getFirstError();
+            if (semanticError != null) {
+                // cause a processing error to be reported and rule analysis to be skipped
+                throw semanticError;
+            }
 
-        SemanticException semanticError = reporter.getFirstError();
-        if (semanticError != null) {
-            // cause a processing error to be reported and rule analysis to be skipped
-            throw semanticError;
+            Executor helpers = getHelperExecutor();
+            if (helpers != null && shouldApplyRulesInParallel(textDocument, handler, rootNode)) {
+                LOG.debug("Applying rules with up to {} helper threads on file {}", task.getThreadCount() - 1, textDocument.getFileId().getAbsolutePath());
+                ruleSets.apply(rootNode, listener, helpers, task.getThreadCount() - 1);
+            } else {
+                ruleSets.apply(rootNode, listener);
+            }
+
+            FileDependencies dependencies = handler.getFileDependencies(rootNode);
+            if (dependencies != null) {
+                task.getAnalysisCache().recordDependencies(textDocument, dependencies);
+            }
+        } finally {
+            // The data that rules attached to the root, like the trees of
+            // XPath rules, is as large as the AST. Drop it now, so that
+            // it is not retained past the release of the memory permit
+            // if something still references the root.
+            rootNode.getUserMap().clear();
         }
+    }
 
-        ruleSets.apply(rootNode, listener);
+    private boolean shouldApplyRulesInParallel(TextDocument textDocument, LanguageVersionHandler handler, RootNode rootNode) {
+        int threshold = task.getParallelRulesThreshold();
+        return threshold > 0
+            && task.getThreadCount() > 1
+            && textDocument.getLength() >= threshold
+            && handler.prepareForConcurrentRules(rootNode);
     }
 
 }
@@ -4,13 +4,16 @@
 
 package net.sourceforge.pmd.lang.rule;
 
+import java.nio.file.Path;
 import java.util.List;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetCache;
 import net.sourceforge.pmd.util.log.PmdReporter;
 
 /**
@@ -40,6 +43,18 @@ public final class InternalApiBridge {
         return ruleSetLoader.loadRuleSetsWithoutException(rulesetPaths);
     }
 
+    public static RuleSetLoader withRuleSetCache(RuleSetLoader ruleSetLoader, @Nullable RuleSetCache ruleSetCache) {
+        return ruleSetLoader.withRuleSetCache(ruleSetCache);
+    }
+
+    /**
+     * Returns a ruleset cache that is saved to the given file, so that
+     * rulesets can be reused by later runs.
+     */
+    public static RuleSetCache newPersistentRuleSetCache(Path file) {
+        return new RuleSetModelCache(file);
+    }
+
     public static RuleSetLoader withReporter(RuleSetLoader ruleSetLoader, @NonNull PmdReporter reporter) {
         return ruleSetLoader.withReporter(reporter);
     }
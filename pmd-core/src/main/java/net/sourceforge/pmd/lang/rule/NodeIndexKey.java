@@ -0,0 +1,72 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.ast.Node;
+
+/**
+ * A language-specific property of nodes, by which the nodes of a file
+ * are indexed before rules are applied. For instance, Java invocations
+ * are indexed by method name. Rules can then {@linkplain RuleTargetSelector#forIndexKey(NodeIndexKey, java.util.Collection) target}
+ * only the nodes that have some values of the property, instead of
+ * visiting all the nodes of a type and testing each one.
+ *
+ * <p>Keys are compared by identity. All the rules that target nodes
+ * with the same key instance share the same index, so keys should be
+ * constants.
+ *
+ * @param <N> Type of the indexed nodes
+ *
+ * @since 7.5.0
+ */
+@Experimental
+public final class NodeIndexKey<N extends Node> {
+
+    private final String name;
+    private final Class<N> nodeType;
+    private final Function<? super N, @Nullable String> keyFunction;
+
+    private NodeIndexKey(String name, Class<N> nodeType, Function<? super N, @Nullable String> keyFunction) {
+        this.name = Objects.requireNonNull(name, "name");
+        this.nodeType = Objects.requireNonNull(nodeType, "nodeType");
+        this.keyFunction = Objects.requireNonNull(keyFunction, "keyFunction");
+    }
+
+    /**
+     * Creates a new key.
+     *
+     * @param name        A name for the key, used in toString
+     * @param nodeType    Type of the indexed nodes
+     * @param keyFunction Computes the value under which a node is indexed.
+     *                    Nodes for which it returns null are not indexed.
+     * @param <N>         Type of the indexed nodes
+     *
+     * @return A new key
+     */
+    public static <N extends Node> NodeIndexKey<N> create(String name,
+                                                          Class<N> nodeType,
+                                                          Function<? super N, @Nullable String> keyFunction) {
+        return new NodeIndexKey<>(name, nodeType, keyFunction);
+    }
+
+    /**
+     * Returns the value under which the node is indexed, or null if
+     * it is not indexed under this key.
+     */
+    public @Nullable String getValue(Node node) {
+        return nodeType.isInstance(node) ? keyFunction.apply(nodeType.cast(node)) : null;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeIndexKey(" + name + ")";
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import static net.sourceforge.pmd.util.internal.xml.SchemaConstants.REF;
+import static net.sourceforge.pmd.util.internal.xml.SchemaConstants.RULE;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Element;
+import org.xml.sax.InputSource;
+
+import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetReferenceId;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetSources;
+import net.sourceforge.pmd.util.internal.ResourceLoader;
+
+import com.github.oowekyala.ooxml.DomUtils;
+import com.github.oowekyala.ooxml.messages.OoxmlFacade;
+import com.github.oowekyala.ooxml.messages.PositionedXmlDoc;
+
+/**
+ * Parsed ruleset documents, shared by the {@link RuleSetFactory} instances
+ * that take part in loading some rulesets and the rulesets they reference.
+ * Each ruleset file is read and parsed at most once.
+ *
+ * <p>When a document has been parsed, the rulesets it references are
+ * parsed in the background, so that they are usually ready by the time
+ * the factory resolves those references. References are still resolved
+ * in document order on the thread that loads the ruleset, and all messages
+ * are reported from there. Documents are only prefetched if parsing them
+ * reports nothing, otherwise they are parsed again when they are needed,
+ * so that messages are reported as usual.
+ *
+ * <p>The documents that are used are recorded, see {@link #takeSources()}.
+ * The threads that parse documents in the background are owned by the
+ * cache, they are stopped when it is closed.
+ */
+final class RuleSetDocumentCache implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RuleSetDocumentCache.class);
+
+    private static final int NUM_PREFETCH_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+
+    private final ResourceLoader resourceLoader;
+    private final DocumentBuilderFactory builderFactory = createDocumentBuilderFactory();
+    private final ConcurrentMap<String, CompletableFuture<@Nullable RuleSetDocument>> documents = new ConcurrentHashMap<>();
+    // checksums of the documents returned by get, since the last call to takeSources
+    private final Map<String, Long> usedChecksums = new LinkedHashMap<>();
+    // created when the first document is prefetched
+    private @Nullable ExecutorService prefetcher;
+    private boolean closed;
+
+    RuleSetDocumentCache(ResourceLoader resourceLoader) {
+        this.resourceLoader = resourceLoader;
+    }
+
+    /**
+     * Starts parsing the given ruleset in the background, if it has not
+     * been parsed yet. Non-absolute references are ignored.
+     */
+    void prefetch(RuleSetReferenceId ruleSetReferenceId) {
+        if (!ruleSetReferenceId.isAbsolute()) {
+            return;
+        }
+        documents.computeIfAbsent(ruleSetReferenceId.getRuleSetFileName(), k -> {
+            ExecutorService executor = getPrefetcher();
+            if (executor != null) {
+                try {
+                    return CompletableFuture.supplyAsync(() -> parseQuietly(ruleSetReferenceId), executor);
+                } catch (RejectedExecutionException ignored) {
+                    // closed concurrently
+                }
+            }
+            // the document is parsed when it is needed
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    private synchronized @Nullable ExecutorService getPrefetcher() {
+        if (prefetcher == null && !closed) {
+            prefetcher = createPrefetcher();
+        }
+        return prefetcher;
+    }
+
+    /**
+     * Returns the parsed document of the given ruleset. If it was not
+     * prefetched, it is parsed now, and problems are reported on the printer
+     * of the given facade.
+     *
+     * @throws IOException                  If the ruleset cannot be read
+     * @throws ParserConfigurationException If no parser is available
+     * @throws com.github.oowekyala.ooxml.messages.XmlException If the ruleset is not well-formed
+     */
+    RuleSetDocument get(RuleSetReferenceId ruleSetReferenceId, OoxmlFacade ooxml) throws IOException, ParserConfigurationException {
+        String fileName = ruleSetReferenceId.getRuleSetFileName();
+        CompletableFuture<@Nullable RuleSetDocument> prefetched = documents.get(fileName);
+        RuleSetDocument document = prefetched == null ? null : prefetched.join();
+        if (document == null) {
+            document = parse(ruleSetReferenceId, ooxml);
+            documents.put(fileName, CompletableFuture.completedFuture(document));
+        }
+        synchronized (usedChecksums) {
+            usedChecksums.putIfAbsent(fileName, document.getChecksum());
+        }
+        return document;
+    }
+
+    /**
+     * Returns the files of the documents returned by {@link #get(RuleSetReferenceId, OoxmlFacade) get}
+     * since the last call to this method. These are the files that were
+     * read to load a ruleset, if the ruleset was loaded in the meantime.
+     */
+    RuleSetSources takeSources() {
+        synchronized (usedChecksums) {
+            RuleSetSources sources = new RuleSetSources(usedChecksums);
+            usedChecksums.clear();
+            return sources;
+        }
+    }
+
+    private @Nullable RuleSetDocument parseQuietly(RuleSetReferenceId ruleSetReferenceId) {
+        AtomicBoolean reported = new AtomicBoolean();
+        OoxmlFacade ooxml = new OoxmlFacade().withPrinter(message -> reported.set(true));
+        try {
+            RuleSetDocument document = parse(ruleSetReferenceId, ooxml);
+            return reported.get() ? null : document;
+        } catch (Exception e) {
+            LOG.trace("Could not prefetch ruleset {}, it will be parsed again when needed", ruleSetReferenceId, e);
+            return null;
+        }
+    }
+
+    private RuleSetDocument parse(RuleSetReferenceId ruleSetReferenceId, OoxmlFacade ooxml) throws IOException, ParserConfigurationException {
+        byte[] bytes;
+        try (InputStream inputStream = ruleSetReferenceId.getInputStream(resourceLoader)) {
+            bytes = IOUtil.toByteArray(inputStream);
+        }
+        InputSource inputSource = new InputSource(new ByteArrayInputStream(bytes));
+        inputSource.setSystemId(ruleSetReferenceId.getRuleSetFileName());
+        PositionedXmlDoc parsed = ooxml.parse(newDocumentBuilder(), inputSource);
+
+        prefetchReferences(parsed.getDocument().getDocumentElement());
+        return new RuleSetDocument(parsed, RuleSetSources.checksum(bytes));
+    }
+
+    private void prefetchReferences(Element ruleSetElement) {
+        for (Element node : DomUtils.children(ruleSetElement)) {
+            String ref = REF.getAttributeOrNull(node);
+            if (RULE.matchesElt(node) && ref != null) {
+                List<RuleSetReferenceId> references = RuleSetReferenceId.parse(ref);
+                if (!references.isEmpty()) {
+                    prefetch(references.get(0));
+                }
+            }
+        }
+    }
+
+    private DocumentBuilder newDocumentBuilder() throws ParserConfigurationException {
+        // factories are not guaranteed to be thread-safe
+        synchronized (builderFactory) {
+            return builderFactory.newDocumentBuilder();
+        }
+    }
+
+    private static DocumentBuilderFactory createDocumentBuilderFactory() {
+        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+
+        try {
+            /*
+             * parser hardening
+             * https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#JAXP_DocumentBuilderFactory.2C_SAXParserFactory_and_DOM4J
+             */
+            // This is the PRIMARY defense. If DTDs (doctypes) are disallowed, almost all XML entity attacks are prevented
+            // Xerces 2 only - http://xerces.apache.org/xerces2-j/features.html#disallow-doctype-decl
+            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
+
+            // If you can't completely disable DTDs, then at least do the following:
+            // Xerces 1 - http://xerces.apache.org/xerces-j/features.html#external-general-entities
+            // Xerces 2 - http://xerces.apache.org/xerces2-j/features.html#external-general-entities
+            // JDK7+ - http://xml.org/sax/features/external-general-entities
+            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
+
+            // Xerces 1 - http://xerces.apache.org/xerces-j/features.html#external-parameter-entities
+            // Xerces 2 - http://xerces.apache.org/xerces2-j/features.html#external-parameter-entities
+            // JDK7+ - http://xml.org/sax/features/external-parameter-entities
+            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+
+            // Disable external DTDs as well
+            dbf.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
+
+            // and these as well, per Timothy Morgan's 2014 paper: "XML Schema, DTD, and Entity Attacks"
+            dbf.setXIncludeAware(false);
+            dbf.setExpandEntityReferences(false);
+        } catch (final ParserConfigurationException e) {
+            // an unsupported feature... too bad, but won't fail execution due to this
+            LOG.warn("Ignored unsupported XML Parser Feature for parsing rulesets", e);
+        }
+        return dbf;
+    }
+
+    /**
+     * Stops parsing documents in the background. Documents that are
+     * still needed are parsed on demand.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        if (prefetcher != null) {
+            prefetcher.shutdownNow();
+            // documents whose parse was cancelled are parsed on demand
+            documents.values().forEach(future -> future.complete(null));
+        }
+    }
+
+    private static ExecutorService createPrefetcher() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(
+            NUM_PREFETCH_THREADS, NUM_PREFETCH_THREADS, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<>(),
+            r -> {
+                Thread thread = new Thread(r, "PmdRuleSetPrefetcher");
+                thread.setDaemon(true);
+                return thread;
+            });
+        // the threads stop when idle, even if the cache is not closed
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * A parsed ruleset file.
+     */
+    static final class RuleSetDocument {
+
+        private final PositionedXmlDoc parsed;
+        private final long checksum;
+
+        RuleSetDocument(PositionedXmlDoc parsed, long checksum) {
+            this.parsed = parsed;
+            this.checksum = checksum;
+        }
+
+        PositionedXmlDoc getParsed() {
+            return parsed;
+        }
+
+        /** Adler32 checksum of the file contents. */
+        long getChecksum() {
+            return checksum;
+        }
+    }
+}
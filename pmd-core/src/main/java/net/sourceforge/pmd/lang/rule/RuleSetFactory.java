@@ -16,7 +16,6 @@ import static net.sourceforge.pmd.util.internal.xml.SchemaConstants.RULE;
 import static net.sourceforge.pmd.util.internal.xml.SchemaConstants.RULESET;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -27,27 +26,21 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
-import java.util.zip.Adler32;
-import java.util.zip.CheckedInputStream;
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
 
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.slf4j.event.Level;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
 
 import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.lang.LanguageRegistry;
 import net.sourceforge.pmd.lang.rule.RuleSet.RuleSetBuilder;
+import net.sourceforge.pmd.lang.rule.RuleSetDocumentCache.RuleSetDocument;
 import net.sourceforge.pmd.lang.rule.internal.RuleSetReference;
 import net.sourceforge.pmd.lang.rule.internal.RuleSetReferenceId;
 import net.sourceforge.pmd.util.StringUtil;
@@ -75,8 +68,6 @@ import com.github.oowekyala.ooxml.messages.XmlSeverity;
  */
 final class RuleSetFactory {
 
-    private static final Logger LOG = LoggerFactory.getLogger(RuleSetFactory.class);
-
     private final ResourceLoader resourceLoader;
     private final LanguageRegistry languageRegistry;
     private final RulePriority minimumPriority;
@@ -84,6 +75,8 @@ final class RuleSetFactory {
     private final PmdReporter reporter;
     private final boolean includeDeprecatedRuleReferences;
 
+    private final RuleSetDocumentCache documents;
+
     private final Map<RuleSetReferenceId, RuleSet> parsedRulesets = new HashMap<>();
 
     RuleSetFactory(ResourceLoader resourceLoader,
@@ -91,8 +84,10 @@ final class RuleSetFactory {
                    RulePriority minimumPriority,
                    boolean warnDeprecated,
                    boolean includeDeprecatedRuleReferences,
-                   PmdReporter reporter) {
+                   PmdReporter reporter,
+                   RuleSetDocumentCache documents) {
         this.resourceLoader = resourceLoader;
+        this.documents = documents;
         this.languageRegistry = Objects.requireNonNull(languageRegistry);
         this.minimumPriority = minimumPriority;
         this.warnDeprecated = warnDeprecated;
@@ -162,43 +157,35 @@ final class RuleSetFactory {
      */
     private @NonNull RuleSet readDocument(RuleSetReferenceId ruleSetReferenceId, boolean withDeprecatedRuleReferences) {
 
-        try (CheckedInputStream inputStream = new CheckedInputStream(ruleSetReferenceId.getInputStream(resourceLoader), new Adler32())) {
-            if (!ruleSetReferenceId.isAbsolute()) {
-                throw new IllegalArgumentException(
-                    "Cannot parse a RuleSet from a non-absolute reference: <" + ruleSetReferenceId + ">.");
-            }
+        if (!ruleSetReferenceId.isAbsolute()) {
+            throw new IllegalArgumentException(
+                "Cannot parse a RuleSet from a non-absolute reference: <" + ruleSetReferenceId + ">.");
+        }
 
+        try {
             XmlMessageHandler printer = getXmlMessagePrinter();
-            DocumentBuilder builder = createDocumentBuilder();
-            InputSource inputSource = new InputSource(inputStream);
-            inputSource.setSystemId(ruleSetReferenceId.getRuleSetFileName());
-
             OoxmlFacade ooxml = new OoxmlFacade()
                 .withPrinter(printer)
                 .withAnsiColors(false);
-            PositionedXmlDoc parsed = ooxml.parse(builder, inputSource);
+            RuleSetDocument document = documents.get(ruleSetReferenceId, ooxml);
+            PositionedXmlDoc parsed = document.getParsed();
 
             @SuppressWarnings("PMD.CloseResource")
             PmdXmlReporterImpl err = new PmdXmlReporterImpl(reporter, ooxml, parsed.getPositioner());
-            try {
-                RuleSetBuilder ruleSetBuilder = new RuleSetBuilder(inputStream.getChecksum().getValue()).withFileName(ruleSetReferenceId.getRuleSetFileName());
-
-                RuleSet ruleSet = parseRulesetNode(ruleSetReferenceId, withDeprecatedRuleReferences, parsed, ruleSetBuilder, err);
-                if (err.errCount > 0) {
-                    // note this makes us jump to the catch branch
-                    // these might have been non-fatal errors
-                    String message;
-                    if (err.errCount == 1) {
-                        message = "An XML validation error occurred";
-                    } else {
-                        message = err.errCount + " XML validation errors occurred";
-                    }
-                    throw new RuleSetLoadException(ruleSetReferenceId, message);
+            RuleSetBuilder ruleSetBuilder = new RuleSetBuilder(document.getChecksum()).withFileName(ruleSetReferenceId.getRuleSetFileName());
+
+            RuleSet ruleSet = parseRulesetNode(ruleSetReferenceId, withDeprecatedRuleReferences, parsed, ruleSetBuilder, err);
+            if (err.errCount > 0) {
+                // these might have been non-fatal errors
+                String message;
+                if (err.errCount == 1) {
+                    message = "An XML validation error occurred";
+                } else {
+                    message = err.errCount + " XML validation errors occurred";
                 }
-                return ruleSet;
-            } catch (Exception | Error e) {
-                throw e;
+                throw new RuleSetLoadException(ruleSetReferenceId, message);
             }
+            return ruleSet;
         } catch (ParserConfigurationException | IOException ex) {
             throw new RuleSetLoadException(ruleSetReferenceId, ex);
         }
@@ -273,43 +260,6 @@ final class RuleSetFactory {
     }
 
 
-    private DocumentBuilder createDocumentBuilder() throws ParserConfigurationException {
-        final DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-
-        try {
-            /*
-             * parser hardening
-             * https://www.owasp.org/index.php/XML_External_Entity_(XXE)_Prevention_Cheat_Sheet#JAXP_DocumentBuilderFactory.2C_SAXParserFactory_and_DOM4J
-             */
-            // This is the PRIMARY defense. If DTDs (doctypes) are disallowed, almost all XML entity attacks are prevented
-            // Xerces 2 only - http://xerces.apache.org/xerces2-j/features.html#disallow-doctype-decl
-            dbf.setFeature("http://apache.org/xml/features/disallow-doctype-decl", true);
-
-            // If you can't completely disable DTDs, then at least do the following:
-            // Xerces 1 - http://xerces.apache.org/xerces-j/features.html#external-general-entities
-            // Xerces 2 - http://xerces.apache.org/xerces2-j/features.html#external-general-entities
-            // JDK7+ - http://xml.org/sax/features/external-general-entities
-            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
-
-            // Xerces 1 - http://xerces.apache.org/xerces-j/features.html#external-parameter-entities
-            // Xerces 2 - http://xerces.apache.org/xerces2-j/features.html#external-parameter-entities
-            // JDK7+ - http://xml.org/sax/features/external-parameter-entities
-            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-
-            // Disable external DTDs as well
-            dbf.setFeature("http://apache.org/xml/features/nonvalidating/load-external-dtd", false);
-
-            // and these as well, per Timothy Morgan's 2014 paper: "XML Schema, DTD, and Entity Attacks"
-            dbf.setXIncludeAware(false);
-            dbf.setExpandEntityReferences(false);
-        } catch (final ParserConfigurationException e) {
-            // an unsupported feature... too bad, but won't fail execution due to this
-            LOG.warn("Ignored unsupported XML Parser Feature for parsing rulesets", e);
-        }
-
-        return dbf.newDocumentBuilder();
-    }
-
     /**
      * Parse a rule node.
      *
@@ -607,11 +557,10 @@ final class RuleSetFactory {
      * @return {@code true} if the ruleName exists
      */
     private boolean containsRule(RuleSetReferenceId ruleSetReferenceId, String ruleName) {
-        // TODO: avoid reloading the ruleset once again
         boolean found = false;
-        try (InputStream ruleSet = ruleSetReferenceId.getInputStream(resourceLoader)) {
-            DocumentBuilder builder = createDocumentBuilder();
-            Document document = builder.parse(ruleSet);
+        try {
+            OoxmlFacade ooxml = new OoxmlFacade().withPrinter(getXmlMessagePrinter()).withAnsiColors(false);
+            Document document = documents.get(ruleSetReferenceId, ooxml).getParsed().getDocument();
             Element ruleSetElement = document.getDocumentElement();
 
             NodeList rules = ruleSetElement.getElementsByTagName("rule");
@@ -660,7 +609,8 @@ final class RuleSetFactory {
                                   .warnDeprecated(warnDeprecated)
                                   .includeDeprecatedRuleReferences(includeDeprecatedRuleReferences)
                                   .withReporter(reporter)
-                                  .withLanguages(languageRegistry);
+                                  .withLanguages(languageRegistry)
+                                  .withDocumentCache(documents);
     }
 
     private @NonNull XmlMessageHandler getXmlMessagePrinter() {
@@ -11,19 +11,25 @@ import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
 
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.slf4j.event.Level;
 
 import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetCache;
 import net.sourceforge.pmd.lang.rule.internal.RuleSetReferenceId;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetSources;
 import net.sourceforge.pmd.util.CollectionUtil;
 import net.sourceforge.pmd.util.internal.ResourceLoader;
 import net.sourceforge.pmd.util.log.PmdReporter;
@@ -43,6 +49,8 @@ public final class RuleSetLoader {
     private boolean warnDeprecated = true;
     private boolean includeDeprecatedRuleReferences = false;
     private @NonNull PmdReporter reporter = PmdReporter.quiet();
+    private @Nullable RuleSetDocumentCache documentCache;
+    private @Nullable RuleSetCache ruleSetCache;
 
     /**
      * Create a new RuleSetLoader with a default configuration.
@@ -73,6 +81,18 @@ public final class RuleSetLoader {
         return this;
     }
 
+    // internal: share parsed documents with the factory that loads a referencing ruleset
+    RuleSetLoader withDocumentCache(RuleSetDocumentCache documentCache) {
+        this.documentCache = documentCache;
+        return this;
+    }
+
+    // internal: reuse rulesets loaded previously by loadRuleSetsWithoutException
+    RuleSetLoader withRuleSetCache(@Nullable RuleSetCache ruleSetCache) {
+        this.ruleSetCache = ruleSetCache;
+        return this;
+    }
+
     public RuleSetLoader withLanguages(LanguageRegistry languageRegistry) {
         this.languageRegistry = languageRegistry;
         return this;
@@ -117,16 +137,48 @@ public final class RuleSetLoader {
      * That factory will use the configuration that was set using the setters of this.
      */
     RuleSetFactory toFactory() {
+        return toFactory(newDocumentCache(), reporter);
+    }
+
+    private RuleSetFactory toFactory(RuleSetDocumentCache documents, PmdReporter reporter) {
         return new RuleSetFactory(
             this.resourceLoader,
             this.languageRegistry,
             this.minimumPriority,
             this.warnDeprecated,
             this.includeDeprecatedRuleReferences,
-            this.reporter
+            reporter,
+            documents
         );
     }
 
+    private RuleSetDocumentCache newDocumentCache() {
+        return documentCache != null ? documentCache : new RuleSetDocumentCache(resourceLoader);
+    }
+
+    /**
+     * Closes the document cache, unless it is shared with the loader of
+     * a referencing ruleset, which closes it when done.
+     */
+    private void closeIfOwned(RuleSetDocumentCache documents) {
+        if (documents != documentCache) { // NOPMD CompareObjectsWithEquals
+            documents.close();
+        }
+    }
+
+    /**
+     * Returns a cache in which the given rulesets are being parsed in
+     * parallel. Loading them in order with this cache is faster than
+     * loading them one by one.
+     */
+    private RuleSetDocumentCache prefetch(Collection<String> rulesetPaths) {
+        RuleSetDocumentCache documents = newDocumentCache();
+        for (String path : rulesetPaths) {
+            documents.prefetch(new RuleSetReferenceId(path, null));
+        }
+        return documents;
+    }
+
     /**
      * Parses and returns a ruleset from its location. The location may
      * be a file system path, or a resource path (see {@link #loadResourcesWith(ClassLoader)}).
@@ -153,6 +205,9 @@ public final class RuleSetLoader {
         }
 
         ResourceLoader oldLoader = this.resourceLoader;
+        RuleSetDocumentCache oldCache = this.documentCache;
+        // documents parsed with the old loader must not be used
+        this.documentCache = null;
         try {
             loadResourcesWith(new ResourceLoader() {
                 @Override
@@ -166,6 +221,7 @@ public final class RuleSetLoader {
             return loadFromResource(new RuleSetReferenceId(filename, null));
         } finally {
             loadResourcesWith(oldLoader);
+            this.documentCache = oldCache;
         }
     }
 
@@ -179,11 +235,16 @@ public final class RuleSetLoader {
      * @throws NullPointerException If the parameter, or any component is null
      */
     public List<RuleSet> loadFromResources(Collection<String> paths) {
-        List<RuleSet> ruleSets = new ArrayList<>(paths.size());
-        for (String path : paths) {
-            ruleSets.add(loadFromResource(path));
+        RuleSetDocumentCache documents = prefetch(paths);
+        try {
+            List<RuleSet> ruleSets = new ArrayList<>(paths.size());
+            for (String path : paths) {
+                ruleSets.add(loadFromResource(new RuleSetReferenceId(path, null), documents));
+            }
+            return ruleSets;
+        } finally {
+            closeIfOwned(documents);
         }
-        return ruleSets;
     }
 
     /**
@@ -197,16 +258,27 @@ public final class RuleSetLoader {
         List<RuleSet> ruleSets = new ArrayList<>(rulesetPaths.size());
         boolean anyRules = false;
         boolean error = false;
-        for (String path : rulesetPaths) {
-            try {
-                RuleSet ruleset = this.loadFromResource(path);
-                anyRules |= !ruleset.getRules().isEmpty();
-                printRulesInDebug(path, ruleset);
-                ruleSets.add(ruleset);
-            } catch (RuleSetLoadException e) {
-                error = true;
-                reporter.error(e);
+        Map<String, RuleSet> cached = getCachedRuleSets(rulesetPaths);
+        List<String> toLoad = new ArrayList<>(rulesetPaths);
+        toLoad.removeAll(cached.keySet());
+        RuleSetDocumentCache documents = prefetch(toLoad);
+        try {
+            for (String path : rulesetPaths) {
+                try {
+                    RuleSet ruleset = cached.get(path);
+                    if (ruleset == null) {
+                        ruleset = loadAndCache(path, documents);
+                    }
+                    anyRules |= !ruleset.getRules().isEmpty();
+                    printRulesInDebug(path, ruleset);
+                    ruleSets.add(ruleset);
+                } catch (RuleSetLoadException e) {
+                    error = true;
+                    reporter.error(e);
+                }
             }
+        } finally {
+            closeIfOwned(documents);
         }
         if (!anyRules && !error) {
             reporter.warn("No rules found. Maybe you misspelled a rule name? ({0})",
@@ -215,6 +287,39 @@ public final class RuleSetLoader {
         return ruleSets;
     }
 
+    private Map<String, RuleSet> getCachedRuleSets(List<String> rulesetPaths) {
+        Map<String, RuleSet> cached = new HashMap<>();
+        if (ruleSetCache != null) {
+            for (String path : rulesetPaths) {
+                RuleSet ruleSet = ruleSetCache.get(path, minimumPriority, languageRegistry, resourceLoader);
+                if (ruleSet != null) {
+                    LOG.debug("Reusing ruleset {}", path);
+                    cached.put(path, ruleSet);
+                }
+            }
+        }
+        return cached;
+    }
+
+    /**
+     * Loads a ruleset and adds it to the ruleset cache, if loading it
+     * reported no message, and it was read from ruleset files.
+     */
+    private RuleSet loadAndCache(String path, RuleSetDocumentCache documents) {
+        RuleSetReferenceId ruleSetReferenceId = new RuleSetReferenceId(path, null);
+        if (ruleSetCache == null) {
+            return loadFromResource(ruleSetReferenceId, documents);
+        }
+        documents.takeSources(); // forget the files read for previous rulesets
+        MessageCountingReporter countingReporter = new MessageCountingReporter(reporter);
+        RuleSet ruleSet = loadFromResource(ruleSetReferenceId, documents, countingReporter);
+        RuleSetSources sources = documents.takeSources();
+        if (countingReporter.numMessages == 0 && !sources.getChecksums().isEmpty()) {
+            ruleSetCache.put(path, minimumPriority, languageRegistry, ruleSet, sources);
+        }
+        return ruleSet;
+    }
+
     void printRulesInDebug(String path, RuleSet ruleset) {
         if (LOG.isDebugEnabled()) {
             LOG.debug("Rules loaded from {}:", path);
@@ -244,8 +349,21 @@ public final class RuleSetLoader {
 
     // package private
     RuleSet loadFromResource(RuleSetReferenceId ruleSetReferenceId) {
+        RuleSetDocumentCache documents = newDocumentCache();
         try {
-            return toFactory().createRuleSet(ruleSetReferenceId);
+            return loadFromResource(ruleSetReferenceId, documents);
+        } finally {
+            closeIfOwned(documents);
+        }
+    }
+
+    private RuleSet loadFromResource(RuleSetReferenceId ruleSetReferenceId, RuleSetDocumentCache documents) {
+        return loadFromResource(ruleSetReferenceId, documents, reporter);
+    }
+
+    private RuleSet loadFromResource(RuleSetReferenceId ruleSetReferenceId, RuleSetDocumentCache documents, PmdReporter reporter) {
+        try {
+            return toFactory(documents, reporter).createRuleSet(ruleSetReferenceId);
         } catch (RuleSetLoadException e) {
             throw e;
         } catch (Exception e) {
@@ -297,10 +415,51 @@ public final class RuleSetLoader {
             }
         }
 
-        List<RuleSet> ruleSets = new ArrayList<>();
-        for (String id : ruleSetReferenceIds) {
-            ruleSets.add(loadFromResource(id)); // may throw
+        RuleSetDocumentCache documents = prefetch(ruleSetReferenceIds);
+        try {
+            List<RuleSet> ruleSets = new ArrayList<>();
+            for (String id : ruleSetReferenceIds) {
+                ruleSets.add(loadFromResource(new RuleSetReferenceId(id, null), documents)); // may throw
+            }
+            return ruleSets;
+        } finally {
+            closeIfOwned(documents);
+        }
+    }
+
+    /**
+     * Counts the warnings and errors that are reported, whatever the
+     * level of the reporter it forwards them to.
+     */
+    private static final class MessageCountingReporter implements PmdReporter {
+
+        private final PmdReporter delegate;
+        private int numMessages;
+
+        MessageCountingReporter(PmdReporter delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public boolean isLoggable(Level level) {
+            return isWarningOrError(level) || delegate.isLoggable(level);
+        }
+
+        @Override
+        public void logEx(Level level, @Nullable String message, Object[] formatArgs, @Nullable Throwable error) {
+            if (isWarningOrError(level)) {
+                numMessages++;
+            }
+            delegate.logEx(level, message, formatArgs, error);
+        }
+
+        @Override
+        public int numErrors() {
+            return delegate.numErrors();
+        }
+
+        private static boolean isWarningOrError(Level level) {
+            return level.compareTo(Level.WARN) <= 0;
         }
-        return ruleSets;
     }
 }
@@ -0,0 +1,416 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.PMDVersion;
+import net.sourceforge.pmd.lang.Language;
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetCache;
+import net.sourceforge.pmd.lang.rule.internal.RuleSetSources;
+import net.sourceforge.pmd.properties.InternalApiBridge;
+import net.sourceforge.pmd.properties.NumericConstraints;
+import net.sourceforge.pmd.properties.PropertyBuilder;
+import net.sourceforge.pmd.properties.PropertyConstraint;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+import net.sourceforge.pmd.properties.PropertySerializer;
+import net.sourceforge.pmd.properties.internal.PropertyTypeId;
+import net.sourceforge.pmd.properties.internal.PropertyTypeId.BuilderAndMapper;
+import net.sourceforge.pmd.util.internal.ResourceLoader;
+import net.sourceforge.pmd.util.internal.xml.SchemaConstants;
+
+/**
+ * A {@link RuleSetCache} that is saved to a file, so that later runs
+ * of PMD can reuse the rulesets without parsing any ruleset file. The
+ * cache stores the resolved model of each ruleset: for each rule, its
+ * implementation class, its metadata, the properties defined in XML and
+ * the property values set anywhere in the chain of references. Rules
+ * are restored as instances of their class, not as {@link RuleReference}s.
+ *
+ * <p>A ruleset is reused if it was loaded from the same path, with the
+ * same minimum priority and languages, by the same version of PMD, and
+ * none of the ruleset files it was loaded from changed. If a rule cannot
+ * be restored, for instance because its class changed, the ruleset is
+ * loaded from its files again.
+ */
+final class RuleSetModelCache implements RuleSetCache {
+
+    private static final Logger LOG = LoggerFactory.getLogger(RuleSetModelCache.class);
+
+    private final Path file;
+    // by key, loaded from the file when first needed
+    private @Nullable Map<String, Entry> entries;
+
+    RuleSetModelCache(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized @Nullable RuleSet get(String path, RulePriority minimumPriority, LanguageRegistry languages, ResourceLoader resourceLoader) {
+        Entry entry = getEntries().get(key(path, minimumPriority, languages));
+        if (entry == null || !entry.sources.isUpToDate(resourceLoader)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(entry.ruleSet))) {
+            return readRuleSet(in, languages, resourceLoader);
+        } catch (IOException | ReflectiveOperationException | RuntimeException e) {
+            LOG.debug("Cached ruleset {} cannot be restored, it will be loaded again", path, e);
+            return null;
+        }
+    }
+
+    @Override
+    public synchronized void put(String path, RulePriority minimumPriority, LanguageRegistry languages, RuleSet ruleSet, RuleSetSources sources) {
+        byte[] bytes;
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (DataOutputStream data = new DataOutputStream(out)) {
+                writeRuleSet(data, ruleSet);
+            }
+            bytes = out.toByteArray();
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Ruleset {} cannot be cached", path, e);
+            return;
+        }
+        getEntries().put(key(path, minimumPriority, languages), new Entry(sources, bytes));
+        persist();
+    }
+
+    private static String key(String path, RulePriority minimumPriority, LanguageRegistry languages) {
+        String languageIds = languages.getLanguages().stream().map(Language::getId).sorted().collect(Collectors.joining(","));
+        return minimumPriority.getPriority() + "|" + languageIds + "|" + path;
+    }
+
+    private Map<String, Entry> getEntries() {
+        if (entries == null) {
+            entries = new LinkedHashMap<>();
+            try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+                if (PMDVersion.VERSION.equals(readString(in))) {
+                    int numEntries = in.readInt();
+                    for (int i = 0; i < numEntries; i++) {
+                        String key = readString(in);
+                        entries.put(key, new Entry(readSources(in), readBytes(in)));
+                    }
+                }
+            } catch (NoSuchFileException ignored) {
+                // first run
+            } catch (IOException | RuntimeException e) {
+                LOG.debug("Ruleset cache file {} is malformed, it will be overwritten", file, e);
+                entries.clear();
+            }
+        }
+        return entries;
+    }
+
+    private void persist() {
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                writeString(out, PMDVersion.VERSION);
+                out.writeInt(entries.size());
+                for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeSources(out, entry.getValue().sources);
+                    writeBytes(out, entry.getValue().ruleSet);
+                }
+            }
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            LOG.debug("Could not write ruleset cache file {}", file, e);
+        }
+    }
+
+    private static void writeSources(DataOutputStream out, RuleSetSources sources) throws IOException {
+        out.writeInt(sources.getChecksums().size());
+        for (Map.Entry<String, Long> entry : sources.getChecksums().entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeLong(entry.getValue());
+        }
+    }
+
+    private static RuleSetSources readSources(DataInputStream in) throws IOException {
+        Map<String, Long> checksums = new LinkedHashMap<>();
+        int numSources = in.readInt();
+        for (int i = 0; i < numSources; i++) {
+            checksums.put(readString(in), in.readLong());
+        }
+        return new RuleSetSources(checksums);
+    }
+
+    private static void writeRuleSet(DataOutputStream out, RuleSet ruleSet) throws IOException {
+        writeString(out, ruleSet.getName());
+        writeString(out, ruleSet.getDescription());
+        writeString(out, ruleSet.getFileName());
+        out.writeLong(ruleSet.getChecksum());
+        writePatterns(out, ruleSet.getFileExclusions());
+        writePatterns(out, ruleSet.getFileInclusions());
+        out.writeInt(ruleSet.getRules().size());
+        for (Rule rule : ruleSet.getRules()) {
+            writeRule(out, rule);
+        }
+    }
+
+    private static RuleSet readRuleSet(DataInputStream in, LanguageRegistry languages, ResourceLoader resourceLoader) throws IOException, ReflectiveOperationException {
+        String name = readString(in);
+        String description = readString(in);
+        String fileName = readString(in);
+        RuleSet.RuleSetBuilder builder = new RuleSet.RuleSetBuilder(in.readLong())
+            .withName(name)
+            .withDescription(description)
+            .withFileName(fileName)
+            .replaceFileExclusions(readPatterns(in))
+            .replaceFileInclusions(readPatterns(in));
+        int numRules = in.readInt();
+        for (int i = 0; i < numRules; i++) {
+            builder.addRule(readRule(in, languages, resourceLoader));
+        }
+        return builder.build();
+    }
+
+    private static void writePatterns(DataOutputStream out, List<Pattern> patterns) throws IOException {
+        out.writeInt(patterns.size());
+        for (Pattern pattern : patterns) {
+            writeString(out, pattern.pattern());
+            out.writeInt(pattern.flags());
+        }
+    }
+
+    private static List<Pattern> readPatterns(DataInputStream in) throws IOException {
+        int numPatterns = in.readInt();
+        List<Pattern> patterns = new ArrayList<>(numPatterns);
+        for (int i = 0; i < numPatterns; i++) {
+            patterns.add(Pattern.compile(readString(in), in.readInt()));
+        }
+        return patterns;
+    }
+
+    private static void writeRule(DataOutputStream out, Rule rule) throws IOException {
+        writeString(out, rule.getRuleClass());
+        writeString(out, rule.getLanguage().getId());
+        writeString(out, versionOf(rule.getMinimumLanguageVersion()));
+        writeString(out, versionOf(rule.getMaximumLanguageVersion()));
+        writeString(out, rule.getName());
+        writeString(out, rule.getSince());
+        writeString(out, rule.getMessage());
+        writeString(out, rule.getDescription());
+        writeString(out, rule.getExternalInfoUrl());
+        writeString(out, rule.getRuleSetName());
+        out.writeInt(rule.getPriority().getPriority());
+        out.writeBoolean(rule.isDeprecated());
+        out.writeInt(rule.getExamples().size());
+        for (String example : rule.getExamples()) {
+            writeString(out, example);
+        }
+
+        List<PropertyDescriptor<?>> definitions = new ArrayList<>();
+        List<PropertyDescriptor<?>> overridden = new ArrayList<>();
+        for (PropertyDescriptor<?> descriptor : rule.getPropertyDescriptors()) {
+            if (InternalApiBridge.getTypeId(descriptor) != null) {
+                definitions.add(descriptor);
+            }
+            if (isOverridden(rule, descriptor)) {
+                overridden.add(descriptor);
+            }
+        }
+        out.writeInt(definitions.size());
+        for (PropertyDescriptor<?> descriptor : definitions) {
+            writeDefinition(out, descriptor);
+        }
+        out.writeInt(overridden.size());
+        for (PropertyDescriptor<?> descriptor : overridden) {
+            writeString(out, descriptor.name());
+            writeString(out, valueToString(rule, descriptor));
+        }
+    }
+
+    private static Rule readRule(DataInputStream in, LanguageRegistry languages, ResourceLoader resourceLoader) throws IOException, ReflectiveOperationException {
+        Rule rule = resourceLoader.loadRuleFromClassPath(readString(in));
+        String languageId = readString(in);
+        if (rule.getLanguage() == null) {
+            Language language = languages.getLanguageById(languageId);
+            if (language == null) {
+                throw new IllegalStateException("Language " + languageId + " is not available");
+            }
+            rule.setLanguage(language);
+        }
+        rule.setMinimumLanguageVersion(readVersion(in, rule.getLanguage()));
+        rule.setMaximumLanguageVersion(readVersion(in, rule.getLanguage()));
+        rule.setName(readString(in));
+        rule.setSince(readString(in));
+        rule.setMessage(readString(in));
+        rule.setDescription(readString(in));
+        rule.setExternalInfoUrl(readString(in));
+        rule.setRuleSetName(readString(in));
+        rule.setPriority(RulePriority.valueOf(in.readInt()));
+        rule.setDeprecated(in.readBoolean());
+        int numExamples = in.readInt();
+        for (int i = 0; i < numExamples; i++) {
+            rule.addExample(readString(in));
+        }
+
+        int numDefinitions = in.readInt();
+        for (int i = 0; i < numDefinitions; i++) {
+            PropertyDescriptor<?> descriptor = readDefinition(in);
+            if (rule.getPropertyDescriptor(descriptor.name()) == null) {
+                rule.definePropertyDescriptor(descriptor);
+            }
+        }
+        int numValues = in.readInt();
+        for (int i = 0; i < numValues; i++) {
+            String name = readString(in);
+            PropertyDescriptor<?> descriptor = rule.getPropertyDescriptor(name);
+            if (descriptor == null) {
+                throw new IllegalStateException("Property " + name + " is not defined by rule " + rule.getName());
+            }
+            setValueFromString(rule, descriptor, readString(in));
+        }
+        return rule;
+    }
+
+    private static @Nullable String versionOf(@Nullable LanguageVersion version) {
+        return version == null ? null : version.getVersion();
+    }
+
+    private static @Nullable LanguageVersion readVersion(DataInputStream in, Language language) throws IOException {
+        String version = readString(in);
+        if (version == null) {
+            return null;
+        }
+        LanguageVersion languageVersion = language.getVersion(version);
+        if (languageVersion == null) {
+            throw new IllegalStateException("Version " + version + " of " + language + " is not available");
+        }
+        return languageVersion;
+    }
+
+    /** Returns true if the value of the property was set on the rule, or on any rule it references. */
+    private static boolean isOverridden(Rule rule, PropertyDescriptor<?> descriptor) {
+        while (rule instanceof RuleReference) {
+            if (rule.isPropertyOverridden(descriptor)) {
+                return true;
+            }
+            rule = ((RuleReference) rule).getRule();
+        }
+        return rule.isPropertyOverridden(descriptor);
+    }
+
+    private static <T> String valueToString(Rule rule, PropertyDescriptor<T> descriptor) {
+        return descriptor.serializer().toString(rule.getProperty(descriptor));
+    }
+
+    private static <T> void setValueFromString(Rule rule, PropertyDescriptor<T> descriptor, String value) {
+        rule.setProperty(descriptor, descriptor.serializer().fromString(value));
+    }
+
+    private static <T> void writeDefinition(DataOutputStream out, PropertyDescriptor<T> descriptor) throws IOException {
+        writeString(out, InternalApiBridge.getTypeId(descriptor).getStringId());
+        writeString(out, descriptor.name());
+        writeString(out, descriptor.description());
+        writeString(out, descriptor.serializer().toString(descriptor.defaultValue()));
+        Map<String, String> constraints = new HashMap<>();
+        for (PropertyConstraint<? super T> constraint : descriptor.serializer().getConstraints()) {
+            constraints.putAll(constraint.getXmlConstraint());
+        }
+        writeString(out, constraints.get(SchemaConstants.PROPERTY_MIN.xmlName()));
+        writeString(out, constraints.get(SchemaConstants.PROPERTY_MAX.xmlName()));
+    }
+
+    private static PropertyDescriptor<?> readDefinition(DataInputStream in) throws IOException {
+        String typeId = readString(in);
+        PropertyTypeId type = PropertyTypeId.lookupMnemonic(typeId);
+        if (type == null) {
+            throw new IllegalStateException("Unsupported property type " + typeId);
+        }
+        return readDefinition(in, type.getBuilderUtils());
+    }
+
+    // mirrors RuleFactory#propertyDefCapture
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static <T> PropertyDescriptor<T> readDefinition(DataInputStream in, BuilderAndMapper<T> factory) throws IOException {
+        PropertySerializer<T> mapper = factory.getXmlMapper();
+        PropertyBuilder<?, T> builder = factory.newBuilder(readString(in)).desc(readString(in));
+        T defaultValue = mapper.fromString(readString(in));
+        String min = readString(in);
+        String max = readString(in);
+        if (min != null && max != null) {
+            builder.require(NumericConstraints.inRange((Comparable) mapper.fromString(min), (Comparable) mapper.fromString(max)));
+        } else if (min != null) {
+            builder.require(NumericConstraints.above((Comparable) mapper.fromString(min)));
+        } else if (max != null) {
+            builder.require(NumericConstraints.below((Comparable) mapper.fromString(max)));
+        }
+        return builder.defaultValue(defaultValue).build();
+    }
+
+    // DataOutput#writeUTF is limited to 64K, which descriptions or XPath expressions may exceed
+    private static void writeString(DataOutputStream out, @Nullable String string) throws IOException {
+        writeBytes(out, string == null ? null : string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static @Nullable String readString(DataInputStream in) throws IOException {
+        byte[] bytes = readBytes(in);
+        return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+        if (bytes == null) {
+            out.writeInt(-1);
+        } else {
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    // returns null if null was written. The stream must read from a byte array,
+    // so that a malformed length is detected before allocating the array.
+    private static byte[] readBytes(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        } else if (length > in.available()) {
+            throw new IOException("Malformed ruleset cache");
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return bytes;
+    }
+
+    private static final class Entry {
+
+        private final RuleSetSources sources;
+        private final byte[] ruleSet;
+
+        Entry(RuleSetSources sources, byte[] ruleSet) {
+            this.sources = sources;
+            this.ruleSet = ruleSet;
+        }
+    }
+}
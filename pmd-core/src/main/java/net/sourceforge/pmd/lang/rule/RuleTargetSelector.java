@@ -10,8 +10,10 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.Objects;
 import java.util.Set;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.rule.internal.TargetSelectorInternal;
@@ -77,6 +79,29 @@ public abstract class RuleTargetSelector extends TargetSelectorInternal {
         return forTypes(CollectionUtil.listOf(first, types));
     }
 
+    /**
+     * Target nodes that have one of the given values for the index key.
+     * For instance, with a key that indexes method calls by name, this
+     * selects the calls to methods with one of the given names.
+     *
+     * @param key    Index key
+     * @param values Values of the key
+     *
+     * @return A selector
+     *
+     * @throws IllegalArgumentException If the values are empty
+     * @throws NullPointerException     If any of the arguments is null
+     * @since 7.5.0
+     */
+    @Experimental
+    public static RuleTargetSelector forIndexKey(NodeIndexKey<?> key, Collection<String> values) {
+        Objects.requireNonNull(key, "key");
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("Cannot visit zero values");
+        }
+        return new KeyRulechainVisits(key, values);
+    }
+
     /**
      * Target only the root of the tree.
      */
@@ -108,6 +133,32 @@ public abstract class RuleTargetSelector extends TargetSelectorInternal {
         }
     }
 
+    private static final class KeyRulechainVisits extends RuleTargetSelector {
+
+        private final NodeIndexKey<?> key;
+        private final Set<String> values;
+
+        KeyRulechainVisits(NodeIndexKey<?> key, Collection<String> values) {
+            this.key = key;
+            this.values = new LinkedHashSet<>(values);
+        }
+
+        @Override
+        protected void prepare(ApplicatorBuilder builder) {
+            builder.registerIndexKey(key);
+        }
+
+        @Override
+        protected Iterator<? extends Node> getVisitedNodes(TreeIndex index) {
+            return index.getByKey(key, values);
+        }
+
+        @Override
+        public String toString() {
+            return "KeyVisits(" + key + ")" + values;
+        }
+    }
+
     private static final class ClassRulechainVisits extends RuleTargetSelector {
 
         public static final RuleTargetSelector ROOT_ONLY = new ClassRulechainVisits(Collections.singleton(RootNode.class));
@@ -314,7 +314,8 @@ class LatticeRelation<K, @NonNull V, C> {
         }
 
         @Override
-        @NonNull C computeValue() {
+        // rules may query the relation from several threads
+        synchronized @NonNull C computeValue() {
             if (finished == null) {
                 this.finished = finish(collector(), accumulator);
             }
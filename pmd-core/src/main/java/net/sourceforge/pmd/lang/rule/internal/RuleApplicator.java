@@ -6,8 +6,13 @@ package net.sourceforge.pmd.lang.rule.internal;
 
 import static net.sourceforge.pmd.lang.rule.InternalApiBridge.ruleSetApplies;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.lang3.exception.ExceptionContext;
 import org.slf4j.Logger;
@@ -20,11 +25,15 @@ import net.sourceforge.pmd.internal.SystemProps;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.impl.AnalysisTimeoutException;
+import net.sourceforge.pmd.lang.impl.AnalysisWatchdog;
 import net.sourceforge.pmd.lang.rule.Rule;
 import net.sourceforge.pmd.reporting.FileAnalysisListener;
 import net.sourceforge.pmd.reporting.InternalApiBridge;
 import net.sourceforge.pmd.reporting.Report.ProcessingError;
+import net.sourceforge.pmd.reporting.Report.SuppressedViolation;
 import net.sourceforge.pmd.reporting.RuleContext;
+import net.sourceforge.pmd.reporting.RuleViolation;
 import net.sourceforge.pmd.util.AssertionUtil;
 import net.sourceforge.pmd.util.StringUtil;
 
@@ -57,37 +66,94 @@ public class RuleApplicator {
         applyOnIndex(idx, rules, listener);
     }
 
+    /**
+     * Drops the references to the nodes of the last indexed tree. This
+     * applicator is kept for the next file, and the tree would otherwise
+     * be retained until then.
+     */
+    public void clearIndex() {
+        idx.reset();
+        currentLangVer = null;
+    }
+
+    /**
+     * Applies the rules with the help of other threads. The rules are
+     * distributed dynamically between the current thread and helpers
+     * submitted to the executor, each rule being applied by a single
+     * thread. A helper that starts once all rules have been taken does
+     * nothing, so this does not wait for the executor to have an idle
+     * thread, only for the helpers that are applying a rule to finish.
+     * The events of all threads are forwarded to the listener by one
+     * thread at a time.
+     *
+     * @param rules      Rules to apply
+     * @param listener   Listener for the events of the file
+     * @param helpers    Executor in which to run the helpers
+     * @param numHelpers Maximum number of helpers
+     */
+    public void applyInParallel(Collection<? extends Rule> rules, FileAnalysisListener listener, Executor helpers, int numHelpers) {
+        List<Rule> applicable = new ArrayList<>(rules.size());
+        for (Rule rule : rules) {
+            if (ruleSetApplies(rule, currentLangVer)) {
+                applicable.add(rule);
+            }
+        }
+
+        ParallelApplication application = new ParallelApplication(applicable, new SynchronizedListener(listener));
+        for (int i = 0; i < Math.min(numHelpers, applicable.size() - 1); i++) {
+            helpers.execute(AnalysisWatchdog.propagateBudget(application::help));
+        }
+        application.work();
+        application.join();
+    }
+
     private void applyOnIndex(TreeIndex idx, Collection<? extends Rule> rules, FileAnalysisListener listener) {
         for (Rule rule : rules) {
             if (!ruleSetApplies(rule, currentLangVer)) {
                 continue; // No point in even trying to apply the rule
             }
-            
-            RuleContext ctx = InternalApiBridge.createRuleContext(listener, rule);
-            rule.start(ctx);
-            try (TimedOperation rcto = TimeTracker.startOperation(TimedOperationCategory.RULE, rule.getName())) {
+            applyRule(idx, rule, listener);
+        }
+    }
 
-                int nodeCounter = 0;
-                Iterator<? extends Node> targets = rule.getTargetSelector().getVisitedNodes(idx);
-                while (targets.hasNext()) {
-                    Node node = targets.next();
+    private void applyRule(TreeIndex idx, Rule rule, FileAnalysisListener listener) {
+        RuleContext ctx = InternalApiBridge.createRuleContext(listener, rule);
+        AnalysisWatchdog.startRule(rule.getName());
+        rule.start(ctx);
+        try (TimedOperation rcto = TimeTracker.startOperation(TimedOperationCategory.RULE, rule.getName())) {
 
-                    try {
-                        nodeCounter++;
-                        rule.apply(node, ctx);
-                    } catch (RuntimeException e) {
-                        reportOrRethrow(listener, rule, node, AssertionUtil.contexted(e), true);
-                    } catch (StackOverflowError e) {
-                        reportOrRethrow(listener, rule, node, AssertionUtil.contexted(e), SystemProps.isErrorRecoveryMode());
-                    } catch (AssertionError e) {
-                        reportOrRethrow(listener, rule, node, AssertionUtil.contexted(e), SystemProps.isErrorRecoveryMode());
-                    }
+            int nodeCounter = 0;
+            Iterator<? extends Node> targets = rule.getTargetSelector().getVisitedNodes(idx);
+            while (targets.hasNext()) {
+                Node node = targets.next();
+
+                try {
+                    AnalysisWatchdog.checkpoint();
+                    nodeCounter++;
+                    rule.apply(node, ctx);
+                } catch (AnalysisTimeoutException e) {
+                    throw e;
+                } catch (RuntimeException e) {
+                    // the timeout may have been wrapped, or swallowed by the rule
+                    AnalysisWatchdog.checkpoint();
+                    reportOrRethrow(listener, rule, node, AssertionUtil.contexted(e), true);
+                } catch (StackOverflowError e) {
+                    reportOrRethrow(listener, rule, node, AssertionUtil.contexted(e), SystemProps.isErrorRecoveryMode());
+                } catch (AssertionError e) {
+                    reportOrRethrow(listener, rule, node, AssertionUtil.contexted(e), SystemProps.isErrorRecoveryMode());
                 }
-                
-                rcto.close(nodeCounter);
-            } finally {
-                rule.end(ctx);
             }
+
+            rcto.close(nodeCounter);
+        } catch (AnalysisTimeoutException e) {
+            if (e.getRuleName() == null) {
+                throw e; // the whole file is cancelled
+            }
+            listener.onError(new ProcessingError(e, e.getFileId()));
+            LOG.warn("Rule {} exceeded its time budget on file {}, continuing with next rule", rule.getName(), e.getFileId().getAbsolutePath());
+        } finally {
+            AnalysisWatchdog.endRule();
+            rule.end(ctx);
         }
     }
 
@@ -124,6 +190,110 @@ public class RuleApplicator {
         }
     }
 
+    /**
+     * State of the application of rules by several threads. Rules are
+     * taken in order by the threads that work on it, the first failure
+     * stops all threads and is rethrown by the thread that owns the file.
+     */
+    private final class ParallelApplication {
+
+        private final List<Rule> rules;
+        private final FileAnalysisListener listener;
+        private final AtomicInteger nextRule = new AtomicInteger();
+        private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        // guarded by this
+        private int activeHelpers;
+        private boolean joined;
+
+        ParallelApplication(List<Rule> rules, FileAnalysisListener listener) {
+            this.rules = rules;
+            this.listener = listener;
+        }
+
+        /** Called on a helper thread. */
+        void help() {
+            synchronized (this) {
+                if (joined) {
+                    return;
+                }
+                activeHelpers++;
+            }
+            TimeTracker.initThread();
+            try {
+                work();
+            } finally {
+                TimeTracker.finishThread();
+                synchronized (this) {
+                    activeHelpers--;
+                    notifyAll();
+                }
+            }
+        }
+
+        void work() {
+            int i;
+            while (failure.get() == null && (i = nextRule.getAndIncrement()) < rules.size()) {
+                try {
+                    applyRule(idx, rules.get(i), listener);
+                } catch (Throwable e) { // NOPMD rethrown by the thread that owns the file
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+
+        /** Called on the thread that owns the file, once it has no more rules to apply. */
+        void join() {
+            boolean interrupted = false;
+            synchronized (this) {
+                joined = true;
+                while (activeHelpers > 0) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // the helpers use the tree, so we can't return before they're done
+                        interrupted = true;
+                    }
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+
+            Throwable e = failure.get();
+            if (e instanceof RuntimeException) {
+                throw (RuntimeException) e;
+            } else if (e instanceof Error) {
+                throw (Error) e;
+            }
+        }
+    }
+
+    /** Forwards the events of several threads to a listener that is not thread-safe. */
+    private static final class SynchronizedListener implements FileAnalysisListener {
+
+        private final FileAnalysisListener delegate;
+
+        SynchronizedListener(FileAnalysisListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public synchronized void onRuleViolation(RuleViolation violation) {
+            delegate.onRuleViolation(violation);
+        }
+
+        @Override
+        public synchronized void onSuppressedRuleViolation(SuppressedViolation violation) {
+            delegate.onSuppressedRuleViolation(violation);
+        }
+
+        @Override
+        public synchronized void onError(ProcessingError error) {
+            delegate.onError(error);
+        }
+    }
+
     public static RuleApplicator build(Iterable<? extends Rule> rules) {
         TargetSelectorInternal.ApplicatorBuilder builder = new TargetSelectorInternal.ApplicatorBuilder();
         for (Rule it : rules) {
@@ -0,0 +1,47 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.internal;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.LanguageRegistry;
+import net.sourceforge.pmd.lang.rule.RulePriority;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.util.internal.ResourceLoader;
+
+/**
+ * Keeps loaded rulesets, so that loading them again can be skipped as
+ * long as the files they were loaded from don't change. Only rulesets
+ * whose loading reported no message are cached, so that warnings are
+ * reported again when the ruleset is loaded again.
+ */
+public interface RuleSetCache {
+
+    /**
+     * Returns a ruleset loaded previously from the given path, with the
+     * same configuration, if none of its {@linkplain RuleSetSources sources}
+     * changed. The returned ruleset is owned by the caller, it must not
+     * share rule instances with other rulesets returned by this cache.
+     *
+     * @param path            Path of the ruleset, as given to the loader
+     * @param minimumPriority Minimum priority of the loaded rules
+     * @param languages       Languages of the loader
+     * @param resourceLoader  Loader with which the sources are read
+     *
+     * @return The ruleset, or null if it must be loaded
+     */
+    @Nullable RuleSet get(String path, RulePriority minimumPriority, LanguageRegistry languages, ResourceLoader resourceLoader);
+
+    /**
+     * Records a ruleset that was loaded from the given path.
+     *
+     * @param path            Path of the ruleset, as given to the loader
+     * @param minimumPriority Minimum priority of the loaded rules
+     * @param languages       Languages of the loader
+     * @param ruleSet         The loaded ruleset
+     * @param sources         The files that were read to load it
+     */
+    void put(String path, RulePriority minimumPriority, LanguageRegistry languages, RuleSet ruleSet, RuleSetSources sources);
+}
@@ -0,0 +1,78 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.Adler32;
+
+import net.sourceforge.pmd.internal.util.IOUtil;
+import net.sourceforge.pmd.util.internal.ResourceLoader;
+
+/**
+ * The ruleset files that were read to load a ruleset, that is, the
+ * ruleset itself and all the rulesets it references, transitively.
+ * Each file is recorded with the checksum of its contents, so that a
+ * loaded ruleset can be reused as long as none of these files changed.
+ */
+public final class RuleSetSources {
+
+    private final Map<String, Long> checksums;
+
+    public RuleSetSources(Map<String, Long> checksums) {
+        this.checksums = Collections.unmodifiableMap(new LinkedHashMap<>(checksums));
+    }
+
+    /**
+     * Returns the checksum of the contents of each file, by ruleset file
+     * name, in the order the files were first read.
+     */
+    public Map<String, Long> getChecksums() {
+        return checksums;
+    }
+
+    /**
+     * Returns true if all the files can still be read with the given
+     * loader, and have the same contents as when they were recorded.
+     * The files are read again, but not parsed.
+     */
+    public boolean isUpToDate(ResourceLoader resourceLoader) {
+        for (Map.Entry<String, Long> entry : checksums.entrySet()) {
+            try (InputStream inputStream = resourceLoader.loadResourceAsStream(entry.getKey())) {
+                if (checksum(IOUtil.toByteArray(inputStream)) != entry.getValue()) {
+                    return false;
+                }
+            } catch (IOException e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /** Returns the Adler32 checksum of the contents of a ruleset file. */
+    public static long checksum(byte[] contents) {
+        Adler32 checksum = new Adler32();
+        checksum.update(contents, 0, contents.length);
+        return checksum.getValue();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RuleSetSources && checksums.equals(((RuleSetSources) o).checksums);
+    }
+
+    @Override
+    public int hashCode() {
+        return checksums.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "RuleSetSources" + checksums;
+    }
+}
@@ -11,6 +11,9 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
 
 import net.sourceforge.pmd.benchmark.TimeTracker;
 import net.sourceforge.pmd.benchmark.TimedOperation;
@@ -139,6 +142,21 @@ public class RuleSets {
      * @param listener Listener that will handle events while analysing.
      */
     public void apply(RootNode root, FileAnalysisListener listener) {
+        apply(root, listener, null, 0);
+    }
+
+    /**
+     * Apply all applicable rules to the compilation units, with the help
+     * of other threads if an executor is given, in which case the tree
+     * must be ready for rules to be applied on it concurrently. See
+     * {@link RuleApplicator#applyInParallel}.
+     *
+     * @param root       the root of the tree
+     * @param listener   Listener that will handle events while analysing.
+     * @param helpers    Executor in which other threads may help apply the rules, if null, only the current thread is used
+     * @param numHelpers Maximum number of other threads
+     */
+    public void apply(RootNode root, FileAnalysisListener listener, @Nullable Executor helpers, int numHelpers) {
         if (ruleApplicator == null) {
             // initialize here instead of ctor, because some rules properties
             // are set after creating the ruleset, and jaxen xpath queries
@@ -150,10 +168,25 @@ public class RuleSets {
             ruleApplicator.index(root);
         }
 
-        for (RuleSet ruleSet : ruleSets) {
-            if (InternalApiBridge.ruleSetApplies(ruleSet, root.getTextDocument().getFileId())) {
-                ruleApplicator.apply(ruleSet.getRules(), listener);
+        try {
+            if (helpers != null && numHelpers > 0) {
+                List<Rule> rules = new ArrayList<>();
+                for (RuleSet ruleSet : ruleSets) {
+                    if (InternalApiBridge.ruleSetApplies(ruleSet, root.getTextDocument().getFileId())) {
+                        rules.addAll(ruleSet.getRules());
+                    }
+                }
+                ruleApplicator.applyInParallel(rules, listener, helpers, numHelpers);
+            } else {
+                for (RuleSet ruleSet : ruleSets) {
+                    if (InternalApiBridge.ruleSetApplies(ruleSet, root.getTextDocument().getFileId())) {
+                        ruleApplicator.apply(ruleSet.getRules(), listener);
+                    }
+                }
             }
+        } finally {
+            // the tree can be collected as soon as the last rule is done
+            ruleApplicator.clearIndex();
         }
     }
 
@@ -9,6 +9,7 @@ import java.util.Iterator;
 import java.util.Set;
 
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.NodeIndexKey;
 import net.sourceforge.pmd.lang.rule.RuleTargetSelector;
 
 /**
@@ -30,6 +31,7 @@ public abstract class TargetSelectorInternal {
 
         private final Set<String> namesToIndex = new HashSet<>();
         private final Set<Class<? extends Node>> classesToIndex = new HashSet<>();
+        private final Set<NodeIndexKey<?>> keysToIndex = new HashSet<>();
 
         ApplicatorBuilder() {
             // package-private
@@ -43,8 +45,12 @@ public abstract class TargetSelectorInternal {
             classesToIndex.addAll(names);
         }
 
+        public void registerIndexKey(NodeIndexKey<?> key) {
+            keysToIndex.add(key);
+        }
+
         RuleApplicator build() {
-            return new RuleApplicator(new TreeIndex(namesToIndex, classesToIndex));
+            return new RuleApplicator(new TreeIndex(namesToIndex, classesToIndex, keysToIndex));
         }
     }
 }
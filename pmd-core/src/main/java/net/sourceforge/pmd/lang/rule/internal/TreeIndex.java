@@ -15,6 +15,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.NodeIndexKey;
 import net.sourceforge.pmd.util.IteratorUtil;
 
 /**
@@ -25,10 +26,18 @@ public class TreeIndex {
     private final LatticeRelation<Class<?>, Node, Iterable<Node>> byClass;
     private final Set<String> interestingNames;
     private final Map<String, List<Node>> byName;
+    private final NodeIndexKey<?>[] keysToIndex;
+    private final Map<NodeIndexKey<?>, Map<String, List<Node>>> byKey;
 
 
     public TreeIndex(Set<String> namesToIndex,
                      Set<Class<? extends Node>> classesToIndex) {
+        this(namesToIndex, classesToIndex, Collections.emptySet());
+    }
+
+    public TreeIndex(Set<String> namesToIndex,
+                     Set<Class<? extends Node>> classesToIndex,
+                     Set<NodeIndexKey<?>> keysToIndex) {
 
         byClass = new LatticeRelation<>(
             TopoOrder.TYPE_HIERARCHY_ORDERING,
@@ -38,6 +47,11 @@ public class TreeIndex {
         );
         this.interestingNames = namesToIndex;
         byName = new HashMap<>();
+        this.keysToIndex = keysToIndex.toArray(new NodeIndexKey<?>[0]);
+        byKey = new HashMap<>();
+        for (NodeIndexKey<?> key : keysToIndex) {
+            byKey.put(key, new HashMap<>());
+        }
     }
 
     void indexNode(Node n) {
@@ -45,11 +59,20 @@ public class TreeIndex {
             byName.computeIfAbsent(n.getXPathNodeName(), k -> new ArrayList<>()).add(n);
         }
         byClass.put(n.getClass(), n);
+        for (NodeIndexKey<?> key : keysToIndex) {
+            String value = key.getValue(n);
+            if (value != null) {
+                byKey.get(key).computeIfAbsent(value, k -> new ArrayList<>()).add(n);
+            }
+        }
     }
 
     void reset() {
         byClass.clearValues();
         byName.clear();
+        for (Map<String, List<Node>> index : byKey.values()) {
+            index.clear();
+        }
     }
 
     Iterator<Node> getByName(String n) {
@@ -68,4 +91,16 @@ public class TreeIndex {
     public Iterator<Node> getByClass(Collection<? extends Class<? extends Node>> n) {
         return IteratorUtil.flatMap(n.iterator(), this::getByClass);
     }
+
+    /**
+     * Returns the nodes that have one of the given values for the key.
+     * The key must have been registered when building the index.
+     */
+    public Iterator<Node> getByKey(NodeIndexKey<?> key, Collection<String> values) {
+        Map<String, List<Node>> index = byKey.get(key);
+        if (index == null) {
+            throw new IllegalArgumentException(key + " is not indexed");
+        }
+        return IteratorUtil.flatMap(values.iterator(), v -> index.getOrDefault(v, Collections.emptyList()).iterator());
+    }
 }
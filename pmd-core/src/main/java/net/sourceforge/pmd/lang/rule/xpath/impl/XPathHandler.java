@@ -8,6 +8,7 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+import net.sourceforge.pmd.annotation.Experimental;
 import net.sourceforge.pmd.lang.rule.xpath.internal.DefaultXPathFunctions;
 import net.sourceforge.pmd.util.CollectionUtil;
 
@@ -24,6 +25,22 @@ public interface XPathHandler {
      */
     Set<XPathFunctionDefinition> getRegisteredExtensionFunctions();
 
+    /**
+     * Returns true if the rule chain expressions of XPath rules for this
+     * language may be compiled to closures that evaluate directly on the
+     * AST, instead of being interpreted by Saxon. Compiled expressions
+     * should produce the same results, but a language should only enable
+     * them once this has been checked on its rules. Compilation can be
+     * disabled for all languages with the system property
+     * {@code pmd.xpath.compile=false}.
+     *
+     * @since 7.5.0
+     */
+    @Experimental
+    default boolean supportsCompiledExpressions() {
+        return false;
+    }
+
 
     static XPathHandler noFunctionDefinitions() {
         return DefaultXPathFunctions::getDefaultFunctions;
@@ -21,6 +21,9 @@ import net.sf.saxon.om.GenericTreeInfo;
 
 /**
  * A wrapper around the root node of an AST, implementing {@link net.sf.saxon.om.TreeInfo}.
+ * The wrapper tree is built lazily and is not thread-safe. The logger
+ * is that of the rule being evaluated, so a tree may only be used by
+ * one thread.
  */
 public final class AstTreeInfo extends GenericTreeInfo {
 
@@ -0,0 +1,940 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.xpath.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.xpath.Attribute;
+import net.sourceforge.pmd.lang.rule.xpath.CommentNode;
+import net.sourceforge.pmd.lang.rule.xpath.TextNode;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathFunctionDefinition;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathFunctionDefinition.Type;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathFunctionException;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathHandler;
+
+import net.sf.saxon.expr.AtomicSequenceConverter;
+import net.sf.saxon.expr.Atomizer;
+import net.sf.saxon.expr.AxisExpression;
+import net.sf.saxon.expr.BooleanExpression;
+import net.sf.saxon.expr.CardinalityChecker;
+import net.sf.saxon.expr.ContextItemExpression;
+import net.sf.saxon.expr.Expression;
+import net.sf.saxon.expr.FilterExpression;
+import net.sf.saxon.expr.FirstItemExpression;
+import net.sf.saxon.expr.GeneralComparison;
+import net.sf.saxon.expr.ItemChecker;
+import net.sf.saxon.expr.LetExpression;
+import net.sf.saxon.expr.Literal;
+import net.sf.saxon.expr.LocalVariableReference;
+import net.sf.saxon.expr.SingletonAtomizer;
+import net.sf.saxon.expr.SlashExpression;
+import net.sf.saxon.expr.StaticProperty;
+import net.sf.saxon.expr.StringLiteral;
+import net.sf.saxon.expr.SystemFunctionCall;
+import net.sf.saxon.expr.ValueComparison;
+import net.sf.saxon.expr.VennExpression;
+import net.sf.saxon.expr.parser.Token;
+import net.sf.saxon.expr.sort.DocumentSorter;
+import net.sf.saxon.functions.IntegratedFunctionCall;
+import net.sf.saxon.om.AxisInfo;
+import net.sf.saxon.om.GroundedValue;
+import net.sf.saxon.om.Item;
+import net.sf.saxon.om.NamespaceUri;
+import net.sf.saxon.om.StructuredQName;
+import net.sf.saxon.pattern.AnyNodeTest;
+import net.sf.saxon.pattern.CombinedNodeTest;
+import net.sf.saxon.pattern.MultipleNodeKindTest;
+import net.sf.saxon.pattern.NameTest;
+import net.sf.saxon.pattern.NodeKindTest;
+import net.sf.saxon.pattern.NodeTest;
+import net.sf.saxon.str.StringView;
+import net.sf.saxon.str.ToLower;
+import net.sf.saxon.str.ToUpper;
+import net.sf.saxon.type.BuiltInAtomicType;
+import net.sf.saxon.type.UType;
+import net.sf.saxon.value.BooleanValue;
+import net.sf.saxon.value.Cardinality;
+import net.sf.saxon.value.DoubleValue;
+import net.sf.saxon.value.Int64Value;
+import net.sf.saxon.value.StringValue;
+
+/**
+ * Compiles the rule chain expressions of an XPath rule into closures
+ * that evaluate directly on the AST, without building the Saxon tree
+ * and without the overhead of the Saxon interpreter. Only the subset
+ * of XPath that the optimized expressions of typical rules use is
+ * supported, {@link #compile(Expression)} returns null for the others.
+ *
+ * <p>Values are represented by Java objects: AST nodes, {@link String},
+ * {@link Boolean}, {@link Long} and {@link Double}. Type errors,
+ * and cases where the result would depend on the document node, are
+ * not handled: the evaluation throws {@link Fallback} instead, and the
+ * caller is expected to evaluate the expression with Saxon.
+ */
+final class SaxonExprCompiler {
+
+    /** The empty untypedAtomic value that null attributes are converted to. */
+    static final Object UNTYPED_EMPTY = new Object() {
+        @Override
+        public String toString() {
+            return "";
+        }
+    };
+
+    private static final NodeMatcher ANY_NODE = new NodeMatcher(n -> true, true);
+    private static final NodeMatcher ANY_ELEMENT = new NodeMatcher(SaxonExprCompiler::isElement, false);
+
+    /**
+     * The depth of the let values that don't depend on the context, which
+     * can be evaluated anywhere. No actual depth may be equal to it.
+     */
+    private static final int ANY_DEPTH = Integer.MIN_VALUE / 2;
+
+    private final XPathHandler xPathHandler;
+    private final DeprecatedAttrLogger attrLogger;
+    /** The let expressions in scope, with the context depth where they are bound. */
+    private final Map<LetExpression, BoundVariable> letBindings = new IdentityHashMap<>();
+
+    SaxonExprCompiler(XPathHandler xPathHandler, DeprecatedAttrLogger attrLogger) {
+        this.xPathHandler = xPathHandler;
+        this.attrLogger = attrLogger;
+    }
+
+    /**
+     * Returns the compiled form of a rule chain expression, or null
+     * if it uses something unsupported.
+     */
+    @Nullable CompiledPath compile(Expression expr) {
+        return compilePath(expr, 0);
+    }
+
+    /*
+     * The depth counts the changes of context item. A let variable can
+     * only be evaluated at the place of the reference if the context is
+     * the same as where it is bound.
+     */
+
+    private @Nullable CompiledPath compilePath(Expression e, int depth) {
+        if (e instanceof ContextItemExpression) {
+            return Collections::singletonList;
+        } else if (e instanceof ItemChecker && ((ItemChecker) e).getRequiredType() instanceof AnyNodeTest) {
+            return compilePath(((ItemChecker) e).getBaseExpression(), depth);
+        } else if (e instanceof AxisExpression) {
+            return compileAxis((AxisExpression) e);
+        } else if (e instanceof SlashExpression) {
+            CompiledPath start = compilePath(((SlashExpression) e).getStart(), depth);
+            CompiledPath step = compilePath(((SlashExpression) e).getStep(), depth + 1);
+            if (start == null || step == null) {
+                return null;
+            }
+            // like Saxon, this does not sort, the optimizer adds a
+            // DocumentSorter where the result might not be in document order
+            return ctx -> {
+                List<Node> starts = start.evaluate(ctx);
+                if (starts.size() == 1) {
+                    return step.evaluate(starts.get(0));
+                }
+                List<Node> result = new ArrayList<>();
+                for (Node node : starts) {
+                    result.addAll(step.evaluate(node));
+                }
+                return result;
+            };
+        } else if (e instanceof FilterExpression) {
+            // Saxon considers filters that call extension functions positional,
+            // those that evaluate to a number are handled when they are tested
+            FilterExpression filterExpr = (FilterExpression) e;
+            CompiledPath base = compilePath(filterExpr.getBase(), depth);
+            CompiledExpr filter = compileExpr(filterExpr.getFilter(), depth + 1);
+            if (base == null || filter == null) {
+                return null;
+            }
+            return ctx -> {
+                List<Node> nodes = base.evaluate(ctx);
+                List<Node> result = new ArrayList<>(nodes.size());
+                for (Node node : nodes) {
+                    if (testPredicate(filter, node)) {
+                        result.add(node);
+                    }
+                }
+                return result;
+            };
+        } else if (e instanceof FirstItemExpression) {
+            CompiledPath base = compilePath(((FirstItemExpression) e).getBaseExpression(), depth);
+            if (base == null) {
+                return null;
+            }
+            return ctx -> {
+                List<Node> nodes = base.evaluate(ctx);
+                return nodes.size() <= 1 ? nodes : Collections.singletonList(nodes.get(0));
+            };
+        } else if (e instanceof DocumentSorter) {
+            CompiledPath base = compilePath(((DocumentSorter) e).getBaseExpression(), depth);
+            return base == null ? null : ctx -> inDocumentOrder(base.evaluate(ctx));
+        } else if (e instanceof VennExpression && ((VennExpression) e).getOperator() == Token.UNION) {
+            CompiledPath lhs = compilePath(((VennExpression) e).getLhsExpression(), depth);
+            CompiledPath rhs = compilePath(((VennExpression) e).getRhsExpression(), depth);
+            if (lhs == null || rhs == null) {
+                return null;
+            }
+            return ctx -> {
+                List<Node> result = new ArrayList<>(lhs.evaluate(ctx));
+                result.addAll(rhs.evaluate(ctx));
+                return inDocumentOrder(result);
+            };
+        } else if (e instanceof LetExpression) {
+            return compileLet((LetExpression) e, depth, this::compilePath);
+        } else if (e instanceof LocalVariableReference) {
+            CompiledExpr value = resolveVariable((LocalVariableReference) e, depth);
+            return value instanceof CompiledPath ? (CompiledPath) value : null;
+        }
+        return null;
+    }
+
+    private @Nullable CompiledExpr compileExpr(Expression e, int depth) {
+        CompiledPath path = compilePath(e, depth);
+        if (path != null) {
+            return path;
+        } else if (e instanceof Literal) {
+            List<Object> items = convertLiteral(((Literal) e).getGroundedValue());
+            return items == null ? null : ctx -> items;
+        } else if (e instanceof Atomizer) {
+            return compileAtomization(((Atomizer) e).getBaseExpression(), depth);
+        } else if (e instanceof SingletonAtomizer) {
+            CompiledExpr base = compileAtomization(((SingletonAtomizer) e).getBaseExpression(), depth);
+            return base == null ? null : checkCardinality(base, ((SingletonAtomizer) e).getCardinality());
+        } else if (e instanceof CardinalityChecker) {
+            CompiledExpr base = compileExpr(((CardinalityChecker) e).getBaseExpression(), depth);
+            return base == null ? null : checkCardinality(base, ((CardinalityChecker) e).getRequiredCardinality());
+        } else if (e instanceof AtomicSequenceConverter
+            && ((AtomicSequenceConverter) e).getRequiredItemType() == BuiltInAtomicType.STRING) {
+            CompiledExpr base = compileExpr(((AtomicSequenceConverter) e).getBaseExpression(), depth);
+            if (base == null) {
+                return null;
+            }
+            return ctx -> {
+                List<?> items = base.evaluate(ctx);
+                List<Object> result = new ArrayList<>(items.size());
+                for (Object item : items) {
+                    result.add(toXsString(item));
+                }
+                return result;
+            };
+        } else if (e instanceof SystemFunctionCall) {
+            return compileSystemFunction((SystemFunctionCall) e, depth);
+        } else if (e instanceof IntegratedFunctionCall) {
+            return compileExtensionFunction((IntegratedFunctionCall) e);
+        } else if (e instanceof GeneralComparison) {
+            GeneralComparison comparison = (GeneralComparison) e;
+            int op = comparison.getOperator();
+            CompiledExpr lhs = compileExpr(comparison.getLhsExpression(), depth);
+            CompiledExpr rhs = compileExpr(comparison.getRhsExpression(), depth);
+            if (lhs == null || rhs == null || !isComparisonOperator(op)) {
+                return null;
+            }
+            return bool(ctx -> generalCompare(lhs.evaluate(ctx), rhs.evaluate(ctx), op));
+        } else if (e instanceof ValueComparison) {
+            ValueComparison comparison = (ValueComparison) e;
+            int op = comparison.getOperator();
+            BooleanValue resultWhenEmpty = comparison.getResultWhenEmpty();
+            CompiledExpr lhs = compileExpr(comparison.getLhsExpression(), depth);
+            CompiledExpr rhs = compileExpr(comparison.getRhsExpression(), depth);
+            if (lhs == null || rhs == null || !isComparisonOperator(op)) {
+                return null;
+            }
+            return ctx -> {
+                List<?> left = lhs.evaluate(ctx);
+                List<?> right = rhs.evaluate(ctx);
+                if (left.isEmpty() || right.isEmpty()) {
+                    return resultWhenEmpty == null
+                           ? Collections.emptyList()
+                           : Collections.singletonList(resultWhenEmpty.getBooleanValue());
+                }
+                return Collections.singletonList(compare(single(left), single(right), op));
+            };
+        } else if (e instanceof BooleanExpression) {
+            BooleanExpression boolExpr = (BooleanExpression) e;
+            CompiledExpr lhs = compileExpr(boolExpr.getLhsExpression(), depth);
+            CompiledExpr rhs = compileExpr(boolExpr.getRhsExpression(), depth);
+            if (lhs == null || rhs == null) {
+                return null;
+            }
+            return boolExpr.getOperator() == Token.AND
+                   ? bool(ctx -> lhs.test(ctx) && rhs.test(ctx))
+                   : bool(ctx -> lhs.test(ctx) || rhs.test(ctx));
+        } else if (e instanceof LetExpression) {
+            return compileLet((LetExpression) e, depth, this::compileExpr);
+        } else if (e instanceof LocalVariableReference) {
+            return resolveVariable((LocalVariableReference) e, depth);
+        }
+        return null;
+    }
+
+    private <T extends CompiledExpr> @Nullable T compileLet(LetExpression let, int depth, ExprCompiler<T> compileAction) {
+        // Saxon moves values that don't depend on the context out of predicates
+        boolean contextFree = (let.getSequence().getDependencies() & StaticProperty.DEPENDS_ON_FOCUS) == 0;
+        int valueDepth = contextFree ? ANY_DEPTH : depth;
+        CompiledExpr value = compileExpr(let.getSequence(), valueDepth);
+        if (value == null) {
+            return null;
+        }
+        // the value is reevaluated at each reference, those are cheap
+        letBindings.put(let, new BoundVariable(value, valueDepth));
+        try {
+            return compileAction.compile(let.getAction(), depth);
+        } finally {
+            letBindings.remove(let);
+        }
+    }
+
+    private @Nullable CompiledExpr resolveVariable(LocalVariableReference ref, int depth) {
+        BoundVariable bound = ref.getBinding() instanceof LetExpression ? letBindings.get(ref.getBinding()) : null;
+        return bound != null && (bound.depth == depth || bound.depth == ANY_DEPTH) ? bound.value : null;
+    }
+
+    private @Nullable CompiledExpr compileAtomization(Expression base, int depth) {
+        String attrName = attributeName(base);
+        if (attrName != null) {
+            return ctx -> attributeValues(ctx, attrName);
+        } else if (base instanceof SlashExpression && attributeName(((SlashExpression) base).getStep()) != null) {
+            String stepAttrName = attributeName(((SlashExpression) base).getStep());
+            CompiledPath start = compilePath(((SlashExpression) base).getStart(), depth);
+            if (start == null) {
+                return null;
+            }
+            return ctx -> {
+                List<Object> result = new ArrayList<>();
+                for (Node node : start.evaluate(ctx)) {
+                    result.addAll(attributeValues(node, stepAttrName));
+                }
+                return result;
+            };
+        }
+        CompiledExpr compiled = compileExpr(base, depth);
+        if (compiled == null || compiled instanceof CompiledPath) {
+            // atomizing an element yields its string value
+            return null;
+        }
+        return ctx -> {
+            List<?> items = compiled.evaluate(ctx);
+            for (Object item : items) {
+                if (item instanceof Node) {
+                    throw Fallback.INSTANCE;
+                }
+            }
+            return items;
+        };
+    }
+
+    private static @Nullable String attributeName(Expression e) {
+        if (e instanceof AxisExpression && ((AxisExpression) e).getAxis() == AxisInfo.ATTRIBUTE) {
+            NodeTest test = ((AxisExpression) e).getNodeTest();
+            if (test instanceof NameTest && ((NameTest) test).getNamespaceURI().isEmpty()) {
+                return ((NameTest) test).getLocalPart();
+            }
+        }
+        return null;
+    }
+
+    private List<Object> attributeValues(Node node, String name) {
+        Iterator<Attribute> iterator = node.getXPathAttributesIterator();
+        while (iterator.hasNext()) {
+            Attribute attribute = iterator.next();
+            if (attribute.getName().equals(name)) {
+                attrLogger.recordUsageOf(attribute);
+                List<Object> values = new ArrayList<>(1);
+                atomize(attribute.getValue(), values);
+                return values;
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    private @Nullable CompiledExpr compileSystemFunction(SystemFunctionCall call, int depth) {
+        StructuredQName name = call.getFunctionName();
+        if (!NamespaceUri.FN.equals(name.getNamespaceUri())) {
+            return null;
+        }
+        CompiledExpr[] args = new CompiledExpr[call.getArity()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = compileExpr(call.getArg(i), depth);
+            if (args[i] == null) {
+                return null;
+            }
+        }
+        switch (name.getLocalPart() + "#" + args.length) {
+        case "not#1":
+            return bool(ctx -> !args[0].test(ctx));
+        case "boolean#1":
+            return bool(args[0]::test);
+        case "exists#1":
+            return bool(ctx -> !args[0].evaluate(ctx).isEmpty());
+        case "empty#1":
+            return bool(ctx -> args[0].evaluate(ctx).isEmpty());
+        case "true#0":
+            return bool(ctx -> true);
+        case "false#0":
+            return bool(ctx -> false);
+        case "reverse#1":
+            return ctx -> {
+                List<?> items = new ArrayList<>(args[0].evaluate(ctx));
+                Collections.reverse(items);
+                return items;
+            };
+        case "count#1":
+            return ctx -> Collections.singletonList((long) args[0].evaluate(ctx).size());
+        case "string-length#1":
+            return ctx -> {
+                String str = stringArg(args[0].evaluate(ctx));
+                return Collections.singletonList((long) str.codePointCount(0, str.length()));
+            };
+        case "starts-with#2":
+            return bool(ctx -> stringArg(args[0].evaluate(ctx)).startsWith(stringArg(args[1].evaluate(ctx))));
+        case "ends-with#2":
+            return bool(ctx -> stringArg(args[0].evaluate(ctx)).endsWith(stringArg(args[1].evaluate(ctx))));
+        case "contains#2":
+            return bool(ctx -> stringArg(args[0].evaluate(ctx)).contains(stringArg(args[1].evaluate(ctx))));
+        case "lower-case#1":
+            return ctx -> Collections.singletonList(ToLower.toLower(StringView.of(stringArg(args[0].evaluate(ctx)))).toString());
+        case "upper-case#1":
+            return ctx -> Collections.singletonList(ToUpper.toUpper(StringView.of(stringArg(args[0].evaluate(ctx)))).toString());
+        default:
+            return null;
+        }
+    }
+
+    private @Nullable CompiledExpr compileExtensionFunction(IntegratedFunctionCall call) {
+        StructuredQName name = call.getFunctionName();
+        XPathFunctionDefinition definition = null;
+        for (XPathFunctionDefinition fun : xPathHandler.getRegisteredExtensionFunctions()) {
+            if (fun.getQName().getLocalPart().equals(name.getLocalPart())
+                && fun.getQName().getNamespaceURI().equals(name.getURI())) {
+                definition = fun;
+                break;
+            }
+        }
+        if (definition == null || definition.getArgumentTypes().length != call.getArity()) {
+            return null;
+        }
+        // only arguments known statically are supported
+        Object[] args = new Object[call.getArity()];
+        for (int i = 0; i < args.length; i++) {
+            if (definition.getArgumentTypes()[i] != Type.SINGLE_STRING || !(call.getArg(i) instanceof StringLiteral)) {
+                return null;
+            }
+            args[i] = ((StringLiteral) call.getArg(i)).getString().toString();
+        }
+        Function<Object, List<?>> resultConverter = resultConverter(definition.getResultType());
+        if (resultConverter == null) {
+            return null;
+        }
+        XPathFunctionDefinition.FunctionCall functionCall = definition.makeCallExpression();
+        try {
+            functionCall.staticInit(args);
+        } catch (XPathFunctionException e) {
+            return null;
+        }
+        boolean dependsOnContext = definition.dependsOnContext();
+        return ctx -> {
+            try {
+                return resultConverter.apply(functionCall.call(dependsOnContext ? ctx : null, args));
+            } catch (XPathFunctionException e) {
+                // let Saxon report the error
+                throw Fallback.INSTANCE;
+            }
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static @Nullable Function<Object, List<?>> resultConverter(Type type) {
+        switch (type) {
+        case SINGLE_BOOLEAN:
+        case SINGLE_STRING:
+            return Collections::singletonList;
+        case SINGLE_INTEGER:
+            return result -> Collections.singletonList((long) (Integer) result);
+        case OPTIONAL_STRING:
+            return result -> result instanceof Optional && ((Optional<String>) result).isPresent()
+                             ? Collections.singletonList(((Optional<String>) result).get())
+                             : Collections.emptyList();
+        case STRING_SEQUENCE:
+            return result -> result instanceof List ? (List<String>) result : Collections.emptyList();
+        default:
+            return null;
+        }
+    }
+
+    private static @Nullable CompiledPath compileAxis(AxisExpression axisExpr) {
+        NodeMatcher matcher = compileNodeTest(axisExpr.getNodeTest());
+        if (matcher == null) {
+            return null;
+        }
+        Predicate<Node> test = matcher.test;
+        switch (axisExpr.getAxis()) {
+        case AxisInfo.SELF:
+            return ctx -> test.test(ctx) ? Collections.singletonList(ctx) : Collections.emptyList();
+        case AxisInfo.CHILD:
+            return ctx -> {
+                List<Node> result = new ArrayList<>(ctx.getNumChildren());
+                for (int i = 0; i < ctx.getNumChildren(); i++) {
+                    if (test.test(ctx.getChild(i))) {
+                        result.add(ctx.getChild(i));
+                    }
+                }
+                return result;
+            };
+        case AxisInfo.PARENT:
+            return ctx -> {
+                Node parent = parentOrFallback(ctx, matcher);
+                return parent != null && test.test(parent) ? Collections.singletonList(parent) : Collections.emptyList();
+            };
+        case AxisInfo.ANCESTOR:
+        case AxisInfo.ANCESTOR_OR_SELF:
+            boolean includeSelf = axisExpr.getAxis() == AxisInfo.ANCESTOR_OR_SELF;
+            return ctx -> {
+                // nearest first, like the reverse axes of Saxon
+                List<Node> result = new ArrayList<>();
+                Node node = includeSelf ? ctx : parentOrFallback(ctx, matcher);
+                while (node != null) {
+                    if (test.test(node)) {
+                        result.add(node);
+                    }
+                    node = parentOrFallback(node, matcher);
+                }
+                return result;
+            };
+        case AxisInfo.DESCENDANT:
+        case AxisInfo.DESCENDANT_OR_SELF:
+            boolean withSelf = axisExpr.getAxis() == AxisInfo.DESCENDANT_OR_SELF;
+            return ctx -> {
+                List<Node> result = new ArrayList<>();
+                if (withSelf && test.test(ctx)) {
+                    result.add(ctx);
+                }
+                addDescendants(ctx, test, result);
+                return result;
+            };
+        case AxisInfo.FOLLOWING_SIBLING:
+            return ctx -> {
+                List<Node> result = new ArrayList<>();
+                Node parent = ctx.getParent();
+                if (parent != null) {
+                    for (int i = ctx.getIndexInParent() + 1; i < parent.getNumChildren(); i++) {
+                        if (test.test(parent.getChild(i))) {
+                            result.add(parent.getChild(i));
+                        }
+                    }
+                }
+                return result;
+            };
+        case AxisInfo.PRECEDING_SIBLING:
+            return ctx -> {
+                List<Node> result = new ArrayList<>();
+                Node parent = ctx.getParent();
+                if (parent != null) {
+                    for (int i = ctx.getIndexInParent() - 1; i >= 0; i--) {
+                        if (test.test(parent.getChild(i))) {
+                            result.add(parent.getChild(i));
+                        }
+                    }
+                }
+                return result;
+            };
+        default:
+            return null;
+        }
+    }
+
+    private static void addDescendants(Node node, Predicate<Node> test, List<Node> result) {
+        for (int i = 0; i < node.getNumChildren(); i++) {
+            Node child = node.getChild(i);
+            if (test.test(child)) {
+                result.add(child);
+            }
+            addDescendants(child, test, result);
+        }
+    }
+
+    /** The parent of the root is the document node, which is not represented here. */
+    private static @Nullable Node parentOrFallback(Node node, NodeMatcher matcher) {
+        Node parent = node.getParent();
+        if (parent == null && matcher.matchesDocument) {
+            throw Fallback.INSTANCE;
+        }
+        return parent;
+    }
+
+    private static @Nullable NodeMatcher compileNodeTest(@Nullable NodeTest test) {
+        if (test == null || test instanceof AnyNodeTest) {
+            return ANY_NODE;
+        } else if (test instanceof NameTest) {
+            NameTest nameTest = (NameTest) test;
+            if (nameTest.getNodeKind() != net.sf.saxon.type.Type.ELEMENT || !nameTest.getNamespaceURI().isEmpty()) {
+                return null;
+            }
+            String name = nameTest.getLocalPart();
+            return new NodeMatcher(n -> isElement(n) && name.equals(n.getXPathNodeName()), false);
+        } else if (test instanceof NodeKindTest) {
+            switch (((NodeKindTest) test).getNodeKind()) {
+            case net.sf.saxon.type.Type.ELEMENT:
+                return ANY_ELEMENT;
+            case net.sf.saxon.type.Type.TEXT:
+                return new NodeMatcher(n -> n instanceof TextNode, false);
+            case net.sf.saxon.type.Type.COMMENT:
+                return new NodeMatcher(n -> n instanceof CommentNode, false);
+            case net.sf.saxon.type.Type.DOCUMENT:
+                return new NodeMatcher(n -> false, true);
+            default:
+                return null;
+            }
+        } else if (test instanceof MultipleNodeKindTest) {
+            UType kinds = ((MultipleNodeKindTest) test).getUType();
+            boolean elements = kinds.overlaps(UType.ELEMENT);
+            boolean text = kinds.overlaps(UType.TEXT);
+            boolean comments = kinds.overlaps(UType.COMMENT);
+            return new NodeMatcher(n -> n instanceof TextNode ? text : n instanceof CommentNode ? comments : elements,
+                                   kinds.overlaps(UType.DOCUMENT));
+        } else if (test instanceof CombinedNodeTest && ((CombinedNodeTest) test).getOperator() == Token.UNION) {
+            NodeMatcher result = null;
+            for (NodeTest component : ((CombinedNodeTest) test).getComponentNodeTests()) {
+                NodeMatcher matcher = compileNodeTest(component);
+                if (matcher == null) {
+                    return null;
+                }
+                result = result == null ? matcher : result.or(matcher);
+            }
+            return result;
+        }
+        return null;
+    }
+
+    private static boolean isElement(Node node) {
+        return !(node instanceof TextNode) && !(node instanceof CommentNode);
+    }
+
+    private static List<Node> inDocumentOrder(List<Node> nodes) {
+        if (nodes.size() <= 1) {
+            return nodes;
+        }
+        List<Node> sorted = new ArrayList<>(nodes);
+        sorted.sort(PmdDocumentSorter.INSTANCE);
+        List<Node> result = new ArrayList<>(sorted.size());
+        Node previous = null;
+        for (Node node : sorted) {
+            if (node != previous) { // NOPMD CompareObjectsWithEquals
+                result.add(node);
+            }
+            previous = node;
+        }
+        return result;
+    }
+
+    private static CompiledExpr checkCardinality(CompiledExpr base, int cardinality) {
+        boolean allowsMany = Cardinality.allowsMany(cardinality);
+        boolean allowsZero = Cardinality.allowsZero(cardinality);
+        return ctx -> {
+            List<?> items = base.evaluate(ctx);
+            if (!allowsMany && items.size() > 1 || !allowsZero && items.isEmpty()) {
+                throw Fallback.INSTANCE;
+            }
+            return items;
+        };
+    }
+
+    private static CompiledExpr bool(Predicate<Node> predicate) {
+        return new CompiledExpr() {
+            @Override
+            public List<?> evaluate(Node context) {
+                return Collections.singletonList(predicate.test(context));
+            }
+
+            @Override
+            public boolean test(Node context) {
+                return predicate.test(context);
+            }
+        };
+    }
+
+    private static boolean testPredicate(CompiledExpr filter, Node node) {
+        List<?> items = filter.evaluate(node);
+        if (items.size() == 1 && items.get(0) instanceof Number) {
+            // a positional predicate
+            throw Fallback.INSTANCE;
+        }
+        return effectiveBooleanValue(items);
+    }
+
+    static boolean effectiveBooleanValue(List<?> items) {
+        if (items.isEmpty()) {
+            return false;
+        }
+        Object first = items.get(0);
+        if (first instanceof Node) {
+            return true;
+        } else if (items.size() > 1) {
+            throw Fallback.INSTANCE;
+        } else if (first instanceof Boolean) {
+            return (Boolean) first;
+        } else if (first instanceof String) {
+            return !((String) first).isEmpty();
+        } else if (first == UNTYPED_EMPTY) {
+            return false;
+        } else if (first instanceof Long) {
+            return (Long) first != 0;
+        } else if (first instanceof Double) {
+            double d = (Double) first;
+            return d != 0 && !Double.isNaN(d);
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    private static Object single(List<?> items) {
+        if (items.size() != 1) {
+            throw Fallback.INSTANCE;
+        }
+        return items.get(0);
+    }
+
+    /** The value of an argument of type xs:string?. */
+    private static String stringArg(List<?> items) {
+        if (items.isEmpty()) {
+            return "";
+        }
+        Object item = single(items);
+        if (item instanceof String) {
+            return (String) item;
+        } else if (item == UNTYPED_EMPTY) {
+            return "";
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    private static String toXsString(Object item) {
+        if (item instanceof String) {
+            return (String) item;
+        } else if (item == UNTYPED_EMPTY) {
+            return "";
+        } else if (item instanceof Boolean || item instanceof Long) {
+            return item.toString();
+        }
+        // doubles have their own formatting rules
+        throw Fallback.INSTANCE;
+    }
+
+    private static boolean generalCompare(List<?> lhs, List<?> rhs, int op) {
+        for (Object left : lhs) {
+            for (Object right : rhs) {
+                if (compare(left, right, op)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /*
+     * Untyped values are only ever empty strings here. Comparing them
+     * with a string is the same for general and value comparisons, for
+     * other types they are cast, which is left to Saxon.
+     */
+    private static boolean compare(Object left, Object right, int op) {
+        if (isStringLike(left) && isStringLike(right)) {
+            return testComparison(op, compareCodepoints(left.toString(), right.toString()));
+        } else if (left instanceof Boolean && right instanceof Boolean) {
+            return testComparison(op, Boolean.compare((Boolean) left, (Boolean) right));
+        } else if (left instanceof Long && right instanceof Long) {
+            return testComparison(op, Long.compare((Long) left, (Long) right));
+        } else if (left instanceof Number && right instanceof Number) {
+            double l = ((Number) left).doubleValue();
+            double r = ((Number) right).doubleValue();
+            if (Double.isNaN(l) || Double.isNaN(r)) {
+                return op == Token.NE || op == Token.FNE;
+            }
+            return testComparison(op, l < r ? -1 : l > r ? 1 : 0);
+        }
+        throw Fallback.INSTANCE;
+    }
+
+    private static boolean isStringLike(Object item) {
+        return item instanceof String || item == UNTYPED_EMPTY;
+    }
+
+    private static int compareCodepoints(String left, String right) {
+        int i = 0;
+        int j = 0;
+        while (i < left.length() && j < right.length()) {
+            int l = left.codePointAt(i);
+            int r = right.codePointAt(j);
+            if (l != r) {
+                return Integer.compare(l, r);
+            }
+            i += Character.charCount(l);
+            j += Character.charCount(r);
+        }
+        return i < left.length() ? 1 : j < right.length() ? -1 : 0;
+    }
+
+    private static boolean isComparisonOperator(int op) {
+        switch (op) {
+        case Token.EQUALS:
+        case Token.NE:
+        case Token.LT:
+        case Token.GT:
+        case Token.LE:
+        case Token.GE:
+        case Token.FEQ:
+        case Token.FNE:
+        case Token.FLT:
+        case Token.FGT:
+        case Token.FLE:
+        case Token.FGE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static boolean testComparison(int op, int comparison) {
+        switch (op) {
+        case Token.EQUALS:
+        case Token.FEQ:
+            return comparison == 0;
+        case Token.NE:
+        case Token.FNE:
+            return comparison != 0;
+        case Token.LT:
+        case Token.FLT:
+            return comparison < 0;
+        case Token.GT:
+        case Token.FGT:
+            return comparison > 0;
+        case Token.LE:
+        case Token.FLE:
+            return comparison <= 0;
+        default:
+            return comparison >= 0;
+        }
+    }
+
+    /** Converts an attribute value, the same way as {@link DomainConversion}. */
+    private static void atomize(@Nullable Object value, List<Object> result) {
+        if (value instanceof Collection) {
+            for (Object item : (Collection<?>) value) {
+                atomize(item, result);
+            }
+        } else if (value == null) {
+            result.add(UNTYPED_EMPTY);
+        } else if (value instanceof String || value instanceof Boolean) {
+            result.add(value);
+        } else if (value instanceof Integer || value instanceof Long) {
+            result.add(((Number) value).longValue());
+        } else if (value instanceof Double || value instanceof Float) {
+            result.add(((Number) value).doubleValue());
+        } else if (value instanceof Character || value instanceof Pattern || value instanceof Enum) {
+            result.add(String.valueOf(value));
+        } else {
+            throw Fallback.INSTANCE;
+        }
+    }
+
+    private static @Nullable List<Object> convertLiteral(GroundedValue value) {
+        List<Object> items = new ArrayList<>(value.getLength());
+        for (int i = 0; i < value.getLength(); i++) {
+            Item item = value.itemAt(i);
+            if (item instanceof BooleanValue) {
+                items.add(((BooleanValue) item).getBooleanValue());
+            } else if (item instanceof Int64Value) {
+                items.add(((Int64Value) item).longValue());
+            } else if (item instanceof DoubleValue) {
+                items.add(((DoubleValue) item).getDoubleValue());
+            } else if (item instanceof StringValue && ((StringValue) item).getItemType() == BuiltInAtomicType.STRING) {
+                items.add(((StringValue) item).getUnicodeStringValue().toString());
+            } else {
+                return null;
+            }
+        }
+        return items;
+    }
+
+    /**
+     * A compiled expression. It evaluates to a sequence of AST nodes
+     * or atomic values, or throws {@link Fallback}.
+     */
+    interface CompiledExpr {
+
+        List<?> evaluate(Node context);
+
+        /** Returns the effective boolean value of the result. */
+        default boolean test(Node context) {
+            return effectiveBooleanValue(evaluate(context));
+        }
+    }
+
+    /** A compiled expression that evaluates to AST nodes. */
+    interface CompiledPath extends CompiledExpr {
+
+        @Override
+        List<Node> evaluate(Node context);
+    }
+
+    @FunctionalInterface
+    private interface ExprCompiler<T> {
+
+        @Nullable T compile(Expression e, int depth);
+    }
+
+    private static final class BoundVariable {
+
+        final CompiledExpr value;
+        final int depth;
+
+        BoundVariable(CompiledExpr value, int depth) {
+            this.value = value;
+            this.depth = depth;
+        }
+    }
+
+    private static final class NodeMatcher {
+
+        final Predicate<Node> test;
+        /** Whether the document node would match, which is not supported. */
+        final boolean matchesDocument;
+
+        NodeMatcher(Predicate<Node> test, boolean matchesDocument) {
+            this.test = test;
+            this.matchesDocument = matchesDocument;
+        }
+
+        NodeMatcher or(NodeMatcher other) {
+            return new NodeMatcher(test.or(other.test), matchesDocument || other.matchesDocument);
+        }
+    }
+
+    /**
+     * Thrown when the compiled expression cannot produce the same result
+     * as Saxon. The node is then evaluated with Saxon.
+     */
+    static final class Fallback extends RuntimeException {
+
+        static final Fallback INSTANCE = new Fallback();
+
+        private Fallback() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -10,11 +10,14 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.commons.lang3.exception.ContextedRuntimeException;
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sourceforge.pmd.internal.SystemProps;
 import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.ast.RootNode;
 import net.sourceforge.pmd.lang.rule.xpath.PmdXPathException;
@@ -22,6 +25,7 @@ import net.sourceforge.pmd.lang.rule.xpath.PmdXPathException.Phase;
 import net.sourceforge.pmd.lang.rule.xpath.XPathVersion;
 import net.sourceforge.pmd.lang.rule.xpath.impl.XPathFunctionDefinition;
 import net.sourceforge.pmd.lang.rule.xpath.impl.XPathHandler;
+import net.sourceforge.pmd.lang.rule.xpath.internal.SaxonExprCompiler.CompiledPath;
 import net.sourceforge.pmd.properties.PropertyDescriptor;
 import net.sourceforge.pmd.util.DataMap;
 import net.sourceforge.pmd.util.DataMap.SimpleDataKey;
@@ -59,8 +63,11 @@ public class SaxonXPathRuleQuery {
 
     private static final NamePool NAME_POOL = new NamePool();
 
-    /** Cache key for the wrapped tree for saxon. */
-    private static final SimpleDataKey<AstTreeInfo> SAXON_TREE_CACHE_KEY = DataMap.simpleDataKey("saxon.tree");
+    /**
+     * Cache key for the wrapped trees for saxon. The wrapper tree is not
+     * thread-safe, so each thread applying rules to the file has its own.
+     */
+    private static final SimpleDataKey<Map<Thread, AstTreeInfo>> SAXON_TREE_CACHE_KEY = DataMap.simpleDataKey("saxon.tree");
 
     private final String xpathExpr;
     @SuppressWarnings("PMD") // may be useful later, idk
@@ -75,6 +82,12 @@ public class SaxonXPathRuleQuery {
      */
     Map<String, List<Expression>> nodeNameToXPaths = new HashMap<>();
 
+    /**
+     * The compiled form of the expressions of {@link #nodeNameToXPaths},
+     * for the node names whose expressions could all be compiled.
+     */
+    private final Map<String, List<CompiledPath>> nodeNameToCompiled = new HashMap<>();
+
     /**
      * Representation of an XPath query, created at {@link #initialize()} using {@link #xpathExpr}.
      */
@@ -112,6 +125,42 @@ public class SaxonXPathRuleQuery {
 
 
     public List<Node> evaluate(final Node node) {
+        List<Node> compiledResult = evaluateCompiled(node);
+        if (compiledResult != null) {
+            return compiledResult;
+        }
+        return evaluateWithSaxon(node);
+    }
+
+    /**
+     * Evaluates the {@linkplain SaxonExprCompiler compiled} rule chain
+     * expressions for the node. Returns null if there are none, or if
+     * they cannot produce the same result as Saxon for this node.
+     */
+    @Nullable List<Node> evaluateCompiled(Node node) {
+        List<CompiledPath> compiled = nodeNameToCompiled.get(node.getXPathNodeName());
+        if (compiled == null) {
+            return null;
+        }
+        try {
+            List<Node> first = compiled.get(0).evaluate(node);
+            if (compiled.size() == 1 && first.size() <= 1) {
+                // the common case of a rule that reports the node or not
+                return first;
+            }
+            final Set<Node> results = new LinkedHashSet<>(first);
+            for (int i = 1; i < compiled.size(); i++) {
+                results.addAll(compiled.get(i).evaluate(node));
+            }
+            final List<Node> sortedRes = new ArrayList<>(results);
+            sortedRes.sort(RuleChainAnalyzer.documentOrderComparator());
+            return sortedRes;
+        } catch (SaxonExprCompiler.Fallback e) {
+            return null;
+        }
+    }
+
+    List<Node> evaluateWithSaxon(final Node node) {
         final AstTreeInfo documentNode = getDocumentNodeForRootNode(node);
         documentNode.setAttrCtx(attrCtx);
         try {
@@ -170,7 +219,7 @@ public class SaxonXPathRuleQuery {
     /**
      * Gets the DocumentNode representation for the whole AST in which the node is, that is, if the node is not the root
      * of the AST, then the AST is traversed all the way up until the root node is found. If the DocumentNode was
-     * cached because this method was previously called, then a new DocumentNode will not be instanced.
+     * cached because this method was previously called by the same thread, then a new DocumentNode will not be instanced.
      *
      * @param node the node from which the root node will be looked for.
      *
@@ -178,7 +227,8 @@ public class SaxonXPathRuleQuery {
      */
     private AstTreeInfo getDocumentNodeForRootNode(final Node node) {
         final RootNode root = node.getRoot();
-        return root.getUserMap().computeIfAbsent(SAXON_TREE_CACHE_KEY, () -> new AstTreeInfo(root, configuration));
+        return root.getUserMap().computeIfAbsent(SAXON_TREE_CACHE_KEY, ConcurrentHashMap::new)
+                   .computeIfAbsent(Thread.currentThread(), t -> new AstTreeInfo(root, configuration));
     }
 
 
@@ -213,6 +263,9 @@ public class SaxonXPathRuleQuery {
 
         xpathExpression = xpathEvaluator.createExpression(xpathExpr);
         analyzeXPathForRuleChain(xpathEvaluator);
+        if (xPathHandler.supportsCompiledExpressions() && SystemProps.isXPathCompilationEnabled()) {
+            compileRuleChainExpressions();
+        }
 
     }
 
@@ -254,6 +307,33 @@ public class SaxonXPathRuleQuery {
         addExpressionForNode(AST_ROOT, xpathExpression.getInternalExpression());
     }
 
+    private void compileRuleChainExpressions() {
+        SaxonExprCompiler compiler = new SaxonExprCompiler(xPathHandler, attrCtx);
+        for (Map.Entry<String, List<Expression>> entry : nodeNameToXPaths.entrySet()) {
+            if (AST_ROOT.equals(entry.getKey())) {
+                continue;
+            }
+            List<CompiledPath> compiled = new ArrayList<>(entry.getValue().size());
+            for (Expression expression : entry.getValue()) {
+                CompiledPath path = compiler.compile(expression);
+                if (path == null) {
+                    LOG.trace("Unable to compile XPath for node {}: {}", entry.getKey(), expression);
+                    compiled = null;
+                    break;
+                }
+                compiled.add(path);
+            }
+            if (compiled != null) {
+                nodeNameToCompiled.put(entry.getKey(), compiled);
+            }
+        }
+    }
+
+    // test only
+    boolean isCompiled(String nodeName) {
+        return nodeNameToCompiled.containsKey(nodeName);
+    }
+
     public static NamePool getNamePool() {
         return NAME_POOL;
     }
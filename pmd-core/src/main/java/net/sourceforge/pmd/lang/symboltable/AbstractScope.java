@@ -6,6 +6,7 @@ package net.sourceforge.pmd.lang.symboltable;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -20,6 +21,8 @@ public abstract class AbstractScope implements Scope {
     private Scope parent;
     /** Stores the name declaration already sorted by class. */
     private Map<Class<? extends NameDeclaration>, Map<NameDeclaration, List<NameOccurrence>>> nameDeclarations = new LinkedHashMap<>();
+    /** Index of the name declarations by image, in the order they were added. */
+    private final Map<String, List<NameDeclaration>> declarationsByImage = new HashMap<>();
 
     @Override
     public Scope getParent() {
@@ -50,14 +53,36 @@ public abstract class AbstractScope implements Scope {
         return result;
     }
 
+    /**
+     * Returns the key under which declarations and occurrences with the
+     * given image are looked up. By default, names are case-sensitive.
+     * Case-insensitive languages may override this to normalize the image.
+     *
+     * @param image A non-null image
+     */
+    protected String getLookupKey(String image) {
+        return image;
+    }
+
+    /**
+     * Returns the declarations of this scope whose image matches the
+     * given image, in the order they were added. See {@link #getLookupKey(String)}.
+     *
+     * @param image An image, may be null
+     *
+     * @return An unmodifiable list, empty if there is no such declaration
+     */
+    protected List<NameDeclaration> getDeclarationsWithImage(String image) {
+        if (image == null) {
+            return Collections.emptyList();
+        }
+        List<NameDeclaration> result = declarationsByImage.get(getLookupKey(image));
+        return result == null ? Collections.emptyList() : Collections.unmodifiableList(result);
+    }
+
     @Override
     public boolean contains(NameOccurrence occ) {
-        for (NameDeclaration d : getDeclarations().keySet()) {
-            if (d.getImage().equals(occ.getImage())) {
-                return true;
-            }
-        }
-        return false;
+        return !getDeclarationsWithImage(occ.getImage()).isEmpty();
     }
 
     @Override
@@ -67,7 +92,10 @@ public abstract class AbstractScope implements Scope {
             declarationsPerClass = new LinkedHashMap<>();
             nameDeclarations.put(declaration.getClass(), declarationsPerClass);
         }
-        declarationsPerClass.put(declaration, new ArrayList<>());
+        if (declarationsPerClass.put(declaration, new ArrayList<>()) == null && declaration.getImage() != null) {
+            // if an equal declaration was there, it is kept as key
+            declarationsByImage.computeIfAbsent(getLookupKey(declaration.getImage()), k -> new ArrayList<>()).add(declaration);
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -86,11 +114,9 @@ public abstract class AbstractScope implements Scope {
     @Override
     public Set<NameDeclaration> addNameOccurrence(NameOccurrence occurrence) {
         Set<NameDeclaration> result = new HashSet<>();
-        for (Map.Entry<NameDeclaration, List<NameOccurrence>> e : getDeclarations().entrySet()) {
-            if (e.getKey().getImage().equals(occurrence.getImage())) {
-                result.add(e.getKey());
-                e.getValue().add(occurrence);
-            }
+        for (NameDeclaration declaration : getDeclarationsWithImage(occurrence.getImage())) {
+            result.add(declaration);
+            nameDeclarations.get(declaration.getClass()).get(declaration).add(occurrence);
         }
         return result;
     }
@@ -0,0 +1,120 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.benchmark.TimedOperation;
+import net.sourceforge.pmd.benchmark.TimedOperationCategory;
+import net.sourceforge.pmd.reporting.Report;
+
+/**
+ * Forwards file reports to {@link Renderer#renderFileReport(Report)} on
+ * a dedicated thread, so that analysis threads don't wait for the
+ * formatting and the I/O of the renderer. Reports are handed over through
+ * a bounded queue: if the renderer can't keep up, {@link #submit(Report)}
+ * blocks until there is room again, so that pending reports don't pile
+ * up in memory.
+ *
+ * <p>This is the only thread calling {@link Renderer#renderFileReport(Report)},
+ * so renderers don't need to be thread-safe.
+ */
+final class AsyncReportRenderer implements AutoCloseable {
+
+    private static final int QUEUE_CAPACITY = 256;
+    private static final long POLL_MILLIS = 100;
+
+    /** Marks the end of the queue. */
+    private static final Report END = Report.buildReport(listener -> { });
+
+    private final Renderer renderer;
+    private final BlockingQueue<Report> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private final Thread thread;
+
+    /** First exception thrown by the renderer, written by the rendering thread only. */
+    private volatile Exception failure;
+
+    AsyncReportRenderer(Renderer renderer) {
+        this.renderer = renderer;
+        this.thread = new Thread(this::renderLoop, "PMD-Renderer-" + renderer.getName());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Queues a report for rendering. Blocks while the queue is full.
+     *
+     * @throws IllegalStateException If the rendering thread has stopped
+     */
+    void submit(Report report) throws InterruptedException {
+        put(report);
+    }
+
+    private void put(Report report) throws InterruptedException {
+        // the rendering thread only stops early on an error, after which nobody drains the queue
+        while (!queue.offer(report, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (!thread.isAlive()) {
+                throw new IllegalStateException("The rendering thread of " + renderer.getName() + " has stopped", failure);
+            }
+        }
+    }
+
+    private void renderLoop() {
+        TimeTracker.initThread();
+        boolean interrupted = false;
+        try {
+            while (true) {
+                Report report;
+                try {
+                    report = queue.take();
+                } catch (InterruptedException e) {
+                    // analysis threads would block on a full queue if we stopped draining it
+                    interrupted = true;
+                    continue;
+                }
+                if (report == END) { // NOPMD CompareObjectsWithEquals
+                    break;
+                }
+                if (failure != null) {
+                    continue; // keep draining so that analysis threads are not blocked
+                }
+                try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
+                    renderer.renderFileReport(report);
+                } catch (Exception e) {
+                    failure = e;
+                }
+            }
+        } finally {
+            TimeTracker.finishThread();
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Waits until all submitted reports have been rendered.
+     *
+     * @throws Exception The first exception thrown by the renderer, if any
+     */
+    @Override
+    public void close() throws Exception {
+        try {
+            put(END);
+        } catch (IllegalStateException e) {
+            // the thread stopped, the exception is rethrown below if there was one
+            if (failure == null) {
+                throw e;
+            }
+        }
+        thread.join();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -189,6 +189,12 @@ public interface Renderer extends PropertySource {
     /**
      * Returns a new analysis listener, that handles violations by rendering
      * them in an implementation-defined way.
+     *
+     * <p>The default implementation renders the report of each file
+     * on a dedicated thread, when the analysis of the file is done.
+     * Analysis threads only block if too many reports are waiting to be
+     * rendered. {@link #renderFileReport(Report)} is only ever called on that
+     * thread. Closing the listener waits until all reports are rendered.
      */
     // TODO the default implementation matches the current behavior,
     //  ie violations are batched by file and forwarded to the renderer
@@ -199,10 +205,9 @@ public interface Renderer extends PropertySource {
             this.start();
         }
 
-        return new GlobalAnalysisListener() {
+        AsyncReportRenderer asyncRenderer = new AsyncReportRenderer(this);
 
-            // guard for the close routine
-            final Object reportMergeLock = new Object();
+        return new GlobalAnalysisListener() {
 
             final GlobalReportBuilderListener configErrorReport = new GlobalReportBuilderListener();
 
@@ -247,12 +252,7 @@ public interface Renderer extends PropertySource {
                     @Override
                     public void close() throws Exception {
                         reportBuilder.close();
-                        synchronized (reportMergeLock) {
-                            // TODO renderFileReport should be thread-safe instead
-                            try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
-                                renderer.renderFileReport(reportBuilder.getResult());
-                            }
-                        }
+                        asyncRenderer.submit(reportBuilder.getResult());
                     }
 
                     @Override
@@ -265,10 +265,25 @@ public interface Renderer extends PropertySource {
             @Override
             public void close() throws Exception {
                 configErrorReport.close();
-                Renderer.this.renderFileReport(configErrorReport.getResult());
+                Exception failure = null;
+                try {
+                    asyncRenderer.submit(configErrorReport.getResult());
+                    asyncRenderer.close();
+                } catch (Exception e) {
+                    // the output is still ended, eg to close the XML document
+                    failure = e;
+                }
                 try (TimedOperation ignored = TimeTracker.startOperation(TimedOperationCategory.REPORTING)) {
                     end();
                     flush();
+                } catch (Exception e) {
+                    if (failure == null) {
+                        throw e;
+                    }
+                    failure.addSuppressed(e);
+                }
+                if (failure != null) {
+                    throw failure;
                 }
             }
         };
@@ -7,8 +7,10 @@ package net.sourceforge.pmd.renderers.internal.sarif;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 
 import net.sourceforge.pmd.PMDVersion;
 import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ArtifactLocation;
@@ -33,6 +35,7 @@ import net.sourceforge.pmd.reporting.RuleViolation;
 
 public class SarifLogBuilder {
     private final List<ReportingDescriptor> rules = new ArrayList<>();
+    private final Map<ReportingDescriptor, Integer> ruleIndices = new HashMap<>();
     private final List<Result> results = new ArrayList<>();
     private final List<ToolConfigurationNotification> toolConfigurationNotifications = new ArrayList<>();
     private final List<ToolExecutionNotification> toolExecutionNotifications = new ArrayList<>();
@@ -43,20 +46,53 @@ public class SarifLogBuilder {
 
     public SarifLogBuilder add(RuleViolation violation) {
         final ReportingDescriptor ruleDescriptor = getReportingDescriptor(violation);
-        int ruleIndex = rules.indexOf(ruleDescriptor);
-        if (ruleIndex == -1) {
-            rules.add(ruleDescriptor);
-            ruleIndex = rules.size() - 1;
-        }
+        int ruleIndex = ruleIndices.computeIfAbsent(ruleDescriptor, d -> {
+            rules.add(d);
+            return rules.size() - 1;
+        });
 
-        final Location location = getRuleViolationLocation(violation);
-        final Result result = resultFrom(ruleDescriptor, ruleIndex, location);
-        results.add(result);
+        results.add(resultFrom(ruleDescriptor, ruleIndex, violation));
 
         return this;
     }
 
     public SarifLogBuilder addRunTimeError(Report.ProcessingError error) {
+        toolExecutionNotifications.add(toolExecutionNotificationFrom(error));
+        return this;
+    }
+
+    public SarifLogBuilder addConfigurationError(Report.ConfigurationError error) {
+        toolConfigurationNotifications.add(toolConfigurationNotificationFrom(error));
+        return this;
+    }
+
+    public SarifLog build() {
+        final Run run = Run.builder()
+                .tool(toolFrom(rules))
+                .results(results)
+                .invocations(Collections.singletonList(invocationFrom(toolExecutionNotifications, toolConfigurationNotifications)))
+                .build();
+
+        List<Run> runs = Collections.singletonList(run);
+
+        return SarifLog.builder().runs(runs).build();
+    }
+
+    static Tool toolFrom(List<ReportingDescriptor> rules) {
+        final Component driver = getDriverComponent().toBuilder().rules(rules).build();
+        return Tool.builder().driver(driver).build();
+    }
+
+    static Invocation invocationFrom(List<ToolExecutionNotification> toolExecutionNotifications,
+                                     List<ToolConfigurationNotification> toolConfigurationNotifications) {
+        return Invocation.builder()
+                .toolExecutionNotifications(toolExecutionNotifications)
+                .toolConfigurationNotifications(toolConfigurationNotifications)
+                .executionSuccessful(toolExecutionNotifications.isEmpty() && toolConfigurationNotifications.isEmpty())
+                .build();
+    }
+
+    static ToolExecutionNotification toolExecutionNotificationFrom(Report.ProcessingError error) {
         ArtifactLocation artifactLocation = ArtifactLocation.builder()
                 .uri(error.getFileId().getUriString())
                 .build();
@@ -78,58 +114,27 @@ public class SarifLogBuilder {
                 .message(error.getDetail())
                 .build();
 
-        ToolExecutionNotification toolExecutionNotification = ToolExecutionNotification.builder()
+        return ToolExecutionNotification.builder()
                 .locations(Collections.singletonList(location))
                 .message(message)
                 .exception(exception)
                 .build();
-
-        toolExecutionNotifications.add(toolExecutionNotification);
-
-        return this;
     }
 
-    public SarifLogBuilder addConfigurationError(Report.ConfigurationError error) {
+    static ToolConfigurationNotification toolConfigurationNotificationFrom(Report.ConfigurationError error) {
         AssociatedRule associatedRule = AssociatedRule.builder()
                 .id(error.rule().getName())
                 .build();
 
         Message message = Message.builder().text(error.issue()).build();
 
-        ToolConfigurationNotification toolConfigurationNotification = ToolConfigurationNotification.builder()
+        return ToolConfigurationNotification.builder()
                 .associatedRule(associatedRule)
                 .message(message)
                 .build();
-
-        toolConfigurationNotifications.add(toolConfigurationNotification);
-
-        return this;
-    }
-
-    public SarifLog build() {
-        final Component driver = getDriverComponent().toBuilder().rules(rules).build();
-        final Tool tool = Tool.builder().driver(driver).build();
-        final Invocation invocation = Invocation.builder()
-                .toolExecutionNotifications(toolExecutionNotifications)
-                .toolConfigurationNotifications(toolConfigurationNotifications)
-                .executionSuccessful(isExecutionSuccessful())
-                .build();
-        final Run run = Run.builder()
-                .tool(tool)
-                .results(results)
-                .invocations(Collections.singletonList(invocation))
-                .build();
-
-        List<Run> runs = Collections.singletonList(run);
-
-        return SarifLog.builder().runs(runs).build();
-    }
-
-    private boolean isExecutionSuccessful() {
-        return toolExecutionNotifications.isEmpty() && toolConfigurationNotifications.isEmpty();
     }
 
-    private Result resultFrom(ReportingDescriptor rule, Integer ruleIndex, Location location) {
+    static Result resultFrom(ReportingDescriptor rule, Integer ruleIndex, RuleViolation violation) {
         final Result result = Result.builder()
                 .ruleId(rule.getId())
                 .ruleIndex(ruleIndex)
@@ -140,12 +145,12 @@ public class SarifLogBuilder {
                 .build();
 
         result.setMessage(message);
-        result.setLocations(Collections.singletonList(location));
+        result.setLocations(Collections.singletonList(getRuleViolationLocation(violation)));
 
         return result;
     }
 
-    private Location getRuleViolationLocation(RuleViolation rv) {
+    private static Location getRuleViolationLocation(RuleViolation rv) {
         ArtifactLocation artifactLocation = ArtifactLocation.builder()
                 .uri(rv.getFileId().getUriString())
                 .build();
@@ -167,7 +172,7 @@ public class SarifLogBuilder {
             .build();
     }
 
-    private ReportingDescriptor getReportingDescriptor(RuleViolation rv) {
+    static ReportingDescriptor getReportingDescriptor(RuleViolation rv) {
         return ReportingDescriptor.builder()
             .id(rv.getRule().getName())
             .shortDescription(new MultiformatMessage(rv.getDescription()))
@@ -178,7 +183,7 @@ public class SarifLogBuilder {
             .build();
     }
 
-    private PropertyBag getRuleProperties(RuleViolation rv) {
+    private static PropertyBag getRuleProperties(RuleViolation rv) {
         return PropertyBag.builder()
                 .ruleset(rv.getRule().getRuleSetName())
                 .priority(rv.getRule().getPriority().getPriority())
@@ -186,7 +191,7 @@ public class SarifLogBuilder {
                 .build();
     }
 
-    private Component getDriverComponent() {
+    private static Component getDriverComponent() {
         return Component.builder()
                 .name("PMD")
                 .version(PMDVersion.VERSION)
@@ -0,0 +1,100 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers.internal.sarif;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.Invocation;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ReportingDescriptor;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.Result;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.Tool;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ToolConfigurationNotification;
+import net.sourceforge.pmd.renderers.internal.sarif.SarifLog.ToolExecutionNotification;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Writes a SARIF log with a single run incrementally. Contrary to
+ * {@link SarifLogBuilder}, results are written out as soon as they are
+ * added, so that memory usage does not grow with the number of results.
+ * Only the rule table, which results refer to by index, and the
+ * notifications are kept until the end.
+ *
+ * <p>Since the rule table is only complete at the end, the {@code results}
+ * property of the run is written before its {@code tool} property.
+ */
+public class SarifLogWriter {
+
+    private final Gson gson;
+    private final JsonWriter out;
+
+    private final List<ReportingDescriptor> rules = new ArrayList<>();
+    private final Map<ReportingDescriptor, Integer> ruleIndices = new HashMap<>();
+    private final List<ToolConfigurationNotification> toolConfigurationNotifications = new ArrayList<>();
+    private final List<ToolExecutionNotification> toolExecutionNotifications = new ArrayList<>();
+
+    /**
+     * Create a new writer. Nothing is written until {@link #start()} is called.
+     * The underlying writer is not closed by this instance.
+     */
+    public SarifLogWriter(Gson gson, Writer writer) throws IOException {
+        this.gson = gson;
+        this.out = gson.newJsonWriter(writer);
+    }
+
+    /** Writes the header of the log, up to the start of the results array. */
+    public void start() throws IOException {
+        SarifLog defaults = SarifLog.builder().build();
+        out.beginObject();
+        out.name("$schema").value(defaults.getSchema());
+        out.name("version").value(defaults.getVersion());
+        out.name("runs").beginArray();
+        out.beginObject();
+        out.name("results").beginArray();
+    }
+
+    public void add(RuleViolation violation) throws IOException {
+        final ReportingDescriptor ruleDescriptor = SarifLogBuilder.getReportingDescriptor(violation);
+        int ruleIndex = ruleIndices.computeIfAbsent(ruleDescriptor, d -> {
+            rules.add(d);
+            return rules.size() - 1;
+        });
+
+        gson.toJson(SarifLogBuilder.resultFrom(ruleDescriptor, ruleIndex, violation), Result.class, out);
+    }
+
+    public void addRunTimeError(Report.ProcessingError error) {
+        toolExecutionNotifications.add(SarifLogBuilder.toolExecutionNotificationFrom(error));
+    }
+
+    public void addConfigurationError(Report.ConfigurationError error) {
+        toolConfigurationNotifications.add(SarifLogBuilder.toolConfigurationNotificationFrom(error));
+    }
+
+    /**
+     * Closes the results array and writes the rest of the log.
+     * The underlying writer is flushed but not closed.
+     */
+    public void finish() throws IOException {
+        out.endArray();
+        out.name("tool");
+        gson.toJson(SarifLogBuilder.toolFrom(rules), Tool.class, out);
+        out.name("invocations").beginArray();
+        gson.toJson(SarifLogBuilder.invocationFrom(toolExecutionNotifications, toolConfigurationNotifications), Invocation.class, out);
+        out.endArray();
+        out.endObject();
+        out.endArray();
+        out.endObject();
+        out.flush();
+    }
+}
@@ -19,6 +19,9 @@ import org.checkerframework.checker.nullness.qual.Nullable;
  * The key can itself constrain the type of values, using its own type
  * parameter {@code T}.
  *
+ * <p>Data maps are thread-safe. The functions passed to {@link #computeIfAbsent(DataKey, Supplier)}
+ * and the like are called while holding the lock of the map.
+ *
  * @param <K> Type of keys in this map.
  */
 public final class DataMap<K> {
@@ -39,7 +42,7 @@ public final class DataMap<K> {
      * @return Previous value associated with the key (nullable)
      */
     @SuppressWarnings("unchecked")
-    public <T> @Nullable T set(DataKey<? extends K, ? super T> key, T data) {
+    public synchronized <T> @Nullable T set(DataKey<? extends K, ? super T> key, T data) {
         return (T) getMap().put(key, data);
     }
 
@@ -52,12 +55,12 @@ public final class DataMap<K> {
      * @return Value associated with the key (nullable)
      */
     @SuppressWarnings("unchecked")
-    public <T> @Nullable T get(DataKey<? extends K, ? extends T> key) {
+    public synchronized <T> @Nullable T get(DataKey<? extends K, ? extends T> key) {
         return map == null ? null : (T) map.get(key);
     }
 
     @SuppressWarnings("unchecked")
-    public <T> T getOrDefault(DataKey<? extends K, ? extends T> key, T defaultValue) {
+    public synchronized <T> T getOrDefault(DataKey<? extends K, ? extends T> key, T defaultValue) {
         return map == null ? defaultValue : (T) map.getOrDefault(key, defaultValue);
     }
 
@@ -71,7 +74,7 @@ public final class DataMap<K> {
      * @return Value associated with the key (as nullable as the
      */
     @SuppressWarnings("unchecked")
-    public <T> T computeIfAbsent(DataKey<? extends K, T> key, Supplier<? extends T> supplier) {
+    public synchronized <T> T computeIfAbsent(DataKey<? extends K, T> key, Supplier<? extends T> supplier) {
         return (T) getMap().computeIfAbsent(key, k -> supplier.get());
     }
 
@@ -86,7 +89,7 @@ public final class DataMap<K> {
      * @return Value returned by the parameter function
      */
     @SuppressWarnings("unchecked")
-    public <T> T compute(DataKey<? extends K, T> key, Function<? super @Nullable T, ? extends T> function) {
+    public synchronized <T> T compute(DataKey<? extends K, T> key, Function<? super @Nullable T, ? extends T> function) {
         return (T) getMap().compute(key, (k, v) -> function.apply((T) v));
     }
 
@@ -94,7 +97,7 @@ public final class DataMap<K> {
      * @see Map#merge(Object, Object, BiFunction)
      */
     @SuppressWarnings({ "unchecked", "rawtypes" })
-    public <T> T merge(DataKey<? extends K, T> key, T value, BiFunction<? super @NonNull T, ? super T, ? extends T> function) {
+    public synchronized <T> T merge(DataKey<? extends K, T> key, T value, BiFunction<? super @NonNull T, ? super T, ? extends T> function) {
         return (T) getMap().merge(key, value, (BiFunction) function);
     }
 
@@ -118,10 +121,17 @@ public final class DataMap<K> {
      *
      * @return True if some value is set
      */
-    public boolean isSet(DataKey<? extends K, ?> key) {
+    public synchronized boolean isSet(DataKey<? extends K, ?> key) {
         return map != null && map.containsKey(key);
     }
 
+    /**
+     * Removes all the mappings of this map.
+     */
+    public synchronized void clear() {
+        map = null;
+    }
+
     public static <K> DataMap<K> newDataMap() {
         return new DataMap<>();
     }
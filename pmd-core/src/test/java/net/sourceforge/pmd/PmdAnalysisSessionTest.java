@@ -0,0 +1,237 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageProcessor;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.impl.BatchLanguageProcessor;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.reporting.RuleContext;
+
+class PmdAnalysisSessionTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testLanguageProcessorsAreReused() {
+        ProcessorRecordingRule rule = new ProcessorRecordingRule();
+        try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+            runWithRule(session, newConfig(), rule);
+            runWithRule(session, newConfig(), rule);
+
+            assertThat(rule.processors, hasSize(2));
+            assertSame(rule.processors.get(0), rule.processors.get(1));
+        }
+    }
+
+    @Test
+    void testLanguageProcessorsAreRecreatedWhenPropertiesChange() {
+        ProcessorRecordingRule rule = new ProcessorRecordingRule();
+        try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+            runWithRule(session, newConfig(), rule);
+            PMDConfiguration config = newConfig();
+            config.setSuppressMarker("NOLINT");
+            runWithRule(session, config, rule);
+
+            assertThat(rule.processors, hasSize(2));
+            assertNotSame(rule.processors.get(0), rule.processors.get(1));
+        }
+    }
+
+    @Test
+    void testLanguagePropertiesDefaultToTheGivenEnvironment() {
+        ProcessorRecordingRule rule = new ProcessorRecordingRule();
+        try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+            runWithRule(session, newConfig(), Collections.singletonMap("PMD_DUMMY_VERSION", "1.2"), rule);
+            runWithRule(session, newConfig(), Collections.singletonMap("PMD_DUMMY_VERSION", "1.2"), rule);
+            runWithRule(session, newConfig(), Collections.singletonMap("PMD_DUMMY_VERSION", "1.3"), rule);
+
+            assertThat(rule.processors, hasSize(3));
+            assertSame(rule.processors.get(0), rule.processors.get(1));
+            assertNotSame(rule.processors.get(1), rule.processors.get(2));
+            assertEquals("1.2", languageVersion(rule.processors.get(0)));
+            assertEquals("1.3", languageVersion(rule.processors.get(2)));
+        }
+    }
+
+    @Test
+    void testClassLoaderIsReusedForSameClasspath() {
+        try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+            PMDConfiguration config1 = newConfig();
+            config1.prependAuxClasspath(tempDir.toString());
+            session.newAnalysis(config1).close();
+
+            PMDConfiguration config2 = newConfig();
+            config2.prependAuxClasspath(tempDir.toString());
+            session.newAnalysis(config2).close();
+
+            assertSame(config1.getClassLoader(), config2.getClassLoader());
+
+            PMDConfiguration config3 = newConfig();
+            config3.prependAuxClasspath(tempDir.resolve("other").toString());
+            session.newAnalysis(config3).close();
+
+            assertNotSame(config1.getClassLoader(), config3.getClassLoader());
+        }
+    }
+
+    @Test
+    void testRulesetIsReloadedWhenFileChanges() throws IOException {
+        Path ruleset = tempDir.resolve("ruleset.xml");
+        Files.write(ruleset, rulesetWithRules("DummyBasicMockRule").getBytes(StandardCharsets.UTF_8));
+
+        try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+            PMDConfiguration config = newConfig();
+            config.addRuleSet(ruleset.toString());
+            try (PmdAnalysis pmd = session.newAnalysis(config)) {
+                assertEquals(1, pmd.getRulesets().get(0).size());
+            }
+
+            Files.write(ruleset, rulesetWithRules("DummyBasicMockRule", "SampleXPathRule").getBytes(StandardCharsets.UTF_8));
+            config = newConfig();
+            config.addRuleSet(ruleset.toString());
+            try (PmdAnalysis pmd = session.newAnalysis(config)) {
+                assertEquals(2, pmd.getRulesets().get(0).size());
+            }
+        }
+    }
+
+    @Test
+    void testRulesetIsReloadedWhenReferencedFileChanges() throws IOException {
+        Path referenced = tempDir.resolve("referenced.xml");
+        Files.write(referenced, rulesetWithRules("DummyBasicMockRule").getBytes(StandardCharsets.UTF_8));
+        Path ruleset = tempDir.resolve("ruleset.xml");
+        Files.write(ruleset, rulesetWithReferences(referenced.toString()).getBytes(StandardCharsets.UTF_8));
+
+        try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+            PMDConfiguration config = newConfig();
+            config.addRuleSet(ruleset.toString());
+            try (PmdAnalysis pmd = session.newAnalysis(config)) {
+                assertEquals(1, pmd.getRulesets().get(0).size());
+            }
+
+            Files.write(referenced, rulesetWithRules("DummyBasicMockRule", "SampleXPathRule").getBytes(StandardCharsets.UTF_8));
+            config = newConfig();
+            config.addRuleSet(ruleset.toString());
+            try (PmdAnalysis pmd = session.newAnalysis(config)) {
+                assertEquals(2, pmd.getRulesets().get(0).size());
+            }
+        }
+    }
+
+    @Test
+    void testCachedRulesetsAreCopied() {
+        try (PmdAnalysisSession session = PmdAnalysisSession.create()) {
+            PMDConfiguration config = newConfig();
+            config.addRuleSet("rulesets/dummy/basic.xml");
+            RuleSet first;
+            try (PmdAnalysis pmd = session.newAnalysis(config)) {
+                first = pmd.getRulesets().get(0);
+            }
+
+            config = newConfig();
+            config.addRuleSet("rulesets/dummy/basic.xml");
+            try (PmdAnalysis pmd = session.newAnalysis(config)) {
+                RuleSet second = pmd.getRulesets().get(0);
+                assertNotSame(first, second);
+                assertEquals(first.getChecksum(), second.getChecksum());
+                assertNotSame(first.getRules().iterator().next(), second.getRules().iterator().next());
+            }
+        }
+    }
+
+    @Test
+    void testClosedSession() {
+        PmdAnalysisSession session = PmdAnalysisSession.create();
+        session.close();
+        assertThrows(IllegalStateException.class, () -> session.newAnalysis(newConfig()));
+    }
+
+    private static PMDConfiguration newConfig() {
+        PMDConfiguration config = new PMDConfiguration();
+        config.setIgnoreIncrementalAnalysis(true);
+        config.setThreads(1);
+        return config;
+    }
+
+    private static void runWithRule(PmdAnalysisSession session, PMDConfiguration config, ProcessorRecordingRule rule) {
+        runWithRule(session, config, System.getenv(), rule);
+    }
+
+    private static void runWithRule(PmdAnalysisSession session, PMDConfiguration config, Map<String, String> environment,
+                                    ProcessorRecordingRule rule) {
+        try (PmdAnalysis pmd = session.newAnalysis(config, environment)) {
+            pmd.addRuleSet(RuleSet.forSingleRule(rule));
+            pmd.files().addSourceFile(FileId.fromPathLikeString("file.dummy"), "some source");
+            pmd.performAnalysis();
+        }
+    }
+
+    private static String languageVersion(LanguageProcessor processor) {
+        return ((BatchLanguageProcessor<?>) processor).getProperties().getLanguageVersion().getVersion();
+    }
+
+    private static String rulesetWithRules(String... names) {
+        String[] refs = new String[names.length];
+        for (int i = 0; i < names.length; i++) {
+            refs[i] = "rulesets/dummy/basic.xml/" + names[i];
+        }
+        return rulesetWithReferences(refs);
+    }
+
+    private static String rulesetWithReferences(String... refs) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("<?xml version=\"1.0\"?>\n")
+            .append("<ruleset name=\"Custom\" xmlns=\"http://pmd.sourceforge.net/ruleset/2.0.0\">\n")
+            .append("<description>Custom</description>\n");
+        for (String ref : refs) {
+            sb.append("<rule ref=\"").append(ref).append("\"/>\n");
+        }
+        return sb.append("</ruleset>\n").toString();
+    }
+
+    private static class ProcessorRecordingRule extends AbstractRule {
+
+        private final List<LanguageProcessor> processors = new ArrayList<>();
+
+        ProcessorRecordingRule() {
+            setLanguage(DummyLanguageModule.getInstance());
+            setMessage("recording");
+        }
+
+        @Override
+        public void initialize(LanguageProcessor languageProcessor) {
+            processors.add(languageProcessor);
+        }
+
+        @Override
+        public void apply(Node node, RuleContext ctx) {
+            // do nothing
+        }
+    }
+}
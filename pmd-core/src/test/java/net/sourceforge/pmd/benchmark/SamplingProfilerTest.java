@@ -0,0 +1,87 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.reporting.RuleContext;
+
+class SamplingProfilerTest {
+
+    @Test
+    void testRuleIsSampled() throws IOException {
+        SamplingProfiler profiler = SamplingProfiler.start(Duration.ofMillis(1));
+        try {
+            PMDConfiguration config = new PMDConfiguration();
+            config.setThreads(1);
+            config.setIgnoreIncrementalAnalysis(true);
+            try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+                pmd.addRuleSet(RuleSet.forSingleRule(new SleepingRule()));
+                pmd.files().addSourceFile(FileId.fromPathLikeString("Foo.dummy"), "some source");
+                pmd.addListener(profiler);
+                pmd.performAnalysis();
+            }
+        } finally {
+            profiler.close();
+        }
+
+        assertTrue(profiler.getSamples("Rule: SleepingRule") > 0);
+
+        StringWriter out = new StringWriter();
+        profiler.render(out);
+        assertThat(out.toString(), containsString("Rule: SleepingRule"));
+        assertThat(out.toString(), containsString("Foo.dummy"));
+    }
+
+    @Test
+    void testOnlyOneProfiler() {
+        try (SamplingProfiler ignored = SamplingProfiler.start(Duration.ofMillis(10))) {
+            assertThrows(IllegalStateException.class, () -> SamplingProfiler.start(Duration.ofMillis(10)));
+        }
+    }
+
+    @Test
+    void testCannotRenderWhileRunning() {
+        try (SamplingProfiler profiler = SamplingProfiler.start(Duration.ofMillis(10))) {
+            assertThrows(IllegalStateException.class, () -> profiler.render(new StringWriter()));
+        }
+        assertFalse(SamplingProfiler.isActive());
+    }
+
+    private static final class SleepingRule extends AbstractRule {
+
+        SleepingRule() {
+            setLanguage(DummyLanguageModule.getInstance());
+            setName("SleepingRule");
+            setMessage("sleeping");
+        }
+
+        @Override
+        public void apply(Node node, RuleContext ctx) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
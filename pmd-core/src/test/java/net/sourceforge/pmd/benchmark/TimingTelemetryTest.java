@@ -0,0 +1,181 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.PMDConfiguration;
+import net.sourceforge.pmd.PmdAnalysis;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.reporting.RuleContext;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+class TimingTelemetryTest {
+
+    @AfterEach
+    void stopTracking() {
+        TimeTracker.stopGlobalTracking();
+    }
+
+    @Test
+    void testEventsAreWrittenPerFile() {
+        StringWriter out = new StringWriter();
+        runAnalysis(out, "Foo.dummy", "Bar.dummy");
+
+        List<JsonObject> events = parseLines(out.toString());
+        assertEquals("start", events.get(0).get("event").getAsString());
+        assertEquals("summary", events.get(events.size() - 1).get("event").getAsString());
+
+        List<JsonObject> fileEvents = new ArrayList<>();
+        int numStarted = 0;
+        for (JsonObject event : events) {
+            if ("fileStart".equals(event.get("event").getAsString())) {
+                numStarted++;
+            } else if ("file".equals(event.get("event").getAsString())) {
+                fileEvents.add(event);
+            }
+        }
+        assertEquals(2, numStarted);
+        assertEquals(2, fileEvents.size());
+        for (JsonObject file : fileEvents) {
+            assertTrue(file.get("wallNanos").getAsLong() > 0);
+            assertTrue(file.get("parseNanos").getAsLong() > 0);
+            JsonArray slowestRules = file.getAsJsonArray("slowestRules");
+            assertEquals(1, slowestRules.size());
+            assertEquals("SleepingRule", slowestRules.get(0).getAsJsonObject().get("rule").getAsString());
+        }
+    }
+
+    @Test
+    void testSummary() {
+        StringWriter out = new StringWriter();
+        runAnalysis(out, "Foo.dummy", "Bar.dummy");
+
+        List<JsonObject> events = parseLines(out.toString());
+        JsonObject summary = events.get(events.size() - 1);
+        assertEquals(2, summary.get("files").getAsInt());
+
+        JsonObject rule = summary.getAsJsonArray("rules").get(0).getAsJsonObject();
+        assertEquals("SleepingRule", rule.get("rule").getAsString());
+        assertEquals(2, rule.get("files").getAsInt());
+        assertTrue(rule.get("wallNanos").getAsLong() >= 2_000_000);
+
+        JsonArray histogram = rule.getAsJsonArray("histogram");
+        assertEquals(summary.getAsJsonArray("histogramBoundsMillis").size() + 1, histogram.size());
+        long total = 0;
+        for (int i = 0; i < histogram.size(); i++) {
+            total += histogram.get(i).getAsLong();
+        }
+        assertEquals(2, total);
+
+        JsonArray slowestFiles = rule.getAsJsonArray("slowestFiles");
+        assertEquals(2, slowestFiles.size());
+        assertTrue(slowestFiles.get(0).getAsJsonObject().get("wallNanos").getAsLong()
+                       >= slowestFiles.get(1).getAsJsonObject().get("wallNanos").getAsLong());
+
+        assertEquals(1, summary.getAsJsonArray("threads").size());
+    }
+
+    @Test
+    void testNestedOperationsAreExcludedFromRuleTimes() {
+        StringWriter out = new StringWriter();
+        runAnalysis(out, new NestingRule(), "Foo.dummy");
+
+        JsonObject file = parseLines(out.toString()).stream()
+                                                   .filter(it -> "file".equals(it.get("event").getAsString()))
+                                                   .findFirst().get();
+        long passCpuNanos = file.getAsJsonObject("passNanos").get("NestedPass").getAsLong();
+        assertTrue(passCpuNanos >= 20_000_000);
+
+        JsonObject rule = file.getAsJsonArray("slowestRules").get(0).getAsJsonObject();
+        assertEquals("NestingRule", rule.get("rule").getAsString());
+        // the rule itself does nothing, all the time is spent in the nested pass
+        assertTrue(rule.get("wallNanos").getAsLong() < passCpuNanos / 2, rule::toString);
+        assertTrue(rule.get("cpuNanos").getAsLong() < passCpuNanos / 2, rule::toString);
+    }
+
+    private static void runAnalysis(StringWriter out, String... fileNames) {
+        runAnalysis(out, new SleepingRule(), fileNames);
+    }
+
+    private static void runAnalysis(StringWriter out, AbstractRule rule, String... fileNames) {
+        TimeTracker.startGlobalTracking();
+        PMDConfiguration config = new PMDConfiguration();
+        config.setThreads(1);
+        config.setIgnoreIncrementalAnalysis(true);
+        try (PmdAnalysis pmd = PmdAnalysis.create(config)) {
+            pmd.addRuleSet(RuleSet.forSingleRule(rule));
+            for (String fileName : fileNames) {
+                pmd.files().addSourceFile(FileId.fromPathLikeString(fileName), "some source");
+            }
+            pmd.addListener(new TimingTelemetry(out));
+            pmd.performAnalysis();
+        }
+    }
+
+    private static List<JsonObject> parseLines(String output) {
+        List<JsonObject> result = new ArrayList<>();
+        for (String line : output.split("\n")) {
+            result.add(JsonParser.parseString(line).getAsJsonObject());
+        }
+        return result;
+    }
+
+    private static final class SleepingRule extends AbstractRule {
+
+        SleepingRule() {
+            setLanguage(DummyLanguageModule.getInstance());
+            setName("SleepingRule");
+            setMessage("sleeping");
+        }
+
+        @Override
+        public void apply(Node node, RuleContext ctx) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /** Spends its time in a nested operation, that keeps the CPU busy. */
+    private static final class NestingRule extends AbstractRule {
+
+        NestingRule() {
+            setLanguage(DummyLanguageModule.getInstance());
+            setName("NestingRule");
+            setMessage("nesting");
+        }
+
+        @Override
+        public void apply(Node node, RuleContext ctx) {
+            TimeTracker.bench("NestedPass", () -> {
+                long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(30);
+                long spin = 0;
+                while (System.nanoTime() < end) {
+                    spin++;
+                }
+                return spin;
+            });
+        }
+    }
+}
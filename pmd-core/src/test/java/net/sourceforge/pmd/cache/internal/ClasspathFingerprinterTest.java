@@ -0,0 +1,98 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cache.internal;
+
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ClasspathFingerprinterTest {
+
+    @TempDir
+    private Path tempDir;
+
+    private final ClasspathFingerprinter fingerprinter = new ClasspathFingerprinter();
+
+    @Test
+    void testEntryWithSameMetadataIsNotReadAgain() throws IOException {
+        final URL jar = createJar("lib.jar", "Foo");
+        final ClasspathEntryFingerprint fingerprint = fingerprintEntry(Collections.emptyMap(), jar);
+
+        // the fingerprint can't be that of the contents, it is reused as the metadata matches
+        final ClasspathEntryFingerprint previous = new ClasspathEntryFingerprint(
+            fingerprint.getSize(), fingerprint.getLastModified(), fingerprint.getFingerprint() + 1);
+        assertEquals(previous.getFingerprint(),
+                     fingerprintEntry(Collections.singletonMap(jar.toString(), previous), jar).getFingerprint());
+    }
+
+    @Test
+    void testEntryWithChangedMetadataIsReadAgain() throws IOException {
+        final URL jar = createJar("lib.jar", "Foo");
+        final ClasspathEntryFingerprint fingerprint = fingerprintEntry(Collections.emptyMap(), jar);
+
+        final ClasspathEntryFingerprint previous = new ClasspathEntryFingerprint(
+            fingerprint.getSize(), fingerprint.getLastModified() - 1000, fingerprint.getFingerprint() + 1);
+        assertEquals(fingerprint.getFingerprint(),
+                     fingerprintEntry(Collections.singletonMap(jar.toString(), previous), jar).getFingerprint());
+    }
+
+    @Test
+    void testEntriesAreInClasspathOrder() throws IOException {
+        final URL foo = createJar("foo.jar", "Foo");
+        final URL bar = createJar("bar.jar", "Bar");
+        final URL directory = tempDir.toUri().toURL();
+        final URL missing = tempDir.resolve("missing.jar").toUri().toURL();
+
+        final Map<String, ClasspathEntryFingerprint> fingerprints =
+            fingerprinter.fingerprintEntries(Collections.emptyMap(), bar, directory, missing, foo);
+
+        // unsupported and missing entries are left out
+        assertEquals(listOf(bar.toString(), foo.toString()), new ArrayList<>(fingerprints.keySet()));
+    }
+
+    @Test
+    void testHaveSameFingerprints() throws IOException {
+        final URL foo = createJar("foo.jar", "Foo");
+        final URL bar = createJar("bar.jar", "Bar");
+        final Map<String, ClasspathEntryFingerprint> fingerprints = fingerprinter.fingerprintEntries(Collections.emptyMap(), foo, bar);
+
+        final Map<String, ClasspathEntryFingerprint> touched = new LinkedHashMap<>();
+        fingerprints.forEach((entry, fp) -> touched.put(entry, new ClasspathEntryFingerprint(fp.getSize(), 0, fp.getFingerprint())));
+        assertTrue(ClasspathFingerprinter.haveSameFingerprints(fingerprints, touched));
+
+        assertFalse(ClasspathFingerprinter.haveSameFingerprints(fingerprints, fingerprinter.fingerprintEntries(Collections.emptyMap(), bar, foo)));
+        assertFalse(ClasspathFingerprinter.haveSameFingerprints(fingerprints, fingerprinter.fingerprintEntries(Collections.emptyMap(), foo)));
+    }
+
+    private ClasspathEntryFingerprint fingerprintEntry(final Map<String, ClasspathEntryFingerprint> previous, final URL entry) {
+        return fingerprinter.fingerprintEntries(previous, entry).get(entry.toString());
+    }
+
+    private URL createJar(final String fileName, final String className) throws IOException {
+        final Path jar = tempDir.resolve(fileName);
+        try (ZipOutputStream zipOS = new ZipOutputStream(Files.newOutputStream(jar))) {
+            zipOS.putNextEntry(new ZipEntry("lib/" + className + ".class"));
+            zipOS.write(("content of " + className).getBytes(StandardCharsets.UTF_8));
+            zipOS.closeEntry();
+        }
+        return jar.toUri().toURL();
+    }
+}
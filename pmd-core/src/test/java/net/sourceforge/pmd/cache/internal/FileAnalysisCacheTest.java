@@ -25,8 +25,12 @@ import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipOutputStream;
 
@@ -36,6 +40,7 @@ import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
 import net.sourceforge.pmd.PmdCoreTestUtils;
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.lang.Language;
 import net.sourceforge.pmd.lang.LanguageVersion;
 import net.sourceforge.pmd.lang.document.FileId;
@@ -484,6 +489,108 @@ class FileAnalysisCacheTest {
                 "Cache believes a known, changed file is up to date");
     }
 
+    @Test
+    void testDependentsOfChangedFileAreNotUpToDate() throws IOException {
+        final Path user = createSourceFile("User.java", "uses Lib");
+        final Path lib = createSourceFile("Lib.java", "declares Lib");
+        final Path other = createSourceFile("Other.java", "uses something else");
+        final Map<Path, FileDependencies> dependencies = new LinkedHashMap<>();
+        dependencies.put(user, FileDependencies.create(listOf("p.User"), listOf("p.Lib")));
+        dependencies.put(lib, FileDependencies.create(listOf("p.Lib", "p.Lib$Nested"), Collections.emptyList()));
+        dependencies.put(other, FileDependencies.create(listOf("p.Other"), listOf("p.Lib.Unknown", "q.Lib")));
+        final ClassLoader cl = mock(ClassLoader.class);
+        setupCacheWithDependencies(cl, dependencies);
+
+        Files.write(lib, listOf("declares Lib differently"));
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile);
+        reloadedCache.checkValidity(mock(RuleSets.class), cl, sourceFiles(dependencies.keySet()));
+        assertFalse(isUpToDate(reloadedCache, user), "Cache believes a file is up to date when its dependency changed");
+        assertFalse(isUpToDate(reloadedCache, lib), "Cache believes a known, changed file is up to date");
+        assertTrue(isUpToDate(reloadedCache, other), "Cache believes a file is not up to date when its dependencies didn't change");
+    }
+
+    @Test
+    void testDependentsOfNewFileAreAnalysedAgainByTheNextRun() throws IOException {
+        final Path user = createSourceFile("User.java", "uses Lib");
+        final Path other = createSourceFile("Other.java", "uses something else");
+        final Map<Path, FileDependencies> dependencies = new LinkedHashMap<>();
+        dependencies.put(user, FileDependencies.create(listOf("p.User"), listOf("p.Lib")));
+        dependencies.put(other, FileDependencies.create(listOf("p.Other"), listOf("q.Lib")));
+        final ClassLoader cl = mock(ClassLoader.class);
+        setupCacheWithDependencies(cl, dependencies);
+
+        final Path lib = createSourceFile("Lib.java", "declares Lib");
+        dependencies.put(lib, FileDependencies.create(listOf("p.Lib"), Collections.emptyList()));
+        setupCacheWithDependencies(cl, dependencies);
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile);
+        reloadedCache.checkValidity(mock(RuleSets.class), cl, sourceFiles(dependencies.keySet()));
+        assertFalse(isUpToDate(reloadedCache, user), "Cache believes a file is up to date when a type it uses was added");
+        assertTrue(isUpToDate(reloadedCache, other), "Cache believes a file is not up to date when its dependencies didn't change");
+        assertTrue(isUpToDate(reloadedCache, lib), "Cache believes a known, unchanged file is not up to date");
+    }
+
+    @Test
+    void testAuxClasspathJarChangeInvalidatesOnlyDependents() throws IOException {
+        final File classpathJar = createZipFile("mylib.jar");
+        final URLClassLoader cl = mock(URLClassLoader.class);
+        when(cl.getURLs()).thenReturn(new URL[] { classpathJar.toURI().toURL(), });
+
+        final Path user = createSourceFile("User.java", "uses lib.foo0");
+        final Path other = createSourceFile("Other.java", "uses something else");
+        final Path unknown = createSourceFile("Unknown.java", "has no known dependencies");
+        final Map<Path, FileDependencies> dependencies = new LinkedHashMap<>();
+        dependencies.put(user, FileDependencies.create(listOf("p.User"), listOf("lib.foo0")));
+        dependencies.put(other, FileDependencies.create(listOf("p.Other"), listOf("lib.bar")));
+        dependencies.put(unknown, null);
+        setupCacheWithDependencies(cl, dependencies);
+
+        writeZipEntries(classpathJar, "changed", 2);
+
+        final FileAnalysisCache reloadedCache = new FileAnalysisCache(newCacheFile);
+        reloadedCache.checkValidity(mock(RuleSets.class), cl, sourceFiles(dependencies.keySet()));
+        assertFalse(isUpToDate(reloadedCache, user), "Cache believes a file is up to date when its dependency changed");
+        assertTrue(isUpToDate(reloadedCache, other), "Cache believes a file is not up to date when its dependencies didn't change");
+        assertFalse(isUpToDate(reloadedCache, unknown), "Cache believes a file with unknown dependencies is up to date after auxclasspath changed");
+    }
+
+    private Path createSourceFile(final String fileName, final String content) throws IOException {
+        final Path path = tempFolder.resolve(fileName);
+        Files.write(path, listOf(content));
+        return path;
+    }
+
+    private TextFile sourceFile(final Path path) {
+        return TextFile.forPath(path, Charset.defaultCharset(), dummyVersion);
+    }
+
+    private List<TextFile> sourceFiles(final Collection<Path> paths) {
+        return paths.stream().map(this::sourceFile).collect(Collectors.toList());
+    }
+
+    private void setupCacheWithDependencies(final ClassLoader classLoader,
+                                            final Map<Path, FileDependencies> dependencies) throws IOException {
+        final FileAnalysisCache cache = new FileAnalysisCache(newCacheFile);
+        cache.checkValidity(mock(RuleSets.class), classLoader, sourceFiles(dependencies.keySet()));
+
+        for (final Map.Entry<Path, FileDependencies> entry : dependencies.entrySet()) {
+            try (TextDocument document = TextDocument.create(sourceFile(entry.getKey()))) {
+                cache.isUpToDate(document);
+                if (entry.getValue() != null) {
+                    cache.recordDependencies(document, entry.getValue());
+                }
+            }
+        }
+        cache.persist();
+    }
+
+    private boolean isUpToDate(final AnalysisCache cache, final Path path) throws IOException {
+        try (TextDocument document = TextDocument.create(sourceFile(path))) {
+            return cache.isUpToDate(document);
+        }
+    }
+
     private void setupCacheWithFiles(final File cacheFile,
                                      final RuleSets ruleSets,
                                      final ClassLoader classLoader) throws IOException {
@@ -501,13 +608,17 @@ class FileAnalysisCacheTest {
 
     private File createZipFile(String fileName, int numEntries) throws IOException {
         final File zipFile = Files.createTempFile(tempFolder, null, fileName).toFile();
+        writeZipEntries(zipFile, fileName, numEntries);
+        return zipFile;
+    }
+
+    private void writeZipEntries(File zipFile, String contentPrefix, int numEntries) throws IOException {
         try (ZipOutputStream zipOS = new ZipOutputStream(Files.newOutputStream(zipFile.toPath()))) {
             for (int i = 0; i < numEntries; i++) {
                 zipOS.putNextEntry(new ZipEntry("lib/foo" + i + ".class"));
-                zipOS.write(("content of " + fileName + " entry " + i).getBytes(StandardCharsets.UTF_8));
+                zipOS.write(("content of " + contentPrefix + " entry " + i).getBytes(StandardCharsets.UTF_8));
                 zipOS.closeEntry();
             }
         }
-        return zipFile;
     }
 }
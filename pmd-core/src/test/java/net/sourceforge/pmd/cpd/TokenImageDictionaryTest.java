@@ -0,0 +1,69 @@
+/**
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.cpd;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.junit.jupiter.api.Test;
+
+class TokenImageDictionaryTest {
+
+    @Test
+    void testIdsAreStable() {
+        TokenImageDictionary dict = new TokenImageDictionary();
+        int a = dict.getOrAdd("public");
+        int b = dict.getOrAdd("class");
+        assertEquals(1, a);
+        assertEquals(2, b);
+        assertEquals(a, dict.getOrAdd(new String("public")));
+        assertEquals("public", dict.getImage(a));
+        assertEquals("class", dict.getImage(b));
+        assertNull(dict.getImage(0));
+        assertNull(dict.getImage(3));
+    }
+
+    @Test
+    void testEmptyImage() {
+        TokenImageDictionary dict = new TokenImageDictionary();
+        int empty = dict.getOrAdd("");
+        int a = dict.getOrAdd("a");
+        assertNotEquals(empty, a);
+        assertEquals("", dict.getImage(empty));
+        assertEquals(empty, dict.getOrAdd(""));
+    }
+
+    @Test
+    void testManyImages() {
+        TokenImageDictionary dict = new TokenImageDictionary();
+        // "Aa" and "BB" have the same hash code
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(2 * i + 1, dict.getOrAdd("Aa" + i));
+            assertEquals(2 * i + 2, dict.getOrAdd("BB" + i));
+        }
+        for (int i = 0; i < 20_000; i++) {
+            assertEquals(2 * i + 1, dict.getOrAdd("Aa" + i));
+            assertEquals("BB" + i, dict.getImage(2 * i + 2));
+        }
+    }
+
+    @Test
+    void testTruncate() {
+        TokenImageDictionary dict = new TokenImageDictionary();
+        dict.getOrAdd("a");
+        int savePoint = dict.nextId();
+        for (int i = 0; i < 1000; i++) {
+            dict.getOrAdd("x" + i);
+        }
+        dict.truncate(savePoint);
+
+        assertEquals(savePoint, dict.nextId());
+        assertNull(dict.getImage(savePoint));
+        assertEquals(1, dict.getOrAdd("a"));
+        assertEquals(savePoint, dict.getOrAdd("x500"));
+        assertEquals("x500", dict.getImage(savePoint));
+    }
+}
@@ -105,6 +105,24 @@ class CharStreamTest {
         assertThrows(EOFException.class, stream::readChar);
     }
 
+    @Test
+    void testTokenImageIsSlicedFromDocument() throws IOException {
+
+        CharStream stream = javaCharStream("a\\u00a0b c");
+
+        stream.markTokenStart();
+        stream.readChar();
+        stream.readChar();
+        JavaccToken token = stream.getTokenDocument().createToken(1, stream, null);
+        JavaccToken constant = stream.getTokenDocument().createToken(1, stream, "constant");
+
+        assertEquals("a\u00a0b", token.getImage());
+        assertEquals("a\u00a0b", token.getImageCs().toString());
+        assertEquals("a\\u00a0b", token.getText().toString());
+        assertEquals("constant", constant.getImage());
+        assertEquals("a\u00a0b", token.withKind(2).getImage());
+    }
+
     @Test
     void testBacktrackTooMuch() throws IOException {
 
@@ -0,0 +1,113 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.ast.internal;
+
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.followPath;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.node;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.nodeB;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.pathsOf;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.root;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.tree;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.collection.IsIterableContainingInOrder.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.DummyNode.DummyNodeTypeB;
+import net.sourceforge.pmd.lang.ast.DummyNode.DummyRootNode;
+import net.sourceforge.pmd.lang.ast.DummyNode.DummyTextNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.ast.internal.SubtreeSummary.KindBit;
+import net.sourceforge.pmd.lang.ast.internal.SubtreeSummary.Mask;
+
+class SubtreeSummaryTest {
+
+    private final DummyNode tree = tree(
+        () ->
+            root(// ""
+                 node(// 0
+                      node(), // 00
+                      nodeB() // 01
+                 ),
+                 node(// 1
+                      node(// 10
+                           node() // 100
+                      )
+                 )
+            )
+    );
+
+    @Test
+    void testSubtreesWithoutMatchAreSkipped() {
+        Mask mask = SubtreeSummary.maskOf(tree, DummyNodeTypeB.class);
+
+        assertTrue(SubtreeSummary.mayContain(followPath(tree, "0"), mask));
+        assertFalse(SubtreeSummary.mayContain(followPath(tree, "1"), mask));
+
+        assertThat(pathsOf(tree.descendants(DummyNodeTypeB.class)), contains("01"));
+        assertThat(pathsOf(tree.descendantsOrSelf().filterIs(DummyNodeTypeB.class)), contains("01"));
+        assertEquals("01", tree.descendants(DummyNodeTypeB.class).first().getImage());
+    }
+
+    @Test
+    void testSummaryIsUpdatedWhenTreeChanges() {
+        assertEquals(0, tree.descendants(DummyTextNode.class).count());
+
+        DummyNode deep = followPath(tree, "100");
+        DummyTextNode text = new DummyTextNode();
+        deep.addChild(text, 0);
+
+        assertThat(tree.descendants(DummyTextNode.class).toList(), contains(text));
+        assertThat(tree.descendants(DummyTextNode.class).crossFindBoundaries().toList(), contains(text));
+        assertEquals(text, tree.descendants(DummyTextNode.class).first());
+    }
+
+    @Test
+    void testMappedStreamsAreNotPruned() {
+        // the type of the mapped nodes says nothing about the nodes that are traversed
+        assertEquals(2, tree.descendants(DummyNode.class)
+                            .map(Node::getParent)
+                            .filterIs(DummyRootNode.class)
+                            .count());
+        assertEquals(1, tree.descendants(DummyNodeTypeB.class)
+                            .map(Node::getParent)
+                            .filterIs(DummyNode.class)
+                            .count());
+    }
+
+    @Test
+    void testNodeClassesHaveDistinctBits() {
+        Set<Long> firstWordBits = new HashSet<>();
+        Set<Long> secondWordBits = new HashSet<>();
+        for (int i = 0; i < SubtreeSummary.NUM_BITS; i++) {
+            KindBit kind = new KindBit(DummyNode.class, i);
+            assertEquals(1, Long.bitCount(kind.bit));
+            assertTrue((kind.word == 0 ? firstWordBits : secondWordBits).add(kind.bit));
+        }
+        // the last bit of the first word marks computed summaries
+        assertFalse(firstWordBits.contains(Long.MIN_VALUE));
+        assertEquals(SubtreeSummary.NUM_BITS, firstWordBits.size() + secondWordBits.size());
+    }
+
+    @Test
+    void testNodeClassesAreNumberedPerPackage() {
+        // the classes of the dummy language are numbered in their package
+        assertEquals(1, tree.descendants(DummyNodeTypeB.class).count());
+        // the classes of this package are numbered from zero
+        KindBit kind = SubtreeSummary.kindOf(NodeOfThisPackage.class);
+        assertEquals(0, kind.word);
+        assertEquals(1L, kind.bit);
+    }
+
+    private static final class NodeOfThisPackage extends DummyNode {
+    }
+}
@@ -5,9 +5,17 @@
 package net.sourceforge.pmd.lang.impl;
 
 import static net.sourceforge.pmd.util.CollectionUtil.listOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.everyItem;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.Test;
@@ -23,6 +31,7 @@ import net.sourceforge.pmd.lang.ast.Node;
 import net.sourceforge.pmd.lang.document.FileId;
 import net.sourceforge.pmd.lang.document.TextFile;
 import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.lang.rule.Rule;
 import net.sourceforge.pmd.lang.rule.RuleSet;
 import net.sourceforge.pmd.reporting.FileAnalysisListener;
 import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
@@ -48,7 +57,7 @@ abstract class AbstractPMDProcessorTest {
     }
 
     private LanguageProcessor.AnalysisTask createTask(int threads) {
-        return InternalApiBridge.createAnalysisTask(null, null, null, threads, null, null, null);
+        return InternalApiBridge.createAnalysisTask(null, null, null, threads, null, null, null, Duration.ZERO, Duration.ZERO, 0, 0);
     }
 
     @Test
@@ -64,8 +73,80 @@ abstract class AbstractPMDProcessorTest {
         Mockito.verifyNoInteractions(reporter);
     }
 
-    protected PmdAnalysis createPmdAnalysis() {
+    @Test
+    void ruleTimeoutShouldBeReportedAndNextRuleApplied() {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setRuleTimeout(Duration.ofMillis(50));
+        try (PmdAnalysis pmd = createPmdAnalysis(configuration)) {
+            pmd.addRuleSet(RuleSet.create("timeout", "", "timeout.xml", Collections.emptyList(), Collections.emptyList(),
+                                          listOf(new RuleThatRunsForever(), new RuleThatReportsViolation())));
+            pmd.performAnalysis();
+        }
+
+        assertEquals(2, reportListener.files.get());
+        assertEquals(2, reportListener.errors.get());
+        assertEquals(2, reportListener.violations.get());
+        assertThat(reportListener.errorMessages, everyItem(containsString("Rule RuleThatRunsForever exceeded the time budget of 50 ms")));
+    }
+
+    @Test
+    void fileTimeoutShouldSkipRestOfFile() {
         PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setFileTimeout(Duration.ofMillis(50));
+        try (PmdAnalysis pmd = createPmdAnalysis(configuration)) {
+            pmd.addRuleSet(RuleSet.create("timeout", "", "timeout.xml", Collections.emptyList(), Collections.emptyList(),
+                                          listOf(new RuleThatRunsForever(), new RuleThatReportsViolation())));
+            pmd.performAnalysis();
+        }
+
+        assertEquals(2, reportListener.files.get());
+        assertEquals(2, reportListener.errors.get());
+        assertEquals(0, reportListener.violations.get());
+        assertThat(reportListener.errorMessages, everyItem(containsString("Analysis exceeded the time budget of 50 ms per file")));
+    }
+
+    @Test
+    void filesLargerThanMemoryBudgetShouldBeAnalysed() {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setInFlightMemoryBudget(1);
+        try (PmdAnalysis pmd = createPmdAnalysis(configuration)) {
+            pmd.addRuleSet(RuleSet.forSingleRule(new RuleThatReportsViolation()));
+            pmd.performAnalysis();
+        }
+
+        assertEquals(2, reportListener.files.get());
+        assertEquals(0, reportListener.errors.get());
+        assertEquals(2, reportListener.violations.get());
+    }
+
+    @Test
+    void parallelRulesShouldApplyEveryRule() {
+        PMDConfiguration configuration = new PMDConfiguration();
+        configuration.setParallelRulesThreshold(1);
+        try (PmdAnalysis pmd = createPmdAnalysis(configuration)) {
+            List<Rule> rules = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                Rule reports = new RuleThatReportsViolation();
+                reports.setName("Reports" + i);
+                Rule throwing = new RuleThatThrowsException();
+                throwing.setName("Throws" + i);
+                rules.add(reports);
+                rules.add(throwing);
+            }
+            pmd.addRuleSet(RuleSet.create("parallel", "", "parallel.xml", Collections.emptyList(), Collections.emptyList(), rules));
+            pmd.performAnalysis();
+        }
+
+        assertEquals(2, reportListener.files.get());
+        assertEquals(10, reportListener.errors.get());
+        assertEquals(10, reportListener.violations.get());
+    }
+
+    protected PmdAnalysis createPmdAnalysis() {
+        return createPmdAnalysis(new PMDConfiguration());
+    }
+
+    protected PmdAnalysis createPmdAnalysis(PMDConfiguration configuration) {
         configuration.setThreads(getThreads());
         configuration.setIgnoreIncrementalAnalysis(true);
         reporter = Mockito.spy(configuration.getReporter());
@@ -109,11 +190,42 @@ abstract class AbstractPMDProcessorTest {
         }
     }
 
+    /** Runs until it is cancelled, or for 10 seconds. */
+    protected static class RuleThatRunsForever extends AbstractRule {
+        RuleThatRunsForever() {
+            setLanguage(DummyLanguageModule.getInstance().getDefaultVersion().getLanguage());
+            setName("RuleThatRunsForever");
+        }
+
+        @Override
+        public void apply(Node target, RuleContext ctx) {
+            long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (System.nanoTime() < end) {
+                AnalysisWatchdog.checkpoint();
+                Thread.yield();
+            }
+        }
+    }
+
+    protected static class RuleThatReportsViolation extends AbstractRule {
+        RuleThatReportsViolation() {
+            setLanguage(DummyLanguageModule.getInstance().getDefaultVersion().getLanguage());
+            setName("RuleThatReportsViolation");
+            setMessage("violation");
+        }
+
+        @Override
+        public void apply(Node target, RuleContext ctx) {
+            ctx.addViolation(target);
+        }
+    }
+
     protected static class SimpleReportListener implements GlobalAnalysisListener {
 
         public AtomicInteger violations = new AtomicInteger(0);
         public AtomicInteger files = new AtomicInteger(0);
         public AtomicInteger errors = new AtomicInteger(0);
+        public List<String> errorMessages = Collections.synchronizedList(new ArrayList<>());
 
         @Override
         public FileAnalysisListener startFileAnalysis(TextFile file) {
@@ -128,6 +240,7 @@ abstract class AbstractPMDProcessorTest {
                 @Override
                 public void onError(Report.ProcessingError error) {
                     errors.incrementAndGet();
+                    errorMessages.add(error.getMsg());
                 }
             };
         }
@@ -0,0 +1,92 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.lang.impl.InFlightMemoryBudget.Permit;
+
+class InFlightMemoryBudgetTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testUnlimitedBudget() throws InterruptedException {
+        InFlightMemoryBudget budget = new InFlightMemoryBudget(0);
+        try (Permit ignored = budget.admit(Long.MAX_VALUE)) {
+            assertEquals(-1, budget.available());
+        }
+    }
+
+    @Test
+    void testPermitIsReleasedOnce() throws InterruptedException {
+        InFlightMemoryBudget budget = new InFlightMemoryBudget(10 * 1024);
+        Permit permit = budget.admit(4 * 1024);
+        assertEquals(6 * 1024, budget.available());
+        permit.close();
+        permit.close();
+        assertEquals(10 * 1024, budget.available());
+    }
+
+    @Test
+    void testLargeFileIsAdmittedAlone() throws InterruptedException {
+        InFlightMemoryBudget budget = new InFlightMemoryBudget(10 * 1024);
+        try (Permit ignored = budget.admit(1024 * 1024)) {
+            assertEquals(0, budget.available());
+        }
+        assertEquals(10 * 1024, budget.available());
+    }
+
+    @Test
+    void testFileIsAdmittedOnItsSize() throws IOException, InterruptedException {
+        Path file = tempDir.resolve("file.dummy");
+        Files.write(file, new byte[128]);
+        LanguageVersion dummyVersion = DummyLanguageModule.getInstance().getDefaultVersion();
+
+        InFlightMemoryBudget budget = new InFlightMemoryBudget(1024 * 1024);
+        try (TextFile textFile = TextFile.forPath(file, StandardCharsets.UTF_8, dummyVersion);
+             Permit ignored = budget.admit(textFile)) {
+            assertEquals(1024 * 1024 - 128 * InFlightMemoryBudget.BYTES_PER_CHAR, budget.available());
+        }
+    }
+
+    @Test
+    void testAdmissionWaitsForRelease() throws InterruptedException {
+        InFlightMemoryBudget budget = new InFlightMemoryBudget(10 * 1024);
+        Permit first = budget.admit(8 * 1024);
+
+        CountDownLatch admitted = new CountDownLatch(1);
+        Thread thread = new Thread(() -> {
+            try (Permit ignored = budget.admit(4 * 1024)) {
+                admitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+
+        assertFalse(admitted.await(100, TimeUnit.MILLISECONDS));
+        first.close();
+        assertTrue(admitted.await(10, TimeUnit.SECONDS));
+        thread.join();
+        assertEquals(10 * 1024, budget.available());
+    }
+}
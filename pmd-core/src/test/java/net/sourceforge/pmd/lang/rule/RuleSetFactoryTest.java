@@ -12,16 +12,22 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.checkerframework.checker.nullness.qual.NonNull;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
@@ -50,6 +56,36 @@ class RuleSetFactoryTest extends RulesetFactoryTestBase {
         assertNotNull(rs.getRuleByName("TestRuleRef"));
     }
 
+    @Test
+    void testReferencedRulesetsAreReadOnce() {
+        Map<String, Integer> reads = new ConcurrentHashMap<>();
+        ResourceLoader countingLoader = new ResourceLoader() {
+            @Override
+            public @NonNull InputStream loadResourceAsStream(String name) throws IOException {
+                reads.merge(name, 1, Integer::sum);
+                return super.loadResourceAsStream(name);
+            }
+        };
+
+        RuleSet rs = new RuleSetLoader().loadResourcesWith(countingLoader).loadFromResource(REFERENCE_RULESET);
+        assertNotNull(rs.getRuleByName("MockRule1"));
+        assertNotNull(rs.getRuleByName("TestRule"));
+
+        assertEquals(Integer.valueOf(1), reads.get(REFERENCE_RULESET));
+        // referenced several times, as a whole and rule by rule
+        assertEquals(Integer.valueOf(1), reads.get(TEST_RULESET_1));
+        reads.forEach((name, count) -> assertEquals(1, count, name));
+    }
+
+    @Test
+    void testLoadSeveralRulesetsSharingReferences() {
+        List<RuleSet> ruleSets = new RuleSetLoader().loadFromResources(REFERENCE_RULESET, TEST_RULESET_1, REFERENCE_RULESET);
+        assertEquals(3, ruleSets.size());
+        assertEquals(ruleSets.get(0).getRules().size(), ruleSets.get(2).getRules().size());
+        assertEquals("Overridden message", ruleSets.get(0).getRuleByName("MockRule3").getMessage());
+        assertNotEquals("Overridden message", ruleSets.get(1).getRuleByName("MockRule3").getMessage());
+    }
+
     @Test
     void testExtendedReferences() throws Exception {
         InputStream in = new ResourceLoader().loadClassPathResourceAsStream(REFERENCE_RULESET);
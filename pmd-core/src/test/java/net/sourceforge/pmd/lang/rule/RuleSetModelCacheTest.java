@@ -0,0 +1,137 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule;
+
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import net.sourceforge.pmd.properties.PropertyConstraint;
+import net.sourceforge.pmd.properties.PropertyDescriptor;
+
+class RuleSetModelCacheTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void testRestoredRuleSetIsTheLoadedRuleSet() throws IOException {
+        Path ruleSetFile = writeRuleSet("custom.xml",
+                                        "<rule ref='net/sourceforge/pmd/lang/rule/reference-ruleset.xml'/>\n"
+                                        + customXPathRule("3"));
+        Path cacheFile = tempDir.resolve("cache.rulesets");
+
+        RuleSet loaded = load(cacheFile, ruleSetFile);
+        assertTrue(Files.exists(cacheFile));
+        RuleSet restored = load(cacheFile, ruleSetFile);
+
+        // rule references are only created when parsing ruleset files
+        for (Rule rule : restored.getRules()) {
+            assertThat(rule, not(instanceOf(RuleReference.class)));
+        }
+        assertEquals(describe(loaded), describe(restored));
+        assertEquals(loaded.getChecksum(), restored.getChecksum());
+    }
+
+    @Test
+    void testRuleSetIsLoadedAgainWhenAReferencedFileChanges() throws IOException {
+        Path inner = writeRuleSet("inner.xml", customXPathRule("3"));
+        Path outer = writeRuleSet("outer.xml", "<rule ref='" + inner + "'/>");
+        Path cacheFile = tempDir.resolve("cache.rulesets");
+
+        assertEquals(3, maxDepth(load(cacheFile, outer)));
+        assertEquals(3, maxDepth(load(cacheFile, outer)));
+
+        writeRuleSet("inner.xml", customXPathRule("5"));
+        assertEquals(5, maxDepth(load(cacheFile, outer)));
+    }
+
+    @Test
+    void testMalformedCacheFileIsIgnored() throws IOException {
+        Path ruleSetFile = writeRuleSet("custom.xml", customXPathRule("3"));
+        Path cacheFile = tempDir.resolve("cache.rulesets");
+        Files.write(cacheFile, "not a cache".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(3, maxDepth(load(cacheFile, ruleSetFile)));
+        assertEquals(3, maxDepth(load(cacheFile, ruleSetFile)));
+    }
+
+    private static RuleSet load(Path cacheFile, Path ruleSetFile) {
+        List<RuleSet> ruleSets = new RuleSetLoader().withRuleSetCache(new RuleSetModelCache(cacheFile))
+                                                    .loadRuleSetsWithoutException(listOf(ruleSetFile.toString()));
+        assertEquals(1, ruleSets.size());
+        return ruleSets.get(0);
+    }
+
+    private static int maxDepth(RuleSet ruleSet) {
+        Rule rule = ruleSet.getRuleByName("CustomXPathRule");
+        assertNotNull(rule);
+        return (Integer) rule.getProperty(rule.getPropertyDescriptor("maxDepth"));
+    }
+
+    private static List<String> describe(RuleSet ruleSet) {
+        List<String> rules = new ArrayList<>();
+        for (Rule rule : ruleSet.getRules()) {
+            StringBuilder sb = new StringBuilder()
+                .append(rule.getRuleClass()).append(' ')
+                .append(rule.getName()).append(' ')
+                .append(rule.getLanguage()).append(' ')
+                .append(rule.getMinimumLanguageVersion()).append(' ')
+                .append(rule.getMaximumLanguageVersion()).append(' ')
+                .append(rule.getRuleSetName()).append(' ')
+                .append(rule.getPriority()).append(' ')
+                .append(rule.getMessage()).append(' ')
+                .append(rule.getDescription()).append(' ')
+                .append(rule.getExamples()).append(' ')
+                .append(rule.getSince()).append(' ')
+                .append(rule.getExternalInfoUrl()).append(' ')
+                .append(rule.isDeprecated());
+            for (PropertyDescriptor<?> descriptor : rule.getPropertyDescriptors()) {
+                sb.append(' ').append(descriptor.name()).append('=').append(rule.getProperty(descriptor));
+                for (PropertyConstraint<?> constraint : descriptor.serializer().getConstraints()) {
+                    sb.append(constraint.getXmlConstraint());
+                }
+            }
+            rules.add(sb.toString());
+        }
+        return rules;
+    }
+
+    private static String customXPathRule(String maxDepth) {
+        return "<rule name='CustomXPathRule' language='dummy' message='Too deep' class='net.sourceforge.pmd.lang.rule.xpath.XPathRule'>\n"
+            + "  <description>Custom rule</description>\n"
+            + "  <priority>2</priority>\n"
+            + "  <properties>\n"
+            + "    <property name='maxDepth' type='Integer' min='1' max='10' value='" + maxDepth + "' description='Maximum depth'/>\n"
+            + "    <property name='xpath'><value>//dummyRootNode[$maxDepth > 1]</value></property>\n"
+            + "  </properties>\n"
+            + "</rule>";
+    }
+
+    private Path writeRuleSet(String fileName, String rules) throws IOException {
+        Path file = tempDir.resolve(fileName);
+        String ruleSet = "<?xml version='1.0'?>\n"
+            + "<ruleset name='" + fileName + "' xmlns='http://pmd.sourceforge.net/ruleset/2.0.0'>\n"
+            + "  <description>Test ruleset</description>\n"
+            + rules + "\n"
+            + "</ruleset>\n";
+        Files.write(file, ruleSet.getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+}
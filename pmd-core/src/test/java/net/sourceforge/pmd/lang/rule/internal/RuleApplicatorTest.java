@@ -0,0 +1,129 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+import net.sourceforge.pmd.DummyParsingHelper;
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.ast.DummyNode.DummyRootNode;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.AbstractRule;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleContext;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+class RuleApplicatorTest {
+
+    @RegisterExtension
+    private final DummyParsingHelper helper = new DummyParsingHelper();
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(3);
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testApplyInParallel() {
+        List<Rule> rules = new ArrayList<>();
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            rules.add(new ReportingRule("Rule" + i));
+            names.add("Rule" + i);
+        }
+
+        Report report = applyInParallel(rules);
+
+        List<String> reported = report.getViolations().stream()
+                                      .map(RuleViolation::getRule)
+                                      .map(Rule::getName)
+                                      .collect(Collectors.toList());
+        assertThat(reported, containsInAnyOrder(names.toArray()));
+    }
+
+    @Test
+    void testExceptionsAreReportedInParallel() {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rules.add(new ReportingRule("Rule" + i));
+            rules.add(new ThrowingRule(new IllegalStateException("oops")));
+        }
+
+        Report report = applyInParallel(rules);
+
+        assertEquals(5, report.getViolations().size());
+        assertEquals(5, report.getProcessingErrors().size());
+    }
+
+    @Test
+    void testErrorIsRethrownByCallerThread() {
+        List<Rule> rules = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rules.add(new ReportingRule("Rule" + i));
+        }
+        rules.add(new ThrowingRule(new OutOfMemoryError("oops")));
+
+        OutOfMemoryError error = assertThrows(OutOfMemoryError.class, () -> applyInParallel(rules));
+        assertEquals("oops", error.getMessage());
+    }
+
+    private Report applyInParallel(List<Rule> rules) {
+        DummyRootNode root = helper.parse("(a(b)(c))");
+        RuleApplicator applicator = RuleApplicator.build(rules);
+        applicator.index(root);
+        return Report.buildReport(listener -> applicator.applyInParallel(rules, listener, executor, 3));
+    }
+
+    private static final class ReportingRule extends AbstractRule {
+
+        ReportingRule(String name) {
+            setLanguage(DummyLanguageModule.getInstance().getDefaultVersion().getLanguage());
+            setName(name);
+            setMessage("violation");
+        }
+
+        @Override
+        public void apply(Node target, RuleContext ctx) {
+            ctx.addViolation(target);
+        }
+    }
+
+    private static final class ThrowingRule extends AbstractRule {
+
+        private final Throwable toThrow;
+
+        ThrowingRule(Throwable toThrow) {
+            this.toThrow = toThrow;
+            setLanguage(DummyLanguageModule.getInstance().getDefaultVersion().getLanguage());
+            setName("ThrowingRule");
+        }
+
+        @Override
+        public void apply(Node target, RuleContext ctx) {
+            if (toThrow instanceof Error) {
+                throw (Error) toThrow;
+            }
+            throw (RuntimeException) toThrow;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.internal;
+
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.followPath;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.node;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.nodeB;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.root;
+import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.tree;
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.ast.DummyNode;
+import net.sourceforge.pmd.lang.ast.DummyNode.DummyNodeTypeB;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.rule.NodeIndexKey;
+import net.sourceforge.pmd.util.IteratorUtil;
+
+class TreeIndexTest {
+
+    private static final NodeIndexKey<DummyNode> IMAGE = NodeIndexKey.create("image", DummyNode.class, DummyNode::getImage);
+    private static final NodeIndexKey<DummyNodeTypeB> B_IMAGE = NodeIndexKey.create("imageB", DummyNodeTypeB.class, DummyNode::getImage);
+
+    private final DummyNode tree = tree(
+        () ->
+            root(// ""
+                 node(// 0
+                      node(), // 00
+                      nodeB() // 01
+                 ),
+                 nodeB(// 1
+                      node() // 10
+                 )
+            )
+    );
+
+    @Test
+    void testNodesAreIndexedByKey() {
+        TreeIndex index = indexTree(IMAGE, B_IMAGE);
+
+        assertThat(IteratorUtil.toList(index.getByKey(IMAGE, listOf("10", "0", "2"))),
+                   contains(followPath(tree, "10"), followPath(tree, "0")));
+        assertThat(IteratorUtil.toList(index.getByKey(B_IMAGE, listOf("0", "01", "1"))),
+                   contains(followPath(tree, "01"), followPath(tree, "1")));
+    }
+
+    @Test
+    void testResetClearsKeyIndex() {
+        TreeIndex index = indexTree(IMAGE);
+        index.reset();
+
+        assertThat(IteratorUtil.toList(index.getByKey(IMAGE, listOf("0"))), empty());
+    }
+
+    @Test
+    void testUnregisteredKey() {
+        TreeIndex index = indexTree(IMAGE);
+
+        assertThrows(IllegalArgumentException.class, () -> index.getByKey(B_IMAGE, listOf("1")));
+    }
+
+    private TreeIndex indexTree(NodeIndexKey<?>... keys) {
+        TreeIndex index = new TreeIndex(Collections.emptySet(), Collections.emptySet(), new HashSet<>(Arrays.asList(keys)));
+        for (Node node : tree.descendantsOrSelf()) {
+            index.indexNode(node);
+        }
+        return index;
+    }
+}
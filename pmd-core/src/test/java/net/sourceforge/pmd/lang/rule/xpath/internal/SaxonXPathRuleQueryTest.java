@@ -11,12 +11,15 @@ import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.root;
 import static net.sourceforge.pmd.lang.ast.impl.DummyTreeUtil.tree;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -25,6 +28,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
 import net.sourceforge.pmd.DummyParsingHelper;
+import net.sourceforge.pmd.internal.SystemProps;
 import net.sourceforge.pmd.lang.DummyLanguageModule;
 import net.sourceforge.pmd.lang.ast.DummyNode.DummyRootNode;
 import net.sourceforge.pmd.lang.ast.DummyNodeWithListAndEnum;
@@ -379,6 +383,63 @@ class SaxonXPathRuleQueryTest {
         assertExpression(expectedSubexpression, query.nodeNameToXPaths.get("DoStatement").get(0));
     }
 
+    @Test
+    void compiledRuleChainExpressionsMatchSaxon() {
+        SaxonXPathRuleQuery query = createQuery("//dummyNode[@Image = ('0', '1')]/dummyNode | //dummyNodeB[starts-with(@Image, '0')]");
+
+        DummyRootNode tree = tree(() -> root(
+            node(
+                node(),
+                nodeB()
+            ),
+            node(
+                node()
+            )
+        ));
+
+        assertTrue(query.isCompiled("dummyNode"));
+        assertTrue(query.isCompiled("dummyNodeB"));
+        tree.descendants().crossFindBoundaries().forEach(n -> {
+            List<Node> compiled = query.evaluateCompiled(n);
+            assertEquals(query.evaluateWithSaxon(n), compiled);
+        });
+        assertEquals(followPath(tree, "10"), query.evaluate(followPath(tree, "1")).get(0));
+        assertEquals(followPath(tree, "01"), query.evaluate(followPath(tree, "01")).get(0));
+    }
+
+    @Test
+    void ruleChainExpressionsAreOnlyCompiledIfSupported() {
+        String xpath = "//dummyNode[@Image = '0']";
+        XPathHandler interpreted = XPathHandler.getHandlerForFunctionDefs(imageIsFunction());
+        assertFalse(new SaxonXPathRuleQuery(xpath, XPathVersion.DEFAULT, new HashMap<>(), interpreted, DeprecatedAttrLogger.noop())
+                        .isCompiled("dummyNode"));
+
+        System.setProperty(SystemProps.PMD_XPATH_COMPILE, "false");
+        try {
+            assertFalse(createQuery(xpath).isCompiled("dummyNode"));
+        } finally {
+            System.clearProperty(SystemProps.PMD_XPATH_COMPILE);
+        }
+        assertTrue(createQuery(xpath).isCompiled("dummyNode"));
+    }
+
+    @Test
+    void compiledRuleChainExpressionFallsBackOnDocumentNode() {
+        // the ancestors of the root include the document node
+        SaxonXPathRuleQuery query = createQuery("//dummyNode[count(ancestor::node()) = 3]");
+
+        DummyRootNode tree = tree(() -> root(
+            node(
+                node()
+            )
+        ));
+
+        assertTrue(query.isCompiled("dummyNode"));
+        assertNull(query.evaluateCompiled(followPath(tree, "00")));
+        assertEquals(1, query.evaluate(followPath(tree, "00")).size());
+        assertEquals(0, query.evaluate(followPath(tree, "0")).size());
+    }
+
     @Test
     void ruleChainVisitsWithUnionsAndLets() {
         PropertyDescriptor<Boolean> boolProperty = PropertyFactory.booleanProperty("checkAll").desc("test").defaultValue(true).build();
@@ -420,11 +481,25 @@ class SaxonXPathRuleQueryTest {
             xpath,
             XPathVersion.DEFAULT,
             props,
-            XPathHandler.getHandlerForFunctionDefs(imageIsFunction()),
+            compilingHandler(XPathHandler.getHandlerForFunctionDefs(imageIsFunction())),
             DeprecatedAttrLogger.noop()
         );
     }
 
+    private static XPathHandler compilingHandler(XPathHandler handler) {
+        return new XPathHandler() {
+            @Override
+            public Set<XPathFunctionDefinition> getRegisteredExtensionFunctions() {
+                return handler.getRegisteredExtensionFunctions();
+            }
+
+            @Override
+            public boolean supportsCompiledExpressions() {
+                return true;
+            }
+        };
+    }
+
     @NonNull
     private static XPathFunctionDefinition imageIsFunction() {
         return new XPathFunctionDefinition("imageIs", DummyLanguageModule.getInstance()) {
@@ -0,0 +1,133 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.renderers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.DummyLanguageModule;
+import net.sourceforge.pmd.lang.document.FileId;
+import net.sourceforge.pmd.lang.document.TextFile;
+import net.sourceforge.pmd.reporting.FileAnalysisListener;
+import net.sourceforge.pmd.reporting.GlobalAnalysisListener;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+class AsyncReportRendererTest {
+
+    @Test
+    void testReportsAreRenderedOnRenderingThread() throws Exception {
+        RecordingRenderer renderer = new RecordingRenderer(null);
+        renderer.setWriter(new StringWriter());
+
+        try (GlobalAnalysisListener listener = renderer.newListener()) {
+            for (int i = 0; i < 1000; i++) {
+                try (FileAnalysisListener ignored = listener.startFileAnalysis(dummyFile("file" + i))) {
+                    // no violations
+                }
+            }
+        }
+
+        // one report per file, plus the report with configuration errors
+        assertEquals(1001, renderer.renderingThreads.size());
+        assertEquals(Collections.singleton(renderer.renderingThreads.get(0)), new HashSet<>(renderer.renderingThreads));
+        assertNotEquals(Thread.currentThread().getName(), renderer.renderingThreads.get(0));
+    }
+
+    @Test
+    void testRenderingExceptionIsRethrownOnClose() throws Exception {
+        IOException failure = new IOException("disk full");
+        RecordingRenderer renderer = new RecordingRenderer(failure);
+        renderer.setWriter(new StringWriter());
+
+        GlobalAnalysisListener listener = renderer.newListener();
+        for (int i = 0; i < 1000; i++) {
+            // the queue keeps being drained, so this never blocks
+            try (FileAnalysisListener ignored = listener.startFileAnalysis(dummyFile("file" + i))) {
+                // no violations
+            }
+        }
+        Exception thrown = assertThrows(Exception.class, listener::close);
+        assertSame(failure, thrown);
+        // the output is ended anyway
+        assertTrue(renderer.ended);
+    }
+
+    @Test
+    void testInterruptedRenderingThreadKeepsDraining() throws Exception {
+        RecordingRenderer renderer = new RecordingRenderer(null) {
+            @Override
+            public void renderFileReport(Report report) throws IOException {
+                super.renderFileReport(report);
+                Thread.currentThread().interrupt();
+            }
+        };
+        renderer.setWriter(new StringWriter());
+
+        try (GlobalAnalysisListener listener = renderer.newListener()) {
+            for (int i = 0; i < 1000; i++) {
+                // more reports than the capacity of the queue
+                try (FileAnalysisListener ignored = listener.startFileAnalysis(dummyFile("file" + i))) {
+                    // no violations
+                }
+            }
+        }
+
+        assertEquals(1001, renderer.renderingThreads.size());
+    }
+
+    private static TextFile dummyFile(String name) {
+        return TextFile.forCharSeq("text", FileId.fromPathLikeString(name), DummyLanguageModule.getInstance().getDefaultVersion());
+    }
+
+    private static class RecordingRenderer extends AbstractIncrementingRenderer {
+
+        private final List<String> renderingThreads = new ArrayList<>();
+        private final IOException failure;
+        private boolean ended;
+
+        RecordingRenderer(IOException failure) {
+            super("recording", "Test renderer");
+            this.failure = failure;
+        }
+
+        @Override
+        public String defaultFileExtension() {
+            return "txt";
+        }
+
+        @Override
+        public void renderFileReport(Report report) throws IOException {
+            renderingThreads.add(Thread.currentThread().getName());
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        @Override
+        public void renderFileViolations(Iterator<RuleViolation> violations) {
+            // not used
+        }
+
+        @Override
+        public void end() throws IOException {
+            super.end();
+            ended = true;
+        }
+    }
+}
@@ -5,8 +5,12 @@
 package net.sourceforge.pmd.renderers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 import org.junit.jupiter.api.Test;
@@ -98,6 +102,29 @@ class SarifRendererTest extends AbstractRendererTest {
         assertEquals(filter(readFile("expected-multiple-locations.sarif.json")), filter(actual));
     }
 
+    @Test
+    void testResultsAreWrittenBeforeEnd() throws Exception {
+        Rule fooRule = createFooRule();
+        StringWriter out = new StringWriter();
+        SarifRenderer renderer = new SarifRenderer();
+        renderer.setWriter(out);
+        renderer.start();
+        renderer.renderFileViolations(Arrays.asList(newRuleViolation(1, 1, 1, 10, fooRule),
+                                                    newRuleViolation(5, 1, 5, 11, fooRule)).iterator());
+        renderer.getWriter().flush();
+
+        String partial = out.toString();
+        assertTrue(partial.contains("\"startLine\": 5"), "Results should be written as they are rendered");
+        assertFalse(partial.contains("\"tool\""), "The rule table is written at the end");
+
+        renderer.end();
+        renderer.flush();
+        JsonObject json = new Gson().fromJson(out.toString(), JsonObject.class);
+        JsonObject run = json.getAsJsonArray("runs").get(0).getAsJsonObject();
+        assertEquals(2, run.getAsJsonArray("results").size());
+        assertEquals(1, run.getAsJsonObject("tool").getAsJsonObject("driver").getAsJsonArray("rules").size());
+    }
+
     private Consumer<FileAnalysisListener> reportThreeViolationsTwoRules() {
         Rule fooRule = createFooRule();
         Rule booRule = createBooRule();
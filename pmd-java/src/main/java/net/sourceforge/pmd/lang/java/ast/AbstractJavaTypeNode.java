@@ -46,20 +46,27 @@ abstract class AbstractJavaTypeNode extends AbstractJavaNode implements TypeNode
         }
 
         LazyTypeResolver resolver = getRoot().getLazyTypeResolver();
-        JTypeMirror result;
-        try {
-            result = this.acceptVisitor(resolver, context);
-            assert result != null : "LazyTypeResolver returned null";
-        } catch (RuntimeException e) {
-            throw AssertionUtil.contexted(e).addContextValue("Resolving type of", this);
-        } catch (AssertionError e) {
-            throw AssertionUtil.contexted(e).addContextValue("Resolving type of", this);
+        // inference is not thread-safe, and rules may be applied on the file by several threads
+        synchronized (resolver) {
+            if (context.isEmpty() && typeMirror != null) {
+                return typeMirror;
+            }
+
+            JTypeMirror result;
+            try {
+                result = this.acceptVisitor(resolver, context);
+                assert result != null : "LazyTypeResolver returned null";
+            } catch (RuntimeException e) {
+                throw AssertionUtil.contexted(e).addContextValue("Resolving type of", this);
+            } catch (AssertionError e) {
+                throw AssertionUtil.contexted(e).addContextValue("Resolving type of", this);
+            }
+
+            if (context.isEmpty() && typeMirror == null) {
+                typeMirror = result; // cache it
+            }
+            return result;
         }
-
-        if (context.isEmpty() && typeMirror == null) {
-            typeMirror = result; // cache it
-        }
-        return result;
     }
 
     JTypeMirror getTypeMirrorInternal() {
@@ -10,6 +10,7 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 import net.sourceforge.pmd.annotation.InternalApi;
 import net.sourceforge.pmd.lang.ast.NodeStream;
 import net.sourceforge.pmd.lang.ast.impl.javacc.JavaccTokenDocument;
+import net.sourceforge.pmd.lang.impl.AnalysisWatchdog;
 import net.sourceforge.pmd.lang.java.ast.ASTAssignableExpr.ASTNamedReferenceExpr;
 import net.sourceforge.pmd.lang.java.internal.JavaAstProcessor;
 import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
@@ -88,6 +89,8 @@ public final class InternalApiBridge {
                 try {
                     it.getTypeMirror();
                 } catch (Exception e) {
+                    // don't swallow a timeout
+                    AnalysisWatchdog.checkpoint();
                     processor.getLogger().warning(it, "Error during type resolution of node " + it.getXPathNodeName());
                 }
             });
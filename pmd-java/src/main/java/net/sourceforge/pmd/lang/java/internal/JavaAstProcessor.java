@@ -6,13 +6,18 @@ package net.sourceforge.pmd.lang.java.internal;
 
 import static net.sourceforge.pmd.lang.java.symbols.table.internal.JavaSemanticErrors.CANNOT_RESOLVE_SYMBOL;
 
+import java.util.HashSet;
+import java.util.Set;
+
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import net.sourceforge.pmd.benchmark.TimeTracker;
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.lang.ast.NodeStream;
 import net.sourceforge.pmd.lang.ast.SemanticErrorReporter;
 import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
 import net.sourceforge.pmd.lang.java.ast.InternalApiBridge;
 import net.sourceforge.pmd.lang.java.ast.JavaNode;
 import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
@@ -42,6 +47,7 @@ public final class JavaAstProcessor {
     private final SemanticErrorReporter logger;
 
     private SymbolResolver symResolver;
+    private final RecordingSymbolResolver externalSymbols;
 
     private final UnresolvedClassStore unresolvedTypes;
     private final ASTCompilationUnit acu;
@@ -52,7 +58,8 @@ public final class JavaAstProcessor {
                              TypeInferenceLogger typeInfLogger,
                              ASTCompilationUnit acu) {
 
-        this.symResolver = globalProc.getTypeSystem().bootstrapResolver();
+        this.externalSymbols = new RecordingSymbolResolver(globalProc.getTypeSystem().bootstrapResolver());
+        this.symResolver = externalSymbols;
         this.globalProc = globalProc;
         this.logger = logger;
         this.typeInferenceLogger = typeInfLogger;
@@ -119,6 +126,8 @@ public final class JavaAstProcessor {
      * Performs semantic analysis on the given source file.
      */
     public void process() {
+        // start loading the classes we'll most likely need
+        globalProc.getSymbolPrefetcher().prefetchDependencies(getTypeSystem(), acu);
 
         SymbolResolver knownSyms = TimeTracker.bench("Symbol resolution", () -> SymbolResolutionPass.traverse(this, acu));
 
@@ -141,6 +150,20 @@ public final class JavaAstProcessor {
         return globalProc.getTypeSystem();
     }
 
+    /**
+     * Returns the types declared in the file, and the classes it looked
+     * up on the classpath so far, with their supertypes.
+     */
+    public FileDependencies getFileDependencies() {
+        Set<String> declaredTypes = new HashSet<>();
+        for (ASTTypeDeclaration decl : acu.descendants(ASTTypeDeclaration.class).crossFindBoundaries()) {
+            if (!decl.isLocal() && !decl.isAnonymous()) {
+                declaredTypes.add(decl.getBinaryName());
+            }
+        }
+        return FileDependencies.create(declaredTypes, externalSymbols.getDependencies());
+    }
+
 
     public static void process(JavaLanguageProcessor globalProcessor,
                                           SemanticErrorReporter semanticErrorReporter,
@@ -6,15 +6,22 @@ package net.sourceforge.pmd.lang.java.internal;
 
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import net.sourceforge.pmd.cache.FileDependencies;
 import net.sourceforge.pmd.lang.LanguageVersionHandler;
 import net.sourceforge.pmd.lang.ast.Parser;
+import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.impl.AnalysisWatchdog;
 import net.sourceforge.pmd.lang.impl.BatchLanguageProcessor;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.InternalApiBridge;
 import net.sourceforge.pmd.lang.java.ast.JavaParser;
+import net.sourceforge.pmd.lang.java.ast.TypeNode;
 import net.sourceforge.pmd.lang.java.internal.JavaLanguageProperties.InferenceLoggingVerbosity;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.BaseContextNodeTestFun;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.GetCommentOnFunction;
@@ -22,11 +29,13 @@ import net.sourceforge.pmd.lang.java.rule.xpath.internal.GetModifiersFun;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.MatchesSignatureFunction;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.MetricFunction;
 import net.sourceforge.pmd.lang.java.rule.xpath.internal.NodeIsFunction;
+import net.sourceforge.pmd.lang.java.symbols.internal.asm.Classpath;
 import net.sourceforge.pmd.lang.java.types.TypeSystem;
 import net.sourceforge.pmd.lang.java.types.internal.infer.TypeInferenceLogger;
 import net.sourceforge.pmd.lang.java.types.internal.infer.TypeInferenceLogger.SimpleLogger;
 import net.sourceforge.pmd.lang.java.types.internal.infer.TypeInferenceLogger.VerboseLogger;
 import net.sourceforge.pmd.lang.metrics.LanguageMetricsProvider;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathFunctionDefinition;
 import net.sourceforge.pmd.lang.rule.xpath.impl.XPathHandler;
 import net.sourceforge.pmd.reporting.ViolationDecorator;
 import net.sourceforge.pmd.reporting.ViolationSuppressor;
@@ -43,6 +52,7 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
     private final LanguageMetricsProvider myMetricsProvider = new JavaMetricsProvider();
     private final JavaParser parser;
     private final JavaParser parserWithoutProcessing;
+    private final SymbolPrefetcher symbolPrefetcher = new SymbolPrefetcher();
     private TypeSystem typeSystem;
 
     public JavaLanguageProcessor(JavaLanguageProperties properties, TypeSystem typeSystem) {
@@ -55,7 +65,8 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
     }
 
     public JavaLanguageProcessor(JavaLanguageProperties properties) {
-        this(properties, TypeSystem.usingClassLoaderClasspath(properties.getAnalysisClassLoader()));
+        this(properties, TypeSystem.usingClasspath(Classpath.forClassLoader(properties.getAnalysisClassLoader()),
+                                                   properties.getProperty(JavaLanguageProperties.INTERNAL_INTERN_PARAMETERIZED_TYPES)));
         LOG.debug("Using analysis classloader: {}", properties.getAnalysisClassLoader());
     }
 
@@ -77,6 +88,10 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
         return typeSystem;
     }
 
+    SymbolPrefetcher getSymbolPrefetcher() {
+        return symbolPrefetcher;
+    }
+
     TypeInferenceLogger newTypeInfLogger() {
         InferenceLoggingVerbosity verbosity = getProperties().getProperty(JavaLanguageProperties.INTERNAL_INFERENCE_LOGGING_VERBOSITY);
         if (verbosity == InferenceLoggingVerbosity.VERBOSE) {
@@ -113,7 +128,29 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
         return myMetricsProvider;
     }
 
-    private static final XPathHandler XPATH_HANDLER =
+    @Override
+    public boolean prepareForConcurrentRules(RootNode root) {
+        // Types, overloads, and the symbols of references are resolved lazily.
+        // Resolve them now so that rules don't race to publish them. What is
+        // still computed lazily (types in a specific context, symbol lookups,
+        // the dataflow pass) is synchronized.
+        for (TypeNode node : root.descendants(TypeNode.class).crossFindBoundaries()) {
+            try {
+                node.getTypeMirror();
+            } catch (RuntimeException e) {
+                // the rules that need this type will report it
+                AnalysisWatchdog.checkpoint();
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public FileDependencies getFileDependencies(RootNode root) {
+        return InternalApiBridge.getProcessor((ASTCompilationUnit) root).getFileDependencies();
+    }
+
+    private static final Set<XPathFunctionDefinition> XPATH_FUNCTIONS =
         XPathHandler.getHandlerForFunctionDefs(
             BaseContextNodeTestFun.TYPE_IS_EXACTLY,
             BaseContextNodeTestFun.TYPE_IS,
@@ -124,7 +161,20 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
             GetModifiersFun.GET_EXPLICIT,
             MetricFunction.INSTANCE,
             GetCommentOnFunction.INSTANCE
-        );
+        ).getRegisteredExtensionFunctions();
+
+    private static final XPathHandler XPATH_HANDLER = new XPathHandler() {
+        @Override
+        public Set<XPathFunctionDefinition> getRegisteredExtensionFunctions() {
+            return XPATH_FUNCTIONS;
+        }
+
+        @Override
+        public boolean supportsCompiledExpressions() {
+            // checked on the bundled rules by CompiledXPathConformanceTest
+            return true;
+        }
+    };
 
     public void setTypeSystem(TypeSystem ts) {
         this.typeSystem = Objects.requireNonNull(ts);
@@ -132,6 +182,7 @@ public class JavaLanguageProcessor extends BatchLanguageProcessor<JavaLanguagePr
 
     @Override
     public void close() throws Exception {
+        this.symbolPrefetcher.close();
         this.typeSystem.logStats();
         super.close();
     }
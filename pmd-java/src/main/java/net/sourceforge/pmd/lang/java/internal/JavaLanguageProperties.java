@@ -25,9 +25,16 @@ public class JavaLanguageProperties extends JvmLanguagePropertyBundle {
                        .defaultValue(InferenceLoggingVerbosity.DISABLED)
                        .build();
 
+    static final PropertyDescriptor<Boolean> INTERNAL_INTERN_PARAMETERIZED_TYPES =
+        PropertyFactory.booleanProperty("xInternParameterizedTypes")
+                       .desc("Whether equal parameterized types like List<String> should share a single instance in the type system")
+                       .defaultValue(false)
+                       .build();
+
     public JavaLanguageProperties() {
         super(JavaLanguageModule.getInstance());
         definePropertyDescriptor(INTERNAL_INFERENCE_LOGGING_VERBOSITY);
+        definePropertyDescriptor(INTERNAL_INTERN_PARAMETERIZED_TYPES);
         definePropertyDescriptor(CpdLanguageProperties.CPD_IGNORE_METADATA);
         definePropertyDescriptor(CpdLanguageProperties.CPD_ANONYMIZE_IDENTIFIERS);
         definePropertyDescriptor(CpdLanguageProperties.CPD_ANONYMIZE_LITERALS);
@@ -0,0 +1,78 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
+import net.sourceforge.pmd.lang.java.symbols.SymbolResolver;
+
+/**
+ * Records the names of the classes that a file looks up on the classpath.
+ * These are the external dependencies of the file, which the analysis cache
+ * uses to analyse the file again when one of them changes. Lookups that
+ * fail are recorded too, as the class may be added to the classpath later.
+ *
+ * <p>Lookups may be performed concurrently, if the rules are applied
+ * by several threads.
+ */
+final class RecordingSymbolResolver implements SymbolResolver {
+
+    private final SymbolResolver delegate;
+    private final Set<String> requestedNames = ConcurrentHashMap.newKeySet();
+    private final Set<JClassSymbol> resolved = ConcurrentHashMap.newKeySet();
+
+    RecordingSymbolResolver(SymbolResolver delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public @Nullable JClassSymbol resolveClassFromBinaryName(@NonNull String binaryName) {
+        requestedNames.add(binaryName);
+        JClassSymbol symbol = delegate.resolveClassFromBinaryName(binaryName);
+        if (symbol != null) {
+            resolved.add(symbol);
+        }
+        return symbol;
+    }
+
+    /**
+     * Returns the binary names of the classes that were looked up, and
+     * of the supertypes of those that were found, as they also affect
+     * the analysis of the file.
+     */
+    Set<String> getDependencies() {
+        Set<String> dependencies = new HashSet<>(requestedNames);
+        Set<JClassSymbol> visited = new HashSet<>(resolved);
+        Deque<JClassSymbol> toVisit = new ArrayDeque<>(resolved);
+        while (!toVisit.isEmpty()) {
+            JClassSymbol symbol = toVisit.pop();
+            dependencies.add(symbol.getBinaryName());
+
+            JClassSymbol superclass = symbol.getSuperclass();
+            if (superclass != null && visited.add(superclass)) {
+                toVisit.push(superclass);
+            }
+            for (JClassSymbol itf : symbol.getSuperInterfaces()) {
+                if (visited.add(itf)) {
+                    toVisit.push(itf);
+                }
+            }
+        }
+        return dependencies;
+    }
+
+    @Override
+    public void logStats() {
+        delegate.logStats();
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.internal;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.sourceforge.pmd.lang.java.ast.ASTAmbiguousName;
+import net.sourceforge.pmd.lang.java.ast.ASTClassDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTClassType;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.ASTImportDeclaration;
+import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
+import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
+import net.sourceforge.pmd.lang.java.types.TypeSystem;
+
+/**
+ * Loads the classes a compilation unit depends on in the background.
+ * Class files are otherwise only read and parsed the first time that
+ * symbol or type resolution needs them, so the analysis thread blocks
+ * on IO in the middle of the analysis. Since the imports and supertypes
+ * of a file are known right after parsing, we can start loading them
+ * before the semantic passes run. Classes are parsed under the same
+ * lock as when they're loaded on demand, so the analysis thread either
+ * finds them parsed, or waits for the parse in progress to finish.
+ *
+ * <p>The supertypes of loaded classes are loaded as well. Each name
+ * is only submitted once per processor.
+ */
+final class SymbolPrefetcher implements AutoCloseable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SymbolPrefetcher.class);
+
+    private static final int NUM_THREADS = 2;
+
+    private final Set<String> submitted = ConcurrentHashMap.newKeySet();
+    private final ThreadPoolExecutor executor;
+
+    private final Object pendingLock = new Object();
+    // number of names submitted and not loaded yet, guarded by pendingLock
+    private int pending;
+
+    SymbolPrefetcher() {
+        AtomicInteger counter = new AtomicInteger();
+        executor = new ThreadPoolExecutor(NUM_THREADS, NUM_THREADS, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "PmdSymbolPrefetcher " + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // no threads linger while no files are being analyzed
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submits the types imported by the compilation unit, and the
+     * supertypes of its top-level types. This must be called before
+     * disambiguation, which changes the shape of type nodes.
+     */
+    void prefetchDependencies(TypeSystem ts, ASTCompilationUnit acu) {
+        Set<String> importedSimpleNames = new HashSet<>();
+        for (ASTImportDeclaration importDecl : acu.children(ASTImportDeclaration.class)) {
+            if (importDecl.isStatic()) {
+                // the package name of a static import is the name of the type
+                prefetch(ts, importDecl.isImportOnDemand() ? importDecl.getImportedName() : importDecl.getPackageName());
+            } else if (!importDecl.isImportOnDemand()) {
+                importedSimpleNames.add(importDecl.getImportedSimpleName());
+                prefetch(ts, importDecl.getImportedName());
+            }
+        }
+
+        String packagePrefix = acu.getPackageName().isEmpty() ? "" : acu.getPackageName() + ".";
+        for (ASTTypeDeclaration typeDecl : acu.getTypeDeclarations()) {
+            if (typeDecl instanceof ASTClassDeclaration) {
+                prefetchSupertype(ts, ((ASTClassDeclaration) typeDecl).getSuperClassTypeNode(), packagePrefix, importedSimpleNames);
+            }
+            for (ASTClassType itf : typeDecl.getSuperInterfaceTypeNodes()) {
+                prefetchSupertype(ts, itf, packagePrefix, importedSimpleNames);
+            }
+        }
+    }
+
+    private void prefetchSupertype(TypeSystem ts, @Nullable ASTClassType type, String packagePrefix, Set<String> importedSimpleNames) {
+        // qualified names are not disambiguated yet, and imported names have been submitted already
+        if (type == null
+            || type.getQualifier() != null
+            || type.firstChild(ASTAmbiguousName.class) != null
+            || importedSimpleNames.contains(type.getSimpleName())) {
+            return;
+        }
+        // otherwise this is most likely a type of the same package
+        prefetch(ts, packagePrefix + type.getSimpleName());
+    }
+
+    private void prefetch(TypeSystem ts, @Nullable String canonicalName) {
+        if (canonicalName == null || canonicalName.isEmpty() || !submitted.add(canonicalName)) {
+            return;
+        }
+        synchronized (pendingLock) {
+            pending++;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    load(ts, canonicalName);
+                } finally {
+                    loadDone();
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
+            // shut down
+            loadDone();
+        }
+    }
+
+    private void loadDone() {
+        synchronized (pendingLock) {
+            if (--pending == 0) {
+                pendingLock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Waits until all submitted names, and the supertypes they lead to,
+     * have been loaded. Returns false if the timeout elapsed before.
+     */
+    boolean awaitIdle(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (pendingLock) {
+            while (pending > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(pendingLock, remaining);
+            }
+            return true;
+        }
+    }
+
+    private void load(TypeSystem ts, String canonicalName) {
+        try {
+            JClassSymbol symbol = ts.getClassSymbolFromCanonicalName(canonicalName);
+            if (symbol == null) {
+                return;
+            }
+            // querying the supertypes parses the class file
+            JClassSymbol superclass = symbol.getSuperclass();
+            if (superclass != null) {
+                prefetch(ts, superclass.getCanonicalName());
+            }
+            for (JClassSymbol itf : symbol.getSuperInterfaces()) {
+                prefetch(ts, itf.getCanonicalName());
+            }
+        } catch (RuntimeException e) {
+            // the analysis thread will run into the same problem and report it
+            LOG.debug("Could not prefetch class {}", canonicalName, e);
+        }
+    }
+
+    /**
+     * Stops loading classes. This waits for classes being loaded, so
+     * that the classpath can be closed afterwards.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -31,6 +31,18 @@ public abstract class AbstractJavaRulechainRule extends AbstractJavaRule {
         selector = RuleTargetSelector.forTypes(first, visits);
     }
 
+    /**
+     * Specify the selector of the nodes to visit, for instance one of
+     * the {@link JavaRuleTargetSelectors}.
+     *
+     * @param selector Target selector
+     *
+     * @since 7.5.0
+     */
+    protected AbstractJavaRulechainRule(RuleTargetSelector selector) {
+        this.selector = selector;
+    }
+
     @Override
     protected final @NonNull RuleTargetSelector buildTargetSelector() {
         return selector;
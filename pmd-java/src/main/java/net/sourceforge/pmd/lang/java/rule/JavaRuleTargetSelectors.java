@@ -0,0 +1,64 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.rule;
+
+import net.sourceforge.pmd.annotation.Experimental;
+import net.sourceforge.pmd.lang.java.ast.ASTClassType;
+import net.sourceforge.pmd.lang.java.ast.InvocationNode;
+import net.sourceforge.pmd.lang.rule.NodeIndexKey;
+import net.sourceforge.pmd.lang.rule.RuleTargetSelector;
+import net.sourceforge.pmd.util.CollectionUtil;
+
+/**
+ * Java-specific {@linkplain RuleTargetSelector target selectors}, which
+ * use per-file indexes to visit only the nodes with a given name.
+ *
+ * @since 7.5.0
+ */
+@Experimental
+public final class JavaRuleTargetSelectors {
+
+    /**
+     * Indexes invocations by the name of the invoked method. Constructor
+     * calls are indexed under {@code "new"}.
+     */
+    public static final NodeIndexKey<InvocationNode> INVOCATION_NAME =
+        NodeIndexKey.create("invocationName", InvocationNode.class, InvocationNode::getMethodName);
+
+    /**
+     * Indexes class types by their simple name, as written in the source,
+     * that is, without type arguments nor qualifier.
+     */
+    public static final NodeIndexKey<ASTClassType> CLASS_TYPE_NAME =
+        NodeIndexKey.create("classTypeName", ASTClassType.class, ASTClassType::getSimpleName);
+
+    private JavaRuleTargetSelectors() {
+        // utility class
+    }
+
+    /**
+     * Target the invocations of methods with one of the given names.
+     *
+     * @param first The first name
+     * @param names The rest
+     *
+     * @return A selector
+     */
+    public static RuleTargetSelector forInvocationsNamed(String first, String... names) {
+        return RuleTargetSelector.forIndexKey(INVOCATION_NAME, CollectionUtil.listOf(first, names));
+    }
+
+    /**
+     * Target the class types with one of the given simple names.
+     *
+     * @param first The first name
+     * @param names The rest
+     *
+     * @return A selector
+     */
+    public static RuleTargetSelector forClassTypesNamed(String first, String... names) {
+        return RuleTargetSelector.forIndexKey(CLASS_TYPE_NAME, CollectionUtil.listOf(first, names));
+    }
+}
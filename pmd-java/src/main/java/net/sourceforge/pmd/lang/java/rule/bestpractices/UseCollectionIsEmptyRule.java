@@ -9,6 +9,7 @@ import java.util.Map;
 
 import net.sourceforge.pmd.lang.java.ast.ASTMethodCall;
 import net.sourceforge.pmd.lang.java.rule.AbstractJavaRulechainRule;
+import net.sourceforge.pmd.lang.java.rule.JavaRuleTargetSelectors;
 import net.sourceforge.pmd.lang.java.rule.internal.JavaRuleUtil;
 import net.sourceforge.pmd.lang.java.types.TypeTestUtil;
 
@@ -21,7 +22,7 @@ import net.sourceforge.pmd.lang.java.types.TypeTestUtil;
 public class UseCollectionIsEmptyRule extends AbstractJavaRulechainRule {
 
     public UseCollectionIsEmptyRule() {
-        super(ASTMethodCall.class);
+        super(JavaRuleTargetSelectors.forInvocationsNamed("size"));
     }
 
     @Override
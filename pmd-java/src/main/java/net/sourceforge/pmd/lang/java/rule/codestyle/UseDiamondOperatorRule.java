@@ -95,8 +95,15 @@ public class UseDiamondOperatorRule extends AbstractJavaRulechainRule {
     }
 
 
-    /** Redo inference as described in the javadoc of this class. */
     private static boolean inferenceSucceedsWithoutTypeArgs(ASTConstructorCall call) {
+        // the inference entry point belongs to the file, whose rules may be applied by several threads
+        synchronized (InternalApiBridge.getLazyTypeResolver(call)) {
+            return redoInferenceWithoutTypeArgs(call);
+        }
+    }
+
+    /** Redo inference as described in the javadoc of this class. */
+    private static boolean redoInferenceWithoutTypeArgs(ASTConstructorCall call) {
         ExprContext context = call.getConversionContext();
         if (context.isMissing()) {
             return false;
@@ -7,6 +7,7 @@ package net.sourceforge.pmd.lang.java.rule.errorprone;
 import net.sourceforge.pmd.lang.java.ast.ASTExpressionStatement;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodCall;
 import net.sourceforge.pmd.lang.java.rule.AbstractJavaRulechainRule;
+import net.sourceforge.pmd.lang.java.rule.JavaRuleTargetSelectors;
 import net.sourceforge.pmd.lang.java.types.InvocationMatcher;
 
 public class CheckSkipResultRule extends AbstractJavaRulechainRule {
@@ -14,7 +15,7 @@ public class CheckSkipResultRule extends AbstractJavaRulechainRule {
     private static final InvocationMatcher SKIP_METHOD = InvocationMatcher.parse("java.io.InputStream#skip(_*)");
 
     public CheckSkipResultRule() {
-        super(ASTMethodCall.class);
+        super(JavaRuleTargetSelectors.forInvocationsNamed("skip"));
     }
 
     @Override
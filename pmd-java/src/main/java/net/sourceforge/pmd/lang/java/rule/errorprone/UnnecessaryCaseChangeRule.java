@@ -11,6 +11,7 @@ import java.util.List;
 import net.sourceforge.pmd.lang.java.ast.ASTExpression;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodCall;
 import net.sourceforge.pmd.lang.java.rule.AbstractJavaRulechainRule;
+import net.sourceforge.pmd.lang.java.rule.JavaRuleTargetSelectors;
 
 public class UnnecessaryCaseChangeRule extends AbstractJavaRulechainRule {
 
@@ -18,7 +19,7 @@ public class UnnecessaryCaseChangeRule extends AbstractJavaRulechainRule {
     private static final List<String> EQUALITY_METHODS = asList("equals", "equalsIgnoreCase");
 
     public UnnecessaryCaseChangeRule() {
-        super(ASTMethodCall.class);
+        super(JavaRuleTargetSelectors.forInvocationsNamed("equals", "equalsIgnoreCase"));
     }
 
     @Override
@@ -8,6 +8,7 @@ import net.sourceforge.pmd.lang.java.ast.ASTExpression;
 import net.sourceforge.pmd.lang.java.ast.ASTMethodCall;
 import net.sourceforge.pmd.lang.java.ast.ASTStringLiteral;
 import net.sourceforge.pmd.lang.java.rule.AbstractJavaRulechainRule;
+import net.sourceforge.pmd.lang.java.rule.JavaRuleTargetSelectors;
 import net.sourceforge.pmd.lang.java.types.TypeTestUtil;
 
 /**
@@ -16,7 +17,7 @@ import net.sourceforge.pmd.lang.java.types.TypeTestUtil;
 public class UseIndexOfCharRule extends AbstractJavaRulechainRule {
 
     public UseIndexOfCharRule() {
-        super(ASTMethodCall.class);
+        super(JavaRuleTargetSelectors.forInvocationsNamed("indexOf", "lastIndexOf"));
     }
 
     @Override
@@ -0,0 +1,90 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.rule.xpath.internal;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import net.sourceforge.pmd.lang.java.ast.TypeNode;
+import net.sourceforge.pmd.lang.java.rule.xpath.internal.TypeIsFunction.TypeName;
+import net.sourceforge.pmd.lang.java.types.InternalApiBridge;
+import net.sourceforge.pmd.lang.java.types.JTypeMirror;
+import net.sourceforge.pmd.lang.java.types.TypeSystem;
+import net.sourceforge.pmd.lang.java.types.TypeTestUtil;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathFunctionException;
+import net.sourceforge.pmd.util.AssertionUtil;
+
+/**
+ * XPath function {@code pmd-java:typeIs(typeName as xs:string) as xs:boolean}.
+ *
+ * <p>Example XPath 2.0: {@code //ClassType[pmd-java:typeIs('java.lang.String')]}
+ *
+ * <p>Returns true if the type of the node is a subtype of the named type,
+ * false otherwise. If the name is a string literal, the type is loaded
+ * only once per type system.
+ */
+final class TypeIsFunction extends BaseRewrittenFunction<TypeName, TypeNode> {
+
+    static final TypeIsFunction INSTANCE = new TypeIsFunction();
+
+    private TypeIsFunction() {
+        super("typeIs", TypeNode.class);
+    }
+
+    @Override
+    protected TypeName parseArgument(String arg) throws XPathFunctionException {
+        try {
+            AssertionUtil.assertValidJavaBinaryName(arg);
+        } catch (IllegalArgumentException e) {
+            throw new XPathFunctionException(e.getMessage(), e);
+        }
+        return new TypeName(arg);
+    }
+
+    @Override
+    protected boolean matches(TypeNode contextNode, String arg, TypeName parsedArg, boolean isConstant) {
+        if (!isConstant) {
+            return TypeTestUtil.isA(arg, contextNode);
+        }
+        JTypeMirror type = parsedArg.getType(contextNode.getTypeSystem());
+        if (type == null) {
+            // not on the classpath, the type test may use a placeholder type
+            return TypeTestUtil.isA(arg, contextNode);
+        }
+        return InternalApiBridge.isAPreloaded(arg, type, contextNode);
+    }
+
+    /**
+     * A type name, and its type in the last type system it was loaded in.
+     */
+    static final class TypeName {
+
+        private final String name;
+        private volatile @Nullable LoadedType loaded;
+
+        TypeName(String name) {
+            this.name = name;
+        }
+
+        @Nullable JTypeMirror getType(TypeSystem ts) {
+            LoadedType loaded = this.loaded;
+            if (loaded == null || loaded.ts != ts) {
+                loaded = new LoadedType(ts, InternalApiBridge.getTypeFromCanonicalName(ts, name));
+                this.loaded = loaded;
+            }
+            return loaded.type;
+        }
+    }
+
+    private static final class LoadedType {
+
+        final TypeSystem ts;
+        final @Nullable JTypeMirror type;
+
+        LoadedType(TypeSystem ts, @Nullable JTypeMirror type) {
+            this.ts = ts;
+            this.type = type;
+        }
+    }
+}
@@ -14,6 +14,11 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 
 import net.sourceforge.pmd.util.OptionalBool;
 
+/**
+ * A shadow chain node that caches the results of lookups. The caches
+ * are guarded by this node, as the rules applied on a file may look up
+ * symbols from several threads.
+ */
 class CachingShadowChainNode<S, I> extends ShadowChainNodeBase<S, I> {
 
     private final Map<String, List<S>> cache;
@@ -34,7 +39,7 @@ class CachingShadowChainNode<S, I> extends ShadowChainNodeBase<S, I> {
     }
 
     @Override
-    public @NonNull List<S> resolve(String name) {
+    public synchronized @NonNull List<S> resolve(String name) {
         List<S> result = cache.get(name);
         if (result != null) {
             return result;
@@ -45,12 +50,12 @@ class CachingShadowChainNode<S, I> extends ShadowChainNodeBase<S, I> {
     }
 
     @Override
-    protected void handleResolverKnows(String name, boolean resolverKnows) {
+    protected synchronized void handleResolverKnows(String name, boolean resolverKnows) {
         keysThatIKnow.putIfAbsent(name, OptionalBool.definitely(resolverKnows));
     }
 
     @Override
-    public S resolveFirst(String name) {
+    public synchronized S resolveFirst(String name) {
         List<S> result = cache.get(name);
         if (result != null && !result.isEmpty()) {
             return result.get(0);
@@ -66,7 +71,7 @@ class CachingShadowChainNode<S, I> extends ShadowChainNodeBase<S, I> {
     }
 
     @Override
-    public OptionalBool knowsSymbol(String simpleName) {
+    public synchronized OptionalBool knowsSymbol(String simpleName) {
         OptionalBool resolverKnows = resolver.knows(simpleName);
         if (resolverKnows.isKnown()) {
             return resolverKnows;
@@ -0,0 +1,152 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.types;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Weak, concurrent hash-consing table for ground parameterized class
+ * types, eg {@code List<String>} or {@code Map<String, ? extends Number>}.
+ * Equal parameterizations share a single instance, so that their lazily
+ * computed supertypes and {@linkplain JClassType#getTypeParamSubst() substitution}
+ * are computed only once per type system.
+ *
+ * <p>Only types that are not mentioning any type variable, inference
+ * variable or type annotation are interned. For those, equality as
+ * defined by {@link TypeOps#isSameType(JTypeMirror, JTypeMirror)} is
+ * purely structural and consistent with {@link Object#hashCode()}.
+ *
+ * <p>Entries are weakly referenced: an interned type that is not
+ * reachable from anywhere else may be collected.
+ */
+final class ClassTypeInterner {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClassTypeInterner.class);
+
+    private final ConcurrentMap<WeakKey, WeakKey> table = new ConcurrentHashMap<>();
+    private final ReferenceQueue<JClassType> staleKeys = new ReferenceQueue<>();
+
+    private final AtomicLong numQueries = new AtomicLong();
+    private final AtomicLong numHits = new AtomicLong();
+
+    /**
+     * Returns the canonical instance that is equal to the given type.
+     * If the type cannot be interned, returns it unchanged.
+     */
+    JClassType intern(JClassType t) {
+        if (!isInternable(t)) {
+            return t;
+        }
+        expungeStaleEntries();
+        numQueries.incrementAndGet();
+
+        WeakKey key = new WeakKey(t, staleKeys);
+        while (true) {
+            WeakKey prev = table.putIfAbsent(key, key);
+            if (prev == null) {
+                return t;
+            }
+            JClassType shared = prev.get();
+            if (shared != null) {
+                numHits.incrementAndGet();
+                return shared;
+            }
+            // cleared concurrently, replace it
+            table.remove(prev, prev);
+        }
+    }
+
+    /** Number of live entries in the table (approximate). */
+    int size() {
+        expungeStaleEntries();
+        return table.size();
+    }
+
+    void logStats() {
+        LOG.trace("Interned {} distinct parameterized types, "
+                      + "{} of {} queries reused an existing instance.",
+                  size(), numHits.get(), numQueries.get());
+    }
+
+    private void expungeStaleEntries() {
+        Reference<? extends JClassType> ref;
+        while ((ref = staleKeys.poll()) != null) {
+            table.remove(ref, ref);
+        }
+    }
+
+    private static boolean isInternable(JClassType t) {
+        return t.isParameterizedType()
+            && t.getEnclosingType() == null
+            && t.getTypeAnnotations().isEmpty()
+            && !t.getSymbol().isUnresolved()
+            && t.getTypeArgs().stream().allMatch(ClassTypeInterner::isGround);
+    }
+
+    /**
+     * Ground types mention no type variable, no inference variable,
+     * and no type annotation.
+     */
+    static boolean isGround(JTypeMirror t) {
+        if (!t.getTypeAnnotations().isEmpty()) {
+            return false;
+        } else if (t instanceof JClassType) {
+            JClassType classType = (JClassType) t;
+            if (classType.getSymbol().isUnresolved() || classType.isGenericTypeDeclaration()) {
+                return false;
+            }
+            JClassType enclosing = classType.getEnclosingType();
+            return (enclosing == null || isGround(enclosing))
+                && (!classType.isParameterizedType()
+                    || classType.getTypeArgs().stream().allMatch(ClassTypeInterner::isGround));
+        } else if (t instanceof JWildcardType) {
+            return isGround(((JWildcardType) t).getBound());
+        } else if (t instanceof JArrayType) {
+            return isGround(((JArrayType) t).getComponentType());
+        }
+        // primitives, type vars, inference vars, intersections, sentinels
+        return false;
+    }
+
+    /**
+     * Weak key. Two keys are equal if they are the same reference, or
+     * if both referents are alive and represent the same type.
+     */
+    private static final class WeakKey extends WeakReference<JClassType> {
+
+        private final int hash;
+
+        WeakKey(JClassType referent, ReferenceQueue<JClassType> queue) {
+            super(referent, queue);
+            this.hash = referent.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof WeakKey) || ((WeakKey) o).hash != hash) {
+                return false;
+            }
+            JClassType mine = get();
+            JClassType theirs = ((WeakKey) o).get();
+            return mine != null && theirs != null && TypeOps.isSameType(mine, theirs);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -4,7 +4,10 @@
 
 package net.sourceforge.pmd.lang.java.types;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
+
 import net.sourceforge.pmd.annotation.InternalApi;
+import net.sourceforge.pmd.lang.java.ast.TypeNode;
 
 /**
  * Internal API.
@@ -24,4 +27,12 @@ public final class InternalApiBridge {
     public static boolean isSameTypeInInference(JTypeMirror t, JTypeMirror s) {
         return TypeOps.isSameTypeInInference(t, s);
     }
+
+    public static @Nullable JTypeMirror getTypeFromCanonicalName(TypeSystem ts, String canonicalName) {
+        return ts.getTypeFromCanonicalName(canonicalName);
+    }
+
+    public static boolean isAPreloaded(String canonicalName, @Nullable JTypeMirror loadedType, TypeNode node) {
+        return TypeTestUtil.isAPreloaded(canonicalName, loadedType, node);
+    }
 }
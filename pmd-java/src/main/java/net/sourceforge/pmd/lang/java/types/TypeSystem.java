@@ -15,7 +15,10 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.function.Function;
 
 import org.checkerframework.checker.nullness.qual.NonNull;
@@ -172,6 +175,13 @@ public final class TypeSystem {
 
     /** Contains special types, that must be shared to be comparable by reference. */
     private final Map<JTypeDeclSymbol, JTypeMirror> sharedTypes;
+    /** Hash-consing table for parameterized types, null if interning is disabled. */
+    private final @Nullable ClassTypeInterner interner;
+    /**
+     * Types loaded from their canonical name by {@link TypeTestUtil},
+     * empty if the name could not be resolved.
+     */
+    private final ConcurrentMap<String, Optional<JTypeMirror>> typesByCanonicalName = new ConcurrentHashMap<>();
     // test only
     final SymbolResolver resolver;
 
@@ -196,7 +206,22 @@ public final class TypeSystem {
      *                                system
      */
     public static TypeSystem usingClasspath(Classpath bootstrapResourceLoader) {
-        return new TypeSystem(ts -> new AsmSymbolResolver(ts, bootstrapResourceLoader));
+        return usingClasspath(bootstrapResourceLoader, false);
+    }
+
+    /**
+     * Builds a new type system. Its public fields will be initialized
+     * with fresh types, unrelated to other types.
+     *
+     * @param bootstrapResourceLoader  Classpath used to resolve class files
+     *                                 to populate the fields of the new type
+     *                                 system
+     * @param internParameterizedTypes Whether equal ground parameterized types
+     *                                 should share a single instance, see
+     *                                 {@link #TypeSystem(Function, boolean)}
+     */
+    public static TypeSystem usingClasspath(Classpath bootstrapResourceLoader, boolean internParameterizedTypes) {
+        return new TypeSystem(ts -> new AsmSymbolResolver(ts, bootstrapResourceLoader), internParameterizedTypes);
     }
 
     /**
@@ -215,6 +240,23 @@ public final class TypeSystem {
      *                         {@link #SERIALIZABLE}, {@link #BOXED_VOID}.
      */
     public TypeSystem(Function<TypeSystem, ? extends SymbolResolver> symResolverMaker) {
+        this(symResolverMaker, false);
+    }
+
+    /**
+     * Builds a new type system, optionally interning parameterized types.
+     * When interning is enabled, {@link #parameterise(JClassSymbol, List)}
+     * and {@link JClassType#withTypeArguments(List)} return a shared
+     * instance for equal ground parameterizations (types that mention
+     * no type variable and no type annotation, eg {@code List<String>}).
+     * Such types then compute their supertypes and substitution only once.
+     * The interning table is weak and thread-safe.
+     *
+     * @param symResolverMaker         See {@link #TypeSystem(Function)}
+     * @param internParameterizedTypes Whether to intern ground parameterized types
+     */
+    public TypeSystem(Function<TypeSystem, ? extends SymbolResolver> symResolverMaker, boolean internParameterizedTypes) {
+        this.interner = internParameterizedTypes ? new ClassTypeInterner() : null;
         this.resolver = symResolverMaker.apply(this); // leak the this
 
         // initialize primitives. their constructor also initializes their box + box erasure
@@ -379,6 +421,26 @@ public final class TypeSystem {
         return getClassSymbolImpl(canonicalName, true);
     }
 
+    /**
+     * Returns the raw type for the canonical name, which may also be
+     * an array type like {@code java.lang.String[]}. The result is cached,
+     * including when the name is not found on the classpath, in which
+     * case null is returned. This is used to speed up repeated type tests
+     * with the same class name, see {@link TypeTestUtil#isA(String, net.sourceforge.pmd.lang.java.ast.TypeNode)}.
+     *
+     * @throws IllegalArgumentException if the argument is not a binary name
+     */
+    @Nullable JTypeMirror getTypeFromCanonicalName(String canonicalName) {
+        Optional<JTypeMirror> cached = typesByCanonicalName.get(canonicalName);
+        if (cached == null) {
+            // Not computeIfAbsent, loading a class may take a while, and
+            // doing it twice is harmless.
+            cached = Optional.ofNullable(TypesFromReflection.loadType(this, canonicalName));
+            typesByCanonicalName.putIfAbsent(canonicalName, cached);
+        }
+        return cached.orElse(null);
+    }
+
     private @Nullable JClassSymbol getClassSymbolImpl(String name, boolean isCanonical) {
         if (name == null) {
             return null;
@@ -519,7 +581,20 @@ public final class TypeSystem {
             return rawType(klass); // note this ensures that OBJECT and such is preserved
         }
         // if the type arguments are mismatched, the constructor will throw
-        return new ClassTypeImpl(this, klass, CollectionUtil.defensiveUnmodifiableCopy(typeArgs), true, HashTreePSet.empty());
+        return intern(new ClassTypeImpl(this, klass, CollectionUtil.defensiveUnmodifiableCopy(typeArgs), true, HashTreePSet.empty()));
+    }
+
+    /**
+     * Returns the shared instance equal to the given type if interning
+     * is enabled and the type is eligible, otherwise returns the parameter.
+     */
+    JClassType intern(JClassType t) {
+        return interner == null ? t : interner.intern(t);
+    }
+
+    // test only
+    int numInternedTypes() {
+        return interner == null ? 0 : interner.size();
     }
 
 
@@ -750,6 +825,9 @@ public final class TypeSystem {
      */
     public void logStats() {
         resolver.logStats();
+        if (interner != null) {
+            interner.logStats();
+        }
     }
 
     private static final class NullType implements JTypeMirror {
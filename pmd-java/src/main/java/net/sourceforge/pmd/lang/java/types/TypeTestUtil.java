@@ -179,10 +179,38 @@ public final class TypeTestUtil {
             return false;
         }
 
-        TypeSystem ts = thisType.getTypeSystem();
-        @Nullable JTypeMirror otherType = TypesFromReflection.loadType(ts, canonicalName, unresolvedStore);
+        return isA(loadType(thisType.getTypeSystem(), canonicalName, unresolvedStore), thisType);
+    }
+
+    /**
+     * Same as {@link #isA(String, TypeNode)}, but the type named by the
+     * canonical name has already been {@linkplain #loadType(TypeSystem, String, UnresolvedClassStore) loaded}
+     * in the type system of the node. This is used when the name is
+     * constant, to load the type only once.
+     */
+    static boolean isAPreloaded(@NonNull String canonicalName, @Nullable JTypeMirror loadedType, @NonNull TypeNode node) {
+        JTypeMirror thisType = node.getTypeMirror();
+        OptionalBool exactMatch = isExactlyAOrAnon(canonicalName, thisType);
+        if (exactMatch != OptionalBool.NO) {
+            return exactMatch == OptionalBool.YES;
+        }
 
-        return isA(otherType, thisType);
+        JTypeDeclSymbol thisClass = thisType.getSymbol();
+        return (thisClass == null || !thisClass.isUnresolved()) && isA(loadedType, thisType);
+    }
+
+    /**
+     * Load the type with the given canonical name. Resolved types are
+     * cached in the type system. Types that are not on the classpath may
+     * be replaced by placeholder types if the {@link UnresolvedClassStore}
+     * parameter is non-null.
+     */
+    static @Nullable JTypeMirror loadType(TypeSystem ts, @NonNull String canonicalName, @Nullable UnresolvedClassStore unresolvedStore) {
+        JTypeMirror type = ts.getTypeFromCanonicalName(canonicalName);
+        if (type == null && unresolvedStore != null) {
+            type = TypesFromReflection.loadType(ts, canonicalName, unresolvedStore);
+        }
+        return type;
     }
 
     /**
@@ -119,11 +119,11 @@ public final class LazyTypeResolver extends JavaVisitorBase<TypingContext, @NonN
         this.err = processor.getLogger();
     }
 
-    public ExprContext getConversionContextForExternalUse(ASTExpression e) {
+    public synchronized ExprContext getConversionContextForExternalUse(ASTExpression e) {
         return polyResolution.getConversionContextForExternalUse(e);
     }
 
-    public ExprContext getTopLevelContextIncludingInvocation(TypeNode e) {
+    public synchronized ExprContext getTopLevelContextIncludingInvocation(TypeNode e) {
         ExprContext toplevel = polyResolution.getTopLevelConversionContext(e);
 
         while (toplevel.hasKind(ExprContextKind.INVOCATION)) {
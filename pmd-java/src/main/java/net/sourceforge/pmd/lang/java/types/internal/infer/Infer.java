@@ -21,6 +21,7 @@ import java.util.List;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import net.sourceforge.pmd.lang.impl.AnalysisWatchdog;
 import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
 import net.sourceforge.pmd.lang.java.types.JArrayType;
 import net.sourceforge.pmd.lang.java.types.JClassType;
@@ -173,6 +174,8 @@ public final class Infer {
      * in an invocation or assignment context, otherwise can be left blank.
      */
     public void inferInvocationRecursively(MethodCallSite site) {
+        // inference may be exponential on deeply nested calls
+        AnalysisWatchdog.checkpoint();
         MethodCtDecl ctdecl = goToInvocationWithFallback(site);
         InvocationMirror expr = site.getExpr();
         expr.setCtDecl(ctdecl);
@@ -6,9 +6,11 @@ package net.sourceforge.pmd.lang.java;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.emptyString;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.io.IOException;
@@ -16,7 +18,9 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
@@ -25,6 +29,7 @@ import net.sourceforge.pmd.PMDConfiguration;
 import net.sourceforge.pmd.PmdAnalysis;
 import net.sourceforge.pmd.internal.util.IOUtil;
 import net.sourceforge.pmd.lang.LanguageVersion;
+import net.sourceforge.pmd.reporting.Report;
 
 import com.github.stefanbirkner.systemlambda.SystemLambda;
 
@@ -38,6 +43,35 @@ class PMDCoverageTest {
         runPmd("src/main/java", conf -> {});
     }
 
+    @Test
+    void parallelRulesReportSameViolationsAsSequentialRules() {
+        String input = "src/main/java/net/sourceforge/pmd/lang/java/types/TypeOps.java";
+        List<String> sequential = collectViolations(input, conf -> conf.setThreads(1));
+        List<String> parallel = collectViolations(input, conf -> {
+            conf.setThreads(4);
+            conf.setParallelRulesThreshold(1);
+        });
+
+        assertThat(sequential, not(empty()));
+        assertEquals(sequential, parallel);
+    }
+
+    private static List<String> collectViolations(String inputPath, Consumer<PMDConfiguration> configure) {
+        PMDConfiguration conf = new PMDConfiguration();
+        conf.addInputPath(Paths.get(inputPath));
+        conf.addRuleSet("rulesets/internal/all-java.xml");
+        configure.accept(conf);
+
+        try (PmdAnalysis pmd = PmdAnalysis.create(conf)) {
+            Report report = pmd.performAnalysisAndCollectReport();
+            assertThat(report.getProcessingErrors(), empty());
+            return report.getViolations().stream()
+                         .map(v -> v.getRule().getName() + ":" + v.getBeginLine() + ":" + v.getBeginColumn() + ": " + v.getDescription())
+                         .sorted()
+                         .collect(Collectors.toList());
+        }
+    }
+
     @Test
     void runAllJavaPmdOnTestResourcesWithLatestJavaVersion() {
         LanguageVersion latest = JavaLanguageModule.getInstance().getLatestVersion();
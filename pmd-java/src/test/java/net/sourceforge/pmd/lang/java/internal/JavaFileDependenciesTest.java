@@ -0,0 +1,41 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.cache.FileDependencies;
+import net.sourceforge.pmd.lang.java.JavaParsingHelper;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.ast.InternalApiBridge;
+
+class JavaFileDependenciesTest {
+
+    @Test
+    void testDeclaredTypes() {
+        FileDependencies deps = dependenciesOf("package p; class Foo { class Inner { } void m() { class Local { } new Object() { }; } }");
+
+        assertThat(deps.getDeclaredTypes(), containsInAnyOrder("p.Foo", "p.Foo.Inner"));
+    }
+
+    @Test
+    void testReferencedTypes() {
+        FileDependencies deps = dependenciesOf("package p; import java.util.List; import q.Missing; class Foo { List<String> l; Missing m; Foo f; }");
+
+        // supertypes of resolved types are dependencies too
+        assertThat(deps.getReferencedTypes(), hasItems("java.util.List", "java.util.Collection", "java.lang.String", "q.Missing"));
+        assertThat(deps.getReferencedTypes(), not(hasItems("p.Foo")));
+    }
+
+    private static FileDependencies dependenciesOf(String code) {
+        ASTCompilationUnit acu = JavaParsingHelper.DEFAULT.parse(code);
+        return InternalApiBridge.getProcessor(acu).getFileDependencies();
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.internal;
+
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.java.JavaParsingHelper;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.java.symbols.internal.asm.Classpath;
+import net.sourceforge.pmd.lang.java.types.TypeSystem;
+
+class SymbolPrefetcherTest {
+
+    @Test
+    void testImportsAndSupertypesAreLoaded() throws InterruptedException {
+        Set<String> requested = ConcurrentHashMap.newKeySet();
+        Classpath classpath = Classpath.forClassLoader(SymbolPrefetcherTest.class.getClassLoader());
+        TypeSystem ts = TypeSystem.usingClasspath(path -> {
+            requested.add(path);
+            return classpath.findResource(path);
+        });
+
+        ASTCompilationUnit acu = JavaParsingHelper.DEFAULT.parse(
+            "package net.sourceforge.pmd.lang.java.internal;\n"
+                + "import java.util.ArrayList;\n"
+                + "import static java.util.Collections.emptyList;\n"
+                + "import java.io.*;\n"
+                + "class Foo extends ArrayList<String> implements JavaAstProcessorStub {}\n");
+
+        List<String> expected = listOf("java/util/ArrayList.class",
+                                       "java/util/Collections.class",
+                                       "java/util/AbstractList.class",
+                                       "java/util/AbstractCollection.class",
+                                       "net/sourceforge/pmd/lang/java/internal/JavaAstProcessorStub.class");
+
+        try (SymbolPrefetcher prefetcher = new SymbolPrefetcher()) {
+            prefetcher.prefetchDependencies(ts, acu);
+
+            // superclasses are submitted by the tasks that load their subclasses
+            assertTrue(prefetcher.awaitIdle(10, TimeUnit.SECONDS));
+        }
+
+        assertThat(requested, hasItems(expected.toArray(new String[0])));
+        // on-demand imports name packages
+        assertThat(requested, not(hasItem("java/io.class")));
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.rule;
+
+import static net.sourceforge.pmd.util.CollectionUtil.listOf;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.java.JavaParsingHelper;
+import net.sourceforge.pmd.lang.java.ast.JavaNode;
+import net.sourceforge.pmd.lang.rule.RuleTargetSelector;
+import net.sourceforge.pmd.reporting.Report;
+import net.sourceforge.pmd.reporting.RuleViolation;
+
+class JavaRuleTargetSelectorsTest {
+
+    @Test
+    void testInvocationsNamed() {
+        Report report = execute(JavaRuleTargetSelectors.forInvocationsNamed("foo", "bar"),
+                                "class Foo {{ foo(); this.bar(1); baz(); new Foo(); String.valueOf(foo()); }}");
+
+        assertEquals(listOf("1:14", "1:21", "1:67"), positions(report));
+    }
+
+    @Test
+    void testClassTypesNamed() {
+        Report report = execute(JavaRuleTargetSelectors.forClassTypesNamed("List"),
+                                "class Foo { java.util.List<String> a; List b; ArrayList<List<?>> c; }");
+
+        assertEquals(listOf("1:13", "1:39", "1:57"), positions(report));
+    }
+
+    private static Report execute(RuleTargetSelector selector, String code) {
+        AbstractJavaRulechainRule rule = new AbstractJavaRulechainRule(selector) {
+            @Override
+            public Object visitJavaNode(JavaNode node, Object data) {
+                asCtx(data).addViolation(node);
+                return data;
+            }
+        };
+        rule.setName("Visits");
+        rule.setMessage("Visited");
+        return JavaParsingHelper.DEFAULT.executeRule(rule, code);
+    }
+
+    private static List<String> positions(Report report) {
+        return report.getViolations().stream()
+                     .map(RuleViolation::getLocation)
+                     .map(loc -> loc.getStartLine() + ":" + loc.getStartColumn())
+                     .collect(Collectors.toList());
+    }
+}
@@ -4,6 +4,9 @@
 
 package net.sourceforge.pmd.lang.java.rule.xpath.internal;
 
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.MatcherAssert.assertThat;
+
 import org.junit.jupiter.api.Test;
 
 import net.sourceforge.pmd.lang.rule.Rule;
@@ -45,4 +48,32 @@ class TypeIsFunctionTest extends BaseXPathFunctionTest {
         assertFinds(rule, 0, "interface O { @Override void foo(); }");
     }
 
+    @Test
+    void testTypeIsSupertype() {
+        Rule rule = makeXpathRuleFromXPath("//ClassType[pmd-java:typeIs('java.lang.CharSequence')]");
+
+        assertFinds(rule, 2, "class K { String s; StringBuilder b; Object o; }");
+    }
+
+    @Test
+    void testTypeIsUnresolvedClass() {
+        Rule rule = makeXpathRuleFromXPath("//ClassType[pmd-java:typeIs('org.Unknown')]");
+
+        assertFinds(rule, 1, "class K { org.Unknown u; String s; }");
+    }
+
+    @Test
+    void testTypeIsDynamicName() {
+        Rule rule = makeXpathRuleFromXPath("//ClassType[pmd-java:typeIs('java.lang.' || @SimpleName)]");
+
+        assertFinds(rule, 2, "class K { String s; Object o; org.Unknown u; }");
+    }
+
+    @Test
+    void testInvalidTypeName() {
+        testWithExpectedStaticException(
+            "//ClassType[pmd-java:typeIs('java.util.List<String>')]",
+            e -> assertThat(e.getMessage(), containsString("java.util.List<String>")));
+    }
+
 }
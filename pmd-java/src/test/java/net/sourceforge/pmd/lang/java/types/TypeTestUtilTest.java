@@ -7,6 +7,8 @@ package net.sourceforge.pmd.lang.java.types;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -27,6 +29,7 @@ import net.sourceforge.pmd.lang.java.ast.ASTFieldDeclaration;
 import net.sourceforge.pmd.lang.java.ast.ASTType;
 import net.sourceforge.pmd.lang.java.ast.ASTTypeDeclaration;
 import net.sourceforge.pmd.lang.java.ast.TypeNode;
+import net.sourceforge.pmd.lang.java.symbols.JClassSymbol;
 import net.sourceforge.pmd.lang.java.types.testdata.SomeClassWithAnon;
 
 class TypeTestUtilTest extends BaseParserTest {
@@ -266,6 +269,18 @@ class TypeTestUtilTest extends BaseParserTest {
         assertFalse(TypeTestUtil.isExactlyA("java.lang.String", null));
     }
 
+    @Test
+    void testTypeFromCanonicalNameIsCached() {
+        TypeSystem ts = java.parse("class Foo {}").getTypeSystem();
+
+        JTypeMirror entry = ts.getTypeFromCanonicalName("java.util.Map.Entry");
+        assertNotNull(entry);
+        assertEquals("java.util.Map.Entry", ((JClassSymbol) entry.getSymbol()).getCanonicalName());
+        assertSame(entry, ts.getTypeFromCanonicalName("java.util.Map.Entry"));
+        assertNull(ts.getTypeFromCanonicalName("org.DoesNotExist"));
+        assertNull(ts.getTypeFromCanonicalName("org.DoesNotExist"));
+    }
+
     @Test
     void testNullClass() {
         final ASTAnnotation node = java.parse("package org; import foo.Stuff; @Stuff public class FooBar {}")
@@ -0,0 +1,112 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.rule.xpath.internal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import net.sourceforge.pmd.lang.LanguageProcessor;
+import net.sourceforge.pmd.lang.ast.Node;
+import net.sourceforge.pmd.lang.java.JavaParsingHelper;
+import net.sourceforge.pmd.lang.java.ast.ASTCompilationUnit;
+import net.sourceforge.pmd.lang.rule.Rule;
+import net.sourceforge.pmd.lang.rule.RuleSet;
+import net.sourceforge.pmd.lang.rule.RuleSetLoader;
+import net.sourceforge.pmd.lang.rule.xpath.XPathRule;
+import net.sourceforge.pmd.lang.rule.xpath.XPathVersion;
+import net.sourceforge.pmd.lang.rule.xpath.impl.XPathHandler;
+
+/**
+ * Checks that the compiled rule chain expressions of the Java XPath
+ * rules find the same nodes as Saxon on the code samples of the rule
+ * tests.
+ */
+class CompiledXPathConformanceTest {
+
+    private static final String[] CATEGORIES = {
+        "bestpractices", "codestyle", "design", "documentation",
+        "errorprone", "multithreading", "performance", "security",
+    };
+
+    @Test
+    void testCompiledRulesMatchSaxon() throws Exception {
+        int numXPathRules = 0;
+        int numCompiledRules = 0;
+        int numComparedNodes = 0;
+        try (LanguageProcessor processor = JavaParsingHelper.DEFAULT.newProcessor()) {
+            XPathHandler xpathHandler = processor.services().getXPathHandler();
+            for (String category : CATEGORIES) {
+                RuleSet ruleset = new RuleSetLoader().loadFromResource("category/java/" + category + ".xml");
+                for (Rule rule : ruleset.getRules()) {
+                    if (!(rule instanceof XPathRule)) {
+                        continue;
+                    }
+                    numXPathRules++;
+                    SaxonXPathRuleQuery query = new SaxonXPathRuleQuery(((XPathRule) rule).getXPathExpression(),
+                                                                        XPathVersion.DEFAULT,
+                                                                        rule.getPropertiesByPropertyDescriptor(),
+                                                                        xpathHandler,
+                                                                        DeprecatedAttrLogger.noop());
+                    if (query.getRuleChainVisits().stream().noneMatch(query::isCompiled)) {
+                        continue;
+                    }
+                    numCompiledRules++;
+                    for (ASTCompilationUnit acu : parseSamples(category, rule.getName())) {
+                        for (Node node : acu.descendantsOrSelf().crossFindBoundaries()) {
+                            if (!query.isCompiled(node.getXPathNodeName())) {
+                                continue;
+                            }
+                            List<Node> compiled = query.evaluateCompiled(node);
+                            if (compiled != null) {
+                                assertEquals(query.evaluateWithSaxon(node), compiled,
+                                             rule.getName() + " on " + node + " at line " + node.getBeginLine());
+                                numComparedNodes++;
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        assertTrue(numCompiledRules > numXPathRules / 2, "Only " + numCompiledRules + " of " + numXPathRules + " rules are compiled");
+        assertTrue(numComparedNodes > 500, "Only " + numComparedNodes + " nodes were compared");
+    }
+
+    private static List<ASTCompilationUnit> parseSamples(String category, String ruleName) throws Exception {
+        String resource = "/net/sourceforge/pmd/lang/java/rule/" + category + "/xml/" + ruleName + ".xml";
+        List<ASTCompilationUnit> result = new ArrayList<>();
+        try (InputStream input = CompiledXPathConformanceTest.class.getResourceAsStream(resource)) {
+            if (input == null) {
+                return result;
+            }
+            Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(input);
+            List<String> samples = new ArrayList<>();
+            addTextContents(doc.getElementsByTagName("code"), samples);
+            addTextContents(doc.getElementsByTagName("code-fragment"), samples);
+            for (String sample : samples) {
+                try {
+                    result.add(JavaParsingHelper.DEFAULT.parse(sample));
+                } catch (RuntimeException ignored) {
+                    // eg the sample needs a preview language version
+                }
+            }
+        }
+        return result;
+    }
+
+    private static void addTextContents(NodeList elements, List<String> result) {
+        for (int i = 0; i < elements.getLength(); i++) {
+            result.add(elements.item(i).getTextContent());
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.java.types
+
+import io.kotest.core.spec.style.FunSpec
+import io.kotest.matchers.shouldBe
+import io.kotest.matchers.types.shouldBeSameInstanceAs
+import io.kotest.matchers.types.shouldNotBeSameInstanceAs
+import net.sourceforge.pmd.lang.java.symbols.internal.asm.Classpath
+import net.sourceforge.pmd.lang.test.ast.IntelliMarker
+
+/**
+ * Tests for the optional interning of parameterized types, see [ClassTypeInterner].
+ */
+class ClassTypeInternerTest : IntelliMarker, FunSpec({
+
+    val ts = TypeSystem.usingClasspath(Classpath.forClassLoader(ClassTypeInternerTest::class.java.classLoader), true)
+
+    with(TypeDslOf(ts)) {
+        with(gen) {
+
+            test("Equal ground parameterizations are shared") {
+                val a = t_List[t_String]
+                val b = ts.parameterise(t_List.symbol, listOf(t_String))
+
+                a shouldBeSameInstanceAs b
+                // supertypes are computed once
+                a.superInterfaces shouldBeSameInstanceAs (b as JClassType).superInterfaces
+                a.typeParamSubst shouldBeSameInstanceAs b.typeParamSubst
+            }
+
+            test("Nested parameterizations and wildcards are shared") {
+                val a = java.util.Map::class[t_String, t_List[`?` extends t_Number]]
+                val b = java.util.Map::class[t_String, t_List[`?` extends t_Number]]
+
+                a shouldBeSameInstanceAs b
+            }
+
+            test("Types mentioning type variables are not interned") {
+                val tvar = t_List.genericTypeDeclaration.formalTypeParams[0]
+                val a = t_List[tvar]
+                val b = t_List[tvar]
+
+                a shouldBe b
+                a shouldNotBeSameInstanceAs b
+            }
+
+            test("Interning does not retain more than one instance per type") {
+                val before = ts.numInternedTypes()
+                repeat(10_000) {
+                    java.util.Map::class[t_String, t_List[t_Integer]]
+                }
+                (ts.numInternedTypes() - before <= 2) shouldBe true
+            }
+        }
+    }
+
+    test("Interning is disabled by default") {
+        val plain = TypeSystem.usingClasspath(Classpath.forClassLoader(ClassTypeInternerTest::class.java.classLoader))
+        with(TypeDslOf(plain)) {
+            with(gen) {
+                t_List[t_String] shouldNotBeSameInstanceAs t_List[t_String]
+                plain.numInternedTypes() shouldBe 0
+            }
+        }
+    }
+})
+
@@ -32,7 +32,7 @@ public final class ASTVariableOrConstantDeclaratorId extends AbstractPLSQLNode {
     }
 
     public List<NameOccurrence> getUsages() {
-        return getScope().getDeclarations().get(nameDeclaration);
+        return getScope().getDeclarations(nameDeclaration.getClass()).get(nameDeclaration);
     }
 
     void bumpArrayDepth() {
@@ -4,7 +4,6 @@
 
 package net.sourceforge.pmd.lang.plsql.symboltable;
 
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -18,8 +17,6 @@ import net.sourceforge.pmd.lang.plsql.ast.ASTName;
 import net.sourceforge.pmd.lang.plsql.ast.InternalApiBridge;
 import net.sourceforge.pmd.lang.plsql.ast.PLSQLNode;
 import net.sourceforge.pmd.lang.symboltable.AbstractScope;
-import net.sourceforge.pmd.lang.symboltable.Applier;
-import net.sourceforge.pmd.lang.symboltable.ImageFinderFunction;
 import net.sourceforge.pmd.lang.symboltable.NameDeclaration;
 import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
 
@@ -58,7 +55,7 @@ public class ClassScope extends AbstractScope {
 
     @Override
     public void addDeclaration(NameDeclaration declaration) {
-        if (declaration instanceof VariableNameDeclaration && getDeclarations().keySet().contains(declaration)) {
+        if (declaration instanceof VariableNameDeclaration && getVariableDeclarations().containsKey(declaration)) {
             throw new RuntimeException(declaration + " is already in the symbol table");
         }
         super.addDeclaration(declaration);
@@ -100,6 +97,12 @@ public class ClassScope extends AbstractScope {
         return declarations;
     }
 
+    @Override
+    protected String getLookupKey(String image) {
+        // unquoted identifiers are case-insensitive
+        return PLSQLNode.getCanonicalImage(image);
+    }
+
     public Map<VariableNameDeclaration, List<NameOccurrence>> getVariableDeclarations() {
         return getDeclarations(VariableNameDeclaration.class);
     }
@@ -124,7 +127,8 @@ public class ClassScope extends AbstractScope {
         Set<NameDeclaration> result = new HashSet<>();
         Map<VariableNameDeclaration, List<NameOccurrence>> variableDeclarations = getVariableDeclarations();
         Map<MethodNameDeclaration, List<NameOccurrence>> methodDeclarations = getMethodDeclarations();
-        if (occurrence.isThisOrSuper() || occurrence.getImage().equals(className)) {
+        String canonicalImage = PLSQLNode.getCanonicalImage(occurrence.getImage());
+        if (occurrence.isThisOrSuper() || canonicalImage.equals(className)) {
             if (variableDeclarations.isEmpty() && methodDeclarations.isEmpty()) {
                 // this could happen if you do this:
                 // public class Foo {
@@ -150,8 +154,9 @@ public class ClassScope extends AbstractScope {
         }
 
         if (occurrence.isMethodOrConstructorInvocation()) {
-            for (MethodNameDeclaration mnd : methodDeclarations.keySet()) {
-                if (mnd.getImage().equals(occurrence.getImage())) {
+            for (NameDeclaration decl : getDeclarationsWithImage(occurrence.getImage())) {
+                if (decl instanceof MethodNameDeclaration) {
+                    MethodNameDeclaration mnd = (MethodNameDeclaration) decl;
                     int args = occurrence.getArgumentCount();
                     if (args == mnd.getParameterCount() || mnd.isVarargs() && args >= mnd.getParameterCount() - 1) {
                         // FIXME if several methods have the same name
@@ -167,9 +172,6 @@ public class ClassScope extends AbstractScope {
             return result;
         }
 
-        List<String> images = new ArrayList<>();
-        images.add(occurrence.getImage());
-
         if (null == occurrence.getImage()) {
             LOG.trace("occurrence=={} with Argument Count == {} for className={}",
                     occurrence.toString(),
@@ -177,17 +179,40 @@ public class ClassScope extends AbstractScope {
                     className);
         }
 
-        if (occurrence.getImage().startsWith(className)) {
-            images.add(clipClassName(occurrence.getImage()));
+        NameDeclaration found = findFirstVariable(occurrence.getImage());
+        if (canonicalImage.startsWith(className)) {
+            NameDeclaration foundClipped = findFirstVariable(clipClassName(occurrence.getImage()));
+            if (found == null) {
+                found = foundClipped;
+            } else if (foundClipped != null) {
+                // both are declared, keep the one declared first
+                found = firstDeclared(found, foundClipped);
+            }
         }
-        ImageFinderFunction finder = new ImageFinderFunction(images);
-        Applier.apply(finder, getVariableDeclarations().keySet().iterator());
-        if (finder.getDecl() != null) {
-            result.add(finder.getDecl());
+        if (found != null) {
+            result.add(found);
         }
         return result;
     }
 
+    private NameDeclaration findFirstVariable(String image) {
+        for (NameDeclaration decl : getDeclarationsWithImage(image)) {
+            if (decl instanceof VariableNameDeclaration) {
+                return decl;
+            }
+        }
+        return null;
+    }
+
+    private NameDeclaration firstDeclared(NameDeclaration a, NameDeclaration b) {
+        for (VariableNameDeclaration decl : getVariableDeclarations().keySet()) {
+            if (decl.equals(a) || decl.equals(b)) {
+                return decl;
+            }
+        }
+        return a;
+    }
+
     @Override
     public String toString() {
         StringBuilder res = new StringBuilder("ClassScope (").append(className).append("): ");
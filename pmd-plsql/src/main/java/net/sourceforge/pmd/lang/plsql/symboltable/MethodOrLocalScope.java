@@ -9,21 +9,26 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import net.sourceforge.pmd.lang.plsql.ast.PLSQLNode;
 import net.sourceforge.pmd.lang.symboltable.AbstractScope;
-import net.sourceforge.pmd.lang.symboltable.Applier;
-import net.sourceforge.pmd.lang.symboltable.ImageFinderFunction;
 import net.sourceforge.pmd.lang.symboltable.NameDeclaration;
 import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
 
 abstract class MethodOrLocalScope extends AbstractScope {
     @Override
     public void addDeclaration(NameDeclaration declaration) {
-        if (declaration instanceof VariableNameDeclaration && getDeclarations().keySet().contains(declaration)) {
+        if (declaration instanceof VariableNameDeclaration && getVariableDeclarations().containsKey(declaration)) {
             throw new RuntimeException(declaration + " is already in the symbol table");
         }
         super.addDeclaration(declaration);
     }
 
+    @Override
+    protected String getLookupKey(String image) {
+        // unquoted identifiers are case-insensitive
+        return PLSQLNode.getCanonicalImage(image);
+    }
+
     public Map<VariableNameDeclaration, List<NameOccurrence>> getVariableDeclarations() {
         return getDeclarations(VariableNameDeclaration.class);
     }
@@ -33,10 +38,11 @@ abstract class MethodOrLocalScope extends AbstractScope {
         if (occurrence.isThisOrSuper() || occurrence.isMethodOrConstructorInvocation()) {
             return result;
         }
-        ImageFinderFunction finder = new ImageFinderFunction(occurrence.getImage());
-        Applier.apply(finder, getVariableDeclarations().keySet().iterator());
-        if (finder.getDecl() != null) {
-            result.add(finder.getDecl());
+        for (NameDeclaration decl : getDeclarationsWithImage(occurrence.getImage())) {
+            if (decl instanceof VariableNameDeclaration) {
+                result.add(decl);
+                break;
+            }
         }
         return result;
     }
@@ -4,9 +4,10 @@
 
 package net.sourceforge.pmd.lang.plsql.symboltable;
 
+import java.util.List;
+
+import net.sourceforge.pmd.lang.plsql.ast.PLSQLNode;
 import net.sourceforge.pmd.lang.symboltable.AbstractScope;
-import net.sourceforge.pmd.lang.symboltable.Applier;
-import net.sourceforge.pmd.lang.symboltable.ImageFinderFunction;
 import net.sourceforge.pmd.lang.symboltable.NameDeclaration;
 import net.sourceforge.pmd.lang.symboltable.NameOccurrence;
 
@@ -40,15 +41,20 @@ public class SourceFileScope extends AbstractScope {
         super.addDeclaration(declaration);
     }
 
+    @Override
+    protected String getLookupKey(String image) {
+        // unquoted identifiers are case-insensitive
+        return PLSQLNode.getCanonicalImage(image);
+    }
+
     @Override
     public String toString() {
         return "SourceFileScope: " + getDeclarations().keySet();
     }
 
     protected NameDeclaration findVariableHere(NameOccurrence occ) {
-        ImageFinderFunction finder = new ImageFinderFunction(occ.getImage());
-        Applier.apply(finder, getDeclarations().keySet().iterator());
-        return finder.getDecl();
+        List<NameDeclaration> declarations = getDeclarationsWithImage(occ.getImage());
+        return declarations.isEmpty() ? null : declarations.get(0);
     }
 
 }
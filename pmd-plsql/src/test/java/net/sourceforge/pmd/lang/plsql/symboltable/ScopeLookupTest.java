@@ -0,0 +1,57 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.plsql.symboltable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import net.sourceforge.pmd.lang.plsql.AbstractPLSQLParserTst;
+import net.sourceforge.pmd.lang.plsql.ast.ASTInput;
+import net.sourceforge.pmd.lang.plsql.ast.ASTVariableOrConstantDeclaratorId;
+
+class ScopeLookupTest extends AbstractPLSQLParserTst {
+
+    @Test
+    void testUnquotedNamesAreCaseInsensitive() {
+        ASTInput input = plsql.parse(
+            "CREATE OR REPLACE PACKAGE BODY pkg AS\n"
+                + "  PROCEDURE p IS\n"
+                + "    v_count t_tab;\n"
+                + "  BEGIN\n"
+                + "    x := V_COUNT(1).a;\n"
+                + "    y := v_Count(2).b;\n"
+                + "    z := v_count(3).c;\n"
+                + "  END p;\n"
+                + "END pkg;\n");
+
+        ASTVariableOrConstantDeclaratorId count = input.descendants(ASTVariableOrConstantDeclaratorId.class).first();
+        assertEquals(3, count.getUsages().size());
+    }
+
+    @Test
+    void testInnermostDeclarationIsFound() {
+        ASTInput input = plsql.parse(
+            "CREATE OR REPLACE PACKAGE BODY pkg AS\n"
+                + "  v_shared t_tab;\n"
+                + "  PROCEDURE p IS\n"
+                + "    v_shared t_tab;\n"
+                + "  BEGIN\n"
+                + "    x := v_shared(1).a;\n"
+                + "  END p;\n"
+                + "  PROCEDURE q IS\n"
+                + "  BEGIN\n"
+                + "    x := v_shared(1).a;\n"
+                + "    y := v_shared(2).b;\n"
+                + "  END q;\n"
+                + "END pkg;\n");
+
+        List<ASTVariableOrConstantDeclaratorId> declarations = input.descendants(ASTVariableOrConstantDeclaratorId.class).toList();
+        assertEquals(2, declarations.get(0).getUsages().size());
+        assertEquals(1, declarations.get(1).getUsages().size());
+    }
+}
@@ -22,12 +22,12 @@ public class VtlParser extends JjtreeParserAdapter<ASTTemplate> {
 
         @Override
         public JavaccToken createToken(JavaccTokenDocument self, int kind, CharStream cs, @Nullable String image) {
-            String realImage = image == null ? cs.getTokenImage() : image;
             if (kind == VtlTokenKinds.ESCAPE_DIRECTIVE) {
-                realImage = escapedDirective(realImage);
+                String realImage = image == null ? cs.getTokenImage() : image;
+                return super.createToken(self, kind, cs, escapedDirective(realImage));
             }
 
-            return super.createToken(self, kind, cs, realImage);
+            return super.createToken(self, kind, cs, image);
         }
 
         private String escapedDirective(String strImage) {
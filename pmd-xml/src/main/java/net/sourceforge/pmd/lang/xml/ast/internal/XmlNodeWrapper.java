@@ -17,7 +17,6 @@ import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 import org.w3c.dom.Text;
 
-import net.sourceforge.pmd.lang.document.TextDocument;
 import net.sourceforge.pmd.lang.document.TextRegion;
 import net.sourceforge.pmd.lang.rule.xpath.Attribute;
 import net.sourceforge.pmd.lang.rule.xpath.NoAttribute;
@@ -42,7 +41,6 @@ class XmlNodeWrapper implements XmlNode {
 
     int startOffset;
     int endOffset;
-    TextDocument textDoc;
 
 
     XmlNodeWrapper(XmlParserImpl parser, org.w3c.dom.Node domNode) {
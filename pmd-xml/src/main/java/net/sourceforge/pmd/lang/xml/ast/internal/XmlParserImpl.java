@@ -7,81 +7,155 @@ package net.sourceforge.pmd.lang.xml.ast.internal;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.StringReader;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import javax.xml.parsers.DocumentBuilder;
 import javax.xml.parsers.DocumentBuilderFactory;
 import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParser;
+import javax.xml.parsers.SAXParserFactory;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
 import org.w3c.dom.Node;
 import org.xml.sax.EntityResolver;
 import org.xml.sax.InputSource;
 import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
 
 import net.sourceforge.pmd.lang.ast.AstInfo;
 import net.sourceforge.pmd.lang.ast.ParseException;
 import net.sourceforge.pmd.lang.ast.Parser.ParserTask;
 import net.sourceforge.pmd.lang.ast.RootNode;
+import net.sourceforge.pmd.lang.document.Chars;
 import net.sourceforge.pmd.lang.rule.xpath.Attribute;
 import net.sourceforge.pmd.lang.rule.xpath.impl.AttributeAxisIterator;
+import net.sourceforge.pmd.lang.rule.xpath.internal.CoordinateXPathFunction;
 import net.sourceforge.pmd.lang.xml.ast.XmlNode;
 
 public final class XmlParserImpl {
     // never throws on unresolved resource
     private static final EntityResolver SILENT_ENTITY_RESOLVER = (publicId, systemId) -> new InputSource(new ByteArrayInputStream("".getBytes()));
 
-    private final Map<org.w3c.dom.Node, XmlNode> nodeCache = new HashMap<>();
+    private static final Pattern XML_DECLARATION = Pattern.compile(
+        "<\\?xml\\s+version\\s*=\\s*(['\"])([^'\"]*)\\1"
+            + "(?:\\s+encoding\\s*=\\s*(['\"])([^'\"]*)\\3)?"
+            + "(?:\\s+standalone\\s*=\\s*(['\"])(yes|no)\\5)?\\s*\\?>");
 
+    /** Parsers are not thread-safe, but can be reused on the same thread. */
+    private static final ThreadLocal<ParserHolder> PARSERS = new ThreadLocal<>();
 
-    private Document parseDocument(String xmlData) throws ParseException {
-        nodeCache.clear();
+
+    private static ParserHolder getParsers() throws ParserConfigurationException, SAXException {
+        ParserHolder holder = PARSERS.get();
+        if (holder == null) {
+            holder = new ParserHolder();
+            PARSERS.set(holder);
+        } else {
+            holder.saxParser.reset();
+        }
+        return holder;
+    }
+
+    public RootXmlNode parse(ParserTask task) {
+        Chars text = task.getTextDocument().getText();
         try {
-            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
-            dbf.setNamespaceAware(true);
-            dbf.setValidating(false);
-            dbf.setIgnoringComments(false);
-            dbf.setIgnoringElementContentWhitespace(false);
-            dbf.setExpandEntityReferences(true);
-            dbf.setCoalescing(false);
-            dbf.setXIncludeAware(false);
-            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
-            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
-            DocumentBuilder documentBuilder = dbf.newDocumentBuilder();
-            documentBuilder.setEntityResolver(SILENT_ENTITY_RESOLVER);
-            return documentBuilder.parse(new InputSource(new StringReader(xmlData)));
+            ParserHolder parsers = getParsers();
+            DocumentType internalSubsetDoctype = parseInternalSubset(parsers, text);
+            Document document = internalSubsetDoctype != null
+                                ? internalSubsetDoctype.getOwnerDocument()
+                                : parsers.documentBuilder.newDocument();
+            RootXmlNode root = new RootXmlNode(this, document, task);
+            root.readXmlDeclaration(text);
+
+            XmlTreeBuilder builder = new XmlTreeBuilder(this, root, text, internalSubsetDoctype);
+            XMLReader reader = parsers.saxParser.getXMLReader();
+            reader.setContentHandler(builder);
+            reader.setErrorHandler(builder);
+            reader.setEntityResolver(SILENT_ENTITY_RESOLVER);
+            reader.setProperty("http://xml.org/sax/properties/lexical-handler", builder);
+            reader.parse(new InputSource(text.newReader()));
+            return root;
         } catch (ParserConfigurationException | SAXException | IOException e) {
             throw new ParseException(e);
         }
     }
 
 
-    public RootXmlNode parse(ParserTask task) {
-        String xmlData = task.getSourceText();
-        Document document = parseDocument(xmlData);
-        RootXmlNode root = new RootXmlNode(this, document, task);
-        DOMLineNumbers lineNumbers = new DOMLineNumbers(root, task.getTextDocument());
-        lineNumbers.determine();
-        nodeCache.put(document, root);
-        return root;
+    /**
+     * SAX doesn't report the entity and notation declarations of the
+     * internal subset of the DTD in a way that can be put on a DOM
+     * {@link DocumentType}. If the document has an internal subset,
+     * the doctype declaration alone is parsed into a DOM document, which
+     * is then used to build the tree. The doctype node is detached from
+     * it, so that it is inserted in order with the other nodes.
+     *
+     * @return The detached doctype node, or null if there is no internal subset
+     */
+    private static @Nullable DocumentType parseInternalSubset(ParserHolder parsers, Chars text) throws SAXException, IOException {
+        int start = XmlTreeBuilder.doctypeStart(text);
+        if (start < 0) {
+            return null;
+        }
+        Chars declaration = text.subSequence(start, XmlTreeBuilder.doctypeEnd(text, start));
+        if (declaration.indexOf('[', 0) < 0) {
+            return null;
+        }
+        Document document = parsers.documentBuilder.parse(new InputSource(new StringReader(declaration + "<root/>")));
+        DocumentType doctype = document.getDoctype();
+        document.removeChild(document.getDocumentElement());
+        document.removeChild(doctype);
+        return doctype;
     }
 
 
     /**
      * Gets the wrapper for a DOM node, implementing PMD interfaces.
+     * Nodes of the tree are wrapped as they are built, other DOM nodes
+     * (eg attributes selected by an XPath query) are wrapped on demand.
      *
      * @param domNode The node to wrap
      *
      * @return The wrapper
      */
     XmlNode wrapDomNode(Node domNode) {
-        XmlNode wrapper = nodeCache.get(domNode);
-        if (wrapper == null) {
-            wrapper = new XmlNodeWrapper(this, domNode);
-            nodeCache.put(domNode, wrapper);
+        Object wrapper = domNode.getUserData(CoordinateXPathFunction.PMD_NODE_USER_DATA);
+        if (wrapper instanceof XmlNode) {
+            return (XmlNode) wrapper;
+        }
+        return new XmlNodeWrapper(this, domNode);
+    }
+
+
+    /**
+     * Per-thread parsers, configured once.
+     */
+    private static final class ParserHolder {
+
+        private final SAXParser saxParser;
+        private final DocumentBuilder documentBuilder;
+
+        ParserHolder() throws ParserConfigurationException, SAXException {
+            SAXParserFactory spf = SAXParserFactory.newInstance();
+            spf.setNamespaceAware(true);
+            spf.setValidating(false);
+            spf.setXIncludeAware(false);
+            spf.setFeature("http://xml.org/sax/features/namespace-prefixes", true);
+            spf.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            spf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            this.saxParser = spf.newSAXParser();
+
+            DocumentBuilderFactory dbf = DocumentBuilderFactory.newInstance();
+            dbf.setNamespaceAware(true);
+            dbf.setValidating(false);
+            dbf.setXIncludeAware(false);
+            dbf.setFeature("http://xml.org/sax/features/external-general-entities", false);
+            dbf.setFeature("http://xml.org/sax/features/external-parameter-entities", false);
+            this.documentBuilder = dbf.newDocumentBuilder();
+            this.documentBuilder.setEntityResolver(SILENT_ENTITY_RESOLVER);
         }
-        return wrapper;
     }
 
 
@@ -91,6 +165,9 @@ public final class XmlParserImpl {
     public static class RootXmlNode extends XmlNodeWrapper implements RootNode {
 
         private final AstInfo<RootXmlNode> astInfo;
+        private String xmlEncoding;
+        private boolean xmlStandalone;
+        private String xmlVersion = "1.0";
 
         RootXmlNode(XmlParserImpl parser, Document domNode, ParserTask task) {
             super(parser, domNode);
@@ -112,16 +189,34 @@ public final class XmlParserImpl {
             return (Document) super.getNode();
         }
         
+        /**
+         * The XML declaration is not reported by SAX, so it is read
+         * from the source text.
+         */
+        void readXmlDeclaration(Chars text) {
+            if (!text.startsWith("<?xml")) {
+                return;
+            }
+            int end = text.indexOf("?>", 0);
+            Matcher matcher = XML_DECLARATION.matcher(end < 0 ? text : text.subSequence(0, end + 2));
+            if (matcher.lookingAt()) {
+                xmlVersion = matcher.group(2);
+                xmlEncoding = matcher.group(4);
+                xmlStandalone = "yes".equals(matcher.group(6));
+                getNode().setXmlStandalone(xmlStandalone);
+            }
+        }
+
         public String getXmlEncoding() {
-            return getNode().getXmlEncoding();
+            return xmlEncoding;
         }
-        
+
         public boolean isXmlStandalone() {
-            return getNode().getXmlStandalone();
+            return xmlStandalone;
         }
-        
+
         public String getXmlVersion() {
-            return getNode().getXmlVersion();
+            return xmlVersion;
         }
 
         @Override
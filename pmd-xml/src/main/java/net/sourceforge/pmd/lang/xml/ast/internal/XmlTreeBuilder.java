@@ -0,0 +1,336 @@
+/*
+ * BSD-style license; for more info see http://pmd.sourceforge.net/license.html
+ */
+
+package net.sourceforge.pmd.lang.xml.ast.internal;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import javax.xml.XMLConstants;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.w3c.dom.Document;
+import org.w3c.dom.DocumentType;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.xml.sax.Attributes;
+import org.xml.sax.Locator;
+import org.xml.sax.ext.DefaultHandler2;
+
+import net.sourceforge.pmd.lang.document.Chars;
+import net.sourceforge.pmd.lang.xml.ast.internal.XmlParserImpl.RootXmlNode;
+
+/**
+ * SAX handler that builds the DOM and the PMD nodes wrapping it in
+ * a single pass. Node offsets are taken from the {@link Locator} of
+ * the parser, which reports the position at the end of each markup event.
+ * The start of a markup event is the first {@code <} that follows the
+ * previous event, since character data cannot contain a raw {@code <}.
+ *
+ * <p>As with the positions computed on the DOM before, the end offset
+ * of a node is the offset of its last character, so that the end column
+ * of a node is that of its last character.
+ *
+ * <p>Nodes that are produced by the expansion of an entity reference
+ * get an empty region at the position of the reference.
+ */
+class XmlTreeBuilder extends DefaultHandler2 {
+
+    private final XmlParserImpl parser;
+    private final Chars text;
+    private final int[] lineOffsets;
+    private final Document document;
+    private final @Nullable DocumentType internalSubsetDoctype;
+    private final Deque<XmlNodeWrapper> openNodes = new ArrayDeque<>();
+
+    private Locator locator;
+
+    /** End offset of the last markup event. */
+    private int lastEnd;
+    private final StringBuilder pendingText = new StringBuilder();
+    private int pendingTextStart;
+    private StringBuilder pendingCdata;
+    private int pendingCdataStart;
+
+    private boolean inDtd;
+    private int entityDepth;
+
+    /**
+     * @param internalSubsetDoctype Detached doctype node of the document,
+     *                              if it has an internal subset, see {@link XmlParserImpl}
+     */
+    XmlTreeBuilder(XmlParserImpl parser, RootXmlNode root, Chars text, @Nullable DocumentType internalSubsetDoctype) {
+        this.parser = parser;
+        this.text = text;
+        this.lineOffsets = computeLineOffsets(text);
+        this.document = root.getNode();
+        this.internalSubsetDoctype = internalSubsetDoctype;
+        root.startOffset = 0;
+        root.endOffset = 0;
+        openNodes.push(root);
+        // the XML declaration is not reported as a processing instruction
+        if (text.startsWith("<?xml") && text.length() > 5 && Character.isWhitespace(text.charAt(5))) {
+            int declEnd = text.indexOf("?>", 0);
+            lastEnd = declEnd < 0 ? 0 : declEnd + 2;
+        }
+    }
+
+    private static int[] computeLineOffsets(Chars text) {
+        int numLines = 1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n')) {
+                numLines++;
+            }
+        }
+        int[] offsets = new int[numLines];
+        int line = 1;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' && (i + 1 == text.length() || text.charAt(i + 1) != '\n')) {
+                offsets[line++] = i + 1;
+            }
+        }
+        return offsets;
+    }
+
+    /** Offset of the current position of the locator. */
+    private int position() {
+        if (entityDepth > 0 || locator == null) {
+            return lastEnd;
+        }
+        int line = locator.getLineNumber();
+        int column = locator.getColumnNumber();
+        if (line < 1 || line > lineOffsets.length || column < 1) {
+            return lastEnd;
+        }
+        return Math.max(lastEnd, Math.min(lineOffsets[line - 1] + column - 1, text.length()));
+    }
+
+    /** Start offset of the markup event that ends at the given offset. */
+    private int markupStart(int end) {
+        if (entityDepth > 0) {
+            return lastEnd;
+        }
+        int start = text.indexOf('<', lastEnd);
+        return start < 0 || start > end ? lastEnd : start;
+    }
+
+    private XmlNodeWrapper append(Node domNode, int start, int end) {
+        openNodes.peek().getNode().appendChild(domNode);
+        XmlNodeWrapper wrapper = new XmlNodeWrapper(parser, domNode);
+        wrapper.startOffset = start;
+        setEnd(wrapper, end);
+        return wrapper;
+    }
+
+    /** Sets the end of the node, given the offset following its last character. */
+    private static void setEnd(XmlNodeWrapper wrapper, int end) {
+        wrapper.endOffset = Math.max(wrapper.startOffset, end - 1);
+    }
+
+    private void flushText(int end) {
+        if (pendingText.length() > 0) {
+            append(document.createTextNode(pendingText.toString()), pendingTextStart, end);
+            pendingText.setLength(0);
+        }
+    }
+
+    @Override
+    public void setDocumentLocator(Locator locator) {
+        this.locator = locator;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) {
+        int end = position();
+        int start = markupStart(end);
+        flushText(start);
+
+        Element element = document.createElementNS(uri.isEmpty() ? null : uri, qName);
+        for (int i = 0; i < attributes.getLength(); i++) {
+            String attrName = attributes.getQName(i);
+            String attrUri = attributes.getURI(i);
+            if ("xmlns".equals(attrName) || attrName.startsWith("xmlns:")) {
+                attrUri = XMLConstants.XMLNS_ATTRIBUTE_NS_URI;
+            }
+            element.setAttributeNS(attrUri.isEmpty() ? null : attrUri, attrName, attributes.getValue(i));
+        }
+
+        openNodes.push(append(element, start, end));
+        lastEnd = end;
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) {
+        int end = position();
+        if (pendingText.length() > 0) {
+            flushText(markupStart(end));
+        }
+        // for an empty element <a/>, this is the end of the start tag
+        setEnd(openNodes.pop(), end);
+        lastEnd = end;
+    }
+
+    @Override
+    public void endDocument() {
+        // the document ends with its last node
+        XmlNodeWrapper root = openNodes.peek();
+        int numChildren = root.getNumChildren();
+        if (numChildren > 0) {
+            root.endOffset = ((XmlNodeWrapper) root.getChild(numChildren - 1)).endOffset;
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (pendingCdata != null) {
+            pendingCdata.append(ch, start, length);
+            return;
+        }
+        if (pendingText.length() == 0) {
+            pendingTextStart = lastEnd;
+        }
+        pendingText.append(ch, start, length);
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) {
+        // whitespace is preserved as text
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void processingInstruction(String target, String data) {
+        if (inDtd) {
+            return;
+        }
+        int end = position();
+        int start = markupStart(end);
+        flushText(start);
+        append(document.createProcessingInstruction(target, data), start, end);
+        lastEnd = end;
+    }
+
+    @Override
+    public void comment(char[] ch, int start, int length) {
+        if (inDtd) {
+            return;
+        }
+        int end = position();
+        int begin = markupStart(end);
+        flushText(begin);
+        append(document.createComment(new String(ch, start, length)), begin, end);
+        lastEnd = end;
+    }
+
+    @Override
+    public void startCDATA() {
+        pendingCdataStart = markupStart(position());
+        flushText(pendingCdataStart);
+        pendingCdata = new StringBuilder();
+    }
+
+    @Override
+    public void endCDATA() {
+        int end = position();
+        append(document.createCDATASection(pendingCdata.toString()), pendingCdataStart, end);
+        pendingCdata = null;
+        lastEnd = end;
+    }
+
+    @Override
+    public void startDTD(String name, String publicId, String systemId) {
+        int start = markupStart(text.length());
+        int end = doctypeEnd(text, start);
+        DocumentType doctype = internalSubsetDoctype != null
+                               ? internalSubsetDoctype
+                               : document.getImplementation().createDocumentType(name, publicId, systemId);
+        append(doctype, start, end);
+        lastEnd = end;
+        inDtd = true;
+    }
+
+    @Override
+    public void endDTD() {
+        inDtd = false;
+    }
+
+    /**
+     * The locator is not reliable at the end of the DTD (it may point
+     * into the external subset), so find the closing {@code >} of the
+     * doctype declaration, skipping over the internal subset.
+     */
+    static int doctypeEnd(Chars text, int start) {
+        int bracketDepth = 0;
+        char quote = 0;
+        int i = start + "<!DOCTYPE".length();
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '<' && text.startsWith("<!--", i)) {
+                int endComment = text.indexOf("-->", i);
+                if (endComment < 0) {
+                    break;
+                }
+                i = endComment + 2;
+            } else if (c == '[') {
+                bracketDepth++;
+            } else if (c == ']') {
+                bracketDepth--;
+            } else if (c == '>' && bracketDepth <= 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return text.length();
+    }
+
+    /**
+     * Returns the offset of the doctype declaration, or -1 if there is
+     * none. It can only be preceded by the XML declaration, comments,
+     * processing instructions and whitespace.
+     */
+    static int doctypeStart(Chars text) {
+        int i = 0;
+        while (i < text.length()) {
+            if (Character.isWhitespace(text.charAt(i))) {
+                i++;
+            } else if (text.startsWith("<!--", i)) {
+                int end = text.indexOf("-->", i);
+                if (end < 0) {
+                    return -1;
+                }
+                i = end + 3;
+            } else if (text.startsWith("<?", i)) {
+                int end = text.indexOf("?>", i);
+                if (end < 0) {
+                    return -1;
+                }
+                i = end + 2;
+            } else {
+                return text.startsWith("<!DOCTYPE", i) ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public void startEntity(String name) {
+        if (!inDtd) {
+            entityDepth++;
+        }
+    }
+
+    @Override
+    public void endEntity(String name) {
+        if (!inDtd) {
+            entityDepth--;
+        }
+    }
+}
@@ -4,13 +4,19 @@
 
 package net.sourceforge.pmd.lang.xml.ast;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.DocumentType;
 
 import net.sourceforge.pmd.lang.test.ast.BaseParsingHelper;
 import net.sourceforge.pmd.lang.test.ast.BaseTreeDumpTest;
 import net.sourceforge.pmd.lang.test.ast.RelevantAttributePrinter;
 import net.sourceforge.pmd.lang.xml.XmlParsingHelper;
+import net.sourceforge.pmd.lang.xml.ast.internal.XmlParserImpl.RootXmlNode;
 
 class XmlParserTest extends BaseTreeDumpTest {
 
@@ -52,6 +58,25 @@ class XmlParserTest extends BaseTreeDumpTest {
                 + "<struts-config/>");
     }
 
+    @Test
+    void internalSubsetDeclarationsAreKept() {
+        RootXmlNode root = XmlParsingHelper.XML.parse(
+            "<!-- before the doctype -->\n"
+                + "<!DOCTYPE rootElement [\n"
+                + "  <!ENTITY pmd 'Copyright: PMD'>\n"
+                + "  <!NOTATION gif SYSTEM 'image/gif'>\n"
+                + "]>\n"
+                + "<rootElement>&pmd;</rootElement>");
+
+        DocumentType doctype = root.getNode().getDoctype();
+        assertNotNull(doctype);
+        assertSame(doctype, root.getChild(1).getNode());
+        assertEquals("rootElement", doctype.getName());
+        assertNotNull(doctype.getEntities().getNamedItem("pmd"));
+        assertNotNull(doctype.getNotations().getNamedItem("gif"));
+        assertEquals("Copyright: PMD", root.getNode().getDocumentElement().getTextContent());
+    }
+
     @Test
     void xsdIsNotLookedUp() {
         // no exception should be thrown